@@ -0,0 +1,239 @@
+package vn.clinic.cdm.common.ai;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import vn.clinic.cdm.entity.aiaudit.AiAuditLog;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Adaptive circuit breaker for the LLM provider.
+ * <p>
+ * Fed by the callers of the provider, it keeps a sliding window of the last
+ * call outcomes (transport and provider failures only; unparseable answers
+ * are counted apart) plus a latency window per feature, judged against that
+ * feature's own deadline. Streaming calls report time to first token. It
+ * moves between:
+ * <ul>
+ * <li>CLOSED - everything passes;</li>
+ * <li>DEGRADED - error rate or a feature's p95 latency elevated: LOW priority features
+ * (e.g. OPERATIONAL_INSIGHT) are shed;</li>
+ * <li>OPEN - provider considered down: every call gets its fallback
+ * immediately;</li>
+ * <li>HALF_OPEN - after the open period, a few probe calls decide whether
+ * to close again or re-open.</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class AiCircuitBreaker {
+
+    public enum State { CLOSED, DEGRADED, OPEN, HALF_OPEN }
+
+    public enum Priority { CRITICAL, NORMAL, LOW }
+
+    private final AiExecutionProperties properties;
+    private final AiExecutionProperties.CircuitBreaker settings;
+    private final MeterRegistry meterRegistry;
+
+    private final boolean[] failures;
+    private final Map<AiAuditLog.AiFeatureType, LatencyWindow> latencies = new EnumMap<>(AiAuditLog.AiFeatureType.class);
+    private int size;
+    private int next;
+
+    private State state = State.CLOSED;
+    private long stateSince = System.currentTimeMillis();
+    private int probesIssued;
+    private int probeSuccesses;
+
+    public AiCircuitBreaker(AiExecutionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.settings = properties.getCircuitBreaker();
+        this.meterRegistry = meterRegistry;
+        this.failures = new boolean[settings.getWindowSize()];
+        Gauge.builder("cdm.ai.circuit.state", this, b -> b.getState().ordinal())
+                .description("0=CLOSED, 1=DEGRADED, 2=OPEN, 3=HALF_OPEN")
+                .register(meterRegistry);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Whether a call of this feature may go to the provider right now.
+     */
+    public boolean tryAcquirePermission(AiAuditLog.AiFeatureType feature) {
+        if (!settings.isEnabled()) return true;
+        boolean permitted;
+        State current;
+        synchronized (this) {
+            Priority priority = settings.priorityOf(feature);
+            long now = System.currentTimeMillis();
+            if (state == State.OPEN && now - stateSince >= settings.getOpenDuration().toMillis()) {
+                transition(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN && probesIssued >= settings.getHalfOpenProbes()
+                    && now - stateSince >= settings.getOpenDuration().toMillis()) {
+                // Probes never reported back (cancelled/lost): allow a fresh round
+                transition(State.HALF_OPEN);
+            }
+            permitted = switch (state) {
+                case CLOSED -> true;
+                case DEGRADED -> priority != Priority.LOW;
+                case OPEN -> false;
+                case HALF_OPEN -> {
+                    if (priority == Priority.LOW || probesIssued >= settings.getHalfOpenProbes()) yield false;
+                    probesIssued++;
+                    yield true;
+                }
+            };
+            current = state;
+        }
+        if (!permitted) {
+            meterRegistry.counter("cdm.ai.shed", "feature", feature.name(), "state", current.name()).increment();
+        }
+        return permitted;
+    }
+
+    /**
+     * The provider answered: {@code latencyMs} is the full round trip of a
+     * blocking call, or the time to first token of a streaming call.
+     */
+    public void onSuccess(AiAuditLog.AiFeatureType feature, long latencyMs) {
+        onOutcome(feature, true, latencyMs);
+    }
+
+    /**
+     * Transport error, provider error or deadline exceeded. Cancellations by
+     * the caller are not provider failures and are not reported.
+     */
+    public void onFailure(AiAuditLog.AiFeatureType feature) {
+        onOutcome(feature, false, -1);
+    }
+
+    /**
+     * The provider answered (already reported through {@link #onSuccess}) but
+     * the response did not parse. Counted on its own so prompt or schema
+     * problems never open the circuit.
+     */
+    public void onParseError(AiAuditLog.AiFeatureType feature) {
+        meterRegistry.counter("cdm.ai.parse_errors", "feature", feature.name()).increment();
+    }
+
+    private synchronized void onOutcome(AiAuditLog.AiFeatureType feature, boolean success, long latencyMs) {
+        if (!settings.isEnabled()) return;
+        switch (state) {
+            case OPEN -> {
+                return; // late results of calls issued before tripping
+            }
+            case HALF_OPEN -> {
+                if (!success) {
+                    transition(State.OPEN);
+                } else if (++probeSuccesses >= settings.getHalfOpenProbes()) {
+                    resetWindows();
+                    transition(State.CLOSED);
+                }
+                return;
+            }
+            default -> {
+            }
+        }
+
+        failures[next] = !success;
+        next = (next + 1) % failures.length;
+        size = Math.min(size + 1, failures.length);
+        if (latencyMs >= 0) {
+            latencies.computeIfAbsent(feature, f -> new LatencyWindow(settings.getWindowSize())).add(latencyMs);
+        }
+        if (size < settings.getMinimumCalls()) return;
+
+        double failureRate = failureRate();
+        SlowFeature slowest = slowestFeature();
+        if (failureRate >= settings.getFailureRateThreshold() || slowest.ratio() >= settings.getSlowCallP95Ratio()) {
+            log.warn("AI circuit OPEN: failureRate={}, p95 of {}={}ms", String.format("%.2f", failureRate),
+                    slowest.feature(), slowest.p95());
+            transition(State.OPEN);
+        } else if (failureRate >= settings.getDegradedFailureRate()
+                || slowest.ratio() >= settings.getDegradedP95Ratio()) {
+            transition(State.DEGRADED);
+        } else {
+            transition(State.CLOSED);
+        }
+    }
+
+    /**
+     * The feature whose p95 is closest to its own deadline. Each feature is
+     * judged against its timeout, so long generations (care plans) do not
+     * read as a slow provider for short calls; features with fewer than
+     * {@code minimum-calls} samples are not judged yet.
+     */
+    private SlowFeature slowestFeature() {
+        SlowFeature slowest = new SlowFeature(null, 0, 0);
+        for (Map.Entry<AiAuditLog.AiFeatureType, LatencyWindow> entry : latencies.entrySet()) {
+            LatencyWindow window = entry.getValue();
+            if (window.size < settings.getMinimumCalls()) continue;
+            long p95 = window.percentile(0.95);
+            double ratio = (double) p95 / Math.max(1, properties.timeoutFor(entry.getKey()).toMillis());
+            if (ratio > slowest.ratio()) slowest = new SlowFeature(entry.getKey(), p95, ratio);
+        }
+        return slowest;
+    }
+
+    private void transition(State target) {
+        if (state != target) {
+            log.info("AI circuit {} -> {}", state, target);
+        }
+        if (state != target || target == State.HALF_OPEN) {
+            stateSince = System.currentTimeMillis();
+            probesIssued = 0;
+            probeSuccesses = 0;
+        }
+        state = target;
+    }
+
+    private void resetWindows() {
+        size = 0;
+        next = 0;
+        latencies.clear();
+    }
+
+    private double failureRate() {
+        int failed = 0;
+        for (int i = 0; i < size; i++) {
+            if (failures[i]) failed++;
+        }
+        return (double) failed / size;
+    }
+
+    private record SlowFeature(AiAuditLog.AiFeatureType feature, long p95, double ratio) {
+    }
+
+    /** Ring buffer of the last latency samples of one feature. */
+    private static final class LatencyWindow {
+        private final long[] samples;
+        private int size;
+        private int next;
+
+        LatencyWindow(int capacity) {
+            samples = new long[capacity];
+        }
+
+        void add(long latencyMs) {
+            samples[next] = latencyMs;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+        }
+
+        long percentile(double p) {
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(p * size) - 1;
+            return sorted[Math.max(0, Math.min(index, size - 1))];
+        }
+    }
+}
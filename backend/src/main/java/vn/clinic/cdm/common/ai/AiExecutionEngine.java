@@ -1,21 +1,58 @@
 package vn.clinic.cdm.common.ai;
 
 import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
+import vn.clinic.cdm.common.tenant.TenantContext;
+import vn.clinic.cdm.config.AsyncConfig;
 import vn.clinic.cdm.entity.aiaudit.AiAuditLog;
 import vn.clinic.cdm.dto.ai.AiAuditRequest;
 import vn.clinic.cdm.service.aiaudit.AiAuditService;
 import vn.clinic.cdm.common.util.JsonUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 /**
  * Enterprise AI Execution Engine.
  * Encapsulates the standard AI interaction lifecycle:
  * Rate Limiting -> Execution -> Auditing -> Parsing -> Error Handling.
+ * <p>
+ * Model calls run on a bounded worker pool behind a per-feature bulkhead
+ * (semaphore) and a configurable deadline. A full bulkhead, a timeout or a
+ * cancelled caller all resolve to the feature's fallback; timed-out and
+ * cancelled calls interrupt the worker.
+ * Features with highly repetitive prompts are answered from {@link AiResponseCache}.
+ * {@link AiCircuitBreaker} sheds calls (lowest priority first) while the
+ * provider is degraded or down.
  */
 @Component
 @RequiredArgsConstructor
@@ -24,62 +61,354 @@ public class AiExecutionEngine {
 
     private final ChatLanguageModel chatModel;
     private final AiAuditService aiAuditService;
+    private final AiExecutionProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final AiResponseCache responseCache;
+    private final AiCircuitBreaker circuitBreaker;
+
+    @Autowired(required = false)
+    private StreamingChatLanguageModel streamingChatModel;
+
+    private final Map<AiAuditLog.AiFeatureType, Semaphore> bulkheads = new ConcurrentHashMap<>();
+    private final Map<String, InFlightCall> inFlight = new ConcurrentHashMap<>();
+    private ThreadPoolTaskExecutor executor;
+
+    @PostConstruct
+    void initExecutor() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getPoolSize());
+        executor.setMaxPoolSize(properties.getPoolSize());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("Ai-Exec-");
+        executor.setTaskDecorator(new AsyncConfig.ContextCopyingDecorator());
+        executor.initialize();
+    }
+
+    @PreDestroy
+    void shutdownExecutor() {
+        executor.shutdown();
+    }
 
     /**
      * Executes a chat model request with full auditing and error handling.
      */
     public <T> T execute(AiAuditLog.AiFeatureType feature, UUID patientId, String prompt, Class<T> responseType, Supplier<T> fallback) {
-        if (chatModel == null) return fallback.get();
+        return executeAsync(feature, patientId, prompt, responseType, fallback).join();
+    }
+
+    /**
+     * Simple string response execution.
+     */
+    public String executeText(AiAuditLog.AiFeatureType feature, UUID patientId, String prompt, String fallbackValue) {
+        return executeTextAsync(feature, patientId, prompt, fallbackValue).join();
+    }
+
+    public CompletableFuture<String> executeTextAsync(AiAuditLog.AiFeatureType feature, UUID patientId, String prompt, String fallbackValue) {
+        return executeAsync(feature, patientId, prompt, String.class, () -> fallbackValue);
+    }
+
+    /**
+     * Non-blocking execution. The returned future always completes normally
+     * (with the fallback on failure); cancelling it aborts the model call once
+     * no other caller is waiting on it.
+     * <p>
+     * Concurrent calls with the same feature, response type and prompt are
+     * coalesced into a single upstream request whose result is shared.
+     */
+    public <T> CompletableFuture<T> executeAsync(AiAuditLog.AiFeatureType feature, UUID patientId, String prompt,
+            Class<T> responseType, Supplier<T> fallback) {
+        if (chatModel == null) return CompletableFuture.completedFuture(fallback.get());
+
+        if (responseCache.supports(feature)) {
+            var cached = responseCache.get(TenantContext.getTenantId().orElse(null), feature, prompt);
+            if (cached.isPresent()) {
+                try {
+                    return CompletableFuture.completedFuture(parseResponse(cached.get(), responseType));
+                } catch (Exception e) {
+                    log.warn("Ignoring unparseable cached response for [{}]: {}", feature, e.getMessage());
+                }
+            }
+        }
+
+        if (!circuitBreaker.tryAcquirePermission(feature)) {
+            log.warn("AI Feature [{}] shed by circuit breaker ({})", feature, circuitBreaker.getState());
+            return CompletableFuture.completedFuture(fallback.get());
+        }
+
+        String key = feature.name() + ":" + responseType.getName() + ":" + promptHash(prompt);
+        boolean[] leader = { false };
+        InFlightCall flight = inFlight.compute(key, (k, existing) -> {
+            if (existing != null && !existing.outcome.isDone()) {
+                existing.subscribers.incrementAndGet();
+                return existing;
+            }
+            leader[0] = true;
+            return new InFlightCall();
+        });
+
+        if (leader[0]) {
+            startCall(key, flight, feature, patientId, prompt, responseType);
+        } else {
+            log.debug("AI Feature [{}] coalesced with an in-flight identical request", feature);
+            meterRegistry.counter("cdm.ai.coalesced", "feature", feature.name()).increment();
+        }
+
+        CompletableFuture<T> result = flight.outcome.handle((value, ex) -> ex == null ? responseType.cast(value) : fallback.get());
+        result.whenComplete((r, ex) -> {
+            if (result.isCancelled()) unsubscribe(key, flight);
+        });
+        return result;
+    }
+
+    private void startCall(String key, InFlightCall flight, AiAuditLog.AiFeatureType feature, UUID patientId,
+            String prompt, Class<?> responseType) {
+        CompletableFuture<Object> outcome = flight.outcome;
+        outcome.whenComplete((r, ex) -> inFlight.remove(key, flight));
+
+        Semaphore bulkhead = acquireBulkhead(feature);
+        if (bulkhead == null) {
+            outcome.completeExceptionally(new RejectedExecutionException("Bulkhead full"));
+            return;
+        }
 
-        long startTime = System.currentTimeMillis();
+        CallScope scope = CallScope.capture();
+        AtomicBoolean started = new AtomicBoolean();
+        Future<?> task;
         try {
-            log.info("Executing AI Feature [{}]: patientId={}", feature, patientId);
-            String rawResponse = chatModel.chat(prompt);
-            
-            T result = parseResponse(rawResponse, responseType);
-
-            recordAudit(feature, patientId, prompt, rawResponse, startTime, "SUCCESS", null);
-            return result;
-        } catch (Exception e) {
-            log.error("AI Feature [{}] failed: {}", feature, e.getMessage());
-            recordAudit(feature, patientId, prompt, null, startTime, "FAILED", e.getMessage());
-            return fallback.get();
+            task = executor.submit(() -> {
+                if (!started.compareAndSet(false, true)) return; // cancelled while queued
+                String rawResponse = null;
+                try {
+                    log.info("Executing AI Feature [{}]: patientId={}", feature, patientId);
+                    rawResponse = chatModel.chat(prompt);
+                    if (!outcome.isDone()) {
+                        circuitBreaker.onSuccess(feature, System.currentTimeMillis() - scope.startTime());
+                    }
+                    Object parsed;
+                    try {
+                        parsed = parseResponse(rawResponse, responseType);
+                    } catch (Exception e) {
+                        circuitBreaker.onParseError(feature);
+                        throw e;
+                    }
+                    if (outcome.complete(parsed)) {
+                        recordAudit(feature, patientId, scope, prompt, rawResponse, "SUCCESS", null);
+                        if (responseCache.supports(feature)) responseCache.put(scope.tenantId(), feature, prompt, rawResponse);
+                    }
+                } catch (Throwable t) {
+                    if (outcome.completeExceptionally(t)) {
+                        if (rawResponse == null) circuitBreaker.onFailure(feature);
+                        log.error("AI Feature [{}] failed: {}", feature, t.getMessage());
+                        recordAudit(feature, patientId, scope, prompt, rawResponse, "FAILED", t.getMessage());
+                    }
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            bulkhead.release();
+            log.warn("AI Feature [{}] rejected: executor saturated", feature);
+            meterRegistry.counter("cdm.ai.rejected", "feature", feature.name(), "reason", "queue").increment();
+            outcome.completeExceptionally(e);
+            return;
         }
+
+        long timeoutMs = properties.timeoutFor(feature).toMillis();
+        outcome.orTimeout(timeoutMs, TimeUnit.MILLISECONDS).whenComplete((r, ex) -> {
+            if (ex != null && !task.isDone()) task.cancel(true);
+            if (started.compareAndSet(false, true)) bulkhead.release(); // never ran
+            if (ex instanceof TimeoutException || ex instanceof CancellationException) {
+                String error = ex instanceof TimeoutException ? "Timeout after " + timeoutMs + "ms" : "Cancelled";
+                if (ex instanceof TimeoutException) circuitBreaker.onFailure(feature);
+                log.error("AI Feature [{}] failed: {}", feature, error);
+                // Runs on the CompletableFuture delayer thread: tenant comes from the captured scope
+                recordAudit(feature, patientId, scope, prompt, null, "FAILED", error);
+            }
+        });
     }
 
     /**
-     * Simple string response execution.
+     * A cancelled caller leaves the shared call; the last one out aborts it.
      */
-    public String executeText(AiAuditLog.AiFeatureType feature, UUID patientId, String prompt, String fallbackValue) {
-        if (chatModel == null) return fallbackValue;
+    private void unsubscribe(String key, InFlightCall flight) {
+        boolean[] abandoned = { false };
+        inFlight.computeIfPresent(key, (k, current) -> {
+            if (current != flight || current.subscribers.decrementAndGet() > 0) return current;
+            abandoned[0] = true;
+            return null;
+        });
+        if (abandoned[0]) flight.outcome.cancel(true);
+    }
 
-        long startTime = System.currentTimeMillis();
+    private static String promptHash(String prompt) {
         try {
-            String res = chatModel.chat(prompt);
-            recordAudit(feature, patientId, prompt, res, startTime, "SUCCESS", null);
-            return res;
-        } catch (Exception e) {
-            log.error("AI Text Feature [{}] failed: {}", feature, e.getMessage());
-            recordAudit(feature, patientId, prompt, null, startTime, "FAILED", e.getMessage());
-            return fallbackValue;
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(prompt.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 
+    /**
+     * Streaming variant of {@link #executeText}: partial tokens are pushed to
+     * {@code onToken} as the model produces them. The returned future holds the
+     * full text (or the fallback, which is also pushed as a single token) and
+     * the audit entry records the full response and total latency.
+     * A timeout or a cancelled result aborts the upstream generation.
+     * Without a streaming model the whole response is delivered as one token.
+     */
+    public CompletableFuture<String> executeTextStream(AiAuditLog.AiFeatureType feature, UUID patientId, String prompt,
+            String fallbackValue, Consumer<String> onToken) {
+        if (streamingChatModel == null) {
+            return executeTextAsync(feature, patientId, prompt, fallbackValue).thenApply(text -> {
+                onToken.accept(text);
+                return text;
+            });
+        }
+
+        if (!circuitBreaker.tryAcquirePermission(feature)) {
+            log.warn("AI Streaming Feature [{}] shed by circuit breaker ({})", feature, circuitBreaker.getState());
+            onToken.accept(fallbackValue);
+            return CompletableFuture.completedFuture(fallbackValue);
+        }
+
+        Semaphore bulkhead = acquireBulkhead(feature);
+        if (bulkhead == null) {
+            onToken.accept(fallbackValue);
+            return CompletableFuture.completedFuture(fallbackValue);
+        }
+
+        CallScope scope = CallScope.capture();
+        long timeoutMs = properties.timeoutFor(feature).toMillis();
+        CompletableFuture<String> stream = new CompletableFuture<>();
+        StringBuilder fullText = new StringBuilder();
+        AtomicLong firstTokenAt = new AtomicLong();
+        StreamingChatResponseHandler handler = new StreamingChatResponseHandler() {
+            @Override
+            public void onPartialResponse(String partialResponse) {
+                if (stream.isDone()) {
+                    // Timed out or cancelled: throwing aborts the provider's read loop
+                    throw new CancellationException("AI stream abandoned");
+                }
+                firstTokenAt.compareAndSet(0, System.currentTimeMillis());
+                synchronized (fullText) {
+                    fullText.append(partialResponse);
+                }
+                onToken.accept(partialResponse);
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                synchronized (fullText) {
+                    stream.complete(fullText.toString());
+                }
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                stream.completeExceptionally(error);
+            }
+        };
+        try {
+            log.info("Streaming AI Feature [{}]: patientId={}", feature, patientId);
+            // On the worker pool so a provider that reads the stream on the calling thread can be interrupted
+            Future<?> upstream = executor.submit(() -> {
+                try {
+                    streamingChatModel.chat(prompt, handler);
+                } catch (RuntimeException e) {
+                    stream.completeExceptionally(e);
+                }
+            });
+            stream.whenComplete((text, ex) -> {
+                if (ex != null) upstream.cancel(true);
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("AI Streaming Feature [{}] rejected: executor saturated", feature);
+            meterRegistry.counter("cdm.ai.rejected", "feature", feature.name(), "reason", "queue").increment();
+            stream.completeExceptionally(e);
+        }
+
+        CompletableFuture<String> result = stream.orTimeout(timeoutMs, TimeUnit.MILLISECONDS).handle((text, ex) -> {
+            bulkhead.release();
+            // The breaker judges time to first token: total time measures how long the answer is
+            long firstToken = firstTokenAt.get();
+            long ttft = (firstToken > 0 ? firstToken : System.currentTimeMillis()) - scope.startTime();
+            if (ex == null) {
+                circuitBreaker.onSuccess(feature, ttft);
+                recordAudit(feature, patientId, scope, prompt, text, "SUCCESS", null);
+                return text;
+            }
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof TimeoutException && firstToken > 0) {
+                circuitBreaker.onSuccess(feature, ttft); // provider answered; the generation outran the deadline
+            } else if (!(cause instanceof CancellationException || cause instanceof RejectedExecutionException)) {
+                circuitBreaker.onFailure(feature);
+            }
+            String error = cause instanceof TimeoutException ? "Timeout after " + timeoutMs + "ms"
+                    : cause instanceof CancellationException ? "Cancelled" : cause.getMessage();
+            log.error("AI Streaming Feature [{}] failed: {}", feature, error);
+            String partial;
+            synchronized (fullText) {
+                partial = fullText.length() > 0 ? fullText.toString() : null;
+            }
+            recordAudit(feature, patientId, scope, prompt, partial, "FAILED", error);
+            if (partial == null) onToken.accept(fallbackValue);
+            return partial != null ? partial : fallbackValue;
+        });
+        result.whenComplete((r, ex) -> {
+            if (result.isCancelled()) stream.cancel(true);
+        });
+        return result;
+    }
+
+    private Semaphore acquireBulkhead(AiAuditLog.AiFeatureType feature) {
+        Semaphore bulkhead = bulkheads.computeIfAbsent(feature, f -> new Semaphore(properties.maxConcurrentFor(f)));
+        if (!bulkhead.tryAcquire()) {
+            log.warn("AI Feature [{}] rejected: bulkhead full", feature);
+            meterRegistry.counter("cdm.ai.rejected", "feature", feature.name(), "reason", "bulkhead").increment();
+            return null;
+        }
+        return bulkhead;
+    }
+
     private <T> T parseResponse(String raw, Class<T> type) throws Exception {
         if (type == String.class) return type.cast(raw);
         return JsonUtils.fromJson(JsonUtils.extractJson(raw), type);
     }
 
-    private void recordAudit(AiAuditLog.AiFeatureType feature, UUID patientId, String prompt, String response, long startTime, String status, String error) {
+    private void recordAudit(AiAuditLog.AiFeatureType feature, UUID patientId, CallScope scope, String prompt,
+            String response, String status, String error) {
         aiAuditService.recordInteraction(new AiAuditRequest(
-                feature, 
-                patientId, 
-                null, 
-                prompt, 
-                response, 
-                System.currentTimeMillis() - startTime, 
-                status, 
+                scope.tenantId(),
+                scope.branchId(),
+                feature,
+                patientId,
+                null,
+                prompt,
+                response,
+                System.currentTimeMillis() - scope.startTime(),
+                status,
                 error
         ));
     }
+
+    /**
+     * Tenant, branch and start time of a call, captured on the caller's
+     * thread: completions run on model, worker or timer threads that carry no
+     * tenant context.
+     */
+    private record CallScope(UUID tenantId, UUID branchId, long startTime) {
+        static CallScope capture() {
+            return new CallScope(TenantContext.getTenantId().orElse(null), TenantContext.getBranchId().orElse(null),
+                    System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * One upstream model call shared by every concurrent identical request.
+     */
+    private static final class InFlightCall {
+        private final CompletableFuture<Object> outcome = new CompletableFuture<>();
+        private final AtomicInteger subscribers = new AtomicInteger(1);
+    }
 }
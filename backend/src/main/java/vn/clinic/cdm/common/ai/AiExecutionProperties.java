@@ -0,0 +1,101 @@
+package vn.clinic.cdm.common.ai;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import vn.clinic.cdm.entity.aiaudit.AiAuditLog;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Execution limits of the AI engine: worker pool, default deadline and
+ * per-feature bulkheads (max concurrent calls) with optional overrides.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "cdm.ai.execution")
+public class AiExecutionProperties {
+
+    private int poolSize = 16;
+    private int queueCapacity = 100;
+    private Duration defaultTimeout = Duration.ofSeconds(20);
+    private int defaultMaxConcurrent = 8;
+    private Map<AiAuditLog.AiFeatureType, FeatureLimit> features = new EnumMap<>(AiAuditLog.AiFeatureType.class);
+    private ResponseCache responseCache = new ResponseCache();
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    public Duration timeoutFor(AiAuditLog.AiFeatureType feature) {
+        FeatureLimit limit = features.get(feature);
+        return limit != null && limit.getTimeout() != null ? limit.getTimeout() : defaultTimeout;
+    }
+
+    public int maxConcurrentFor(AiAuditLog.AiFeatureType feature) {
+        FeatureLimit limit = features.get(feature);
+        return limit != null && limit.getMaxConcurrent() != null ? limit.getMaxConcurrent() : defaultMaxConcurrent;
+    }
+
+    /**
+     * Persistent prompt/response cache for features whose prompts repeat
+     * across patients (ICD-10 coding of a diagnosis string). Features whose
+     * prompts embed the patient context almost never hit and would only
+     * persist PHI, so they should stay off this list.
+     */
+    @Getter
+    @Setter
+    public static class ResponseCache {
+        private boolean enabled = true;
+        private Set<AiAuditLog.AiFeatureType> features = EnumSet.of(AiAuditLog.AiFeatureType.ICD10_CODING);
+        private long warmSize = 2_000;
+        private Duration warmTtl = Duration.ofHours(1);
+        private long maxEntries = 50_000;
+        private Duration maxIdle = Duration.ofDays(30);
+    }
+
+    /**
+     * Provider-wide breaker fed by call outcomes. DEGRADED thresholds shed
+     * LOW priority features only; OPEN thresholds shed everything until the
+     * half-open probes succeed. Latency thresholds are fractions of each
+     * feature's timeout (0.4 / 0.75 of the 20s default = 8s / 15s).
+     */
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+        private boolean enabled = true;
+        private int windowSize = 100;
+        private int minimumCalls = 20;
+        private double failureRateThreshold = 0.5;
+        private double slowCallP95Ratio = 0.75;
+        private double degradedFailureRate = 0.2;
+        private double degradedP95Ratio = 0.4;
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int halfOpenProbes = 3;
+        private Map<AiAuditLog.AiFeatureType, AiCircuitBreaker.Priority> priorities = defaultPriorities();
+
+        private static Map<AiAuditLog.AiFeatureType, AiCircuitBreaker.Priority> defaultPriorities() {
+            Map<AiAuditLog.AiFeatureType, AiCircuitBreaker.Priority> map = new EnumMap<>(AiAuditLog.AiFeatureType.class);
+            map.put(AiAuditLog.AiFeatureType.TRIAGE, AiCircuitBreaker.Priority.CRITICAL);
+            map.put(AiAuditLog.AiFeatureType.CDS, AiCircuitBreaker.Priority.CRITICAL);
+            map.put(AiAuditLog.AiFeatureType.PRESCRIPTION_VERIFY, AiCircuitBreaker.Priority.CRITICAL);
+            map.put(AiAuditLog.AiFeatureType.CLINICAL_SUPPORT, AiCircuitBreaker.Priority.CRITICAL);
+            map.put(AiAuditLog.AiFeatureType.OPERATIONAL_INSIGHT, AiCircuitBreaker.Priority.LOW);
+            return map;
+        }
+
+        public AiCircuitBreaker.Priority priorityOf(AiAuditLog.AiFeatureType feature) {
+            return priorities.getOrDefault(feature, AiCircuitBreaker.Priority.NORMAL);
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class FeatureLimit {
+        private Duration timeout;
+        private Integer maxConcurrent;
+    }
+}
@@ -0,0 +1,43 @@
+package vn.clinic.cdm.common.ai;
+
+/**
+ * Fixed-bucket latency histogram shared by the AI usage rollups
+ * (ai_usage_rollup.latency_histogram). The last bucket is open-ended.
+ */
+public final class AiLatencyHistogram {
+
+    public static final long[] UPPER_BOUNDS_MS = {
+            100, 250, 500, 1_000, 2_000, 3_000, 5_000, 8_000, 12_000, 20_000, 30_000, 60_000 };
+
+    public static final int BUCKETS = UPPER_BOUNDS_MS.length + 1;
+
+    private AiLatencyHistogram() {
+    }
+
+    public static int bucketOf(long latencyMs) {
+        for (int i = 0; i < UPPER_BOUNDS_MS.length; i++) {
+            if (latencyMs <= UPPER_BOUNDS_MS[i]) return i;
+        }
+        return UPPER_BOUNDS_MS.length;
+    }
+
+    /**
+     * Percentile estimate (upper bound of the bucket holding the p-th call);
+     * the open-ended bucket reports the last finite bound. 0 when empty.
+     */
+    public static long percentile(long[] counts, double p) {
+        long total = 0;
+        for (long c : counts) total += c;
+        if (total == 0) return 0;
+
+        long rank = (long) Math.ceil(p * total);
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return UPPER_BOUNDS_MS[Math.min(i, UPPER_BOUNDS_MS.length - 1)];
+            }
+        }
+        return UPPER_BOUNDS_MS[UPPER_BOUNDS_MS.length - 1];
+    }
+}
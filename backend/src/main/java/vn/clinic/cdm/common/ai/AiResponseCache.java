@@ -0,0 +1,130 @@
+package vn.clinic.cdm.common.ai;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import vn.clinic.cdm.entity.aiaudit.AiAuditLog;
+import vn.clinic.cdm.repository.aiaudit.AiResponseCacheRepository;
+import vn.clinic.cdm.service.clinical.impl.PromptRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Two-tier AI response cache: a Caffeine warm tier in front of the
+ * ai_response_cache table. Keys hash the tenant, the feature,
+ * PromptRegistry.VERSION and the normalized prompt, so responses are never
+ * shared across tenants and bumping the prompt version retires every entry.
+ * Calls without a tenant are not cached.
+ */
+@Component
+@Slf4j
+public class AiResponseCache {
+
+    private final AiResponseCacheRepository repository;
+    private final AiExecutionProperties.ResponseCache settings;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, String> warmTier;
+
+    public AiResponseCache(AiResponseCacheRepository repository, AiExecutionProperties properties,
+            MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.settings = properties.getResponseCache();
+        this.meterRegistry = meterRegistry;
+        this.warmTier = Caffeine.newBuilder()
+                .maximumSize(settings.getWarmSize())
+                .expireAfterWrite(settings.getWarmTtl())
+                .build();
+    }
+
+    public boolean supports(AiAuditLog.AiFeatureType feature) {
+        return settings.isEnabled() && settings.getFeatures().contains(feature);
+    }
+
+    public Optional<String> get(UUID tenantId, AiAuditLog.AiFeatureType feature, String prompt) {
+        if (tenantId == null) return Optional.empty();
+        String key = cacheKey(tenantId, feature, prompt);
+        String warm = warmTier.getIfPresent(key);
+        if (warm != null) {
+            count(feature, "memory");
+            return Optional.of(warm);
+        }
+        try {
+            Optional<String> stored = repository.findById(key).map(e -> e.getResponse());
+            if (stored.isPresent()) {
+                repository.recordHit(key, Instant.now());
+                warmTier.put(key, stored.get());
+                count(feature, "db");
+                return stored;
+            }
+        } catch (Exception e) {
+            log.warn("AI response cache lookup failed: {}", e.getMessage());
+        }
+        count(feature, "miss");
+        return Optional.empty();
+    }
+
+    public void put(UUID tenantId, AiAuditLog.AiFeatureType feature, String prompt, String response) {
+        if (tenantId == null || response == null || response.isBlank()) return;
+        String key = cacheKey(tenantId, feature, prompt);
+        warmTier.put(key, response);
+        try {
+            repository.upsert(key, tenantId, feature.name(), PromptRegistry.VERSION, response, Instant.now());
+        } catch (Exception e) {
+            log.warn("AI response cache write failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drops rows written under an older prompt version.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void purgeStaleVersions() {
+        int purged = repository.deleteByPromptVersionNot(PromptRegistry.VERSION);
+        if (purged > 0) {
+            log.info("Purged {} AI response cache entries of old prompt versions", purged);
+        }
+    }
+
+    /**
+     * Age- and size-based eviction of the persistent tier.
+     */
+    @Scheduled(cron = "0 30 * * * *")
+    public void evict() {
+        int idle = repository.deleteIdleSince(Instant.now().minus(settings.getMaxIdle()));
+        int overflow = repository.trimToSize(settings.getMaxEntries());
+        if (idle + overflow > 0) {
+            log.info("AI response cache eviction: {} idle, {} over capacity", idle, overflow);
+        }
+    }
+
+    static String normalize(String prompt) {
+        return prompt.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static String cacheKey(UUID tenantId, AiAuditLog.AiFeatureType feature, String prompt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((tenantId + "|" + feature.name() + "|" + PromptRegistry.VERSION + "|")
+                    .getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(normalize(prompt).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void count(AiAuditLog.AiFeatureType feature, String result) {
+        meterRegistry.counter("cdm.ai.response.cache", "feature", feature.name(), "result", result).increment();
+    }
+}
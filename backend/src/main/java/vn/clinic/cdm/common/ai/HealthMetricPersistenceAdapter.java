@@ -17,10 +17,13 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class HealthMetricPersistenceAdapter implements HealthMetricRepositoryPort {
 
+    /** Readings kept per metric type; older history is not needed by AI prompts. */
+    private static final int LATEST_PER_TYPE = 10;
+
     private final HealthMetricRepository repository;
 
     @Override
     public List<HealthMetric> findLatestMetricsByPatientId(UUID patientId) {
-        return repository.findByPatientIdOrderByRecordedAtDesc(patientId);
+        return repository.findRecentWindow(patientId, LATEST_PER_TYPE);
     }
 }
@@ -0,0 +1,49 @@
+package vn.clinic.cdm.common.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Rendered AI context per consultation, stored in the "patient_context" cache
+ * under consultation id + patient data version.
+ */
+@Component
+public class PatientContextCache {
+
+    private static final String CACHE_NAME = "patient_context";
+
+    private final Cache cache;
+    private final PatientDataVersionTracker versionTracker;
+    private final Counter hits;
+    private final Counter misses;
+
+    public PatientContextCache(CacheManager cacheManager, PatientDataVersionTracker versionTracker,
+            MeterRegistry meterRegistry) {
+        this.cache = cacheManager.getCache(CACHE_NAME);
+        this.versionTracker = versionTracker;
+        this.hits = Counter.builder("cdm.ai.context.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("cdm.ai.context.cache").tag("result", "miss").register(meterRegistry);
+    }
+
+    public String get(UUID consultationId, UUID patientId, Supplier<String> loader) {
+        if (cache == null || consultationId == null) {
+            return loader.get();
+        }
+        String key = consultationId + ":" + versionTracker.versionOf(patientId);
+        String cached = cache.get(key, String.class);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        String rendered = loader.get();
+        cache.put(key, rendered);
+        return rendered;
+    }
+}
@@ -0,0 +1,82 @@
+package vn.clinic.cdm.common.cache;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import vn.clinic.cdm.entity.clinical.ClinicalConsultation;
+import vn.clinic.cdm.entity.clinical.ClinicalVital;
+import vn.clinic.cdm.entity.clinical.HealthMetric;
+import vn.clinic.cdm.entity.clinical.LabResult;
+import vn.clinic.cdm.entity.clinical.MedicationSchedule;
+import vn.clinic.cdm.entity.clinical.Prescription;
+import vn.clinic.cdm.entity.patient.Patient;
+import vn.clinic.cdm.entity.patient.PatientChronicCondition;
+import vn.clinic.cdm.entity.patient.PatientVitalTarget;
+
+import java.util.UUID;
+
+/**
+ * JPA listener that bumps the patient data version whenever an entity feeding
+ * the AI clinical context is written. The bump joins the writing transaction
+ * (see {@link PatientDataVersionTracker}).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PatientDataChangeListener {
+
+    private final PatientDataVersionTracker versionTracker;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        String source = entity.getClass().getSimpleName();
+        UUID patientId;
+        try {
+            patientId = resolvePatientId(entity);
+        } catch (RuntimeException e) {
+            log.debug("Could not resolve patient of {}: {}", source, e.getMessage());
+            patientId = null;
+        }
+
+        versionTracker.invalidate(patientId, source);
+    }
+
+    private UUID resolvePatientId(Object entity) {
+        if (entity instanceof HealthMetric m) {
+            return idOf(m.getPatient());
+        }
+        if (entity instanceof ClinicalVital v) {
+            return v.getConsultation() != null ? idOf(v.getConsultation().getPatient()) : null;
+        }
+        if (entity instanceof LabResult l) {
+            return l.getConsultation() != null ? idOf(l.getConsultation().getPatient()) : null;
+        }
+        if (entity instanceof Prescription p) {
+            return idOf(p.getPatient());
+        }
+        if (entity instanceof MedicationSchedule s) {
+            return s.getMedication() != null && s.getMedication().getPrescription() != null
+                    ? idOf(s.getMedication().getPrescription().getPatient())
+                    : null;
+        }
+        if (entity instanceof ClinicalConsultation c) {
+            return idOf(c.getPatient());
+        }
+        if (entity instanceof PatientChronicCondition cc) {
+            return idOf(cc.getPatient());
+        }
+        if (entity instanceof PatientVitalTarget t) {
+            return idOf(t.getPatient());
+        }
+        return null;
+    }
+
+    private UUID idOf(Patient patient) {
+        return patient != null ? patient.getId() : null;
+    }
+}
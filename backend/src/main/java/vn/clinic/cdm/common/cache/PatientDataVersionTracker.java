@@ -0,0 +1,102 @@
+package vn.clinic.cdm.common.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import vn.clinic.cdm.repository.patient.PatientDataVersionRepository;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Per-patient data version used as part of AI cache keys.
+ * <p>
+ * Every write to clinical data feeding the AI context (metrics, vitals, labs,
+ * prescriptions, medication schedules...) bumps the patient's version, so
+ * cached contexts and AI results keyed on the old version are never served
+ * again. The version lives in {@code patient.data_version} and is bumped in
+ * the writing transaction: it becomes visible to every node together with
+ * the data, so a node never serves results cached before another node's
+ * write, and a reader cannot pair pre-commit data with the new version.
+ * Each key lookup costs one primary-key read.
+ */
+@Component
+public class PatientDataVersionTracker {
+
+    private static final String EPOCH = "epoch";
+
+    private final PatientDataVersionRepository versionRepository;
+    private final MeterRegistry meterRegistry;
+
+    public PatientDataVersionTracker(PatientDataVersionRepository versionRepository, MeterRegistry meterRegistry) {
+        this.versionRepository = versionRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Current data version of a patient, e.g. "0.3". Unknown patients start at 0.
+     */
+    public String versionOf(UUID patientId) {
+        return patientId != null ? versionRepository.versionOf(patientId) : versionRepository.epoch() + ".0";
+    }
+
+    /**
+     * Bumps the patient's version in the current transaction (on its own
+     * without one), at most once per transaction. The patient row stays
+     * locked until the transaction ends, so writers of the same patient
+     * serialize on it.
+     */
+    public void invalidate(UUID patientId, String source) {
+        if (patientId == null) {
+            invalidateAll(source);
+            return;
+        }
+        if (firstInTransaction(patientId)) {
+            versionRepository.bump(patientId);
+        }
+        invalidationCounter(source, "patient").increment();
+    }
+
+    /**
+     * Fallback when the owning patient cannot be resolved: retires every cached entry.
+     */
+    public void invalidateAll(String source) {
+        if (firstInTransaction(EPOCH)) {
+            versionRepository.bumpEpoch();
+        }
+        invalidationCounter(source, "global").increment();
+    }
+
+    /**
+     * A transaction writing many rows of one patient needs a single bump; the
+     * bumped ids live in a synchronization that ends with the transaction.
+     */
+    private boolean firstInTransaction(Object target) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return true;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof BumpedInTransaction bumped) {
+                return bumped.targets.add(target);
+            }
+        }
+        BumpedInTransaction bumped = new BumpedInTransaction();
+        TransactionSynchronizationManager.registerSynchronization(bumped);
+        return bumped.targets.add(target);
+    }
+
+    private Counter invalidationCounter(String source, String scope) {
+        return Counter.builder("cdm.ai.cache.invalidations")
+                .description("Patient data changes that retired cached AI context/results")
+                .tag("source", source)
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+
+    private static final class BumpedInTransaction implements TransactionSynchronization {
+        private final Set<Object> targets = new HashSet<>();
+    }
+}
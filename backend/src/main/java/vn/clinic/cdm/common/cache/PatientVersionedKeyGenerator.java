@@ -0,0 +1,43 @@
+package vn.clinic.cdm.common.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.cache.interceptor.SimpleKeyGenerator;
+import org.springframework.stereotype.Component;
+import vn.clinic.cdm.entity.clinical.ClinicalConsultation;
+
+import java.lang.reflect.Method;
+
+/**
+ * Cache key for consultation-scoped AI results: method + consultation id +
+ * patient data version. A new vital, lab or prescription changes the key, so
+ * stale advice is never returned after the underlying data changed.
+ */
+@Component("patientVersionedKeyGenerator")
+@RequiredArgsConstructor
+public class PatientVersionedKeyGenerator implements KeyGenerator {
+
+    private final PatientDataVersionTracker versionTracker;
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        String operation = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        for (Object param : params) {
+            if (param instanceof ClinicalConsultation consultation) {
+                return keyFor(operation, consultation);
+            }
+        }
+        return new SimpleKey(operation, SimpleKeyGenerator.generateKey(params));
+    }
+
+    /**
+     * The key {@link #generate} produces for {@code operation}
+     * ({@code SimpleClassName.method}), for callers that read or fill the
+     * cache entry of a {@code @Cacheable} method without going through it.
+     */
+    public Object keyFor(String operation, ClinicalConsultation consultation) {
+        var patientId = consultation.getPatient() != null ? consultation.getPatient().getId() : null;
+        return new SimpleKey(operation, consultation.getId(), versionTracker.versionOf(patientId));
+    }
+}
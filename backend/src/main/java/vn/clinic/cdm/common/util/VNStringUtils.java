@@ -1,6 +1,7 @@
 package vn.clinic.cdm.common.util;
 
 import java.text.Normalizer;
+import java.util.Locale;
 import java.util.regex.Pattern;
 
 /**
@@ -8,6 +9,9 @@ import java.util.regex.Pattern;
  */
 public final class VNStringUtils {
 
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
     private VNStringUtils() {}
 
     /**
@@ -35,8 +39,16 @@ public final class VNStringUtils {
     public static String removeAccents(String s) {
         if (s == null) return null;
         String temp = Normalizer.normalize(s, Normalizer.Form.NFD);
-        Pattern pattern = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
-        return pattern.matcher(temp).replaceAll("")
+        return COMBINING_MARKS.matcher(temp).replaceAll("")
                 .replace('đ', 'd').replace('Đ', 'D');
     }
+
+    /**
+     * Search key form: accents removed, lower case, single spaces.
+     * Example: "  Nguyễn   Văn ĐỨC " -> "nguyen van duc"
+     */
+    public static String normalizeForSearch(String s) {
+        if (s == null) return null;
+        return WHITESPACE.matcher(removeAccents(s).toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
 }
@@ -34,7 +34,7 @@ public class AsyncConfig implements AsyncConfigurer {
         return executor;
     }
 
-    static class ContextCopyingDecorator implements TaskDecorator {
+    public static class ContextCopyingDecorator implements TaskDecorator {
         @Override
         public Runnable decorate(Runnable runnable) {
             // Capture state from the parent thread
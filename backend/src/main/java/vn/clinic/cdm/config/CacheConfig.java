@@ -34,7 +34,9 @@ public class CacheConfig {
                 buildCache("cds_advice", Duration.ofMinutes(15), 500),
                 buildCache("ai_support", Duration.ofMinutes(15), 500),
                 buildCache("prescription_templates", Duration.ofHours(1), 100),
-                buildCache("patient_context", Duration.ofMinutes(10), 300)));
+                buildCache("patient_context", Duration.ofMinutes(10), 300),
+                // Per-node copy of patient_notification_counter; writes on this node evict it
+                buildCache("notification_unread", Duration.ofSeconds(15), 10000)));
         return cacheManager;
     }
 
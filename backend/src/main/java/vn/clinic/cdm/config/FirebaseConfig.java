@@ -5,7 +5,11 @@ import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import vn.clinic.cdm.service.notification.FcmClient;
+import vn.clinic.cdm.service.notification.impl.FirebaseFcmClient;
+import vn.clinic.cdm.service.notification.impl.LoggingFcmClient;
 
 import jakarta.annotation.PostConstruct;
 import java.io.FileInputStream;
@@ -60,5 +64,18 @@ public class FirebaseConfig {
             log.error("Error initializing Firebase: {}", e.getMessage());
         }
     }
+
+    /**
+     * Push transport; falls back to a local no-op client when Firebase could
+     * not be initialized so notification flows still run in dev.
+     */
+    @Bean
+    public FcmClient fcmClient() {
+        if (FirebaseApp.getApps().isEmpty()) {
+            log.warn("Firebase is not initialized; push notifications will only be logged");
+            return new LoggingFcmClient();
+        }
+        return new FirebaseFcmClient();
+    }
 }
 
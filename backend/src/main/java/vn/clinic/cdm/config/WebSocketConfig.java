@@ -1,22 +1,37 @@
 package vn.clinic.cdm.config;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import vn.clinic.cdm.security.StompAuthChannelInterceptor;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final StompAuthChannelInterceptor stompAuthChannelInterceptor;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Topic for broadcasting to many clients (e.g., queue updates)
-        config.enableSimpleBroker("/topic");
+        // Topic for broadcasting to many clients (e.g., queue updates),
+        // queue for per-user delivery (e.g., vital alerts to the assigned doctor)
+        config.enableSimpleBroker("/topic", "/queue");
 
         // Prefix for messages from client to server (if needed)
         config.setApplicationDestinationPrefixes("/app");
+
+        // Clients subscribe to /user/queue/... and receive only their own messages
+        config.setUserDestinationPrefix("/user");
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(stompAuthChannelInterceptor);
     }
 
     @Override
@@ -31,4 +46,3 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOriginPatterns("*");
     }
 }
-
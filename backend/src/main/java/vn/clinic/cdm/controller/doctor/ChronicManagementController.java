@@ -11,7 +11,7 @@ import vn.clinic.cdm.entity.patient.PatientChronicCondition;
 import vn.clinic.cdm.entity.patient.PatientVitalTarget;
 import vn.clinic.cdm.repository.patient.PatientChronicConditionRepository;
 import vn.clinic.cdm.repository.patient.PatientVitalTargetRepository;
-import vn.clinic.cdm.repository.clinical.HealthMetricRepository;
+import vn.clinic.cdm.service.clinical.VitalTimeSeriesService;
 import vn.clinic.cdm.repository.clinical.ClinicalVitalRepository;
 import vn.clinic.cdm.dto.clinical.VitalHistoryDto;
 
@@ -29,7 +29,7 @@ public class ChronicManagementController {
 
     private final PatientChronicConditionRepository chronicConditionRepository;
     private final PatientVitalTargetRepository vitalTargetRepository;
-    private final HealthMetricRepository healthMetricRepository;
+    private final VitalTimeSeriesService vitalTimeSeriesService;
     private final ClinicalVitalRepository clinicalVitalRepository;
 
     @GetMapping("/conditions")
@@ -62,8 +62,7 @@ public class ChronicManagementController {
     public ResponseEntity<ApiResponse<List<VitalHistoryDto>>> getVitalHistory(@RequestParam UUID patientId) {
         List<VitalHistoryDto> history = new ArrayList<>();
 
-        healthMetricRepository.findByPatientIdOrderByRecordedAtDesc(patientId)
-                .stream().limit(10)
+        vitalTimeSeriesService.latest(patientId, 10)
                 .forEach(v -> history.add(VitalHistoryDto.builder()
                         .recordedAt(v.getRecordedAt())
                         .vitalType(v.getMetricType())
@@ -37,9 +37,12 @@ public class ClinicalController {
 
     @GetMapping("/{id}/early-warning")
     @Operation(summary = "Cáº£nh bÃ¡o sá»›m & Theo dÃµi chá»‰ sá»‘ bá»‡nh mÃ£n tÃ­nh AI")
-    public ResponseEntity<ApiResponse<ClinicalEarlyWarningDto>> getEarlyWarning(@PathVariable UUID id) {
-        return ResponseEntity
-                .ok(ApiResponse.success(earlyWarningService.calculateEarlyWarning(clinicalService.getById(id))));
+    public ResponseEntity<ApiResponse<ClinicalEarlyWarningDto>> getEarlyWarning(@PathVariable UUID id,
+            @RequestParam(defaultValue = "false") boolean narrative) {
+        var consultation = clinicalService.getById(id);
+        return ResponseEntity.ok(ApiResponse.success(narrative
+                ? earlyWarningService.calculateEarlyWarningWithNarrative(consultation)
+                : earlyWarningService.calculateEarlyWarning(consultation)));
     }
 
     @GetMapping("/{id}/cds-advice")
@@ -4,14 +4,17 @@ package vn.clinic.cdm.controller.doctor;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import vn.clinic.cdm.common.constant.ManagementConstants;
 import vn.clinic.cdm.dto.common.ApiResponse;
 import vn.clinic.cdm.entity.clinical.HealthMetric;
-import vn.clinic.cdm.repository.clinical.HealthMetricRepository;
+import vn.clinic.cdm.event.HealthMetricRecordedEvent;
 import vn.clinic.cdm.service.clinical.AiClinicalAnalysisService;
+import vn.clinic.cdm.service.clinical.VitalSampleService;
+import vn.clinic.cdm.service.clinical.VitalTimeSeriesService;
 import vn.clinic.cdm.service.patient.PatientService;
 
 import java.util.List;
@@ -23,9 +26,11 @@ import java.util.UUID;
 @Tag(name = "Health Tracking", description = "Theo dõi sức khỏe (Role 1 & 2)")
 public class ClinicalHealthController {
 
-    private final HealthMetricRepository healthMetricRepository;
     private final PatientService patientService;
     private final AiClinicalAnalysisService aiClinicalAnalysisService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VitalTimeSeriesService vitalTimeSeriesService;
+    private final VitalSampleService vitalSampleService;
 
     @PostMapping("/{patientId}/metrics")
     @PreAuthorize("hasAnyRole('" + ManagementConstants.Roles.PATIENT + "', '" + ManagementConstants.Roles.DOCTOR + "')")
@@ -33,15 +38,20 @@ public class ClinicalHealthController {
     public ResponseEntity<ApiResponse<HealthMetric>> addMetric(@PathVariable UUID patientId,
             @RequestBody HealthMetric metric) {
         metric.setPatient(patientService.getById(patientId));
-        return ResponseEntity.ok(ApiResponse.success(healthMetricRepository.save(metric)));
+        var recorded = vitalSampleService.record(metric);
+        if (recorded.created()) {
+            eventPublisher.publishEvent(new HealthMetricRecordedEvent(this, patientId, List.of(recorded.metric())));
+        }
+        return ResponseEntity.ok(ApiResponse.success(recorded.metric()));
     }
 
     @GetMapping("/{patientId}/metrics")
     @PreAuthorize("hasAnyRole('" + ManagementConstants.Roles.PATIENT + "', '" + ManagementConstants.Roles.DOCTOR + "')")
     @Operation(summary = "Xem lịch sử chỉ số sức khỏe")
-    public ResponseEntity<ApiResponse<List<HealthMetric>>> getMetrics(@PathVariable UUID patientId) {
+    public ResponseEntity<ApiResponse<List<HealthMetric>>> getMetrics(@PathVariable UUID patientId,
+            @RequestParam(defaultValue = "100") int limit) {
         return ResponseEntity
-                .ok(ApiResponse.success(healthMetricRepository.findByPatientIdOrderByRecordedAtDesc(patientId)));
+                .ok(ApiResponse.success(vitalTimeSeriesService.latest(patientId, limit)));
     }
 
     @GetMapping("/{patientId}/ai-analysis")
@@ -49,7 +59,7 @@ public class ClinicalHealthController {
     @Operation(summary = "Phân tích sức khỏe bằng AI (Role 2)")
     public ResponseEntity<ApiResponse<String>> analyzeHealth(@PathVariable UUID patientId) {
         var patient = patientService.getById(patientId);
-        var metrics = healthMetricRepository.findByPatientIdOrderByRecordedAtDesc(patientId);
+        var metrics = vitalTimeSeriesService.latestPerType(patientId, 10);
         return ResponseEntity.ok(ApiResponse.success(aiClinicalAnalysisService.analyzePatientHealth(patient, metrics)));
     }
 }
@@ -11,13 +11,9 @@ import org.springframework.web.bind.annotation.*;
 import vn.clinic.cdm.dto.common.ApiResponse;
 import vn.clinic.cdm.dto.messaging.SendAdviceRequest;
 import vn.clinic.cdm.security.AuthPrincipal;
-import vn.clinic.cdm.common.tenant.TenantContext;
 import vn.clinic.cdm.entity.patient.Patient;
-import vn.clinic.cdm.entity.patient.PatientNotification;
-import vn.clinic.cdm.repository.patient.PatientNotificationRepository;
 import vn.clinic.cdm.service.patient.PatientNotificationService;
 import vn.clinic.cdm.service.patient.PatientService;
-import vn.clinic.cdm.service.tenant.TenantService;
 
 import java.util.Map;
 import java.util.UUID;
@@ -29,9 +25,8 @@ import java.util.UUID;
  * - Gửi lời khuyên (ADVICE) cho bệnh nhân
  * - Gửi cảnh báo sức khỏe (ALERT) cho bệnh nhân
  * <p>
- * Mỗi lần gửi sẽ:
- * 1. Lưu thông báo vào DB
- * 2. Push notification qua FCM (nếu có device token)
+ * Mỗi lần gửi sẽ lưu thông báo vào DB và push qua FCM (nếu có device token),
+ * cùng một transaction qua {@link PatientNotificationService#notifyPatient}.
  */
 @RestController
 @RequestMapping("/api/doctor-portal/patients/{patientId}")
@@ -43,8 +38,6 @@ public class DoctorAdvisoryController {
 
     private final PatientService patientService;
     private final PatientNotificationService notificationService;
-    private final PatientNotificationRepository notificationRepository;
-    private final TenantService tenantService;
 
     @PostMapping("/advice")
     @Operation(summary = "Gửi lời khuyên / khuyến nghị cho bệnh nhân")
@@ -71,34 +64,19 @@ public class DoctorAdvisoryController {
 
         UUID doctorUserId = AuthPrincipal.getCurrentUserId();
         Patient patient = patientService.getById(patientId);
-        UUID tenantId = TenantContext.getTenantIdOrThrow();
 
         String notifType = request.getType() != null ? request.getType() : fallbackType;
 
-        // 1. Lưu thông báo vào DB
-        PatientNotification notification = PatientNotification.builder()
-                .tenant(tenantService.getById(tenantId))
-                .patient(patient)
-                .title(request.getTitle())
-                .content(request.getContent())
-                .type(notifType)
-                .relatedResourceId(doctorUserId.toString())
-                .build();
-        notificationRepository.save(notification);
-
-        // 2. Push notification qua FCM
-        try {
-            notificationService.notifyPatient(
-                    patientId,
-                    request.getTitle(),
-                    request.getContent(),
-                    Map.of(
-                            "type", notifType,
-                            "severity", request.getSeverity() != null ? request.getSeverity() : "INFO",
-                            "doctorUserId", doctorUserId.toString()));
-        } catch (Exception e) {
-            log.warn("Push notification failed for patient {}: {}", patientId, e.getMessage());
-        }
+        // Lưu vào hộp thư thông báo và xếp hàng push FCM (nếu có device token)
+        notificationService.notifyPatient(
+                patientId,
+                request.getTitle(),
+                request.getContent(),
+                Map.of(
+                        "type", notifType,
+                        "severity", request.getSeverity() != null ? request.getSeverity() : "INFO",
+                        "doctorUserId", doctorUserId.toString(),
+                        "relatedResourceId", doctorUserId.toString()));
 
         log.info("Doctor {} sent {} to patient {}: {}", doctorUserId, notifType, patientId, request.getTitle());
         return ResponseEntity.ok(ApiResponse.success(
@@ -27,10 +27,16 @@ import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/doctor-portal/ai-support")
@@ -39,6 +45,8 @@ import java.util.UUID;
 @PreAuthorize("hasAnyRole('DOCTOR', 'ADMIN')")
 public class DoctorAiSupportController {
 
+    private static final long AI_STREAM_TIMEOUT_MS = 90_000L;
+
     private final ClinicalService clinicalService;
     private final AiClinicalService aiClinicalService;
     private final PrescriptionTemplateService templateService;
@@ -55,6 +63,83 @@ public class DoctorAiSupportController {
         return ResponseEntity.ok(ApiResponse.success(aiClinicalService.getClinicalSupport(consultation)));
     }
 
+    @GetMapping(value = "/{id}/ai-overview/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "AI tổng quan ca bệnh: chạy song song các phân tích (analyses=..., mặc định tất cả), trả từng kết quả qua SSE ngay khi xong")
+    public SseEmitter streamAiOverview(@PathVariable UUID id, @RequestParam(required = false) Set<String> analyses) {
+        var consultation = clinicalService.getById(id);
+        var started = aiClinicalService.startClinicalOverview(consultation, analyses);
+        var emitter = new SseEmitter(AI_STREAM_TIMEOUT_MS);
+
+        Runnable cancelAll = () -> started.values().forEach(f -> f.cancel(true));
+        cancelOnEnd(emitter, cancelAll);
+
+        // "done" waits for the sends themselves, not just the analyses, so it is always the last event
+        var deliveries = started.entrySet().stream()
+                .map(e -> e.getValue().thenAccept(result -> send(emitter, e.getKey(), result, cancelAll)))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(deliveries)
+                .whenComplete((r, ex) -> {
+                    if (ex == null) {
+                        send(emitter, "done", started.keySet(), cancelAll);
+                    }
+                    emitter.complete();
+                });
+        return emitter;
+    }
+
+    /**
+     * Relays tokens as "token" events and ends with a "done" event once the
+     * generation (and its audit) completes.
+     */
+    private SseEmitter streamText(Function<Consumer<String>, CompletableFuture<String>> generation) {
+        var emitter = new SseEmitter(AI_STREAM_TIMEOUT_MS);
+        var cancel = new CompletableFuture<Runnable>();
+        Runnable cancelGeneration = () -> cancel.thenAccept(Runnable::run);
+        cancelOnEnd(emitter, cancelGeneration);
+
+        var future = generation.apply(token -> send(emitter, "token", token, cancelGeneration));
+        cancel.complete(() -> future.cancel(true));
+        future.whenComplete((text, ex) -> {
+            if (ex == null) {
+                send(emitter, "done", "", cancelGeneration);
+            }
+            emitter.complete();
+        });
+        return emitter;
+    }
+
+    /**
+     * Whatever ends the stream first (client disconnect, timeout, container
+     * error) stops the model calls still running and completes the emitter,
+     * so neither the async request nor the upstream generation lingers until
+     * the deadline. Cancelling after a normal completion is a no-op.
+     */
+    private static void cancelOnEnd(SseEmitter emitter, Runnable cancel) {
+        emitter.onCompletion(cancel);
+        emitter.onTimeout(() -> {
+            cancel.run();
+            emitter.complete();
+        });
+        emitter.onError(e -> {
+            cancel.run();
+            emitter.complete();
+        });
+    }
+
+    private boolean send(SseEmitter emitter, String event, Object data, Runnable onFailure) {
+        synchronized (emitter) {
+            try {
+                emitter.send(SseEmitter.event().name(event).data(data != null ? data : "", MediaType.APPLICATION_JSON));
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                // Client went away: stop the remaining model calls and end the response
+                onFailure.run();
+                emitter.complete();
+                return false;
+            }
+        }
+    }
+
     @PostMapping("/{id}/ai-chat")
     @Operation(summary = "Chat vá»›i AI Clinical Assistant vá» ca bá»‡nh")
     public ResponseEntity<ApiResponse<String>> aiClinicalChat(
@@ -65,6 +150,16 @@ public class DoctorAiSupportController {
                 aiClinicalService.getClinicalChatResponse(consultation, request.getMessage(), request.getHistory())));
     }
 
+    @PostMapping(value = "/{id}/ai-chat", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Chat với AI Clinical Assistant (streaming SSE từng token)")
+    public SseEmitter streamAiClinicalChat(
+            @PathVariable UUID id,
+            @RequestBody AiChatRequest request) {
+        var consultation = clinicalService.getById(id);
+        return streamText(onToken -> aiClinicalService.streamClinicalChatResponse(
+                consultation, request.getMessage(), request.getHistory(), onToken));
+    }
+
     @PostMapping("/{id}/verify-prescription")
     @Operation(summary = "AI Kiá»ƒm tra Ä‘Æ¡n thuá»‘c")
     public ResponseEntity<ApiResponse<PrescriptionVerificationDto>> verifyPrescription(
@@ -113,6 +208,13 @@ public class DoctorAiSupportController {
         return ResponseEntity.ok(ApiResponse.success(aiClinicalService.generateLongTermCarePlan(consultation)));
     }
 
+    @GetMapping(value = "/{id}/care-plan", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "AI Tạo kế hoạch chăm sóc dài hạn (streaming SSE từng token)")
+    public SseEmitter streamCarePlan(@PathVariable UUID id) {
+        var consultation = clinicalService.getById(id);
+        return streamText(onToken -> aiClinicalService.streamLongTermCarePlan(consultation, onToken));
+    }
+
     @GetMapping("/{id}/lab-interpretation")
     @Operation(summary = "AI phÃ¢n tÃ­ch vÃ  giáº£i thÃ­ch káº¿t quáº£ xÃ©t nghiá»‡m")
     public ResponseEntity<ApiResponse<String>> interpretLabResults(@PathVariable UUID id) {
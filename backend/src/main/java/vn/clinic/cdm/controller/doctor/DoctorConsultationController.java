@@ -47,9 +47,12 @@ public class DoctorConsultationController {
 
     @GetMapping("/{id}/early-warning")
     @Operation(summary = "Há»‡ thá»‘ng cáº£nh bÃ¡o sá»›m (NEWS2 Monitor)")
-    public ResponseEntity<ApiResponse<ClinicalEarlyWarningDto>> getEarlyWarning(@PathVariable UUID id) {
+    public ResponseEntity<ApiResponse<ClinicalEarlyWarningDto>> getEarlyWarning(@PathVariable UUID id,
+            @RequestParam(defaultValue = "false") boolean narrative) {
         var consultation = clinicalService.getById(id);
-        return ResponseEntity.ok(ApiResponse.success(earlyWarningService.calculateEarlyWarning(consultation)));
+        return ResponseEntity.ok(ApiResponse.success(narrative
+                ? earlyWarningService.calculateEarlyWarningWithNarrative(consultation)
+                : earlyWarningService.calculateEarlyWarning(consultation)));
     }
 
     @PostMapping("/{id}/diagnostic-images/order")
@@ -9,8 +9,10 @@ import org.springframework.web.bind.annotation.*;
 import vn.clinic.cdm.dto.clinical.HealthMetricDto;
 import vn.clinic.cdm.dto.clinical.HealthThresholdDto;
 import vn.clinic.cdm.dto.clinical.UpdateHealthThresholdRequest;
+import vn.clinic.cdm.dto.clinical.VitalBucketDto;
 import vn.clinic.cdm.dto.clinical.VitalTrendDto;
 import vn.clinic.cdm.dto.common.ApiResponse;
+import vn.clinic.cdm.dto.common.CursorPagedResponse;
 import vn.clinic.cdm.service.clinical.DoctorHealthMonitoringService;
 
 import java.util.List;
@@ -41,6 +43,27 @@ public class DoctorHealthMonitoringController {
                 healthMonitoringService.getPatientHealthMetrics(patientId)));
     }
 
+    @GetMapping("/metrics/history")
+    @Operation(summary = "Lịch sử chỉ số sức khỏe phân trang theo con trỏ")
+    public ResponseEntity<ApiResponse<CursorPagedResponse<HealthMetricDto>>> getHealthMetricHistory(
+            @PathVariable UUID patientId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(ApiResponse.success(
+                healthMonitoringService.getPatientHealthMetricHistory(patientId, cursor, limit)));
+    }
+
+    @GetMapping("/metrics/trends/buckets")
+    @Operation(summary = "Biểu đồ xu hướng đã gộp min/max/avg theo khoảng thời gian")
+    public ResponseEntity<ApiResponse<List<VitalBucketDto>>> getHealthTrendBuckets(
+            @PathVariable UUID patientId,
+            @RequestParam String type,
+            @RequestParam(defaultValue = "30") int days,
+            @RequestParam(defaultValue = "200") int points) {
+        return ResponseEntity.ok(ApiResponse.success(
+                healthMonitoringService.getPatientHealthTrendBuckets(patientId, type, days, points)));
+    }
+
     @GetMapping("/metrics/trends")
     @Operation(summary = "Biểu đồ xu hướng chỉ số theo loại (dùng cho chart)")
     public ResponseEntity<ApiResponse<List<VitalTrendDto>>> getHealthTrends(
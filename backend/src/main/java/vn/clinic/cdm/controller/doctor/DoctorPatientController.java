@@ -3,19 +3,16 @@ package vn.clinic.cdm.controller.doctor;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import vn.clinic.cdm.dto.common.ApiResponse;
+import vn.clinic.cdm.dto.common.CursorPagedResponse;
 import vn.clinic.cdm.dto.common.PagedResponse;
 import vn.clinic.cdm.dto.patient.PatientDto;
 import vn.clinic.cdm.dto.clinical.ConsultationDetailDto;
 import vn.clinic.cdm.dto.clinical.ConsultationDto;
 import vn.clinic.cdm.service.clinical.AiClinicalService;
-import vn.clinic.cdm.entity.patient.Patient;
 import vn.clinic.cdm.service.patient.PatientPortalService;
 import vn.clinic.cdm.service.patient.PatientService;
 import vn.clinic.cdm.repository.clinical.DoctorRepository;
@@ -28,6 +25,7 @@ import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 
+import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -54,26 +52,28 @@ public class DoctorPatientController {
     private final RegisterService registerService;
 
     @GetMapping
-    @Operation(summary = "Danh sách bệnh nhân (phân trang, tìm kiếm, lọc)")
-    public ResponseEntity<ApiResponse<PagedResponse<PatientDto>>> getPatientList(
+    @Operation(summary = "Danh sách bệnh nhân (tìm kiếm không dấu theo tên/SĐT/CCCD/bệnh nền, lọc, phân trang theo con trỏ)")
+    public ResponseEntity<ApiResponse<CursorPagedResponse<PatientDto>>> getPatientList(
             @RequestParam(required = false) String search,
             @RequestParam(required = false) String riskLevel,
             @RequestParam(required = false) String chronicCondition,
-            @PageableDefault(size = 20) Pageable pageable) {
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
 
         UUID userId = vn.clinic.cdm.security.AuthPrincipal.getCurrentUserId();
         var doctorOpt = doctorRepository.findByIdentityUser_Id(userId);
 
         if (doctorOpt.isEmpty()) {
-            return ResponseEntity.ok(ApiResponse.success(PagedResponse.empty()));
+            return ResponseEntity.ok(ApiResponse.success(CursorPagedResponse.of(List.of(), null)));
         }
 
-        Page<Patient> page = patientService.searchPatientsForDoctor(doctorOpt.get().getId(), search, riskLevel, chronicCondition, pageable);
+        var page = patientService.searchPatientsForDoctor(doctorOpt.get().getId(), search, riskLevel, chronicCondition, cursor, size);
 
-        var data = PagedResponse.of(page,
+        var data = CursorPagedResponse.of(
                 page.getContent().stream()
                         .map(PatientDto::fromEntity)
-                        .collect(Collectors.toList()));
+                        .collect(Collectors.toList()),
+                page.getNextCursor());
 
         return ResponseEntity.ok(ApiResponse.success(data));
     }
@@ -1,6 +1,7 @@
 package vn.clinic.cdm.controller.doctor;
 
 import java.io.ByteArrayInputStream;
+import java.util.List;
 import java.util.UUID;
 
 import org.springframework.http.HttpHeaders;
@@ -15,10 +16,12 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import vn.clinic.cdm.dto.ai.ClinicalEarlyWarningDto;
 import vn.clinic.cdm.dto.clinical.RiskAnalysisDashboardDto;
 import vn.clinic.cdm.dto.common.ApiResponse;
 import vn.clinic.cdm.security.AuthPrincipal;
 import vn.clinic.cdm.service.clinical.DoctorReportingService;
+import vn.clinic.cdm.service.clinical.EarlyWarningService;
 
 @RestController
 @RequestMapping("/api/doctor-portal/risk-analysis")
@@ -30,6 +33,7 @@ public class DoctorRiskAnalysisController {
 
     private final vn.clinic.cdm.repository.clinical.DoctorRepository doctorRepository;
     private final DoctorReportingService ReportService;
+    private final EarlyWarningService earlyWarningService;
 
     @GetMapping
     @Operation(summary = "Lấy dữ liệu dashboard phân tích rủi ro")
@@ -38,6 +42,13 @@ public class DoctorRiskAnalysisController {
         return ResponseEntity.ok(ApiResponse.success(ReportService.getRiskAnalysisDashboard(doctorUserId)));
     }
 
+    @GetMapping("/news2")
+    @Operation(summary = "Điểm NEWS2 của toàn bộ bệnh nhân đang theo dõi")
+    public ResponseEntity<ApiResponse<List<ClinicalEarlyWarningDto>>> getWardEarlyWarnings() {
+        UUID doctorUserId = AuthPrincipal.getCurrentUserId();
+        return ResponseEntity.ok(ApiResponse.success(earlyWarningService.calculateWardEarlyWarnings(doctorUserId)));
+    }
+
     @GetMapping("/export-pdf")
     @Operation(summary = "Xuất báo cáo rủi ro (PDF)")
     public ResponseEntity<byte[]> exportRiskReport() {
@@ -1,9 +1,10 @@
 package vn.clinic.cdm.controller.doctor;
 
 import vn.clinic.cdm.dto.common.ApiResponse;
+import vn.clinic.cdm.dto.common.CursorPagedResponse;
 import vn.clinic.cdm.dto.clinical.TimelineItemDto;
 import vn.clinic.cdm.dto.clinical.TriageVitalDto;
-import vn.clinic.cdm.repository.clinical.HealthMetricRepository;
+import vn.clinic.cdm.service.clinical.VitalTimeSeriesService;
 import vn.clinic.cdm.repository.clinical.ClinicalConsultationRepository;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -12,6 +13,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import java.util.ArrayList;
 import java.util.List;
@@ -24,13 +26,14 @@ import java.util.stream.Collectors;
 @Tag(name = "EHR", description = "Há»“ sÆ¡ sá»©c khá»e Ä‘iá»‡n tá»­")
 public class EhrController {
 
-        private final HealthMetricRepository healthMetricRepository;
+        private final VitalTimeSeriesService vitalTimeSeriesService;
         private final ClinicalConsultationRepository consultationRepository;
 
         @GetMapping("/patient/{patientId}/vitals")
         @Operation(summary = "Láº¥y lá»‹ch sá»­ dáº¥u hiá»‡u sinh tá»“n")
-        public ResponseEntity<ApiResponse<List<TriageVitalDto>>> getVitalsHistory(@PathVariable UUID patientId) {
-                var data = healthMetricRepository.findByPatientIdOrderByRecordedAtDesc(patientId).stream()
+        public ResponseEntity<ApiResponse<List<TriageVitalDto>>> getVitalsHistory(@PathVariable UUID patientId,
+                        @RequestParam(defaultValue = "200") int limit) {
+                var data = vitalTimeSeriesService.latest(patientId, limit).stream()
                                 .map(v -> new TriageVitalDto(v.getId(), v.getMetricType(), v.getValue(),
                                                 v.getUnit(),
                                                 v.getRecordedAt()))
@@ -38,6 +41,21 @@ public class EhrController {
                 return ResponseEntity.ok(ApiResponse.success(data));
         }
 
+        @GetMapping("/patient/{patientId}/vitals/page")
+        @Operation(summary = "Lịch sử dấu hiệu sinh tồn phân trang theo con trỏ")
+        public ResponseEntity<ApiResponse<CursorPagedResponse<TriageVitalDto>>> getVitalsPage(
+                        @PathVariable UUID patientId,
+                        @RequestParam(required = false) String cursor,
+                        @RequestParam(defaultValue = "50") int limit) {
+                var page = vitalTimeSeriesService.page(patientId, cursor, limit);
+                var data = page.getContent().stream()
+                                .map(v -> new TriageVitalDto(v.getId(), v.getMetricType(), v.getValue(),
+                                                v.getUnit(),
+                                                v.getRecordedAt()))
+                                .collect(Collectors.toList());
+                return ResponseEntity.ok(ApiResponse.success(CursorPagedResponse.of(data, page.getNextCursor())));
+        }
+
         @GetMapping("/patient/{patientId}/timeline")
         @Operation(summary = "Láº¥y dÃ²ng thá»i gian y táº¿ cá»§a bá»‡nh nhÃ¢n")
         public ResponseEntity<ApiResponse<List<TimelineItemDto>>> getTimeline(@PathVariable UUID patientId) {
@@ -1,8 +1,14 @@
 package vn.clinic.cdm.controller.patient;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -12,15 +18,22 @@ import vn.clinic.cdm.dto.common.ApiResponse;
 import vn.clinic.cdm.dto.common.PagedResponse;
 import vn.clinic.cdm.dto.patient.PatientDashboardDto;
 import vn.clinic.cdm.dto.patient.PatientVitalLogDto;
+import vn.clinic.cdm.dto.patient.VitalBulkIngestResponse;
 import vn.clinic.cdm.dto.clinical.ConsultationDto;
 import vn.clinic.cdm.dto.clinical.ConsultationDetailDto;
 import vn.clinic.cdm.dto.clinical.VitalTrendDto;
 
 import vn.clinic.cdm.common.annotation.RateLimit;
 import vn.clinic.cdm.entity.patient.Patient;
+import vn.clinic.cdm.exception.ApiException;
+import vn.clinic.cdm.exception.ErrorCode;
+import vn.clinic.cdm.service.clinical.VitalIngestService;
 import vn.clinic.cdm.service.patient.PatientPortalService;
 
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
@@ -32,7 +45,11 @@ import java.util.UUID;
 @PreAuthorize("hasRole('PATIENT')")
 public class PatientClinicalController {
 
+        private static final String NDJSON = "application/x-ndjson";
+
         private final PatientPortalService portalService;
+        private final VitalIngestService vitalIngestService;
+        private final ObjectMapper objectMapper;
 
         @GetMapping("/dashboard")
         @Operation(summary = "Dữ liệu tổng quan cho trang chủ bệnh nhân")
@@ -83,6 +100,58 @@ public class PatientClinicalController {
                 return ResponseEntity.ok(ApiResponse.success(portalService.logVitalMetric(p, dto)));
         }
 
+        @PostMapping(value = "/vitals/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+        @RateLimit(strict = true)
+        @Operation(summary = "Đồng bộ hàng loạt chỉ số sinh hiệu từ thiết bị (mảng JSON)")
+        public ResponseEntity<ApiResponse<VitalBulkIngestResponse>> logVitalsBulk(
+                        jakarta.servlet.http.HttpServletRequest request) throws IOException {
+                Patient p = portalService.getAuthenticatedPatient();
+                List<PatientVitalLogDto> readings = new ArrayList<>();
+                // Streamed element by element so an oversized array is never bound in full
+                try (JsonParser parser = objectMapper.getFactory().createParser(request.getInputStream())) {
+                        if (parser.nextToken() != JsonToken.START_ARRAY) {
+                                throw new ApiException(ErrorCode.VALIDATION_FAILED, HttpStatus.BAD_REQUEST,
+                                                "Dữ liệu phải là mảng JSON");
+                        }
+                        JsonToken token;
+                        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null
+                                        && readings.size() <= VitalIngestService.MAX_BATCH_SIZE) {
+                                JsonNode node = parser.readValueAsTree();
+                                try {
+                                        readings.add(objectMapper.treeToValue(node, PatientVitalLogDto.class));
+                                } catch (IOException e) {
+                                        readings.add(null); // reported as INVALID at this index
+                                }
+                        }
+                } catch (JsonProcessingException e) {
+                        throw new ApiException(ErrorCode.VALIDATION_FAILED, HttpStatus.BAD_REQUEST,
+                                        "Mảng JSON không hợp lệ");
+                }
+                return ResponseEntity.ok(ApiResponse.success(vitalIngestService.ingest(p, readings)));
+        }
+
+        @PostMapping(value = "/vitals/bulk", consumes = NDJSON)
+        @RateLimit(strict = true)
+        @Operation(summary = "Đồng bộ hàng loạt chỉ số sinh hiệu từ thiết bị (NDJSON, mỗi dòng một chỉ số)")
+        public ResponseEntity<ApiResponse<VitalBulkIngestResponse>> logVitalsNdjson(
+                        jakarta.servlet.http.HttpServletRequest request) throws IOException {
+                Patient p = portalService.getAuthenticatedPatient();
+                List<PatientVitalLogDto> readings = new ArrayList<>();
+                try (BufferedReader reader = request.getReader()) {
+                        String line;
+                        // One line past the limit is enough for the service to reject the batch
+                        while ((line = reader.readLine()) != null && readings.size() <= VitalIngestService.MAX_BATCH_SIZE) {
+                                if (line.isBlank()) continue;
+                                try {
+                                        readings.add(objectMapper.readValue(line, PatientVitalLogDto.class));
+                                } catch (IOException e) {
+                                        readings.add(null); // reported as INVALID at this index
+                                }
+                        }
+                }
+                return ResponseEntity.ok(ApiResponse.success(vitalIngestService.ingest(p, readings)));
+        }
+
         @PostMapping(value = "/vitals/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
         @RateLimit(strict = true)
         @Operation(summary = "Nhập chỉ số sinh hiệu kèm ảnh máy đo")
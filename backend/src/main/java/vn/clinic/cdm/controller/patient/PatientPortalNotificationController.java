@@ -7,13 +7,13 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import vn.clinic.cdm.dto.common.ApiResponse;
+import vn.clinic.cdm.dto.common.CursorPagedResponse;
 import vn.clinic.cdm.dto.messaging.PatientNotificationDto;
 import vn.clinic.cdm.dto.messaging.RegisterFcmTokenRequest;
 import vn.clinic.cdm.entity.patient.Patient;
 import vn.clinic.cdm.service.patient.PatientNotificationService;
 import vn.clinic.cdm.service.patient.PatientPortalService;
 
-import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -28,9 +28,18 @@ public class PatientPortalNotificationController {
 
     @GetMapping
     @Operation(summary = "Láº¥y danh sÃ¡ch thÃ´ng bÃ¡o cá»§a bá»‡nh nhÃ¢n")
-    public ResponseEntity<ApiResponse<List<PatientNotificationDto>>> getNotifications() {
+    public ResponseEntity<ApiResponse<CursorPagedResponse<PatientNotificationDto>>> getNotifications(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
         Patient p = portalService.getAuthenticatedPatient();
-        return ResponseEntity.ok(ApiResponse.success(notificationService.getNotifications(p.getId())));
+        return ResponseEntity.ok(ApiResponse.success(notificationService.getNotifications(p.getId(), cursor, size)));
+    }
+
+    @GetMapping("/unread-count")
+    @Operation(summary = "Số thông báo chưa đọc")
+    public ResponseEntity<ApiResponse<Integer>> getUnreadCount() {
+        Patient p = portalService.getAuthenticatedPatient();
+        return ResponseEntity.ok(ApiResponse.success(notificationService.getUnreadCount(p.getId())));
     }
 
     @PostMapping("/{id}/read")
@@ -43,10 +52,9 @@ public class PatientPortalNotificationController {
 
     @PostMapping("/read-all")
     @Operation(summary = "ÄÃ¡nh dáº¥u táº¥t cáº£ thÃ´ng bÃ¡o Ä‘Ã£ Ä‘á»c")
-    public ResponseEntity<ApiResponse<Void>> markAllAsRead() {
+    public ResponseEntity<ApiResponse<Integer>> markAllAsRead(@RequestParam(required = false) UUID upTo) {
         Patient p = portalService.getAuthenticatedPatient();
-        notificationService.markAllAsRead(p.getId());
-        return ResponseEntity.ok(ApiResponse.success(null));
+        return ResponseEntity.ok(ApiResponse.success(notificationService.markAllAsRead(p.getId(), upTo)));
     }
 
     @PostMapping("/register-token")
@@ -3,7 +3,14 @@ package vn.clinic.cdm.dto.ai;
 import vn.clinic.cdm.entity.aiaudit.AiAuditLog;
 import java.util.UUID;
 
+/**
+ * One audited AI interaction. Tenant and branch are captured by the caller
+ * when the call starts: completions may be recorded on model or timer
+ * threads that carry no tenant context.
+ */
 public record AiAuditRequest(
+    UUID tenantId,
+    UUID branchId,
     AiAuditLog.AiFeatureType featureType,
     UUID patientId,
     UUID userId,
@@ -0,0 +1,20 @@
+package vn.clinic.cdm.dto.ai;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AiFeatureHealthDto {
+    private long interactions;
+    private long failureCount;
+    private double successRate;
+    private double averageLatencyMs;
+    private long latencyP50Ms;
+    private long latencyP95Ms;
+    private long latencyP99Ms;
+}
@@ -16,7 +16,14 @@ public class AiSystemHealthDto {
     private long failureCount;
     private double successRate;
     private double averageLatencyMs;
+    private long latencyP50Ms;
+    private long latencyP95Ms;
+    private long latencyP99Ms;
     private Map<String, Long> interactionsByFeature;
+    private Map<String, AiFeatureHealthDto> healthByFeature;
+    private long lastHourInteractions;
+    private long lastHourFailures;
+    private long lastHourLatencyP95Ms;
     private double estimatedCostUsd; // Mocked based on interaction count
 }
 
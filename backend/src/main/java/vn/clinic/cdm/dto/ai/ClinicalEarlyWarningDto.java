@@ -5,14 +5,18 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import java.util.List;
+import java.util.UUID;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class ClinicalEarlyWarningDto {
+    private UUID patientId;
+    private String patientName;
     private Integer news2Score;
-    private String riskLevel; // LOW, MEDIUM, HIGH
+    private String riskLevel; // LOW, LOW_MEDIUM, MEDIUM, HIGH
+    private List<String> missingParameters;
     private List<VitalWarning> warnings;
     private String aiClinicalAssessment;
     private String escalationProtocol; // Recommended clinical action (e.g., "Notify Senior Doctor")
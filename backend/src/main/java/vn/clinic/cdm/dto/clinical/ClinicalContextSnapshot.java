@@ -0,0 +1,30 @@
+package vn.clinic.cdm.dto.clinical;
+
+import vn.clinic.cdm.entity.clinical.ClinicalVital;
+import vn.clinic.cdm.entity.clinical.HealthMetric;
+import vn.clinic.cdm.entity.clinical.LabResult;
+import vn.clinic.cdm.entity.clinical.MedicationSchedule;
+import vn.clinic.cdm.entity.clinical.Prescription;
+import vn.clinic.cdm.entity.patient.PatientChronicCondition;
+import vn.clinic.cdm.entity.patient.PatientVitalTarget;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable, pre-loaded clinical context of one consultation.
+ * Built once per request by ClinicalContextService and shared by every AI
+ * feature (CDS, Early Warning, Clinical Support...) that needs it.
+ */
+public record ClinicalContextSnapshot(
+        UUID consultationId,
+        UUID patientId,
+        List<HealthMetric> recentMetrics,
+        List<ClinicalVital> clinicalVitals,
+        List<LabResult> labResults,
+        Prescription prescription,
+        List<PatientChronicCondition> chronicConditions,
+        List<PatientVitalTarget> vitalTargets,
+        List<MedicationSchedule> recentSchedules,
+        String renderedContext) {
+}
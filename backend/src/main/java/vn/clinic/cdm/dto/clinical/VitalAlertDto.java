@@ -0,0 +1,34 @@
+package vn.clinic.cdm.dto.clinical;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Cảnh báo chỉ số gửi realtime tới bác sĩ phụ trách qua /user/queue/vital-alerts.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VitalAlertDto {
+    public static final String CRITICAL = "CRITICAL";
+    public static final String PERSONAL_THRESHOLD = "PERSONAL_THRESHOLD";
+
+    private UUID patientId;
+    private String patientName;
+    private UUID metricId;
+    private String metricType;
+    private String label;
+    private BigDecimal value;
+    private String unit;
+    /** CRITICAL or PERSONAL_THRESHOLD. */
+    private String severity;
+    private String message;
+    private Instant recordedAt;
+}
@@ -0,0 +1,26 @@
+package vn.clinic.cdm.dto.clinical;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Một điểm biểu đồ đã gộp: min/max/avg của các lần đo trong một khoảng thời gian.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VitalBucketDto {
+    private String type;
+    private Instant bucketStart;
+    private long bucketSeconds;
+    private BigDecimal min;
+    private BigDecimal max;
+    private BigDecimal avg;
+    private long count;
+}
@@ -18,6 +18,10 @@ public class VitalTrendDto {
     private Instant recordedAt;
     private String unit;
     private String status;
+    /** Chỉ có khi điểm là bucket gộp (value = trung bình) */
+    private BigDecimal min;
+    private BigDecimal max;
+    private Integer sampleCount;
 
     /** Alias cho recordedAt — frontend chart dùng 'timestamp' */
     public Instant getTimestamp() {
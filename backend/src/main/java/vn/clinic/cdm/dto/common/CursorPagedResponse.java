@@ -0,0 +1,32 @@
+package vn.clinic.cdm.dto.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Phân trang theo con trỏ (keyset): gửi lại {@code nextCursor} để lấy trang kế tiếp.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPagedResponse<T> {
+
+    private List<T> content;
+    private int size;
+    private String nextCursor;
+    private boolean hasMore;
+
+    public static <T> CursorPagedResponse<T> of(List<T> content, String nextCursor) {
+        return CursorPagedResponse.<T>builder()
+                .content(content)
+                .size(content.size())
+                .nextCursor(nextCursor)
+                .hasMore(nextCursor != null)
+                .build();
+    }
+}
@@ -0,0 +1,6 @@
+package vn.clinic.cdm.dto.common;
+
+public record TextMessageRequest(
+    String phone,
+    String body
+) {}
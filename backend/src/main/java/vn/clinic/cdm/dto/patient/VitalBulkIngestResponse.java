@@ -0,0 +1,40 @@
+package vn.clinic.cdm.dto.patient;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Kết quả nhập hàng loạt chỉ số sinh hiệu: tổng hợp + kết quả từng dòng theo thứ tự gửi lên.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VitalBulkIngestResponse {
+
+    public static final String ACCEPTED = "ACCEPTED";
+    public static final String DUPLICATE = "DUPLICATE";
+    public static final String INVALID = "INVALID";
+
+    private int accepted;
+    private int duplicates;
+    private int rejected;
+    private List<ItemResult> results;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemResult {
+        private int index;
+        private String result; // ACCEPTED, DUPLICATE, INVALID
+        private UUID id;
+        private String status; // NORMAL, ABNORMAL, CRITICAL
+        private String message;
+    }
+}
@@ -0,0 +1,48 @@
+package vn.clinic.cdm.entity.aiaudit;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Persisted AI response, keyed on the hash of tenant + feature + prompt
+ * version + normalized prompt. Rows of older prompt versions are purged at
+ * startup.
+ */
+@Entity
+@Table(name = "ai_response_cache")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AiResponseCacheEntry {
+
+    @Id
+    @Column(name = "cache_key", length = 64, nullable = false, updatable = false)
+    private String cacheKey;
+
+    @Column(name = "tenant_id", nullable = false, updatable = false)
+    private UUID tenantId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "feature_type", nullable = false, length = 32)
+    private AiAuditLog.AiFeatureType featureType;
+
+    @Column(name = "prompt_version", nullable = false, length = 32)
+    private String promptVersion;
+
+    @Column(name = "response", nullable = false, columnDefinition = "text")
+    private String response;
+
+    @Column(name = "hit_count", nullable = false)
+    private long hitCount;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "last_hit_at", nullable = false)
+    private Instant lastHitAt;
+}
@@ -2,6 +2,7 @@ package vn.clinic.cdm.entity.clinical;
 
 import jakarta.persistence.*;
 import lombok.*;
+import vn.clinic.cdm.common.cache.PatientDataChangeListener;
 import vn.clinic.cdm.entity.common.BaseAuditableEntity;
 import vn.clinic.cdm.entity.identity.IdentityUser;
 import vn.clinic.cdm.entity.patient.Patient;
@@ -14,6 +15,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "clinical_consultation")
+@EntityListeners(PatientDataChangeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
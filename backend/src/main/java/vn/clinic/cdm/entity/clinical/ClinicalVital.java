@@ -2,6 +2,7 @@ package vn.clinic.cdm.entity.clinical;
 
 import jakarta.persistence.*;
 import lombok.*;
+import vn.clinic.cdm.common.cache.PatientDataChangeListener;
 import vn.clinic.cdm.entity.common.BaseEntity;
 
 import java.math.BigDecimal;
@@ -10,6 +11,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "clinical_vital")
+@EntityListeners(PatientDataChangeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
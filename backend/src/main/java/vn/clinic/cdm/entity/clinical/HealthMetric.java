@@ -2,6 +2,7 @@ package vn.clinic.cdm.entity.clinical;
 
 import jakarta.persistence.*;
 import lombok.*;
+import vn.clinic.cdm.common.cache.PatientDataChangeListener;
 import vn.clinic.cdm.entity.common.BaseAuditableEntity;
 import vn.clinic.cdm.entity.patient.Patient;
 import vn.clinic.cdm.entity.tenant.Tenant;
@@ -15,6 +16,7 @@ import java.util.UUID;
  */
 @Entity
 @Table(name = "health_metric")
+@EntityListeners(PatientDataChangeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
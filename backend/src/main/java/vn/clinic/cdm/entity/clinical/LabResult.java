@@ -2,12 +2,14 @@ package vn.clinic.cdm.entity.clinical;
 
 import jakarta.persistence.*;
 import lombok.*;
+import vn.clinic.cdm.common.cache.PatientDataChangeListener;
 import vn.clinic.cdm.entity.common.BaseAuditableEntity;
 
 import java.util.UUID;
 
 @Entity
 @Table(name = "lab_results")
+@EntityListeners(PatientDataChangeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -41,6 +41,10 @@ public class Medication extends BaseAuditableEntity {
     private Integer durationDays;
 
     public String getDosageInstruction() {
+        return dosageInstruction(dosage, instructions);
+    }
+
+    public static String dosageInstruction(String dosage, String instructions) {
         return (dosage != null ? dosage : "") + (instructions != null ? " (" + instructions + ")" : "");
     }
 
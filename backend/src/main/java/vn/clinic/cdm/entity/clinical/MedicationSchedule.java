@@ -2,6 +2,7 @@ package vn.clinic.cdm.entity.clinical;
 
 import jakarta.persistence.*;
 import lombok.*;
+import vn.clinic.cdm.common.cache.PatientDataChangeListener;
 import vn.clinic.cdm.entity.common.BaseAuditableEntity;
 
 import java.time.Instant;
@@ -12,6 +13,7 @@ import java.util.UUID;
  */
 @Entity
 @Table(name = "medication_schedule")
+@EntityListeners(PatientDataChangeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -19,6 +21,10 @@ import java.util.UUID;
 @Builder
 public class MedicationSchedule extends BaseAuditableEntity {
 
+    public static final String REMINDER_DUE_NOTIFIED = "DUE_NOTIFIED";
+    public static final String REMINDER_OVERDUE_NOTIFIED = "OVERDUE_NOTIFIED";
+    public static final String REMINDER_EXPIRED = "EXPIRED";
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "medication_id", nullable = false)
     private Medication medication;
@@ -33,6 +39,18 @@ public class MedicationSchedule extends BaseAuditableEntity {
     @Column(name = "taken_at")
     private Instant takenAt;
 
+    /**
+     * Reminder progress: null (not reminded yet), DUE_NOTIFIED, OVERDUE_NOTIFIED
+     * or EXPIRED. Written only by the reminder schedulers through set-based SQL,
+     * hence read-only here so entity saves never overwrite a transition.
+     */
+    @Column(name = "reminder_state", length = 20, insertable = false, updatable = false)
+    private String reminderState;
+
+    /** When the reminder schedulers next look at this row; null once it is done. */
+    @Column(name = "next_reminder_at", insertable = false, updatable = false)
+    private Instant nextReminderAt;
+
     @Column(name = "notes", columnDefinition = "text")
     private String notes;
 
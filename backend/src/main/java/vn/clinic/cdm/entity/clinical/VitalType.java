@@ -0,0 +1,85 @@
+package vn.clinic.cdm.entity.clinical;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Vital sign types known to the risk rules. The ordinal indexes the
+ * precompiled threshold tables and columnar series used by risk sweeps;
+ * {@link #code()} is the stable value stored in vital_sample.metric_code.
+ */
+public enum VitalType {
+    BLOOD_GLUCOSE(1, "Đường huyết", "mg/dL", Trend.RISING),
+    BLOOD_PRESSURE_SYS(2, "Huyết áp (Tâm thu)", "mmHg", Trend.RISING),
+    BLOOD_PRESSURE_DIA(3, "Huyết áp (Tâm trương)", "mmHg", Trend.RISING),
+    HEART_RATE(4, "Nhịp tim", "bpm", Trend.NONE),
+    SPO2(5, "SpO2", "%", Trend.FALLING);
+
+    /** Direction in which three consecutive readings count as worsening. */
+    public enum Trend { RISING, FALLING, NONE }
+
+    private static final VitalType[] VALUES = values();
+    private static final Map<String, VitalType> BY_CODE = new HashMap<>();
+
+    static {
+        for (VitalType t : VALUES) {
+            BY_CODE.put(t.name(), t);
+            BY_CODE.put(t.name().toLowerCase(Locale.ROOT), t);
+        }
+    }
+
+    private final short code;
+    private final String label;
+    private final String unit;
+    private final Trend worseningTrend;
+
+    VitalType(int code, String label, String unit, Trend worseningTrend) {
+        this.code = (short) code;
+        this.label = label;
+        this.unit = unit;
+        this.worseningTrend = worseningTrend;
+    }
+
+    public short code() {
+        return code;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public String unit() {
+        return unit;
+    }
+
+    public Trend worseningTrend() {
+        return worseningTrend;
+    }
+
+    public static int count() {
+        return VALUES.length;
+    }
+
+    public static VitalType byOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    public static VitalType byCode(int code) {
+        for (VitalType t : VALUES) {
+            if (t.code == code) return t;
+        }
+        throw new IllegalArgumentException("Unknown vital code: " + code);
+    }
+
+    /**
+     * Resolves a stored metric_type code, or null for types without rules.
+     * Exact and lower-case codes hit the map directly; only mixed case pays
+     * for an upper-case conversion.
+     */
+    public static VitalType of(String code) {
+        if (code == null) return null;
+        VitalType type = BY_CODE.get(code);
+        return type != null ? type : BY_CODE.get(code.toUpperCase(Locale.ROOT));
+    }
+}
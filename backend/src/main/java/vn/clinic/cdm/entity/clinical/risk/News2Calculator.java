@@ -0,0 +1,146 @@
+package vn.clinic.cdm.entity.clinical.risk;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Deterministic NEWS2 (Royal College of Physicians, 2017) aggregate score over
+ * the latest reading of each physiological parameter. SpO2 uses scale 1.
+ * <p>
+ * Observations are matched to parameters by metric type aliases as stored in
+ * health_metric / clinical_vital. SUPPLEMENTAL_O2 is a flag (value &gt; 0 =
+ * on oxygen) and CONSCIOUSNESS is 0 for Alert, anything else for new
+ * confusion / V / P / U. Parameters without a reading contribute 0 and are
+ * reported in {@link Result#missing()}.
+ */
+public final class News2Calculator {
+
+    public static final String LOW = "LOW";
+    public static final String LOW_MEDIUM = "LOW_MEDIUM";
+    public static final String MEDIUM = "MEDIUM";
+    public static final String HIGH = "HIGH";
+
+    public enum Parameter {
+        RESPIRATION_RATE("Nhịp thở", "RESPIRATORY_RATE", "RESPIRATION_RATE", "RESP_RATE", "RR"),
+        SPO2("SpO2", "SPO2", "OXYGEN_SATURATION"),
+        SUPPLEMENTAL_O2("Thở oxy", "SUPPLEMENTAL_O2", "SUPPLEMENTAL_OXYGEN", "ON_OXYGEN"),
+        SYSTOLIC_BP("Huyết áp tâm thu", "BLOOD_PRESSURE_SYS", "BLOOD_PRESSURE_SYSTOLIC", "SYSTOLIC_BP", "BP_SYS"),
+        PULSE("Mạch", "HEART_RATE", "PULSE", "PULSE_RATE"),
+        CONSCIOUSNESS("Ý thức", "CONSCIOUSNESS", "AVPU", "ACVPU"),
+        TEMPERATURE("Nhiệt độ", "TEMPERATURE", "BODY_TEMPERATURE", "TEMP");
+
+        private final String label;
+        private final String[] aliases;
+
+        Parameter(String label, String... aliases) {
+            this.label = label;
+            this.aliases = aliases;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    private static final Parameter[] PARAMETERS = Parameter.values();
+    private static final Map<String, Parameter> BY_ALIAS = new HashMap<>();
+
+    static {
+        for (Parameter p : PARAMETERS) {
+            for (String alias : p.aliases) {
+                BY_ALIAS.put(alias, p);
+            }
+        }
+    }
+
+    public record Observation(String metricType, double value, Instant recordedAt) {
+    }
+
+    /**
+     * @param trend STABLE, WORSENING or IMPROVING compared with the previous
+     *              reading of the same parameter (STABLE if there is none)
+     */
+    public record ParameterScore(Parameter parameter, double value, int points, String trend) {
+    }
+
+    public record Result(int total, boolean redScore, String riskLevel, List<ParameterScore> scores,
+            List<Parameter> missing) {
+    }
+
+    private News2Calculator() {
+    }
+
+    /** Parameter for a stored metric type, or null when NEWS2 does not use it. */
+    public static Parameter parameterOf(String metricType) {
+        return metricType == null ? null : BY_ALIAS.get(metricType.trim().toUpperCase(Locale.ROOT));
+    }
+
+    public static Result calculate(Iterable<Observation> observations) {
+        int n = PARAMETERS.length;
+        Observation[] latest = new Observation[n];
+        Observation[] previous = new Observation[n];
+        for (Observation o : observations) {
+            Parameter p = parameterOf(o.metricType());
+            if (p == null) continue;
+            int i = p.ordinal();
+            if (latest[i] == null || isAfter(o, latest[i])) {
+                previous[i] = latest[i];
+                latest[i] = o;
+            } else if (previous[i] == null || isAfter(o, previous[i])) {
+                previous[i] = o;
+            }
+        }
+
+        int total = 0;
+        boolean red = false;
+        List<ParameterScore> scores = new ArrayList<>(n);
+        List<Parameter> missing = new ArrayList<>();
+        for (Parameter p : PARAMETERS) {
+            Observation o = latest[p.ordinal()];
+            if (o == null) {
+                missing.add(p);
+                continue;
+            }
+            int points = points(p, o.value());
+            total += points;
+            red |= points == 3;
+            Observation prev = previous[p.ordinal()];
+            String trend = "STABLE";
+            if (prev != null) {
+                int before = points(p, prev.value());
+                trend = points > before ? "WORSENING" : points < before ? "IMPROVING" : "STABLE";
+            }
+            scores.add(new ParameterScore(p, o.value(), points, trend));
+        }
+        return new Result(total, red, riskLevel(total, red), scores, missing);
+    }
+
+    public static int points(Parameter p, double v) {
+        return switch (p) {
+            case RESPIRATION_RATE -> v <= 8 ? 3 : v <= 11 ? 1 : v <= 20 ? 0 : v <= 24 ? 2 : 3;
+            case SPO2 -> v <= 91 ? 3 : v <= 93 ? 2 : v <= 95 ? 1 : 0;
+            case SUPPLEMENTAL_O2 -> v > 0 ? 2 : 0;
+            case SYSTOLIC_BP -> v <= 90 ? 3 : v <= 100 ? 2 : v <= 110 ? 1 : v <= 219 ? 0 : 3;
+            case PULSE -> v <= 40 ? 3 : v <= 50 ? 1 : v <= 90 ? 0 : v <= 110 ? 1 : v <= 130 ? 2 : 3;
+            case CONSCIOUSNESS -> v > 0 ? 3 : 0;
+            case TEMPERATURE -> v <= 35.0 ? 3 : v <= 36.0 ? 1 : v <= 38.0 ? 0 : v <= 39.0 ? 1 : 2;
+        };
+    }
+
+    /** 0-4 low, a single red parameter low-medium, 5-6 medium, 7+ high. */
+    public static String riskLevel(int total, boolean redScore) {
+        if (total >= 7) return HIGH;
+        if (total >= 5) return MEDIUM;
+        if (redScore) return LOW_MEDIUM;
+        return LOW;
+    }
+
+    private static boolean isAfter(Observation a, Observation b) {
+        if (a.recordedAt() == null) return false;
+        return b.recordedAt() == null || a.recordedAt().isAfter(b.recordedAt());
+    }
+}
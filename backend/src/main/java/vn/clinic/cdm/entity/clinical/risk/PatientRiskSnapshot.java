@@ -0,0 +1,43 @@
+package vn.clinic.cdm.entity.clinical.risk;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Latest risk assessment of a patient, recomputed from a rolling window of
+ * recent vitals whenever a new health metric is recorded.
+ */
+@Entity
+@Table(name = "patient_risk_snapshot")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PatientRiskSnapshot {
+
+    @Id
+    @Column(name = "patient_id", nullable = false, updatable = false)
+    private UUID patientId;
+
+    @Column(name = "tenant_id", nullable = false)
+    private UUID tenantId;
+
+    @Column(name = "risk_level", nullable = false, length = 20)
+    private String riskLevel;
+
+    @Column(name = "reasons", columnDefinition = "text")
+    private String reasons;
+
+    @Column(name = "last_vital_trend")
+    private String lastVitalTrend;
+
+    @Column(name = "last_metric_at")
+    private Instant lastMetricAt;
+
+    @Column(name = "evaluated_at", nullable = false)
+    private Instant evaluatedAt;
+}
@@ -1,6 +1,11 @@
 package vn.clinic.cdm.entity.clinical.risk;
 
 import vn.clinic.cdm.entity.clinical.HealthMetric;
+import vn.clinic.cdm.entity.clinical.VitalType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -9,6 +14,27 @@ import java.util.Map;
  */
 public interface RiskAssessmentRule {
     RiskResult evaluate(Map<String, List<HealthMetric>> metricsByType);
+
+    /**
+     * Columnar variant used by risk sweeps: primitive values per vital type
+     * and precompiled (possibly patient-specific) thresholds. Rules should
+     * override it; the default rebuilds entity lists and calls
+     * {@link #evaluate(Map)}.
+     */
+    default RiskResult evaluate(VitalSeries series, VitalThresholdTable thresholds) {
+        Map<String, List<HealthMetric>> metricsByType = new LinkedHashMap<>();
+        for (int t = 0; t < VitalType.count(); t++) {
+            int n = series.count(t);
+            if (n == 0) continue;
+            String code = VitalType.byOrdinal(t).name();
+            List<HealthMetric> list = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                list.add(HealthMetric.builder().metricType(code).value(BigDecimal.valueOf(series.value(t, i))).build());
+            }
+            metricsByType.put(code, list);
+        }
+        return evaluate(metricsByType);
+    }
     
     record RiskResult(String level, List<String> reasons) {
         public static RiskResult none() { return new RiskResult("LOW", List.of()); }
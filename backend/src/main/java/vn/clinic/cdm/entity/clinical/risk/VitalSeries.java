@@ -0,0 +1,68 @@
+package vn.clinic.cdm.entity.clinical.risk;
+
+import vn.clinic.cdm.entity.clinical.HealthMetric;
+import vn.clinic.cdm.entity.clinical.VitalType;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Columnar view of a patient's recent vitals: one primitive array per
+ * {@link VitalType}, newest value first, holding at most {@code capacity}
+ * values per type. Instances can be {@link #clear() cleared} and reused
+ * across patients in a sweep.
+ */
+public final class VitalSeries {
+
+    private final double[][] values;
+    private final int[] counts;
+
+    public VitalSeries(int capacity) {
+        this.values = new double[VitalType.count()][capacity];
+        this.counts = new int[VitalType.count()];
+    }
+
+    /**
+     * Builds a series from metrics ordered newest first within each type;
+     * metrics of types without rules are skipped.
+     */
+    public static VitalSeries of(List<HealthMetric> metrics, int capacity) {
+        VitalSeries series = new VitalSeries(capacity);
+        for (HealthMetric m : metrics) {
+            VitalType type = VitalType.of(m.getMetricType());
+            if (type != null && m.getValue() != null) {
+                series.add(type.ordinal(), m.getValue().doubleValue());
+            }
+        }
+        return series;
+    }
+
+    /** Appends an older value of the type; ignored once the type is full. */
+    public void add(int typeOrdinal, double value) {
+        int n = counts[typeOrdinal];
+        if (n < values[typeOrdinal].length) {
+            values[typeOrdinal][n] = value;
+            counts[typeOrdinal] = n + 1;
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+    }
+
+    public int count(int typeOrdinal) {
+        return counts[typeOrdinal];
+    }
+
+    /** The i-th newest value of the type (0 = latest). */
+    public double value(int typeOrdinal, int i) {
+        return values[typeOrdinal][i];
+    }
+
+    public boolean isEmpty() {
+        for (int c : counts) {
+            if (c > 0) return false;
+        }
+        return true;
+    }
+}
@@ -2,60 +2,82 @@ package vn.clinic.cdm.entity.clinical.risk;
 
 import org.springframework.stereotype.Component;
 import vn.clinic.cdm.entity.clinical.HealthMetric;
-import vn.clinic.cdm.entity.clinical.VitalSignsThresholds;
+import vn.clinic.cdm.entity.clinical.VitalType;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Domain Logic: Vital Signs Risk Assessment Rule.
+ * Evaluated over primitive columns; reason strings are only built for findings.
  */
 @Component
 public class VitalSignsRiskRule implements RiskAssessmentRule {
 
+    private static final int TREND_POINTS = 3;
+
     @Override
     public RiskResult evaluate(Map<String, List<HealthMetric>> metricsByType) {
+        VitalSeries series = new VitalSeries(TREND_POINTS);
+        for (List<HealthMetric> typeLogs : metricsByType.values()) {
+            for (HealthMetric m : typeLogs) {
+                VitalType type = VitalType.of(m.getMetricType());
+                if (type != null && m.getValue() != null) {
+                    series.add(type.ordinal(), m.getValue().doubleValue());
+                }
+            }
+        }
+        return evaluate(series, VitalThresholdTable.defaults());
+    }
+
+    @Override
+    public RiskResult evaluate(VitalSeries series, VitalThresholdTable thresholds) {
         String riskLevel = "LOW";
-        List<String> reasons = new ArrayList<>();
+        List<String> reasons = null;
+
+        for (int t = 0; t < VitalType.count(); t++) {
+            int n = series.count(t);
+            if (n == 0) continue;
 
-        for (Map.Entry<String, List<HealthMetric>> entry : metricsByType.entrySet()) {
-            String type = entry.getKey();
-            List<HealthMetric> typeLogs = entry.getValue();
-            if (typeLogs.isEmpty()) continue;
-            
-            HealthMetric latest = typeLogs.get(0);
-            BigDecimal value = latest.getValue();
+            double value = series.value(t, 0);
 
-            if (VitalSignsThresholds.isCritical(type, value)) {
+            if (thresholds.isCritical(t, value)) {
                 riskLevel = "CRITICAL";
-                reasons.add(String.format("Chỉ số %s ở mức nguy hiểm: %s", VitalSignsThresholds.getLabel(type), value));
-            } else if ("LOW".equals(riskLevel) && VitalSignsThresholds.isAbnormal(type, value)) {
+                reasons = add(reasons, "Chỉ số %s ở mức nguy hiểm: %s", t, value);
+            } else if ("LOW".equals(riskLevel) && thresholds.isAbnormal(t, value)) {
                 riskLevel = "HIGH";
-                reasons.add(String.format("Chỉ số %s vượt ngưỡng: %s", VitalSignsThresholds.getLabel(type), value));
+                reasons = add(reasons, "Chỉ số %s vượt ngưỡng: %s", t, value);
             }
 
-            if (typeLogs.size() >= 3 && isWorsening(type, typeLogs.subList(0, 3))) {
+            if (n >= TREND_POINTS && isWorsening(series, t)) {
                 if (!"CRITICAL".equals(riskLevel)) riskLevel = "HIGH";
-                reasons.add(String.format("Xu hướng %s đang xấu đi", VitalSignsThresholds.getLabel(type)));
+                if (reasons == null) reasons = new ArrayList<>();
+                reasons.add(String.format("Xu hướng %s đang xấu đi", VitalType.byOrdinal(t).label()));
             }
         }
 
-        return new RiskResult(riskLevel, reasons);
+        return reasons == null ? RiskResult.none() : new RiskResult(riskLevel, reasons);
     }
 
-    private boolean isWorsening(String type, List<HealthMetric> last3) {
-        if (last3.size() < 3) return false;
-        
-        double v1 = last3.get(0).getValue().doubleValue();
-        double v2 = last3.get(1).getValue().doubleValue();
-        double v3 = last3.get(2).getValue().doubleValue();
-
-        return switch (type.toUpperCase()) {
-            case "BLOOD_GLUCOSE", "BLOOD_PRESSURE_SYS", "BLOOD_PRESSURE_DIA" -> v1 > v2 && v2 > v3;
-            case "SPO2" -> v1 < v2 && v2 < v3;
-            default -> false;
+    private boolean isWorsening(VitalSeries series, int t) {
+        double v1 = series.value(t, 0);
+        double v2 = series.value(t, 1);
+        double v3 = series.value(t, 2);
+
+        return switch (VitalType.byOrdinal(t).worseningTrend()) {
+            case RISING -> v1 > v2 && v2 > v3;
+            case FALLING -> v1 < v2 && v2 < v3;
+            case NONE -> false;
         };
     }
+
+    private List<String> add(List<String> reasons, String format, int t, double value) {
+        List<String> list = reasons != null ? reasons : new ArrayList<>();
+        list.add(String.format(format, VitalType.byOrdinal(t).label(),
+                BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP)));
+        return list;
+    }
 }
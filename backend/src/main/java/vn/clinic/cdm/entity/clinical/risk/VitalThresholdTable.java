@@ -0,0 +1,91 @@
+package vn.clinic.cdm.entity.clinical.risk;
+
+import vn.clinic.cdm.entity.clinical.HealthThreshold;
+import vn.clinic.cdm.entity.clinical.VitalType;
+
+import java.util.Collection;
+
+/**
+ * Precompiled abnormal/critical bounds indexed by {@link VitalType#ordinal()}.
+ * A value is out of range when it is strictly below the low or strictly above
+ * the high bound; infinite bounds mean "no limit on this side".
+ * <p>
+ * {@link #defaults()} is shared and immutable; {@link #withOverrides} copies it
+ * and replaces the abnormal range with a patient's own HealthThreshold values.
+ */
+public final class VitalThresholdTable {
+
+    private static final double NONE_LOW = Double.NEGATIVE_INFINITY;
+    private static final double NONE_HIGH = Double.POSITIVE_INFINITY;
+
+    private static final VitalThresholdTable DEFAULTS = buildDefaults();
+
+    private final double[] abnormalLow;
+    private final double[] abnormalHigh;
+    private final double[] criticalLow;
+    private final double[] criticalHigh;
+
+    private VitalThresholdTable(double[] abnormalLow, double[] abnormalHigh, double[] criticalLow, double[] criticalHigh) {
+        this.abnormalLow = abnormalLow;
+        this.abnormalHigh = abnormalHigh;
+        this.criticalLow = criticalLow;
+        this.criticalHigh = criticalHigh;
+    }
+
+    public static VitalThresholdTable defaults() {
+        return DEFAULTS;
+    }
+
+    private static VitalThresholdTable buildDefaults() {
+        int n = VitalType.count();
+        VitalThresholdTable t = new VitalThresholdTable(new double[n], new double[n], new double[n], new double[n]);
+        t.set(VitalType.BLOOD_GLUCOSE, 70, 180, 55, 300);
+        t.set(VitalType.BLOOD_PRESSURE_SYS, NONE_LOW, 140, 80, 180);
+        t.set(VitalType.BLOOD_PRESSURE_DIA, NONE_LOW, 90, NONE_LOW, 110);
+        t.set(VitalType.HEART_RATE, 50, 100, 45, 130);
+        t.set(VitalType.SPO2, 94, NONE_HIGH, 88, NONE_HIGH);
+        return t;
+    }
+
+    private void set(VitalType type, double abnLow, double abnHigh, double critLow, double critHigh) {
+        int i = type.ordinal();
+        abnormalLow[i] = abnLow;
+        abnormalHigh[i] = abnHigh;
+        criticalLow[i] = critLow;
+        criticalHigh[i] = critHigh;
+    }
+
+    /**
+     * Table with the patient's personalized normal ranges; thresholds of
+     * unknown metric types are ignored and missing bounds keep the default.
+     */
+    public VitalThresholdTable withOverrides(Collection<HealthThreshold> overrides) {
+        if (overrides == null || overrides.isEmpty()) {
+            return this;
+        }
+        VitalThresholdTable copy = new VitalThresholdTable(abnormalLow.clone(), abnormalHigh.clone(),
+                criticalLow, criticalHigh);
+        for (HealthThreshold o : overrides) {
+            VitalType type = VitalType.of(o.getMetricType());
+            if (type == null) continue;
+            if (o.getMinValue() != null) copy.abnormalLow[type.ordinal()] = o.getMinValue().doubleValue();
+            if (o.getMaxValue() != null) copy.abnormalHigh[type.ordinal()] = o.getMaxValue().doubleValue();
+        }
+        return copy;
+    }
+
+    public boolean isAbnormal(int typeOrdinal, double value) {
+        return value < abnormalLow[typeOrdinal] || value > abnormalHigh[typeOrdinal];
+    }
+
+    public boolean isCritical(int typeOrdinal, double value) {
+        return value < criticalLow[typeOrdinal] || value > criticalHigh[typeOrdinal];
+    }
+
+    /** CRITICAL, ABNORMAL or NORMAL. */
+    public String statusOf(VitalType type, double value) {
+        if (isCritical(type.ordinal(), value)) return "CRITICAL";
+        if (isAbnormal(type.ordinal(), value)) return "ABNORMAL";
+        return "NORMAL";
+    }
+}
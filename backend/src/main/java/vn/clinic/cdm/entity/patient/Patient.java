@@ -6,6 +6,7 @@ import vn.clinic.cdm.entity.common.BaseAuditableEntity;
 import vn.clinic.cdm.entity.identity.IdentityUser;
 import vn.clinic.cdm.entity.tenant.Tenant;
 import vn.clinic.cdm.entity.clinical.Doctor;
+import vn.clinic.cdm.common.util.VNStringUtils;
 
 import java.time.LocalDate;
 import java.util.UUID;
@@ -96,6 +97,34 @@ public class Patient extends BaseAuditableEntity {
     @Builder.Default
     private Boolean isActive = true;
 
+    /** Normalized name, phone, CCCD and conditions for trigram search (see PatientSearchRepository). */
+    @Column(name = "search_text", columnDefinition = "text")
+    @Setter(AccessLevel.NONE)
+    private String searchText;
+
+    @Column(name = "search_conditions", columnDefinition = "text")
+    @Setter(AccessLevel.NONE)
+    private String searchConditions;
+
+    @PrePersist
+    @PreUpdate
+    protected void refreshSearchText() {
+        searchText = buildSearchText(fullNameVi, phone, cccd, chronicConditions);
+        searchConditions = VNStringUtils.normalizeForSearch(chronicConditions);
+    }
+
+    public static String buildSearchText(String fullNameVi, String phone, String cccd, String chronicConditions) {
+        StringBuilder sb = new StringBuilder();
+        // Phone keeps digits only so "0912 345 678" and "0912345678" both match
+        String phoneDigits = phone != null ? phone.replaceAll("\\D", "") : null;
+        for (String part : new String[] { fullNameVi, phoneDigits, cccd, chronicConditions }) {
+            if (part != null && !part.isBlank()) {
+                sb.append(VNStringUtils.normalizeForSearch(part)).append(' ');
+            }
+        }
+        return sb.toString().trim();
+    }
+
     public UUID getIdentityUserId() {
         return identityUser != null ? identityUser.getId() : null;
     }
@@ -2,6 +2,7 @@ package vn.clinic.cdm.entity.patient;
 
 import jakarta.persistence.*;
 import lombok.*;
+import vn.clinic.cdm.common.cache.PatientDataChangeListener;
 import vn.clinic.cdm.entity.common.BaseAuditableEntity;
 import vn.clinic.cdm.entity.tenant.Tenant;
 
@@ -12,6 +13,7 @@ import java.time.LocalDate;
  */
 @Entity
 @Table(name = "patient_chronic_condition")
+@EntityListeners(PatientDataChangeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
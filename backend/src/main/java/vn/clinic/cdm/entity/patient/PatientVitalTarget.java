@@ -2,6 +2,7 @@ package vn.clinic.cdm.entity.patient;
 
 import jakarta.persistence.*;
 import lombok.*;
+import vn.clinic.cdm.common.cache.PatientDataChangeListener;
 import vn.clinic.cdm.entity.common.BaseAuditableEntity;
 import vn.clinic.cdm.entity.tenant.Tenant;
 
@@ -13,6 +14,7 @@ import java.time.LocalDate;
  */
 @Entity
 @Table(name = "patient_vital_target")
+@EntityListeners(PatientDataChangeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -0,0 +1,38 @@
+package vn.clinic.cdm.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+import vn.clinic.cdm.entity.clinical.HealthMetric;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Published after one or more health metrics of a patient were saved.
+ * Carries a detached copy of the new readings so async listeners do not
+ * have to reload them.
+ */
+@Getter
+public class HealthMetricRecordedEvent extends ApplicationEvent {
+    private final UUID patientId;
+    private final List<Reading> readings;
+
+    public HealthMetricRecordedEvent(Object source, UUID patientId) {
+        this(source, patientId, List.of());
+    }
+
+    public HealthMetricRecordedEvent(Object source, UUID patientId, Collection<HealthMetric> metrics) {
+        super(source);
+        this.patientId = patientId;
+        this.readings = metrics.stream().map(Reading::of).toList();
+    }
+
+    public record Reading(UUID metricId, String metricType, BigDecimal value, String unit, Instant recordedAt) {
+        static Reading of(HealthMetric m) {
+            return new Reading(m.getId(), m.getMetricType(), m.getValue(), m.getUnit(), m.getRecordedAt());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package vn.clinic.cdm.repository.aiaudit;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import vn.clinic.cdm.entity.aiaudit.AiResponseCacheEntry;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public interface AiResponseCacheRepository extends JpaRepository<AiResponseCacheEntry, String> {
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO ai_response_cache (cache_key, tenant_id, feature_type, prompt_version, response, hit_count, created_at, last_hit_at)
+            VALUES (:key, :tenantId, :feature, :version, :response, 0, :now, :now)
+            ON CONFLICT (cache_key) DO UPDATE SET response = EXCLUDED.response, last_hit_at = EXCLUDED.last_hit_at
+            """, nativeQuery = true)
+    void upsert(@Param("key") String key, @Param("tenantId") UUID tenantId, @Param("feature") String feature,
+            @Param("version") String version, @Param("response") String response, @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE AiResponseCacheEntry e SET e.hitCount = e.hitCount + 1, e.lastHitAt = :now WHERE e.cacheKey = :key")
+    int recordHit(@Param("key") String key, @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AiResponseCacheEntry e WHERE e.promptVersion <> :version")
+    int deleteByPromptVersionNot(@Param("version") String version);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AiResponseCacheEntry e WHERE e.lastHitAt < :cutoff")
+    int deleteIdleSince(@Param("cutoff") Instant cutoff);
+
+    /**
+     * Size-based eviction: keeps the {@code maxEntries} most recently used rows.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            DELETE FROM ai_response_cache WHERE cache_key IN (
+                SELECT cache_key FROM ai_response_cache ORDER BY last_hit_at DESC OFFSET :maxEntries)
+            """, nativeQuery = true)
+    int trimToSize(@Param("maxEntries") long maxEntries);
+}
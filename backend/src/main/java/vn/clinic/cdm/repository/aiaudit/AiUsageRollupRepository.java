@@ -0,0 +1,146 @@
+package vn.clinic.cdm.repository.aiaudit;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import vn.clinic.cdm.common.ai.AiLatencyHistogram;
+import vn.clinic.cdm.entity.aiaudit.AiAuditLog;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * JDBC access to ai_usage_rollup: per-minute and per-hour counters and latency
+ * histograms per tenant and feature, accumulated as audit batches are written.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AiUsageRollupRepository {
+
+    public static final String MINUTE = "MINUTE";
+    public static final String HOUR = "HOUR";
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO ai_usage_rollup AS r (granularity, bucket_start, tenant_id, feature_type, total_count,
+                                              success_count, failure_count, success_latency_sum_ms, latency_histogram)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (granularity, bucket_start, tenant_id, feature_type) DO UPDATE SET
+                total_count = r.total_count + EXCLUDED.total_count,
+                success_count = r.success_count + EXCLUDED.success_count,
+                failure_count = r.failure_count + EXCLUDED.failure_count,
+                success_latency_sum_ms = r.success_latency_sum_ms + EXCLUDED.success_latency_sum_ms,
+                latency_histogram = ARRAY(
+                    SELECT a + b
+                    FROM unnest(r.latency_histogram, EXCLUDED.latency_histogram) WITH ORDINALITY AS t(a, b, i)
+                    ORDER BY i)
+            """;
+
+    /** Upsert order: every writer locks the bucket rows in the same sequence, so concurrent batches cannot deadlock. */
+    private static final Comparator<BucketKey> LOCK_ORDER = Comparator.comparing(BucketKey::granularity)
+            .thenComparing(BucketKey::bucketStart)
+            .thenComparing(BucketKey::tenantId)
+            .thenComparing(BucketKey::feature);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Folds a batch of written audit entries into minute and hour buckets.
+     * Call it in the transaction that inserts the entries.
+     */
+    public void accumulate(List<AiAuditLog> entries) {
+        Map<BucketKey, Bucket> buckets = new HashMap<>();
+        for (AiAuditLog e : entries) {
+            add(buckets, new BucketKey(MINUTE, e.getCreatedAt().truncatedTo(ChronoUnit.MINUTES), e.getTenantId(), e.getFeatureType()), e);
+            add(buckets, new BucketKey(HOUR, e.getCreatedAt().truncatedTo(ChronoUnit.HOURS), e.getTenantId(), e.getFeatureType()), e);
+        }
+
+        List<Map.Entry<BucketKey, Bucket>> rows = new ArrayList<>(buckets.entrySet());
+        rows.sort(Map.Entry.comparingByKey(LOCK_ORDER));
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (ps, row) -> {
+            BucketKey key = row.getKey();
+            Bucket b = row.getValue();
+            ps.setString(1, key.granularity());
+            ps.setTimestamp(2, Timestamp.from(key.bucketStart()));
+            ps.setObject(3, key.tenantId());
+            ps.setString(4, key.feature().name());
+            ps.setLong(5, b.total);
+            ps.setLong(6, b.success);
+            ps.setLong(7, b.failure);
+            ps.setLong(8, b.successLatencySum);
+            Long[] histogram = new Long[AiLatencyHistogram.BUCKETS];
+            for (int i = 0; i < histogram.length; i++) histogram[i] = b.histogram[i];
+            ps.setArray(9, ps.getConnection().createArrayOf("bigint", histogram));
+        });
+    }
+
+    /**
+     * Totals per feature since {@code from}, summed across tenants.
+     */
+    public Map<String, FeatureUsage> sumByFeature(String granularity, Instant from) {
+        Map<String, FeatureUsage> result = new LinkedHashMap<>();
+        jdbcTemplate.query("""
+                SELECT feature_type, SUM(total_count), SUM(success_count), SUM(failure_count), SUM(success_latency_sum_ms)
+                FROM ai_usage_rollup
+                WHERE granularity = ? AND bucket_start >= ?
+                GROUP BY feature_type
+                """, rs -> {
+            result.put(rs.getString(1), new FeatureUsage(rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5),
+                    new long[AiLatencyHistogram.BUCKETS]));
+        }, granularity, Timestamp.from(from));
+
+        jdbcTemplate.query("""
+                SELECT r.feature_type, h.idx, SUM(h.cnt)
+                FROM ai_usage_rollup r
+                CROSS JOIN LATERAL unnest(r.latency_histogram) WITH ORDINALITY AS h(cnt, idx)
+                WHERE r.granularity = ? AND r.bucket_start >= ?
+                GROUP BY r.feature_type, h.idx
+                """, rs -> {
+            FeatureUsage usage = result.get(rs.getString(1));
+            int idx = rs.getInt(2) - 1;
+            if (usage != null && idx >= 0 && idx < usage.latencyHistogram().length) {
+                usage.latencyHistogram()[idx] = rs.getLong(3);
+            }
+        }, granularity, Timestamp.from(from));
+        return result;
+    }
+
+    public int deleteOlderThan(String granularity, Instant cutoff) {
+        return jdbcTemplate.update("DELETE FROM ai_usage_rollup WHERE granularity = ? AND bucket_start < ?",
+                granularity, Timestamp.from(cutoff));
+    }
+
+    private static void add(Map<BucketKey, Bucket> buckets, BucketKey key, AiAuditLog e) {
+        Bucket b = buckets.computeIfAbsent(key, k -> new Bucket());
+        b.total++;
+        if ("SUCCESS".equals(e.getStatus())) {
+            long latency = e.getLatencyMs() != null ? e.getLatencyMs() : 0L;
+            b.success++;
+            b.successLatencySum += latency;
+            b.histogram[AiLatencyHistogram.bucketOf(latency)]++;
+        } else if ("FAILED".equals(e.getStatus())) {
+            b.failure++;
+        }
+    }
+
+    public record FeatureUsage(long total, long success, long failure, long successLatencySumMs, long[] latencyHistogram) {
+    }
+
+    private record BucketKey(String granularity, Instant bucketStart, UUID tenantId, AiAuditLog.AiFeatureType feature) {
+    }
+
+    private static final class Bucket {
+        private long total;
+        private long success;
+        private long failure;
+        private long successLatencySum;
+        private final long[] histogram = new long[AiLatencyHistogram.BUCKETS];
+    }
+}
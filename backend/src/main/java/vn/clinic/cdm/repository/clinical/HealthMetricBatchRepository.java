@@ -0,0 +1,79 @@
+package vn.clinic.cdm.repository.clinical;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import vn.clinic.cdm.entity.clinical.HealthMetric;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * JDBC batch writes to health_metric for device/gateway sync, bypassing
+ * per-row JPA persistence.
+ */
+@Repository
+@RequiredArgsConstructor
+public class HealthMetricBatchRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO health_metric (id, patient_id, tenant_id, metric_type, value, unit, status, notes,
+                                       image_url, recorded_at, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (patient_id, upper(metric_type), recorded_at) DO NOTHING
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Dedupe key of a reading: upper-cased type + recorded instant. */
+    public record ReadingKey(String metricType, Instant recordedAt) {
+        public static ReadingKey of(String metricType, Instant recordedAt) {
+            return new ReadingKey(metricType.toUpperCase(java.util.Locale.ROOT), recordedAt);
+        }
+    }
+
+    /**
+     * Inserts the readings, skipping those already stored for the same
+     * (patient, upper-cased type, recordedAt); the unique index makes this
+     * safe against concurrent re-sends. Returns, per input, whether it was
+     * stored; stored inputs get their created/updated times set.
+     */
+    public boolean[] insertAll(List<HealthMetric> metrics) {
+        boolean[] inserted = new boolean[metrics.size()];
+        if (metrics.isEmpty()) {
+            return inserted;
+        }
+        Instant stamp = Instant.now();
+        Timestamp now = Timestamp.from(stamp);
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_SQL, metrics, metrics.size(), (ps, m) -> {
+            ps.setObject(1, m.getId());
+            ps.setObject(2, m.getPatient().getId());
+            ps.setObject(3, m.getTenant().getId());
+            ps.setString(4, m.getMetricType());
+            ps.setBigDecimal(5, m.getValue());
+            ps.setString(6, m.getUnit());
+            ps.setString(7, m.getStatus());
+            ps.setObject(8, m.getNotes(), Types.VARCHAR);
+            ps.setObject(9, m.getImageUrl(), Types.VARCHAR);
+            ps.setTimestamp(10, Timestamp.from(m.getRecordedAt()));
+            ps.setTimestamp(11, now);
+            ps.setTimestamp(12, now);
+        });
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // Rewritten batches report SUCCESS_NO_INFO; those rows are counted as inserted
+                inserted[i] = count > 0 || count == Statement.SUCCESS_NO_INFO;
+                if (inserted[i]) {
+                    metrics.get(i).setCreatedAt(stamp);
+                    metrics.get(i).setUpdatedAt(stamp);
+                }
+                i++;
+            }
+        }
+        return inserted;
+    }
+}
@@ -1,5 +1,6 @@
 package vn.clinic.cdm.repository.clinical;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import vn.clinic.cdm.entity.clinical.HealthMetric;
 
@@ -11,19 +12,95 @@ public interface HealthMetricRepository extends JpaRepository<HealthMetric, UUID
 
     List<HealthMetric> findByPatientIdAndMetricTypeOrderByRecordedAtDesc(UUID patientId, String metricType);
 
-    List<HealthMetric> findByPatientIdAndMetricTypeAndRecordedAtBetweenOrderByRecordedAtAsc(UUID patientId,
-            String metricType, java.time.Instant start, java.time.Instant end);
+    /** Newest first, limited in the database by the page size. */
+    List<HealthMetric> findByPatientIdOrderByRecordedAtDescIdDesc(UUID patientId, Pageable pageable);
+
+    List<HealthMetric> findByPatientIdAndMetricTypeIgnoreCaseOrderByRecordedAtDesc(UUID patientId, String metricType,
+            Pageable pageable);
 
+    /**
+     * Keyset page: rows strictly older than the (recordedAt, id) cursor.
+     */
     @org.springframework.data.jpa.repository.Query("""
-        SELECT COUNT(DISTINCT h.patient.id) FROM HealthMetric h
-        WHERE h.recordedAt BETWEEN :start AND :end
-          AND (
-            (h.metricType = 'BLOOD_GLUCOSE' AND (h.value > 300 OR h.value < 55)) OR
-            (h.metricType = 'BLOOD_PRESSURE_SYS' AND h.value > 180) OR
-            (h.metricType = 'SPO2' AND h.value < 88)
-          )
+        SELECT h FROM HealthMetric h
+        WHERE h.patient.id = :patientId
+          AND (h.recordedAt < :recordedAt OR (h.recordedAt = :recordedAt AND h.id < :id))
+        ORDER BY h.recordedAt DESC, h.id DESC
     """)
-    long countPatientsWithCriticalMetrics(@org.springframework.data.repository.query.Param("start") java.time.Instant start,
-                                          @org.springframework.data.repository.query.Param("end") java.time.Instant end);
+    List<HealthMetric> findPageBefore(@org.springframework.data.repository.query.Param("patientId") UUID patientId,
+                                      @org.springframework.data.repository.query.Param("recordedAt") java.time.Instant recordedAt,
+                                      @org.springframework.data.repository.query.Param("id") UUID id,
+                                      Pageable pageable);
+
+    /**
+     * The stored reading with the dedupe key of uq_health_metric_reading.
+     */
+    @org.springframework.data.jpa.repository.Query(value = """
+        SELECT h.* FROM health_metric h
+        WHERE h.patient_id = :patientId AND upper(h.metric_type) = upper(:metricType) AND h.recorded_at = :recordedAt
+    """, nativeQuery = true)
+    java.util.Optional<HealthMetric> findReading(
+            @org.springframework.data.repository.query.Param("patientId") UUID patientId,
+            @org.springframework.data.repository.query.Param("metricType") String metricType,
+            @org.springframework.data.repository.query.Param("recordedAt") java.time.Instant recordedAt);
+
+    /**
+     * Rolling window: the latest {@code perType} values of each metric type
+     * (case-insensitive, like the reading dedupe key), newest first within a
+     * type. Ranks the patient's whole history; on hot paths prefer
+     * {@link #findRecentWindowOfTypes}.
+     */
+    @org.springframework.data.jpa.repository.Query(value = """
+        SELECT h.* FROM health_metric h
+        WHERE h.id IN (
+            SELECT w.id FROM (
+                SELECT m.id, ROW_NUMBER() OVER (PARTITION BY upper(m.metric_type) ORDER BY m.recorded_at DESC) AS rn
+                FROM health_metric m WHERE m.patient_id = :patientId
+            ) w WHERE w.rn <= :perType)
+        ORDER BY upper(h.metric_type), h.recorded_at DESC
+    """, nativeQuery = true)
+    List<HealthMetric> findRecentWindow(@org.springframework.data.repository.query.Param("patientId") UUID patientId,
+                                        @org.springframework.data.repository.query.Param("perType") int perType);
+
+    /**
+     * {@link #findRecentWindow} for many patients in one round-trip (ward-wide
+     * NEWS2 runs), limited to readings recorded since {@code since} so the
+     * window never ranks a patient's whole history.
+     */
+    @org.springframework.data.jpa.repository.Query(value = """
+        SELECT h.* FROM health_metric h
+        WHERE h.id IN (
+            SELECT w.id FROM (
+                SELECT m.id, ROW_NUMBER() OVER (PARTITION BY m.patient_id, upper(m.metric_type) ORDER BY m.recorded_at DESC) AS rn
+                FROM health_metric m WHERE m.patient_id IN (:patientIds) AND m.recorded_at >= :since
+            ) w WHERE w.rn <= :perType)
+        ORDER BY h.patient_id, upper(h.metric_type), h.recorded_at DESC
+    """, nativeQuery = true)
+    List<HealthMetric> findRecentWindowForPatients(
+            @org.springframework.data.repository.query.Param("patientIds") java.util.Collection<UUID> patientIds,
+            @org.springframework.data.repository.query.Param("perType") int perType,
+            @org.springframework.data.repository.query.Param("since") java.time.Instant since);
+
+    /**
+     * {@link #findRecentWindow} restricted to the given upper-case metric
+     * types: one backward probe of uq_health_metric_reading per type, so the
+     * cost stays constant however long the patient's history grows.
+     */
+    @org.springframework.data.jpa.repository.Query(value = """
+        SELECT h.* FROM unnest(ARRAY[:metricTypes]) AS t(metric_type)
+        CROSS JOIN LATERAL (
+            SELECT m.* FROM health_metric m
+            WHERE m.patient_id = :patientId AND upper(m.metric_type) = t.metric_type
+            ORDER BY m.recorded_at DESC
+            LIMIT :perType) h
+        ORDER BY t.metric_type, h.recorded_at DESC
+    """, nativeQuery = true)
+    List<HealthMetric> findRecentWindowOfTypes(
+            @org.springframework.data.repository.query.Param("patientId") UUID patientId,
+            @org.springframework.data.repository.query.Param("metricTypes") java.util.Collection<String> metricTypes,
+            @org.springframework.data.repository.query.Param("perType") int perType);
+
+    List<HealthMetric> findByPatientIdAndMetricTypeAndRecordedAtBetweenOrderByRecordedAtAsc(UUID patientId,
+            String metricType, java.time.Instant start, java.time.Instant end);
 }
 
@@ -0,0 +1,45 @@
+package vn.clinic.cdm.repository.clinical;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import vn.clinic.cdm.dto.clinical.VitalBucketDto;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * JDBC aggregation over health_metric for trend charts: readings of one type
+ * are grouped into fixed-width time buckets in the database so only
+ * min/max/avg per bucket travel to the application.
+ */
+@Repository
+@RequiredArgsConstructor
+public class HealthMetricSeriesRepository {
+
+    private static final String DOWNSAMPLE_SQL = """
+            SELECT to_timestamp(floor(extract(epoch FROM recorded_at) / ?) * ?) AS bucket_start,
+                   MIN(value) AS min_value, MAX(value) AS max_value, AVG(value) AS avg_value, COUNT(*) AS sample_count
+            FROM health_metric
+            WHERE patient_id = ? AND upper(metric_type) = upper(?) AND recorded_at >= ? AND recorded_at < ?
+            GROUP BY 1
+            ORDER BY 1
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<VitalBucketDto> downsample(UUID patientId, String metricType, Instant from, Instant to, long bucketSeconds) {
+        return jdbcTemplate.query(DOWNSAMPLE_SQL, (rs, i) -> VitalBucketDto.builder()
+                        .type(metricType)
+                        .bucketStart(rs.getTimestamp("bucket_start").toInstant())
+                        .bucketSeconds(bucketSeconds)
+                        .min(rs.getBigDecimal("min_value"))
+                        .max(rs.getBigDecimal("max_value"))
+                        .avg(rs.getBigDecimal("avg_value"))
+                        .count(rs.getLong("sample_count"))
+                        .build(),
+                bucketSeconds, bucketSeconds, patientId, metricType, Timestamp.from(from), Timestamp.from(to));
+    }
+}
@@ -10,6 +10,8 @@ import java.util.UUID;
 public interface LabResultRepository extends JpaRepository<LabResult, UUID> {
     List<LabResult> findByConsultation(ClinicalConsultation consultation);
 
+    List<LabResult> findByConsultationId(UUID consultationId);
+
     List<LabResult> findByConsultationPatientIdOrderByCreatedAtDesc(UUID patientId);
 }
 
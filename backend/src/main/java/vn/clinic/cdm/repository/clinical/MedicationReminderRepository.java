@@ -0,0 +1,164 @@
+package vn.clinic.cdm.repository.clinical;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import vn.clinic.cdm.entity.clinical.Medication;
+import vn.clinic.cdm.entity.clinical.MedicationSchedule;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * JDBC work queue over medication_schedule for the reminder schedulers.
+ * <p>
+ * Pending schedules move reminder_state NULL -> DUE_NOTIFIED ->
+ * OVERDUE_NOTIFIED -> EXPIRED, and next_reminder_at holds the time of the
+ * next transition, so every schedule is touched a bounded number of times.
+ * Rows are claimed with FOR UPDATE SKIP LOCKED and advanced in the same
+ * statement; the claimed rows come back already joined with the medication
+ * and patient contact fields. The claim is meant to run in the caller's
+ * transaction (see MedicationReminderDispatcher), which keeps the row locks
+ * until the whole batch has been queued and commits the new states with it:
+ * concurrent nodes take disjoint batches, a claim that rolls back (crash,
+ * failed commit) leaves its rows to be claimed again, and a reminder is
+ * therefore queued at least once rather than exactly once.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MedicationReminderRepository {
+
+    /**
+     * %1$s = column holding when the stage became due (also the claim order),
+     * %2$s = claim predicate on medication_schedule.
+     */
+    private static final String CLAIM_SQL = """
+            WITH claimed AS (
+                UPDATE medication_schedule s
+                SET reminder_state = ?, next_reminder_at = s.scheduled_time + make_interval(secs => ?)
+                FROM (
+                    SELECT id, %1$s AS due_at FROM medication_schedule
+                    WHERE status = 'PENDING' AND %2$s
+                    ORDER BY %1$s
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED) q
+                WHERE s.id = q.id
+                RETURNING s.id, s.medication_id, s.scheduled_time, q.due_at
+            )
+            SELECT c.id, c.scheduled_time, c.due_at, m.medicine_name, m.dosage, m.instructions,
+                   p.id AS patient_id, p.full_name_vi, p.email, p.phone
+            FROM claimed c
+            JOIN medication m ON m.id = c.medication_id
+            JOIN prescription pr ON pr.id = m.prescription_id
+            JOIN patient p ON p.id = pr.patient_id
+            ORDER BY c.scheduled_time
+            """;
+
+    private static final String DUE_SQL = CLAIM_SQL.formatted("scheduled_time",
+            "reminder_state IS NULL AND scheduled_time > ? AND scheduled_time <= ?");
+
+    private static final String OVERDUE_SQL = CLAIM_SQL.formatted("next_reminder_at",
+            "reminder_state = 'DUE_NOTIFIED' AND next_reminder_at > ? AND next_reminder_at <= ?");
+
+    private static final String EXPIRE_SQL = """
+            UPDATE medication_schedule SET reminder_state = 'EXPIRED', next_reminder_at = NULL
+            WHERE id IN (
+                SELECT id FROM medication_schedule
+                WHERE status = 'PENDING' AND reminder_state IS NULL AND scheduled_time <= ?
+                UNION ALL
+                SELECT id FROM medication_schedule
+                WHERE status = 'PENDING' AND next_reminder_at IS NOT NULL
+                  AND ((reminder_state = 'DUE_NOTIFIED' AND next_reminder_at <= ?)
+                    OR (reminder_state = 'OVERDUE_NOTIFIED' AND next_reminder_at <= ?))
+                LIMIT ?)
+            """;
+
+    private static final String RELEASE_DUE_SQL = """
+            UPDATE medication_schedule SET reminder_state = NULL, next_reminder_at = NULL
+            WHERE id = ? AND reminder_state = 'DUE_NOTIFIED'
+            """;
+
+    private static final String RELEASE_OVERDUE_SQL = """
+            UPDATE medication_schedule SET reminder_state = 'DUE_NOTIFIED', next_reminder_at = ?
+            WHERE id = ? AND reminder_state = 'OVERDUE_NOTIFIED'
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param dueAt when the reminder became due for the claimed stage: the
+     *              scheduled time for the first reminder, the overdue check
+     *              time for the second
+     */
+    public record DueReminder(UUID scheduleId, Instant scheduledTime, Instant dueAt, String medicineName,
+            String dosage, String instructions, UUID patientId, String patientName, String email, String phone) {
+
+        public String dosageInstruction() {
+            return Medication.dosageInstruction(dosage, instructions);
+        }
+    }
+
+    /**
+     * Claims up to {@code limit} not-yet-reminded schedules due in
+     * ({@code from}, {@code to}], oldest first, and moves them to
+     * DUE_NOTIFIED with the overdue check {@code overdueAfter} past the
+     * scheduled time. The row locks are held until the caller's transaction
+     * ends, so run it in the transaction that queues the batch: rows another
+     * node holds are skipped, and if that transaction rolls back the
+     * schedules return to their previous state and are claimed again.
+     */
+    public List<DueReminder> claimDue(Instant from, Instant to, Duration overdueAfter, int limit) {
+        return claim(DUE_SQL, MedicationSchedule.REMINDER_DUE_NOTIFIED, overdueAfter, from, to, limit);
+    }
+
+    /**
+     * Claims DUE_NOTIFIED schedules whose overdue check falls in
+     * ({@code from}, {@code to}] and moves them to OVERDUE_NOTIFIED, to expire
+     * {@code expireAfter} past the scheduled time. Same locking and rollback
+     * semantics as {@link #claimDue}.
+     */
+    public List<DueReminder> claimOverdue(Instant from, Instant to, Duration expireAfter, int limit) {
+        return claim(OVERDUE_SQL, MedicationSchedule.REMINDER_OVERDUE_NOTIFIED, expireAfter, from, to, limit);
+    }
+
+    /**
+     * Undoes {@link #claimDue} for one schedule whose reminder could not be
+     * queued, so a later tick claims it again (or the expiry sweep retires it).
+     * Must run in the claiming transaction.
+     */
+    public void releaseDue(DueReminder reminder) {
+        jdbcTemplate.update(RELEASE_DUE_SQL, reminder.scheduleId());
+    }
+
+    /**
+     * Undoes {@link #claimOverdue} for one schedule: back to DUE_NOTIFIED with
+     * the overdue check it was claimed at.
+     */
+    public void releaseOverdue(DueReminder reminder) {
+        jdbcTemplate.update(RELEASE_OVERDUE_SQL, Timestamp.from(reminder.dueAt()), reminder.scheduleId());
+    }
+
+    /**
+     * Set-based expiry of up to {@code limit} pending schedules: reminders
+     * whose send time passed before {@code staleBefore} (never sent late) and
+     * overdue reminders whose expiry is at or before {@code now}. Returns the
+     * number of rows expired.
+     */
+    public int expire(Instant staleBefore, Instant now, int limit) {
+        return jdbcTemplate.update(EXPIRE_SQL, Timestamp.from(staleBefore), Timestamp.from(staleBefore),
+                Timestamp.from(now), limit);
+    }
+
+    private List<DueReminder> claim(String sql, String state, Duration next, Instant from, Instant to, int limit) {
+        return jdbcTemplate.query(sql,
+                (rs, n) -> new DueReminder(rs.getObject("id", UUID.class),
+                        rs.getTimestamp("scheduled_time").toInstant(), rs.getTimestamp("due_at").toInstant(),
+                        rs.getString("medicine_name"),
+                        rs.getString("dosage"), rs.getString("instructions"), rs.getObject("patient_id", UUID.class),
+                        rs.getString("full_name_vi"), rs.getString("email"), rs.getString("phone")),
+                state, next.toSeconds(), Timestamp.from(from), Timestamp.from(to), limit);
+    }
+}
@@ -1,5 +1,6 @@
 package vn.clinic.cdm.repository.clinical;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import vn.clinic.cdm.entity.clinical.MedicationSchedule;
 
@@ -10,11 +11,10 @@ import java.util.UUID;
 public interface MedicationScheduleRepository extends JpaRepository<MedicationSchedule, UUID> {
     List<MedicationSchedule> findByMedicationPrescriptionPatientId(UUID patientId);
 
+    @EntityGraph(attributePaths = { "medication" })
+    List<MedicationSchedule> findTop10ByMedicationPrescriptionPatientIdOrderByScheduledTimeDesc(UUID patientId);
+
     List<MedicationSchedule> findByMedicationPrescriptionPatientIdAndScheduledTimeBetween(UUID patientId, Instant start,
             Instant end);
-
-    List<MedicationSchedule> findByStatusAndScheduledTimeBefore(String status, Instant threshold);
-
-    List<MedicationSchedule> findByStatusAndScheduledTimeBetween(String status, Instant start, Instant end);
 }
 
@@ -0,0 +1,37 @@
+package vn.clinic.cdm.repository.clinical;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * patient_risk_backfill: patients whose vitals predate patient_risk_snapshot,
+ * queued once by migration V27 and drained by the risk service.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PatientRiskBackfillRepository {
+
+    private static final String CLAIM_SQL = """
+            DELETE FROM patient_risk_backfill
+            WHERE patient_id IN (
+                SELECT patient_id FROM patient_risk_backfill
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED)
+            RETURNING patient_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Removes and returns up to {@code limit} queued patients; rows claimed by
+     * another node are skipped. Run it in the transaction that writes their
+     * snapshots so a failed batch stays queued.
+     */
+    public List<UUID> claim(int limit) {
+        return jdbcTemplate.query(CLAIM_SQL, (rs, n) -> rs.getObject("patient_id", UUID.class), limit);
+    }
+}
@@ -0,0 +1,40 @@
+package vn.clinic.cdm.repository.clinical;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import vn.clinic.cdm.entity.clinical.risk.PatientRiskSnapshot;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface PatientRiskSnapshotRepository extends JpaRepository<PatientRiskSnapshot, UUID> {
+
+    List<PatientRiskSnapshot> findByPatientIdInAndRiskLevelNot(Collection<UUID> patientIds, String riskLevel);
+
+    /**
+     * Writes the snapshot unless a concurrent refresh already stored one
+     * computed from newer vitals.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO patient_risk_snapshot (patient_id, tenant_id, risk_level, reasons, last_vital_trend, last_metric_at, evaluated_at)
+            VALUES (:patientId, :tenantId, :riskLevel, :reasons, :trend, :lastMetricAt, :now)
+            ON CONFLICT (patient_id) DO UPDATE SET
+                risk_level = EXCLUDED.risk_level,
+                reasons = EXCLUDED.reasons,
+                last_vital_trend = EXCLUDED.last_vital_trend,
+                last_metric_at = EXCLUDED.last_metric_at,
+                evaluated_at = EXCLUDED.evaluated_at
+            WHERE patient_risk_snapshot.last_metric_at IS NULL
+               OR patient_risk_snapshot.last_metric_at <= EXCLUDED.last_metric_at
+            """, nativeQuery = true)
+    int upsert(@Param("patientId") UUID patientId, @Param("tenantId") UUID tenantId,
+            @Param("riskLevel") String riskLevel, @Param("reasons") String reasons, @Param("trend") String trend,
+            @Param("lastMetricAt") Instant lastMetricAt, @Param("now") Instant now);
+}
@@ -0,0 +1,90 @@
+package vn.clinic.cdm.repository.clinical;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * vital_critical_day: one row per patient and day with at least one critical
+ * vital, attributed to the patient's doctor at ingest time. Counting rows per
+ * day gives "patients with a critical reading" without scanning health_metric.
+ * Days are UTC calendar days, as in the V19 backfill and the vital_rollup DAY
+ * buckets, whatever the host zone.
+ */
+@Repository
+@RequiredArgsConstructor
+public class VitalCriticalDayRepository {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO vital_critical_day AS c (patient_id, day, tenant_id, doctor_id, event_count)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (patient_id, day) DO UPDATE SET
+                event_count = c.event_count + EXCLUDED.event_count,
+                doctor_id = EXCLUDED.doctor_id
+            """;
+
+    private static final ZoneOffset DAY_ZONE = ZoneOffset.UTC;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** The day a reading is counted under. */
+    public static LocalDate dayOf(Instant instant) {
+        return LocalDate.ofInstant(instant, DAY_ZONE);
+    }
+
+    /** The current day, in the zone readings are counted under. */
+    public static LocalDate today() {
+        return LocalDate.now(DAY_ZONE);
+    }
+
+    public record DayKey(UUID patientId, LocalDate day, UUID tenantId, UUID doctorId) {
+    }
+
+    /** Adds {@code events} critical readings per patient-day. */
+    public void record(Map<DayKey, Integer> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<DayKey, Integer>> rows = new ArrayList<>(events.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (ps, row) -> {
+            DayKey key = row.getKey();
+            ps.setObject(1, key.patientId());
+            ps.setDate(2, Date.valueOf(key.day()));
+            ps.setObject(3, key.tenantId());
+            ps.setObject(4, key.doctorId(), Types.OTHER);
+            ps.setInt(5, row.getValue());
+        });
+    }
+
+    /**
+     * Patients of the doctor with at least one critical reading, per day in
+     * [from, to]; days without any are filled with 0.
+     */
+    public Map<LocalDate, Integer> countPatientsPerDay(UUID tenantId, UUID doctorId, LocalDate from, LocalDate to) {
+        Map<LocalDate, Integer> counts = new LinkedHashMap<>();
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            counts.put(d, 0);
+        }
+        jdbcTemplate.query("""
+                        SELECT day, COUNT(*) AS patients FROM vital_critical_day
+                        WHERE tenant_id = ? AND doctor_id = ? AND day BETWEEN ? AND ?
+                        GROUP BY day
+                        """,
+                rs -> {
+                    counts.put(rs.getDate("day").toLocalDate(), rs.getInt("patients"));
+                },
+                tenantId, doctorId, Date.valueOf(from), Date.valueOf(to));
+        return counts;
+    }
+}
@@ -0,0 +1,166 @@
+package vn.clinic.cdm.repository.clinical;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import vn.clinic.cdm.entity.clinical.VitalType;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * JDBC access to the high-frequency vital store: vital_sample (append-only,
+ * monthly partitions on recorded_at, REAL values keyed by patient + metric
+ * code + time) and the hourly/daily vital_rollup buckets maintained on append.
+ */
+@Repository
+@RequiredArgsConstructor
+public class VitalSampleRepository {
+
+    public static final String HOUR = "HOUR";
+    public static final String DAY = "DAY";
+
+    private static final String INSERT_SQL = """
+            INSERT INTO vital_sample (patient_id, metric_code, recorded_at, value, tenant_id)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT DO NOTHING
+            """;
+
+    private static final String ROLLUP_SQL = """
+            INSERT INTO vital_rollup AS r (granularity, patient_id, metric_code, bucket_start, tenant_id,
+                                           sample_count, value_sum, value_min, value_max)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (granularity, patient_id, metric_code, bucket_start) DO UPDATE SET
+                sample_count = r.sample_count + EXCLUDED.sample_count,
+                value_sum = r.value_sum + EXCLUDED.value_sum,
+                value_min = LEAST(r.value_min, EXCLUDED.value_min),
+                value_max = GREATEST(r.value_max, EXCLUDED.value_max)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record Sample(UUID patientId, UUID tenantId, VitalType type, Instant recordedAt, float value) {
+    }
+
+    public record Rollup(Instant bucketStart, int count, double sum, float min, float max) {
+        public double avg() {
+            return count == 0 ? 0 : sum / count;
+        }
+    }
+
+    /**
+     * Appends samples in one JDBC batch and folds the newly inserted ones into
+     * the hour and day rollups. Returns, per sample, whether it was inserted
+     * (false = an identical patient/type/time reading already existed).
+     */
+    public boolean[] append(List<Sample> samples) {
+        boolean[] inserted = new boolean[samples.size()];
+        if (samples.isEmpty()) {
+            return inserted;
+        }
+
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_SQL, samples, samples.size(), (ps, s) -> {
+            ps.setObject(1, s.patientId());
+            ps.setShort(2, s.type().code());
+            ps.setTimestamp(3, Timestamp.from(s.recordedAt()));
+            ps.setFloat(4, s.value());
+            ps.setObject(5, s.tenantId());
+        });
+
+        Map<BucketKey, Bucket> buckets = new LinkedHashMap<>();
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // Rewritten batches report SUCCESS_NO_INFO; those rows are counted as inserted
+                inserted[i] = count > 0 || count == Statement.SUCCESS_NO_INFO;
+                if (inserted[i]) {
+                    Sample s = samples.get(i);
+                    add(buckets, new BucketKey(HOUR, s, s.recordedAt().truncatedTo(ChronoUnit.HOURS)), s);
+                    add(buckets, new BucketKey(DAY, s, s.recordedAt().truncatedTo(ChronoUnit.DAYS)), s);
+                }
+                i++;
+            }
+        }
+
+        if (buckets.isEmpty()) {
+            return inserted;
+        }
+        List<Map.Entry<BucketKey, Bucket>> rows = new ArrayList<>(buckets.entrySet());
+        jdbcTemplate.batchUpdate(ROLLUP_SQL, rows, rows.size(), (ps, row) -> {
+            BucketKey key = row.getKey();
+            Bucket b = row.getValue();
+            ps.setString(1, key.granularity());
+            ps.setObject(2, key.patientId());
+            ps.setShort(3, key.type().code());
+            ps.setTimestamp(4, Timestamp.from(key.bucketStart()));
+            ps.setObject(5, b.tenantId);
+            ps.setInt(6, b.count);
+            ps.setDouble(7, b.sum);
+            ps.setFloat(8, b.min);
+            ps.setFloat(9, b.max);
+        });
+        return inserted;
+    }
+
+    public List<Sample> findRange(UUID patientId, VitalType type, Instant from, Instant to) {
+        return jdbcTemplate.query("""
+                        SELECT recorded_at, value, tenant_id FROM vital_sample
+                        WHERE patient_id = ? AND metric_code = ? AND recorded_at >= ? AND recorded_at < ?
+                        ORDER BY recorded_at
+                        """,
+                (rs, n) -> new Sample(patientId, rs.getObject("tenant_id", UUID.class), type,
+                        rs.getTimestamp("recorded_at").toInstant(), rs.getFloat("value")),
+                patientId, type.code(), Timestamp.from(from), Timestamp.from(to));
+    }
+
+    public List<Rollup> findRollups(String granularity, UUID patientId, VitalType type, Instant from, Instant to) {
+        return jdbcTemplate.query("""
+                        SELECT bucket_start, sample_count, value_sum, value_min, value_max FROM vital_rollup
+                        WHERE granularity = ? AND patient_id = ? AND metric_code = ?
+                          AND bucket_start >= ? AND bucket_start < ?
+                        ORDER BY bucket_start
+                        """,
+                (rs, n) -> new Rollup(rs.getTimestamp("bucket_start").toInstant(), rs.getInt("sample_count"),
+                        rs.getDouble("value_sum"), rs.getFloat("value_min"), rs.getFloat("value_max")),
+                granularity, patientId, type.code(), Timestamp.from(from), Timestamp.from(to));
+    }
+
+    /** Creates the monthly partition containing {@code day} if it does not exist yet. */
+    public void ensurePartition(LocalDate day) {
+        jdbcTemplate.query("SELECT ensure_vital_sample_partition(?)", rs -> null, day);
+    }
+
+    private void add(Map<BucketKey, Bucket> buckets, BucketKey key, Sample s) {
+        Bucket b = buckets.computeIfAbsent(key, k -> new Bucket(s.tenantId()));
+        b.count++;
+        b.sum += s.value();
+        b.min = Math.min(b.min, s.value());
+        b.max = Math.max(b.max, s.value());
+    }
+
+    private record BucketKey(String granularity, UUID patientId, VitalType type, Instant bucketStart) {
+        BucketKey(String granularity, Sample s, Instant bucketStart) {
+            this(granularity, s.patientId(), s.type(), bucketStart);
+        }
+    }
+
+    private static final class Bucket {
+        private final UUID tenantId;
+        private int count;
+        private double sum;
+        private float min = Float.POSITIVE_INFINITY;
+        private float max = Float.NEGATIVE_INFINITY;
+
+        private Bucket(UUID tenantId) {
+            this.tenantId = tenantId;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package vn.clinic.cdm.repository.common;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * JDBC access to notification_outbox. Inserts join the caller's transaction,
+ * so a message is only queued if the business change commits. The relay
+ * claims rows with FOR UPDATE SKIP LOCKED and pushes next_attempt_at out by a
+ * lease in the same statement; a node that dies mid-delivery leaves the rows
+ * to be retried once the lease runs out.
+ */
+@Repository
+@RequiredArgsConstructor
+public class NotificationOutboxRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO notification_outbox (channel, payload, attachment) VALUES (?, ?::jsonb, ?)
+            """;
+
+    private static final String CLAIM_SQL = """
+            UPDATE notification_outbox o SET attempts = o.attempts + 1, next_attempt_at = ?
+            WHERE o.id IN (
+                SELECT id FROM notification_outbox
+                WHERE status = 'PENDING' AND channel = ? AND next_attempt_at <= ?
+                ORDER BY next_attempt_at
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED)
+            RETURNING o.id, o.channel, o.payload::text AS payload, o.attachment, o.attempts, o.created_at
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record NewMessage(String channel, String payload, byte[] attachment) {
+    }
+
+    /** A claimed row; {@code attempts} already counts the current attempt. */
+    public record OutboxMessage(UUID id, String channel, String payload, byte[] attachment, int attempts,
+            Instant createdAt) {
+    }
+
+    public record Retry(UUID id, Instant nextAttemptAt, String error) {
+    }
+
+    public record Dead(UUID id, String error) {
+    }
+
+    public void insertAll(List<NewMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, messages, messages.size(), (ps, m) -> {
+            ps.setString(1, m.channel());
+            ps.setString(2, m.payload());
+            ps.setObject(3, m.attachment(), Types.BINARY);
+        });
+    }
+
+    /** Claims up to {@code limit} due rows of one channel, oldest due first, leased until {@code leaseUntil}. */
+    public List<OutboxMessage> claim(String channel, Instant now, Instant leaseUntil, int limit) {
+        return jdbcTemplate.query(CLAIM_SQL,
+                (rs, n) -> new OutboxMessage(rs.getObject("id", UUID.class), rs.getString("channel"),
+                        rs.getString("payload"), rs.getBytes("attachment"), rs.getInt("attempts"),
+                        rs.getTimestamp("created_at").toInstant()),
+                Timestamp.from(leaseUntil), channel, Timestamp.from(now), limit);
+    }
+
+    /** Removes delivered (or no longer deliverable) rows. */
+    public void deleteAll(List<UUID> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM notification_outbox WHERE id = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", ids.toArray())));
+    }
+
+    public void reschedule(List<Retry> retries) {
+        if (retries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("UPDATE notification_outbox SET next_attempt_at = ?, last_error = ? WHERE id = ?",
+                retries, retries.size(), (ps, r) -> {
+                    ps.setTimestamp(1, Timestamp.from(r.nextAttemptAt()));
+                    ps.setString(2, r.error());
+                    ps.setObject(3, r.id());
+                });
+    }
+
+    public void markDead(List<Dead> dead) {
+        if (dead.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("UPDATE notification_outbox SET status = 'DEAD', last_error = ? WHERE id = ?",
+                dead, dead.size(), (ps, d) -> {
+                    ps.setString(1, d.error());
+                    ps.setObject(2, d.id());
+                });
+    }
+
+    public int purgeDead(Instant before) {
+        return jdbcTemplate.update("DELETE FROM notification_outbox WHERE status = 'DEAD' AND created_at < ?",
+                Timestamp.from(before));
+    }
+}
@@ -0,0 +1,55 @@
+package vn.clinic.cdm.repository.patient;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+/**
+ * patient.data_version and the patient_data_epoch row (V28): the shared data
+ * version behind the AI cache keys. Not mapped on {@code Patient} so entity
+ * saves never overwrite a concurrent bump.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PatientDataVersionRepository {
+
+    private static final String VERSION_SQL = """
+            SELECT e.epoch || '.' || COALESCE((SELECT p.data_version FROM patient p WHERE p.id = ?), 0)
+            FROM patient_data_epoch e
+            WHERE e.id = 1
+            """;
+
+    private static final String EPOCH_SQL = "SELECT epoch FROM patient_data_epoch WHERE id = 1";
+
+    private static final String BUMP_SQL = "UPDATE patient SET data_version = data_version + 1 WHERE id = ?";
+
+    private static final String BUMP_EPOCH_SQL = "UPDATE patient_data_epoch SET epoch = epoch + 1 WHERE id = 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * "epoch.version" of a patient in one primary-key lookup; an unknown
+     * patient reads as version 0.
+     */
+    public String versionOf(UUID patientId) {
+        return jdbcTemplate.queryForObject(VERSION_SQL, String.class, patientId);
+    }
+
+    public long epoch() {
+        return jdbcTemplate.queryForObject(EPOCH_SQL, Long.class);
+    }
+
+    /**
+     * Runs in the caller's transaction and holds the patient row lock until it
+     * ends, so concurrent writers of the same patient bump in turn.
+     */
+    public void bump(UUID patientId) {
+        jdbcTemplate.update(BUMP_SQL, patientId);
+    }
+
+    public void bumpEpoch() {
+        jdbcTemplate.update(BUMP_EPOCH_SQL);
+    }
+}
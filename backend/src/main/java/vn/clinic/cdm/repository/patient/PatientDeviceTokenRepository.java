@@ -1,8 +1,13 @@
 package vn.clinic.cdm.repository.patient;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import vn.clinic.cdm.entity.patient.PatientDeviceToken;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -12,5 +17,11 @@ public interface PatientDeviceTokenRepository extends JpaRepository<PatientDevic
     List<PatientDeviceToken> findByPatientId(UUID patientId);
 
     void deleteByFcmToken(String fcmToken);
+
+    /** Bulk delete of tokens FCM reported as unregistered. */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PatientDeviceToken t WHERE t.fcmToken IN :tokens")
+    int deleteByFcmTokens(@Param("tokens") Collection<String> tokens);
 }
 
@@ -0,0 +1,131 @@
+package vn.clinic.cdm.repository.patient;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import vn.clinic.cdm.dto.messaging.PatientNotificationDto;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * JDBC access to the patient notification feed. Rows are paged newest first
+ * by (created_at, id) keyset, and patient_notification_counter.unread_count
+ * is adjusted in the same statement as every insert and read flip, so the
+ * unread badge is a primary-key read and both stay consistent.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PatientNotificationFeedRepository {
+
+    private static final String INSERT_SQL = """
+            WITH inserted AS (
+                INSERT INTO patient_notifications (tenant_id, patient_id, title, content, type, related_resource_id,
+                                                   created_at)
+                SELECT p.tenant_id, p.id, ?, ?, ?, ?, clock_timestamp() FROM patient p WHERE p.id = ?
+                RETURNING id, patient_id
+            ), counted AS (
+                INSERT INTO patient_notification_counter AS c (patient_id, unread_count)
+                SELECT patient_id, 1 FROM inserted
+                ON CONFLICT (patient_id) DO UPDATE SET unread_count = c.unread_count + 1
+            )
+            SELECT id FROM inserted
+            """;
+
+    private static final String MARK_READ_SQL = """
+            WITH flipped AS (
+                UPDATE patient_notifications SET is_read = TRUE
+                WHERE id = ? AND patient_id = ? AND is_read = FALSE
+                RETURNING id
+            )
+            UPDATE patient_notification_counter
+            SET unread_count = GREATEST(unread_count - (SELECT COUNT(*) FROM flipped), 0)
+            WHERE patient_id = ? AND EXISTS (SELECT 1 FROM flipped)
+            """;
+
+    private static final String MARK_ALL_READ_SQL = """
+            WITH flipped AS (
+                UPDATE patient_notifications SET is_read = TRUE
+                WHERE patient_id = ? AND is_read = FALSE AND (created_at, id) <= (?, ?)
+                RETURNING id
+            )
+            UPDATE patient_notification_counter
+            SET unread_count = GREATEST(unread_count - (SELECT COUNT(*) FROM flipped), 0)
+            WHERE patient_id = ?
+            RETURNING (SELECT COUNT(*) FROM flipped)
+            """;
+
+    private static final RowMapper<PatientNotificationDto> DTO_MAPPER = (rs, n) -> PatientNotificationDto.builder()
+            .id(rs.getObject("id", UUID.class))
+            .title(rs.getString("title"))
+            .content(rs.getString("content"))
+            .type(rs.getString("type"))
+            .relatedResourceId(rs.getString("related_resource_id"))
+            .isRead(rs.getBoolean("is_read"))
+            .createdAt(rs.getTimestamp("created_at").toInstant())
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Feed position: the (created_at, id) of a notification. */
+    public record Position(Instant createdAt, UUID id) {
+    }
+
+    /**
+     * Inserts an unread notification for the patient (tenant taken from the
+     * patient row) and bumps the unread counter. Returns the new id, or empty
+     * when the patient does not exist.
+     */
+    public Optional<UUID> insert(UUID patientId, String title, String content, String type, String relatedResourceId) {
+        List<UUID> ids = jdbcTemplate.query(INSERT_SQL, (rs, n) -> rs.getObject("id", UUID.class),
+                title, content, type, relatedResourceId, patientId);
+        return ids.stream().findFirst();
+    }
+
+    /** Newest first, strictly after {@code after} when given. */
+    public List<PatientNotificationDto> page(UUID patientId, Position after, int limit) {
+        if (after == null) {
+            return jdbcTemplate.query("""
+                            SELECT id, title, content, type, related_resource_id, is_read, created_at
+                            FROM patient_notifications WHERE patient_id = ?
+                            ORDER BY created_at DESC, id DESC LIMIT ?
+                            """,
+                    DTO_MAPPER, patientId, limit);
+        }
+        return jdbcTemplate.query("""
+                        SELECT id, title, content, type, related_resource_id, is_read, created_at
+                        FROM patient_notifications WHERE patient_id = ? AND (created_at, id) < (?, ?)
+                        ORDER BY created_at DESC, id DESC LIMIT ?
+                        """,
+                DTO_MAPPER, patientId, Timestamp.from(after.createdAt()), after.id(), limit);
+    }
+
+    public Optional<Position> findPosition(UUID patientId, UUID notificationId) {
+        return jdbcTemplate.query("SELECT created_at, id FROM patient_notifications WHERE id = ? AND patient_id = ?",
+                (rs, n) -> new Position(rs.getTimestamp("created_at").toInstant(), rs.getObject("id", UUID.class)),
+                notificationId, patientId).stream().findFirst();
+    }
+
+    /** Marks one notification read; false when it was already read (or is not the patient's). */
+    public boolean markRead(UUID patientId, UUID notificationId) {
+        return jdbcTemplate.update(MARK_READ_SQL, notificationId, patientId, patientId) > 0;
+    }
+
+    /** Marks every unread notification at or before {@code upTo} read in one statement; returns how many. */
+    public int markAllRead(UUID patientId, Position upTo) {
+        List<Integer> flipped = jdbcTemplate.query(MARK_ALL_READ_SQL, (rs, n) -> rs.getInt(1),
+                patientId, Timestamp.from(upTo.createdAt()), upTo.id(), patientId);
+        return flipped.isEmpty() ? 0 : flipped.get(0);
+    }
+
+    public int unreadCount(UUID patientId) {
+        List<Integer> counts = jdbcTemplate.query(
+                "SELECT unread_count FROM patient_notification_counter WHERE patient_id = ?",
+                (rs, n) -> rs.getInt(1), patientId);
+        return counts.isEmpty() ? 0 : counts.get(0);
+    }
+}
@@ -14,47 +14,6 @@ public interface PatientRepository extends JpaRepository<Patient, UUID> {
 
     Page<Patient> findByTenantIdAndIsActiveTrue(UUID tenantId, Pageable pageable);
 
-    /**
-     * Tìm kiếm + lọc bệnh nhân server-side.
-     * - search: tìm theo tên (LIKE, case-insensitive)
-     * - riskLevel: lọc chính xác (HIGH, MEDIUM, LOW, CRITICAL)
-     * - chronicCondition: lọc LIKE trên chuỗi chronicConditions
-     * Tất cả param nullable → bỏ qua khi null.
-     */
-    @Query("""
-        SELECT p FROM Patient p
-        WHERE p.tenant.id = :tenantId
-          AND p.isActive = true
-          AND (:search IS NULL OR LOWER(p.fullNameVi) LIKE LOWER(CONCAT('%', CAST(:search AS string), '%')))
-          AND (:riskLevel IS NULL OR p.riskLevel = :riskLevel)
-          AND (:chronicCondition IS NULL OR LOWER(p.chronicConditions) LIKE LOWER(CONCAT('%', CAST(:chronicCondition AS string), '%')))
-        """)
-    Page<Patient> searchPatients(
-            @Param("tenantId") UUID tenantId,
-            @Param("search") String search,
-            @Param("riskLevel") String riskLevel,
-            @Param("chronicCondition") String chronicCondition,
-            Pageable pageable
-    );
-
-    @Query("""
-        SELECT p FROM Patient p
-        WHERE p.tenant.id = :tenantId
-          AND p.isActive = true
-          AND p.assignedDoctor.id = :doctorId
-          AND (:search IS NULL OR LOWER(p.fullNameVi) LIKE LOWER(CONCAT('%', CAST(:search AS string), '%')))
-          AND (:riskLevel IS NULL OR p.riskLevel = :riskLevel)
-          AND (:chronicCondition IS NULL OR LOWER(p.chronicConditions) LIKE LOWER(CONCAT('%', CAST(:chronicCondition AS string), '%')))
-        """)
-    Page<Patient> searchPatientsForDoctor(
-            @Param("tenantId") UUID tenantId,
-            @Param("doctorId") UUID doctorId,
-            @Param("search") String search,
-            @Param("riskLevel") String riskLevel,
-            @Param("chronicCondition") String chronicCondition,
-            Pageable pageable
-    );
-
     Optional<Patient> findByTenantIdAndCccd(UUID tenantId, String cccd);
 
     Optional<Patient> findByTenantIdAndExternalId(UUID tenantId, String externalId);
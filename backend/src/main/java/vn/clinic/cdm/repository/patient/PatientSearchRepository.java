@@ -0,0 +1,114 @@
+package vn.clinic.cdm.repository.patient;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Ranked patient search over the trigram-indexed search_text column.
+ * Every query token must appear in search_text (LIKE '%token%', served by the
+ * GIN gin_trgm_ops index); matches are ranked by word_similarity against the
+ * whole query and paged by (score, id) keyset.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PatientSearchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param tokens     normalized query tokens; empty = no text filter (score 0)
+     * @param query      normalized full query used for ranking
+     * @param doctorId   optional assigned-doctor filter
+     * @param riskLevel  optional exact risk level
+     * @param condition  optional normalized chronic condition substring
+     * @param after      keyset position of the last row of the previous page, or null
+     */
+    public record Criteria(UUID tenantId, List<String> tokens, String query, UUID doctorId, String riskLevel,
+            String condition, Hit after, int limit) {
+    }
+
+    public record Hit(UUID id, double score) {
+    }
+
+    public record Unindexed(UUID id, String fullNameVi, String phone, String cccd, String chronicConditions) {
+    }
+
+    public record SearchColumns(UUID id, String searchText, String searchConditions) {
+    }
+
+    public List<Hit> search(Criteria c) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder inner = new StringBuilder("SELECT p.id, ");
+        if (c.tokens().isEmpty()) {
+            inner.append("0::float8 AS score");
+        } else {
+            inner.append("word_similarity(?, p.search_text)::float8 AS score");
+            args.add(c.query());
+        }
+        inner.append(" FROM patient p WHERE p.tenant_id = ? AND p.is_active = true");
+        args.add(c.tenantId());
+        if (c.doctorId() != null) {
+            inner.append(" AND p.assigned_doctor_id = ?");
+            args.add(c.doctorId());
+        }
+        if (c.riskLevel() != null) {
+            inner.append(" AND p.risk_level = ?");
+            args.add(c.riskLevel());
+        }
+        if (c.condition() != null) {
+            inner.append(" AND p.search_conditions LIKE ?");
+            args.add(contains(c.condition()));
+        }
+        for (String token : c.tokens()) {
+            inner.append(" AND p.search_text LIKE ?");
+            args.add(contains(token));
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT id, score FROM (").append(inner).append(") r");
+        if (c.after() != null) {
+            sql.append(" WHERE (r.score < ? OR (r.score = ? AND r.id < ?))");
+            args.add(c.after().score());
+            args.add(c.after().score());
+            args.add(c.after().id());
+        }
+        sql.append(" ORDER BY r.score DESC, r.id DESC LIMIT ?");
+        args.add(c.limit());
+
+        return jdbcTemplate.query(sql.toString(),
+                (rs, n) -> new Hit(rs.getObject("id", UUID.class), rs.getDouble("score")),
+                args.toArray());
+    }
+
+    public List<Unindexed> findUnindexed(int limit) {
+        return jdbcTemplate.query("""
+                        SELECT id, full_name_vi, phone, cccd, chronic_conditions FROM patient
+                        WHERE search_text IS NULL LIMIT ?
+                        """,
+                (rs, n) -> new Unindexed(rs.getObject("id", UUID.class), rs.getString("full_name_vi"),
+                        rs.getString("phone"), rs.getString("cccd"), rs.getString("chronic_conditions")),
+                limit);
+    }
+
+    /** Writes search columns in one batch; bypasses JPA so updated_at is untouched. */
+    public void updateSearchColumns(List<SearchColumns> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("UPDATE patient SET search_text = ?, search_conditions = ? WHERE id = ?",
+                rows, rows.size(), (ps, r) -> {
+                    ps.setString(1, r.searchText());
+                    ps.setString(2, r.searchConditions());
+                    ps.setObject(3, r.id());
+                });
+    }
+
+    /** LIKE pattern for a literal substring. */
+    private static String contains(String value) {
+        return "%" + value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
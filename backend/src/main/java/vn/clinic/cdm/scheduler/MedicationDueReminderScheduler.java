@@ -1,88 +1,85 @@
 package vn.clinic.cdm.scheduler;
-import vn.clinic.cdm.service.patient.PatientNotificationService;
-import vn.clinic.cdm.dto.common.ReminderRequest;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import vn.clinic.cdm.entity.clinical.MedicationSchedule;
-import vn.clinic.cdm.repository.clinical.MedicationScheduleRepository;
-
+import vn.clinic.cdm.dto.common.ReminderRequest;
+import vn.clinic.cdm.repository.clinical.MedicationReminderRepository;
+import vn.clinic.cdm.repository.clinical.MedicationReminderRepository.DueReminder;
 import vn.clinic.cdm.service.common.OmniChannelService;
+import vn.clinic.cdm.service.patient.PatientNotificationService;
 
+import java.time.Duration;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
-import java.util.List;
 import java.util.Map;
 
 /**
  * Enterprise Scheduler for Medication Reminders.
- * Ensures patients are notified on time for their medication dosage.
+ * Every node runs the tick; due schedules are claimed in batches through
+ * {@link MedicationReminderRepository#claimDue} (SKIP LOCKED), so replicas
+ * split the work instead of sending duplicates, and moved to DUE_NOTIFIED so
+ * {@link MedicationOverdueReminderScheduler} picks them up later if the dose
+ * is still not taken.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class MedicationDueReminderScheduler {
 
-    private final MedicationScheduleRepository scheduleRepository;
+    private final MedicationReminderRepository reminderRepository;
+    private final MedicationReminderDispatcher dispatcher;
     private final PatientNotificationService notificationService;
     private final OmniChannelService omniChannelService;
+    private final Duration grace;
+    private final Duration overdueAfter;
+
+    public MedicationDueReminderScheduler(MedicationReminderRepository reminderRepository,
+            MedicationReminderDispatcher dispatcher, PatientNotificationService notificationService,
+            OmniChannelService omniChannelService,
+            @Value("${cdm.reminders.grace:30m}") Duration grace,
+            @Value("${cdm.reminders.overdue-after:1h}") Duration overdueAfter) {
+        this.reminderRepository = reminderRepository;
+        this.dispatcher = dispatcher;
+        this.notificationService = notificationService;
+        this.omniChannelService = omniChannelService;
+        this.grace = grace;
+        this.overdueAfter = overdueAfter;
+    }
 
     /**
-     * Runs every minute to check and send medication prompts.
+     * Runs every minute to check and send medication prompts. Schedules missed
+     * by up to {@code grace} (node restart, slow tick) are still sent.
      */
     @Scheduled(cron = "0 * * * * *")
     public void processReminders() {
-        Instant startTime = Instant.now().truncatedTo(ChronoUnit.MINUTES);
-        Instant endTime = startTime.plus(1, ChronoUnit.MINUTES);
+        int total = dispatcher.drain(MedicationReminderDispatcher.DUE, limit -> {
+            Instant now = Instant.now();
+            return reminderRepository.claimDue(now.minus(grace), now, overdueAfter, limit);
+        }, this::send, reminderRepository::releaseDue);
 
-        log.debug("Scanning medication schedules between {} and {}", startTime, endTime);
-
-        List<MedicationSchedule> dueSchedules = scheduleRepository.findByStatusAndScheduledTimeBetween("PENDING", startTime, endTime);
-
-        if (dueSchedules.isEmpty()) {
-            return;
-        }
-
-        log.info("Found {} medication schedules due for processing", dueSchedules.size());
-
-        for (MedicationSchedule schedule : dueSchedules) {
-            try {
-                processSingleSchedule(schedule);
-            } catch (Exception e) {
-                log.error("Failed to process medication reminder for schedule ID: {}", schedule.getId(), e);
-            }
+        if (total > 0) {
+            log.info("Queued {} medication reminders", total);
         }
     }
 
-    private void processSingleSchedule(MedicationSchedule schedule) {
-        var medication = schedule.getMedication();
-        var patient = medication.getPrescription().getPatient();
-
-        String title = "🔔 Nhắc uống thuốc: " + medication.getMedicineName();
+    private void send(DueReminder reminder) {
+        String title = "🔔 Nhắc uống thuốc: " + reminder.medicineName();
         String body = String.format("Đã đến giờ uống thuốc: %s (Liều lượng: %s). Đừng quên nhé!",
-                medication.getMedicineName(),
-                medication.getDosageInstruction() != null ? medication.getDosageInstruction() : "Theo chỉ dẫn");
+                reminder.medicineName(), reminder.dosageInstruction());
 
         Map<String, String> data = Map.of(
                 "type", "MEDICATION_REMINDER",
-                "scheduleId", schedule.getId().toString(),
-                "medicineName", medication.getMedicineName());
+                "scheduleId", reminder.scheduleId().toString(),
+                "medicineName", reminder.medicineName());
 
-        log.debug("Sending notifications for patient: {} (ID: {})", patient.getFullNameVi(), patient.getId());
-        
-        notificationService.notifyPatient(patient.getId(), title, body, data);
+        notificationService.notifyPatient(reminder.patientId(), title, body, data);
 
         // Omni-channel (Email, SMS, Zalo)
         omniChannelService.sendMedicationReminder(new ReminderRequest(
-                patient.getFullNameVi(), 
-                patient.getEmail(), 
-                patient.getPhone(),
-                medication.getMedicineName(), 
-                medication.getDosageInstruction()
-        ));
-        
-        log.info("Reminder sent successfully for schedule: {}", schedule.getId());
+                reminder.patientName(),
+                reminder.email(),
+                reminder.phone(),
+                reminder.medicineName(),
+                reminder.dosageInstruction()));
     }
 }
@@ -1,60 +1,92 @@
 package vn.clinic.cdm.scheduler;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import vn.clinic.cdm.entity.clinical.MedicationSchedule;
-import vn.clinic.cdm.repository.clinical.MedicationScheduleRepository;
+import vn.clinic.cdm.repository.clinical.MedicationReminderRepository;
+import vn.clinic.cdm.repository.clinical.MedicationReminderRepository.DueReminder;
 import vn.clinic.cdm.service.patient.PatientNotificationService;
 
+import java.time.Duration;
 import java.time.Instant;
-import java.util.List;
 import java.util.Map;
 
+/**
+ * Second reminder for doses still PENDING {@code overdue-after} past their
+ * scheduled time. Only DUE_NOTIFIED schedules whose overdue check fell in the
+ * last {@code grace} are claimed, then moved to OVERDUE_NOTIFIED; anything
+ * older is expired in bulk, so each schedule is reminded at most twice and
+ * the sweep never grows with the history.
+ */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class MedicationOverdueReminderScheduler {
 
-    private final MedicationScheduleRepository scheduleRepository;
+    private static final int EXPIRE_CHUNK = 5000;
+
+    private final MedicationReminderRepository reminderRepository;
+    private final MedicationReminderDispatcher dispatcher;
     private final PatientNotificationService notificationService;
+    private final MeterRegistry meterRegistry;
+    private final Duration grace;
+    private final Duration expireAfter;
+
+    public MedicationOverdueReminderScheduler(MedicationReminderRepository reminderRepository,
+            MedicationReminderDispatcher dispatcher, PatientNotificationService notificationService,
+            MeterRegistry meterRegistry,
+            @Value("${cdm.reminders.grace:30m}") Duration grace,
+            @Value("${cdm.reminders.expire-after:24h}") Duration expireAfter) {
+        this.reminderRepository = reminderRepository;
+        this.dispatcher = dispatcher;
+        this.notificationService = notificationService;
+        this.meterRegistry = meterRegistry;
+        this.grace = grace;
+        this.expireAfter = expireAfter;
+    }
 
     /**
-     * Chạy mỗi 15 phút để kiểm tra các lịch uống thuốc bị bỏ lỡ hoặc đến giờ.
+     * Chạy mỗi 15 phút: hết hạn các lịch quá cũ, rồi nhắc lần hai các lịch đã
+     * nhắc nhưng vẫn chưa uống.
      */
     @Scheduled(fixedRate = 900000) // 15 minutes
     public void processOverdueMedications() {
-        log.info("Starting Medication Reminder Job at {}", Instant.now());
-
-        // Lấy tất cả các lịch PENDING đã quá giờ scheduledTime
-        List<MedicationSchedule> overdue = scheduleRepository.findByStatusAndScheduledTimeBefore("PENDING",
-                Instant.now());
-
-        for (MedicationSchedule schedule : overdue) {
-            try {
-                String medicineName = schedule.getMedication().getMedicineName();
-                var patient = schedule.getMedication().getPrescription().getPatient();
-
-                log.info("Sending alert to patient {} for medicine {}", patient.getId(), medicineName);
-
-                notificationService.notifyPatient(
-                        patient.getId(),
-                        "🔔 Nhắc uống thuốc",
-                        String.format(
-                                "Đã đến giờ uống thuốc: %s. Vui lòng uống thuốc và đánh dấu 'Đã uống' trên ứng dụng.",
-                                medicineName),
-                        Map.of(
-                                "type", "MEDICATION_REMINDER",
-                                "scheduleId", schedule.getId().toString(),
-                                "medicineName", medicineName));
-
-                // Tránh spam - trong thực tế sẽ đánh dấu là NOTIFIED để không gửi lại trong lần
-                // chạy sau
-                // Ở đây demo nên ta giữ nguyên hoặc có thể update status tạm.
-            } catch (Exception e) {
-                log.error("Error processing reminder for schedule {}: {}", schedule.getId(), e.getMessage());
-            }
+        int expired = expireStale();
+
+        int total = dispatcher.drain(MedicationReminderDispatcher.OVERDUE, limit -> {
+            Instant now = Instant.now();
+            return reminderRepository.claimOverdue(now.minus(grace), now, expireAfter, limit);
+        }, this::send, reminderRepository::releaseOverdue);
+
+        if (expired > 0 || total > 0) {
+            log.info("Medication reminder sweep: {} overdue reminders queued, {} schedules expired", total, expired);
         }
     }
+
+    private int expireStale() {
+        Instant now = Instant.now();
+        Instant staleBefore = now.minus(grace);
+        int total = 0;
+        int n;
+        do {
+            n = reminderRepository.expire(staleBefore, now, EXPIRE_CHUNK);
+            total += n;
+        } while (n == EXPIRE_CHUNK);
+        meterRegistry.counter("cdm.reminders.expired").increment(total);
+        return total;
+    }
+
+    private void send(DueReminder reminder) {
+        notificationService.notifyPatient(
+                reminder.patientId(),
+                "🔔 Nhắc uống thuốc",
+                String.format(
+                        "Đã đến giờ uống thuốc: %s. Vui lòng uống thuốc và đánh dấu 'Đã uống' trên ứng dụng.",
+                        reminder.medicineName()),
+                Map.of(
+                        "type", "MEDICATION_REMINDER",
+                        "scheduleId", reminder.scheduleId().toString(),
+                        "medicineName", reminder.medicineName()));
+    }
 }
@@ -0,0 +1,127 @@
+package vn.clinic.cdm.scheduler;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.clinic.cdm.repository.clinical.MedicationReminderRepository.DueReminder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Drains claimed medication reminders for the due and overdue schedulers.
+ * <p>
+ * Each batch is claimed in one transaction and every reminder's notifications
+ * are queued in the notification outbox in a transaction of its own, so one
+ * reminder that cannot be queued does not roll back the rest of the batch.
+ * A failed reminder is released back to its previous stage inside the claim
+ * transaction and retried on a later tick until its grace window passes, when
+ * the expiry sweep retires it. The claim commits after the queued reminders,
+ * so a crash in between re-sends rather than loses them; the external sends
+ * happen on the outbox relay.
+ * <p>
+ * While a batch is queued the claim transaction keeps its connection and the
+ * batch's row locks, and each reminder borrows a second pooled connection, so
+ * a node needs two connections per running stage (four when the due and
+ * overdue ticks overlap) on top of request traffic. The Hikari pools (10 dev,
+ * 20 prod) leave room for that. Other dispatchers skip locked rows, but a
+ * patient marking a claimed dose as taken waits for the batch to commit, so
+ * keep {@code cdm.reminders.dispatch.batch-size} modest.
+ * <p>
+ * Throughput, failures and lag (from when the reminder became due for the
+ * stage to queue time) are recorded per stage.
+ */
+@Component
+@Slf4j
+public class MedicationReminderDispatcher {
+
+    public static final String DUE = "due";
+    public static final String OVERDUE = "overdue";
+
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate reminderTransaction;
+    private final int batchSize;
+
+    public MedicationReminderDispatcher(MeterRegistry meterRegistry, PlatformTransactionManager transactionManager,
+            @Value("${cdm.reminders.dispatch.batch-size:200}") int batchSize) {
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reminderTransaction = new TransactionTemplate(transactionManager);
+        this.reminderTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param claimer  claims up to the given number of reminders (empty = done)
+     * @param sender   queues the notifications of one reminder
+     * @param releaser hands a claimed reminder back to its previous stage; runs
+     *                 in the claim transaction when the sender failed
+     * @return number of reminders queued; reminders whose sender failed are
+     *         counted as failed and retried on a later tick
+     */
+    public int drain(String stage, IntFunction<List<DueReminder>> claimer, Consumer<DueReminder> sender,
+            Consumer<DueReminder> releaser) {
+        Timer lag = Timer.builder("cdm.reminders.lag").tag("stage", stage)
+                .publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
+        int total = 0;
+        while (true) {
+            List<DueReminder> queued = new ArrayList<>();
+            List<DueReminder> batch;
+            try {
+                batch = transactionTemplate.execute(status -> {
+                    List<DueReminder> claimed = claimer.apply(batchSize);
+                    for (DueReminder reminder : claimed) {
+                        if (queue(stage, reminder, sender)) {
+                            queued.add(reminder);
+                        } else {
+                            releaser.accept(reminder);
+                        }
+                    }
+                    return claimed;
+                });
+            } catch (Exception e) {
+                // The claim rolled back; the rows are picked up again next tick
+                meterRegistry.counter("cdm.reminders.claim.failed", "stage", stage).increment();
+                log.error("Failed to claim {} medication reminders: {}", stage, e.getMessage());
+                break;
+            }
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            Instant now = Instant.now();
+            meterRegistry.counter("cdm.reminders.claimed", "stage", stage).increment(batch.size());
+            meterRegistry.counter("cdm.reminders.dispatched", "stage", stage, "result", "queued").increment(queued.size());
+            meterRegistry.counter("cdm.reminders.dispatched", "stage", stage, "result", "failed")
+                    .increment(batch.size() - queued.size());
+            queued.forEach(r -> lag.record(Duration.between(r.dueAt(), now)));
+            total += queued.size();
+            // Released reminders would be claimed again straight away; leave them for the next tick
+            if (batch.size() < batchSize || queued.size() < batch.size()) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    /** Queues one reminder in its own transaction; false when it failed and must be released. */
+    private boolean queue(String stage, DueReminder reminder, Consumer<DueReminder> sender) {
+        try {
+            reminderTransaction.executeWithoutResult(status -> sender.accept(reminder));
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to queue {} medication reminder for schedule {}: {}", stage, reminder.scheduleId(),
+                    e.getMessage());
+            return false;
+        }
+    }
+}
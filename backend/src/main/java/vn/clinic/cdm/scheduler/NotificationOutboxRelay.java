@@ -0,0 +1,185 @@
+package vn.clinic.cdm.scheduler;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import vn.clinic.cdm.repository.common.NotificationOutboxRepository;
+import vn.clinic.cdm.repository.common.NotificationOutboxRepository.Dead;
+import vn.clinic.cdm.repository.common.NotificationOutboxRepository.OutboxMessage;
+import vn.clinic.cdm.repository.common.NotificationOutboxRepository.Retry;
+import vn.clinic.cdm.service.notification.NotificationOutboxProperties;
+import vn.clinic.cdm.service.notification.OutboxChannelHandler;
+import vn.clinic.cdm.service.notification.OutboxChannelHandler.Result;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Delivers notification_outbox rows. Every node runs the relay; each tick
+ * claims due rows per channel (SKIP LOCKED, so nodes never share a row), as
+ * many as the channel's token bucket allows, and sends them in handler-sized
+ * batches on a bounded pool. Failed rows are retried with exponential backoff
+ * and jitter; rows that exhaust their attempts or fail permanently are kept
+ * as DEAD letters.
+ */
+@Service
+@Slf4j
+public class NotificationOutboxRelay {
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationOutboxProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, OutboxChannelHandler> handlers = new HashMap<>();
+    private final Map<String, Bucket> rateLimits = new HashMap<>();
+
+    private ThreadPoolTaskExecutor executor;
+
+    public NotificationOutboxRelay(NotificationOutboxRepository outboxRepository,
+            NotificationOutboxProperties properties, MeterRegistry meterRegistry,
+            List<OutboxChannelHandler> channelHandlers) {
+        this.outboxRepository = outboxRepository;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        for (OutboxChannelHandler handler : channelHandlers) {
+            for (String channel : handler.channels()) {
+                handlers.put(channel, handler);
+                int rate = properties.rateFor(channel);
+                rateLimits.put(channel, Bucket.builder()
+                        .addLimit(Bandwidth.builder().capacity(rate).refillGreedy(rate, Duration.ofSeconds(1)).build())
+                        .build());
+            }
+        }
+    }
+
+    @PostConstruct
+    void initExecutor() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getPoolSize());
+        executor.setMaxPoolSize(properties.getPoolSize());
+        executor.setQueueCapacity(properties.getPoolSize() * 4);
+        // A full queue makes the relay thread deliver too instead of claiming more
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("Outbox-");
+        executor.initialize();
+    }
+
+    @PreDestroy
+    void shutdownExecutor() {
+        executor.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${cdm.outbox.poll-interval-ms:1000}")
+    public void relay() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (Map.Entry<String, OutboxChannelHandler> entry : handlers.entrySet()) {
+            String channel = entry.getKey();
+            OutboxChannelHandler handler = entry.getValue();
+            try {
+                List<OutboxMessage> claimed = claim(channel);
+                int size = Math.max(handler.batchSize(), 1);
+                for (int i = 0; i < claimed.size(); i += size) {
+                    List<OutboxMessage> batch = claimed.subList(i, Math.min(i + size, claimed.size()));
+                    futures.add(CompletableFuture.runAsync(() -> deliver(channel, handler, batch), executor));
+                }
+            } catch (Exception e) {
+                log.error("Outbox claim failed for channel {}: {}", channel, e.getMessage());
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+    }
+
+    /** Dead letters are kept for inspection, then purged. */
+    @Scheduled(cron = "0 15 4 * * *")
+    public void purgeDeadLetters() {
+        int n = outboxRepository.purgeDead(Instant.now().minus(properties.getDeadRetention()));
+        if (n > 0) {
+            log.info("Purged {} dead notification outbox rows", n);
+        }
+    }
+
+    private List<OutboxMessage> claim(String channel) {
+        Bucket bucket = rateLimits.get(channel);
+        long allowed = bucket.tryConsumeAsMuchAsPossible(properties.getMaxPerTick());
+        if (allowed == 0) {
+            meterRegistry.counter("cdm.outbox.rate_limited", "channel", channel).increment();
+            return List.of();
+        }
+        Instant now = Instant.now();
+        List<OutboxMessage> claimed = outboxRepository.claim(channel, now, now.plus(properties.getLease()),
+                (int) allowed);
+        if (claimed.size() < allowed) {
+            // Hand back the budget that found no rows
+            bucket.addTokens(allowed - claimed.size());
+        }
+        return claimed;
+    }
+
+    private void deliver(String channel, OutboxChannelHandler handler, List<OutboxMessage> batch) {
+        List<Result> results;
+        try {
+            results = handler.deliver(batch);
+        } catch (Exception e) {
+            results = Collections.nCopies(batch.size(), Result.retry(e.getMessage()));
+        }
+
+        Instant now = Instant.now();
+        Timer lag = meterRegistry.timer("cdm.outbox.delivery.lag", "channel", channel);
+        List<UUID> done = new ArrayList<>();
+        List<Retry> retries = new ArrayList<>();
+        List<Dead> dead = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxMessage m = batch.get(i);
+            Result r = i < results.size() ? results.get(i) : Result.retry("No result from handler");
+            OutboxChannelHandler.Outcome outcome = r.outcome();
+            if (outcome == OutboxChannelHandler.Outcome.RETRY && m.attempts() >= properties.getMaxAttempts()) {
+                outcome = OutboxChannelHandler.Outcome.DEAD;
+            }
+            switch (outcome) {
+                case SENT -> {
+                    done.add(m.id());
+                    lag.record(Duration.between(m.createdAt(), now));
+                }
+                case DROP -> done.add(m.id());
+                case RETRY -> retries.add(new Retry(m.id(), now.plus(jitter(properties.backoffAfter(m.attempts()))),
+                        r.error()));
+                case DEAD -> dead.add(new Dead(m.id(), r.error()));
+            }
+            meterRegistry.counter("cdm.outbox.delivered", "channel", channel,
+                    "outcome", outcome.name().toLowerCase()).increment();
+        }
+
+        try {
+            outboxRepository.deleteAll(done);
+            outboxRepository.reschedule(retries);
+            outboxRepository.markDead(dead);
+        } catch (Exception e) {
+            // Rows stay leased and are retried after the lease; duplicates are preferred to losses
+            log.error("Failed to record outbox results for channel {}: {}", channel, e.getMessage());
+        }
+        if (!dead.isEmpty()) {
+            log.warn("{} {} outbox messages dead-lettered", dead.size(), channel);
+        }
+    }
+
+    /** ±20% so rows that failed together do not retry in lockstep. */
+    private Duration jitter(Duration backoff) {
+        double factor = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return Duration.ofMillis((long) (backoff.toMillis() * factor));
+    }
+}
@@ -0,0 +1,37 @@
+package vn.clinic.cdm.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import vn.clinic.cdm.repository.clinical.VitalSampleRepository;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Keeps monthly vital_sample partitions created ahead of time so new readings
+ * never land in the default partition.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VitalSamplePartitionScheduler {
+
+    private static final int MONTHS_AHEAD = 2;
+
+    private final VitalSampleRepository sampleRepository;
+
+    @Scheduled(cron = "0 30 3 * * *")
+    public void ensureUpcomingPartitions() {
+        LocalDate month = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1);
+        for (int i = 0; i <= MONTHS_AHEAD; i++) {
+            LocalDate target = month.plusMonths(i);
+            try {
+                sampleRepository.ensurePartition(target);
+            } catch (Exception e) {
+                log.error("Failed to create vital_sample partition for {}: {}", target, e.getMessage());
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package vn.clinic.cdm.security;
 import lombok.Builder;
 import lombok.Getter;
 
+import java.security.Principal;
 import java.util.List;
 import java.util.UUID;
 
@@ -13,7 +14,7 @@ import java.util.UUID;
  */
 @Getter
 @Builder
-public class AuthPrincipal {
+public class AuthPrincipal implements Principal {
 
     private final UUID userId;
     private final String email;
@@ -22,6 +23,12 @@ public class AuthPrincipal {
     private final List<String> roles;
     private final List<String> permissions;
 
+    /** User id as string; this is the name STOMP user destinations resolve against. */
+    @Override
+    public String getName() {
+        return userId != null ? userId.toString() : null;
+    }
+
     public static AuthPrincipal getCurrent() {
         var auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
         if (auth != null && auth.getPrincipal() instanceof AuthPrincipal principal) {
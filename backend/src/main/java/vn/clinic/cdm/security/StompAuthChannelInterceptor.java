@@ -0,0 +1,79 @@
+package vn.clinic.cdm.security;
+
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+import vn.clinic.cdm.entity.identity.IdentityUser;
+import vn.clinic.cdm.service.identity.IdentityService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Authenticates STOMP CONNECT frames that carry "Authorization: Bearer ..."
+ * as a native header (mobile clients cannot set headers on the SockJS
+ * handshake). Browser sessions are already authenticated by the jwt cookie
+ * on the handshake request and are left untouched.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private final JwtUtil jwtUtil;
+    private final IdentityService identityService;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.CONNECT.equals(accessor.getCommand())) {
+            return message;
+        }
+        String header = accessor.getFirstNativeHeader("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            return message;
+        }
+        try {
+            Claims claims = jwtUtil.validateAndParse(header.substring(7));
+            if (claims == null) {
+                return message;
+            }
+            UUID userId = jwtUtil.getUserId(claims);
+            Integer tokenVersion = jwtUtil.getTokenVersion(claims);
+            IdentityUser user = identityService.getUserById(userId);
+            if (user == null || !user.getIsActive()
+                    || (tokenVersion != null && !tokenVersion.equals(user.getTokenVersion()))) {
+                return message;
+            }
+
+            List<String> roles = jwtUtil.getRoles(claims);
+            List<String> permissions = jwtUtil.getPermissions(claims);
+            List<SimpleGrantedAuthority> authorities = new ArrayList<>();
+            roles.forEach(role -> authorities.add(new SimpleGrantedAuthority("ROLE_" + role)));
+            permissions.forEach(p -> authorities.add(new SimpleGrantedAuthority(p)));
+
+            AuthPrincipal principal = AuthPrincipal.builder()
+                    .userId(userId)
+                    .email(jwtUtil.getEmail(claims))
+                    .tenantId(jwtUtil.getTenantId(claims))
+                    .branchId(jwtUtil.getBranchId(claims))
+                    .roles(roles)
+                    .permissions(permissions)
+                    .build();
+            accessor.setUser(new UsernamePasswordAuthenticationToken(principal, null, authorities));
+        } catch (Exception e) {
+            log.warn("STOMP authentication failed: {}", e.getMessage());
+        }
+        return message;
+    }
+}
@@ -1,11 +1,18 @@
 package vn.clinic.cdm.service.admin.impl;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import vn.clinic.cdm.repository.aiaudit.AiAuditLogRepository;
+import vn.clinic.cdm.common.ai.AiLatencyHistogram;
+import vn.clinic.cdm.dto.ai.AiFeatureHealthDto;
+import vn.clinic.cdm.repository.aiaudit.AiUsageRollupRepository;
 import vn.clinic.cdm.dto.ai.AiSystemHealthDto;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -16,12 +23,19 @@ import vn.clinic.cdm.service.admin.AiSystemHealthService;
  * Aggregates audit log data for real-time monitoring of AI subsystems.
  * Dashboard-ready metrics: success rates, latencies, cost estimation, feature
  * usage heat-map.
+ * <p>
+ * Reads the ai_usage_rollup buckets maintained by the audit writer instead of
+ * scanning ai_audit_log, so cost stays flat as the log grows; latency
+ * percentiles come from the rollup histograms (successful calls).
  */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class AiSystemHealthServiceImpl implements AiSystemHealthService {
 
-    private final AiAuditLogRepository auditLogRepository;
+    private static final Duration MINUTE_ROLLUP_RETENTION = Duration.ofDays(2);
+
+    private final AiUsageRollupRepository rollupRepository;
 
     // Estimated cost per AI call (Gemini Pro pricing approximation)
     private static final Map<String, Double> COST_PER_FEATURE = Map.of(
@@ -38,13 +52,33 @@ public class AiSystemHealthServiceImpl implements AiSystemHealthService {
 
     @Cacheable(value = "dashboards", key = "'ai_health'")
     public AiSystemHealthDto getSystemHealth() {
-        long total = auditLogRepository.count();
-        long success = auditLogRepository.countByStatus("SUCCESS");
-        long failure = auditLogRepository.countByStatus("FAILED");
-        Double avgLatency = auditLogRepository.getAverageSuccessLatency();
+        Map<String, AiUsageRollupRepository.FeatureUsage> allTime =
+                rollupRepository.sumByFeature(AiUsageRollupRepository.HOUR, Instant.EPOCH);
+        Map<String, AiUsageRollupRepository.FeatureUsage> lastHour = rollupRepository
+                .sumByFeature(AiUsageRollupRepository.MINUTE, Instant.now().minus(1, ChronoUnit.HOURS));
 
+        long total = 0, success = 0, failure = 0, latencySum = 0;
+        long[] histogram = new long[AiLatencyHistogram.BUCKETS];
         Map<String, Long> featureCounts = new HashMap<>();
-        auditLogRepository.getCountByFeatureType().forEach(row -> featureCounts.put(row[0].toString(), (Long) row[1]));
+        Map<String, AiFeatureHealthDto> featureHealth = new HashMap<>();
+        for (var entry : allTime.entrySet()) {
+            var usage = entry.getValue();
+            total += usage.total();
+            success += usage.success();
+            failure += usage.failure();
+            latencySum += usage.successLatencySumMs();
+            addInto(histogram, usage.latencyHistogram());
+            featureCounts.put(entry.getKey(), usage.total());
+            featureHealth.put(entry.getKey(), toFeatureHealth(usage));
+        }
+
+        long recentTotal = 0, recentFailures = 0;
+        long[] recentHistogram = new long[AiLatencyHistogram.BUCKETS];
+        for (var usage : lastHour.values()) {
+            recentTotal += usage.total();
+            recentFailures += usage.failure();
+            addInto(recentHistogram, usage.latencyHistogram());
+        }
 
         double successRate = total > 0 ? (double) success / total : 0;
 
@@ -58,10 +92,44 @@ public class AiSystemHealthServiceImpl implements AiSystemHealthService {
                 .successCount(success)
                 .failureCount(failure)
                 .successRate(successRate)
-                .averageLatencyMs(avgLatency != null ? avgLatency : 0)
+                .averageLatencyMs(success > 0 ? (double) latencySum / success : 0)
+                .latencyP50Ms(AiLatencyHistogram.percentile(histogram, 0.50))
+                .latencyP95Ms(AiLatencyHistogram.percentile(histogram, 0.95))
+                .latencyP99Ms(AiLatencyHistogram.percentile(histogram, 0.99))
                 .interactionsByFeature(featureCounts)
+                .healthByFeature(featureHealth)
+                .lastHourInteractions(recentTotal)
+                .lastHourFailures(recentFailures)
+                .lastHourLatencyP95Ms(AiLatencyHistogram.percentile(recentHistogram, 0.95))
                 .estimatedCostUsd(estimatedCost)
                 .build();
     }
-}
 
+    /**
+     * Minute buckets only serve the recent window; hour buckets are kept.
+     */
+    @Scheduled(cron = "0 15 3 * * *")
+    public void purgeMinuteRollups() {
+        int purged = rollupRepository.deleteOlderThan(AiUsageRollupRepository.MINUTE,
+                Instant.now().minus(MINUTE_ROLLUP_RETENTION));
+        log.info("Purged {} minute-level AI usage rollups", purged);
+    }
+
+    private AiFeatureHealthDto toFeatureHealth(AiUsageRollupRepository.FeatureUsage usage) {
+        return AiFeatureHealthDto.builder()
+                .interactions(usage.total())
+                .failureCount(usage.failure())
+                .successRate(usage.total() > 0 ? (double) usage.success() / usage.total() : 0)
+                .averageLatencyMs(usage.success() > 0 ? (double) usage.successLatencySumMs() / usage.success() : 0)
+                .latencyP50Ms(AiLatencyHistogram.percentile(usage.latencyHistogram(), 0.50))
+                .latencyP95Ms(AiLatencyHistogram.percentile(usage.latencyHistogram(), 0.95))
+                .latencyP99Ms(AiLatencyHistogram.percentile(usage.latencyHistogram(), 0.99))
+                .build();
+    }
+
+    private static void addInto(long[] target, long[] source) {
+        for (int i = 0; i < target.length && i < source.length; i++) {
+            target[i] += source[i];
+        }
+    }
+}
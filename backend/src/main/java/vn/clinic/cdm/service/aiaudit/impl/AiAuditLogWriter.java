@@ -0,0 +1,174 @@
+package vn.clinic.cdm.service.aiaudit.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.clinic.cdm.entity.aiaudit.AiAuditLog;
+import vn.clinic.cdm.repository.aiaudit.AiUsageRollupRepository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffered writer for ai_audit_log.
+ * <p>
+ * Entries go into a bounded ring buffer and a single background thread
+ * drains it, inserting up to {@code batch-size} rows per JDBC batch at most
+ * {@code flush-interval} after the first buffered entry. When the buffer is
+ * full new entries are dropped and counted rather than blocking AI callers.
+ * Remaining entries are flushed on shutdown. Each batch is folded into the
+ * ai_usage_rollup buckets in the transaction that inserts it, so the rollups
+ * never count rows that were not written nor miss rows that were.
+ */
+@Component
+@Slf4j
+public class AiAuditLogWriter {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO ai_audit_log (id, tenant_id, branch_id, user_id, patient_id, feature_type, model_version,
+                                      input_data, output_data, latency_ms, status, error_message, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AiUsageRollupRepository rollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<AiAuditLog> buffer;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final Counter written;
+    private final Counter droppedFull;
+    private final Counter droppedNoTenant;
+    private final Counter droppedWriteError;
+
+    private volatile boolean running = true;
+    private Thread drainer;
+
+    public AiAuditLogWriter(JdbcTemplate jdbcTemplate, AiUsageRollupRepository rollupRepository,
+            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+            @Value("${cdm.ai.audit.buffer-capacity:10000}") int bufferCapacity,
+            @Value("${cdm.ai.audit.batch-size:200}") int batchSize,
+            @Value("${cdm.ai.audit.flush-interval:2s}") Duration flushInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rollupRepository = rollupRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushInterval.toMillis();
+        this.written = meterRegistry.counter("cdm.ai.audit.written");
+        this.droppedFull = meterRegistry.counter("cdm.ai.audit.dropped", "reason", "buffer_full");
+        this.droppedNoTenant = meterRegistry.counter("cdm.ai.audit.dropped", "reason", "no_tenant");
+        this.droppedWriteError = meterRegistry.counter("cdm.ai.audit.dropped", "reason", "write_error");
+        Gauge.builder("cdm.ai.audit.buffered", buffer, BlockingQueue::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        drainer = new Thread(this::drainLoop, "Ai-Audit-Writer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        drainer.join(TimeUnit.SECONDS.toMillis(10));
+        if (!buffer.isEmpty()) {
+            log.warn("AI audit writer stopped with {} unwritten entries", buffer.size());
+        }
+    }
+
+    /**
+     * Non-blocking enqueue. Returns false (and counts a drop) when the buffer
+     * is full or the entry has no tenant (tenant_id is NOT NULL and one bad
+     * row would fail the whole batch).
+     */
+    public boolean enqueue(AiAuditLog entry) {
+        if (entry.getTenantId() == null) {
+            droppedNoTenant.increment();
+            return false;
+        }
+        if (buffer.offer(entry)) {
+            return true;
+        }
+        droppedFull.increment();
+        return false;
+    }
+
+    private void drainLoop() {
+        List<AiAuditLog> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                AiAuditLog first = buffer.poll(running ? 1000 : 0, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                long deadline = System.currentTimeMillis() + (running ? flushIntervalMs : 0);
+                while (batch.size() < batchSize) {
+                    buffer.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.currentTimeMillis();
+                    if (batch.size() >= batchSize || wait <= 0) break;
+                    AiAuditLog next = buffer.poll(wait, TimeUnit.MILLISECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+                buffer.drainTo(batch);
+                writeBatch(batch);
+                return;
+            } catch (Exception e) {
+                log.error("AI audit writer error: {}", e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<AiAuditLog> batch) {
+        if (batch.isEmpty()) return;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                insert(batch);
+                rollupRepository.accumulate(batch);
+            });
+            written.increment(batch.size());
+        } catch (Exception ex) {
+            droppedWriteError.increment(batch.size());
+            log.error("Failed to write {} AI audit entries: {}", batch.size(), ex.getMessage());
+        }
+    }
+
+    private void insert(List<AiAuditLog> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, e) -> {
+            ps.setObject(1, e.getId());
+            ps.setObject(2, e.getTenantId());
+            ps.setObject(3, e.getBranchId(), Types.OTHER);
+            ps.setObject(4, e.getUserId(), Types.OTHER);
+            ps.setObject(5, e.getPatientId(), Types.OTHER);
+            ps.setString(6, e.getFeatureType().name());
+            ps.setString(7, e.getModelVersion());
+            ps.setString(8, e.getInputData());
+            ps.setString(9, e.getOutputData());
+            ps.setObject(10, e.getLatencyMs(), Types.BIGINT);
+            ps.setString(11, e.getStatus());
+            ps.setString(12, e.getErrorMessage());
+            ps.setTimestamp(13, Timestamp.from(e.getCreatedAt()));
+        });
+    }
+}
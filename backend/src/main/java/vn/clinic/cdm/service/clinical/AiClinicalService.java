@@ -10,6 +10,10 @@ import vn.clinic.cdm.entity.clinical.ClinicalConsultation;
 import vn.clinic.cdm.entity.patient.Patient;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface AiClinicalService {
     String getClinicalSupport(ClinicalConsultation consultation);
@@ -20,6 +24,14 @@ public interface AiClinicalService {
     DifferentialDiagnosisDto getDifferentialDiagnosis(ClinicalConsultation consultation);
     ClinicalChecklistDto getSuggestedChecklist(ClinicalConsultation consultation);
     String getClinicalChatResponse(ClinicalConsultation consultation, String userMessage, List<AiChatRequest.ChatMessage> history);
+
+    /**
+     * Streaming variants: tokens are pushed to {@code onToken} as they arrive,
+     * the future completes with the full text.
+     */
+    CompletableFuture<String> streamClinicalChatResponse(ClinicalConsultation consultation, String userMessage,
+            List<AiChatRequest.ChatMessage> history, Consumer<String> onToken);
+    CompletableFuture<String> streamLongTermCarePlan(ClinicalConsultation consultation, Consumer<String> onToken);
     FollowUpSuggestionDto suggestFollowUp(ClinicalConsultation consultation);
     ComplicationRiskDto predictComplicationRisk(ClinicalConsultation consultation);
     
@@ -29,6 +41,17 @@ public interface AiClinicalService {
     TreatmentEfficacyDto analyzeTreatmentEfficacy(ClinicalConsultation consultation);
     StandardizedClinicalNoteDto standardizeClinicalNote(ClinicalConsultation consultation);
 
+    /**
+     * Starts the requested consultation analyses (all of them when
+     * {@code analyses} is null or empty) concurrently over a single context
+     * load. Keys are the analysis names, in a stable order. AI results are
+     * read from and stored in the same cache entries as the single-analysis
+     * methods; early warning is the deterministic NEWS2 score.
+     *
+     * @throws vn.clinic.cdm.exception.ApiException VALIDATION_FAILED for an unknown analysis name
+     */
+    Map<String, CompletableFuture<?>> startClinicalOverview(ClinicalConsultation consultation, Set<String> analyses);
+
     // Support for Patient History Summary
     String generatePatientHistorySummary(Patient patient);
 }
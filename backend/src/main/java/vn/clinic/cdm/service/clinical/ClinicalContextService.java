@@ -1,9 +1,11 @@
 package vn.clinic.cdm.service.clinical;
 
+import vn.clinic.cdm.dto.clinical.ClinicalContextSnapshot;
 import vn.clinic.cdm.dto.report.CdmReportDto;
 import vn.clinic.cdm.entity.clinical.ClinicalConsultation;
 
 public interface ClinicalContextService {
     String buildStandardMedicalContext(ClinicalConsultation consultation);
+    ClinicalContextSnapshot loadContext(ClinicalConsultation consultation);
     CdmReportDto getCdmReportData(ClinicalConsultation consultation, String carePlan);
 }
@@ -3,10 +3,17 @@ package vn.clinic.cdm.service.clinical;
 import vn.clinic.cdm.dto.ai.RiskPatientDto;
 import vn.clinic.cdm.entity.patient.Patient;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * Service to identify risk patients.
  */
 public interface ClinicalRiskService {
     List<RiskPatientDto> identifyRiskPatients(List<Patient> patients);
+
+    /**
+     * Re-evaluates the risk rules over the patient's recent vitals and stores
+     * the resulting snapshot.
+     */
+    void refreshPatientRisk(UUID patientId);
 }
@@ -1,16 +1,20 @@
 package vn.clinic.cdm.service.clinical;
 
 import vn.clinic.cdm.dto.clinical.HealthMetricDto;
+import vn.clinic.cdm.dto.clinical.VitalBucketDto;
 import vn.clinic.cdm.dto.clinical.VitalTrendDto;
 import vn.clinic.cdm.dto.clinical.HealthThresholdDto;
 import vn.clinic.cdm.dto.clinical.UpdateHealthThresholdRequest;
+import vn.clinic.cdm.dto.common.CursorPagedResponse;
 
 import java.util.List;
 import java.util.UUID;
 
 public interface DoctorHealthMonitoringService {
     List<HealthMetricDto> getPatientHealthMetrics(UUID patientId);
+    CursorPagedResponse<HealthMetricDto> getPatientHealthMetricHistory(UUID patientId, String cursor, int limit);
     List<VitalTrendDto> getPatientHealthTrends(UUID patientId, String type, int days);
+    List<VitalBucketDto> getPatientHealthTrendBuckets(UUID patientId, String type, int days, int points);
     List<HealthThresholdDto> getPatientThresholds(UUID patientId);
     HealthThresholdDto upsertThreshold(UUID patientId, UpdateHealthThresholdRequest request);
 }
\ No newline at end of file
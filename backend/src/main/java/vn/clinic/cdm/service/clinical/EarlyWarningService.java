@@ -3,6 +3,26 @@ package vn.clinic.cdm.service.clinical;
 import vn.clinic.cdm.dto.ai.ClinicalEarlyWarningDto;
 import vn.clinic.cdm.entity.clinical.ClinicalConsultation;
 
+import java.util.List;
+import java.util.UUID;
+
 public interface EarlyWarningService {
+
+    /**
+     * Deterministic NEWS2 over the consultation's vitals and the patient's
+     * latest home readings of the last 24 hours; no AI call.
+     */
     ClinicalEarlyWarningDto calculateEarlyWarning(ClinicalConsultation consultation);
+
+    /**
+     * Same score plus an AI narrative assessment of it (one LLM call, cached
+     * per patient data version).
+     */
+    ClinicalEarlyWarningDto calculateEarlyWarningWithNarrative(ClinicalConsultation consultation);
+
+    /**
+     * NEWS2 for every active patient assigned to the doctor, highest score
+     * first, computed from a single metrics query.
+     */
+    List<ClinicalEarlyWarningDto> calculateWardEarlyWarnings(UUID doctorUserId);
 }
@@ -0,0 +1,21 @@
+package vn.clinic.cdm.service.clinical;
+
+import vn.clinic.cdm.dto.clinical.VitalAlertDto;
+import vn.clinic.cdm.event.HealthMetricRecordedEvent;
+import vn.clinic.cdm.entity.clinical.HealthThreshold;
+
+import java.util.List;
+
+/**
+ * Realtime vital alerts pushed to the patient's assigned doctor.
+ */
+public interface VitalAlertService {
+
+    String DESTINATION = "/queue/vital-alerts";
+
+    /**
+     * Readings that cross a critical limit or one of the patient's own
+     * thresholds; at most one alert (the latest reading) per metric type.
+     */
+    List<VitalAlertDto> evaluate(List<HealthMetricRecordedEvent.Reading> readings, List<HealthThreshold> thresholds);
+}
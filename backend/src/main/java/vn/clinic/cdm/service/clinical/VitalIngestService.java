@@ -0,0 +1,22 @@
+package vn.clinic.cdm.service.clinical;
+
+import vn.clinic.cdm.dto.patient.PatientVitalLogDto;
+import vn.clinic.cdm.dto.patient.VitalBulkIngestResponse;
+import vn.clinic.cdm.entity.patient.Patient;
+
+import java.util.List;
+
+/**
+ * Bulk ingestion of vital readings from devices and gateways.
+ */
+public interface VitalIngestService {
+
+    int MAX_BATCH_SIZE = 1_000;
+
+    /**
+     * Validates, dedupes by (patient, type, recordedAt) and stores a batch of
+     * readings. A null entry stands for an unparseable input line and is
+     * reported as INVALID at its index.
+     */
+    VitalBulkIngestResponse ingest(Patient patient, List<PatientVitalLogDto> readings);
+}
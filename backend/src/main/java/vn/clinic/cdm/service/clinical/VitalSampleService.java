@@ -0,0 +1,41 @@
+package vn.clinic.cdm.service.clinical;
+
+import vn.clinic.cdm.dto.clinical.VitalTrendDto;
+import vn.clinic.cdm.entity.clinical.HealthMetric;
+import vn.clinic.cdm.entity.clinical.VitalType;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * High-frequency vital store: compact samples plus hourly/daily rollups.
+ */
+public interface VitalSampleService {
+
+    /**
+     * Appends the vital-sign readings among {@code metrics} to the sample
+     * store and its rollups, and marks the patient-days with a critical
+     * reading; other metric types are ignored.
+     */
+    void append(List<HealthMetric> metrics);
+
+    /**
+     * Stores a single reading and appends it to the sample store in one
+     * transaction, so a failed append does not leave the reading half stored.
+     * A reading already stored with the same (patient, type, recordedAt), e.g.
+     * re-sent by an offline client, is not stored again: the existing row is
+     * returned with {@code created} false.
+     */
+    Recorded record(HealthMetric metric);
+
+    record Recorded(HealthMetric metric, boolean created) {
+    }
+
+    /**
+     * Trend points in [from, to): raw samples for short ranges, hourly or
+     * daily rollups (avg with min/max) for longer ones. Statuses are judged
+     * against the patient's own thresholds where set.
+     */
+    List<VitalTrendDto> getTrend(UUID patientId, VitalType type, Instant from, Instant to);
+}
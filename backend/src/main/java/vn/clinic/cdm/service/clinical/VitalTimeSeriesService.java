@@ -0,0 +1,31 @@
+package vn.clinic.cdm.service.clinical;
+
+import vn.clinic.cdm.dto.clinical.VitalBucketDto;
+import vn.clinic.cdm.dto.common.CursorPagedResponse;
+import vn.clinic.cdm.entity.clinical.HealthMetric;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Time-series access to a patient's health metrics. Every query is bounded in
+ * the database; none loads the full history.
+ */
+public interface VitalTimeSeriesService {
+
+    /** The {@code limit} newest readings of any type. */
+    List<HealthMetric> latest(UUID patientId, int limit);
+
+    /** The {@code perType} newest readings of each metric type, grouped by type, newest first. */
+    List<HealthMetric> latestPerType(UUID patientId, int perType);
+
+    /** The {@code limit} newest readings of one type. */
+    List<HealthMetric> latestOfType(UUID patientId, String metricType, int limit);
+
+    /** Keyset page, newest first; pass the previous page's {@code nextCursor} or null for the first page. */
+    CursorPagedResponse<HealthMetric> page(UUID patientId, String cursor, int limit);
+
+    /** Readings of one type in [from, to) aggregated into at most about {@code maxPoints} buckets. */
+    List<VitalBucketDto> downsample(UUID patientId, String metricType, Instant from, Instant to, int maxPoints);
+}
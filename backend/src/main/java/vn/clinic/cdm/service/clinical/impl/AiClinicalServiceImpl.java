@@ -6,23 +6,33 @@ import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import vn.clinic.cdm.common.cache.PatientVersionedKeyGenerator;
 import vn.clinic.cdm.entity.aiaudit.AiAuditLog;
 import vn.clinic.cdm.dto.ai.*;
 import vn.clinic.cdm.dto.clinical.*;
 import vn.clinic.cdm.dto.medication.*;
 import vn.clinic.cdm.entity.clinical.ClinicalConsultation;
 import vn.clinic.cdm.common.ai.AiExecutionEngine;
-import vn.clinic.cdm.repository.clinical.LabResultRepository;
 import vn.clinic.cdm.entity.patient.Patient;
+import vn.clinic.cdm.exception.ApiException;
+import vn.clinic.cdm.exception.ErrorCode;
 
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import vn.clinic.cdm.service.clinical.AiClinicalService;
+import vn.clinic.cdm.service.clinical.EarlyWarningService;
 
 /**
  * Enterprise AI Clinical Service (Refactored).
@@ -36,7 +46,24 @@ public class AiClinicalServiceImpl implements AiClinicalService {
     private final ClinicalContextService contextService;
     private final PromptRegistry promptRegistry;
     private final AiExecutionEngine aiEngine;
-    private final LabResultRepository labResultRepository;
+    private final EarlyWarningService earlyWarningService;
+    private final CacheManager cacheManager;
+    private final PatientVersionedKeyGenerator keyGenerator;
+
+    private static final String AI_SUPPORT_CACHE = "ai_support";
+    private static final String SUPPORT_FALLBACK = "⚠ AI Support unavailable.";
+    private static final String LAB_FALLBACK = "⚠ Lỗi phân tích xét nghiệm.";
+    private static final String CARE_PLAN_BUSY = "⚠ Hệ thống đang bận. Kế hoạch chăm sóc sẽ cập nhật sau.";
+    private static final String CARE_PLAN_FALLBACK = "⚠ Không thể tạo kế hoạch chăm sóc tự động.";
+    private static final String CHAT_FALLBACK = "⚠ AI Chat Error.";
+
+    /**
+     * Analyses the consultation overview can run, in the order they are
+     * started: model calls first, the deterministic ones after them.
+     */
+    private static final Set<String> OVERVIEW_ANALYSES = Collections.unmodifiableSet(new LinkedHashSet<>(List.of(
+            "clinical-support", "differential-diagnosis", "clinical-checklist", "lab-interpretation",
+            "complication-risk", "follow-up-suggestion", "early-warning", "treatment-efficacy")));
 
     private final Map<UUID, Bucket> branchBuckets = new ConcurrentHashMap<>();
 
@@ -74,25 +101,37 @@ public class AiClinicalServiceImpl implements AiClinicalService {
                 .build());
     }
 
-    @Cacheable(value = "ai_support", key = "#consultation.id")
+    @Cacheable(value = AI_SUPPORT_CACHE, keyGenerator = "patientVersionedKeyGenerator", unless = "#result == null || #result.startsWith('⚠')")
     public String getClinicalSupport(ClinicalConsultation consultation) {
         String context = contextService.buildStandardMedicalContext(consultation);
         String prompt = promptRegistry.getClinicalSupportPrompt(context);
         
         return aiEngine.executeText(AiAuditLog.AiFeatureType.CLINICAL_SUPPORT, 
-                consultation.getPatient().getId(), prompt, "⚠ AI Support unavailable.");
+                consultation.getPatient().getId(), prompt, SUPPORT_FALLBACK);
     }
 
     public String generateLongTermCarePlan(ClinicalConsultation consultation) {
         if (!getBucket(consultation.getBranch().getId()).tryConsume(1)) {
-            return "⚠ Hệ thống đang bận. Kế hoạch chăm sóc sẽ cập nhật sau.";
+            return CARE_PLAN_BUSY;
         }
 
         String context = contextService.buildStandardMedicalContext(consultation);
         String prompt = promptRegistry.getCarePlanPrompt(context);
 
         return aiEngine.executeText(AiAuditLog.AiFeatureType.CARE_PLAN,
-                consultation.getPatient().getId(), prompt, "⚠ Không thể tạo kế hoạch chăm sóc tự động.");
+                consultation.getPatient().getId(), prompt, CARE_PLAN_FALLBACK);
+    }
+
+    @Override
+    public CompletableFuture<String> streamLongTermCarePlan(ClinicalConsultation consultation, Consumer<String> onToken) {
+        if (!getBucket(consultation.getBranch().getId()).tryConsume(1)) {
+            onToken.accept(CARE_PLAN_BUSY);
+            return CompletableFuture.completedFuture(CARE_PLAN_BUSY);
+        }
+
+        String prompt = promptRegistry.getCarePlanPrompt(contextService.buildStandardMedicalContext(consultation));
+        return aiEngine.executeTextStream(AiAuditLog.AiFeatureType.CARE_PLAN,
+                consultation.getPatient().getId(), prompt, CARE_PLAN_FALLBACK, onToken);
     }
 
     public PrescriptionVerificationDto verifyPrescription(ClinicalConsultation consultation, List<PrescriptionItemDto> items) {
@@ -113,42 +152,131 @@ public class AiClinicalServiceImpl implements AiClinicalService {
                 Icd10CodeDto.class, () -> Icd10CodeDto.builder().primaryCode("UNKNOWN").build());
     }
 
-    @Cacheable(value = "ai_support", key = "'lab_interp_' + #consultation.id")
+    @Cacheable(value = AI_SUPPORT_CACHE, keyGenerator = "patientVersionedKeyGenerator", unless = "#result == null || #result.startsWith('⚠')")
     public String interpretLabResults(ClinicalConsultation consultation) {
-        String context = contextService.buildStandardMedicalContext(consultation);
-        String labData = labResultRepository.findByConsultation(consultation).stream()
+        var snapshot = contextService.loadContext(consultation);
+        String context = snapshot.renderedContext();
+        String labData = snapshot.labResults().stream()
                 .map(l -> String.format("%s: %s %s", l.getTestName(), l.getValue(), l.getUnit()))
                 .collect(Collectors.joining(", "));
 
         String prompt = promptRegistry.getLabInterpretationPrompt(context, labData);
         return aiEngine.executeText(AiAuditLog.AiFeatureType.CLINICAL_SUPPORT,
-                consultation.getPatient().getId(), prompt, "⚠ Lỗi phân tích xét nghiệm.");
+                consultation.getPatient().getId(), prompt, LAB_FALLBACK);
     }
 
     // --- Enterprise UI Supports ---
 
+    @Cacheable(value = AI_SUPPORT_CACHE, keyGenerator = "patientVersionedKeyGenerator", unless = "#result == null")
     public DifferentialDiagnosisDto getDifferentialDiagnosis(ClinicalConsultation consultation) {
         String prompt = promptRegistry.getDifferentialDiagnosisPrompt(contextService.buildStandardMedicalContext(consultation));
         return aiEngine.execute(AiAuditLog.AiFeatureType.DIFFERENTIAL_DIAGNOSIS, consultation.getPatient().getId(), prompt, DifferentialDiagnosisDto.class, () -> null);
     }
 
+    @Cacheable(value = AI_SUPPORT_CACHE, keyGenerator = "patientVersionedKeyGenerator", unless = "#result == null")
     public ClinicalChecklistDto getSuggestedChecklist(ClinicalConsultation consultation) {
         String prompt = promptRegistry.getClinicalChecklistPrompt(contextService.buildStandardMedicalContext(consultation));
         return aiEngine.execute(AiAuditLog.AiFeatureType.CLINICAL_CHECKLIST, consultation.getPatient().getId(), prompt, ClinicalChecklistDto.class, () -> null);
     }
 
     public String getClinicalChatResponse(ClinicalConsultation consultation, String userMessage, List<AiChatRequest.ChatMessage> history) {
+        String prompt = buildClinicalChatPrompt(consultation, userMessage, history);
+        return aiEngine.executeText(AiAuditLog.AiFeatureType.CHAT, consultation.getPatient().getId(), prompt, CHAT_FALLBACK);
+    }
+
+    @Override
+    public CompletableFuture<String> streamClinicalChatResponse(ClinicalConsultation consultation, String userMessage,
+            List<AiChatRequest.ChatMessage> history, Consumer<String> onToken) {
+        String prompt = buildClinicalChatPrompt(consultation, userMessage, history);
+        return aiEngine.executeTextStream(AiAuditLog.AiFeatureType.CHAT, consultation.getPatient().getId(), prompt,
+                CHAT_FALLBACK, onToken);
+    }
+
+    private String buildClinicalChatPrompt(ClinicalConsultation consultation, String userMessage, List<AiChatRequest.ChatMessage> history) {
         String context = contextService.buildStandardMedicalContext(consultation);
         String histStr = history != null ? history.stream().map(m -> m.getRole() + ": " + m.getContent()).collect(Collectors.joining("\n")) : "";
-        String prompt = promptRegistry.getClinicalChatPrompt(context, userMessage, histStr);
-        return aiEngine.executeText(AiAuditLog.AiFeatureType.CHAT, consultation.getPatient().getId(), prompt, "⚠ AI Chat Error.");
+        return promptRegistry.getClinicalChatPrompt(context, userMessage, histStr);
+    }
+
+    @Override
+    public Map<String, CompletableFuture<?>> startClinicalOverview(ClinicalConsultation consultation, Set<String> requested) {
+        Set<String> selected = requested == null || requested.isEmpty() ? OVERVIEW_ANALYSES : requested;
+        List<String> unknown = selected.stream().filter(name -> !OVERVIEW_ANALYSES.contains(name)).sorted().toList();
+        if (!unknown.isEmpty()) {
+            throw new ApiException(ErrorCode.VALIDATION_FAILED, HttpStatus.BAD_REQUEST,
+                    "Phân tích không hợp lệ: " + String.join(", ", unknown) + ". Hỗ trợ: " + String.join(", ", OVERVIEW_ANALYSES));
+        }
+
+        var snapshot = contextService.loadContext(consultation);
+        String context = snapshot.renderedContext();
+        UUID patientId = snapshot.patientId();
+        String labData = snapshot.labResults().stream()
+                .map(l -> String.format("%s: %s %s", l.getTestName(), l.getValue(), l.getUnit()))
+                .collect(Collectors.joining(", "));
+
+        // AI analyses share the ai_support entries of their single-analysis endpoints, so a result
+        // already produced by either path is served from the cache and a fresh one is stored for both
+        Map<String, Supplier<CompletableFuture<?>>> starters = new HashMap<>();
+        starters.put("clinical-support", () -> cachedAsync("getClinicalSupport", consultation, r -> !r.startsWith("⚠"),
+                () -> aiEngine.executeTextAsync(AiAuditLog.AiFeatureType.CLINICAL_SUPPORT, patientId,
+                        promptRegistry.getClinicalSupportPrompt(context), SUPPORT_FALLBACK)));
+        starters.put("differential-diagnosis", () -> cachedAsync("getDifferentialDiagnosis", consultation, r -> true,
+                () -> aiEngine.executeAsync(AiAuditLog.AiFeatureType.DIFFERENTIAL_DIAGNOSIS, patientId,
+                        promptRegistry.getDifferentialDiagnosisPrompt(context), DifferentialDiagnosisDto.class, () -> null)));
+        starters.put("clinical-checklist", () -> cachedAsync("getSuggestedChecklist", consultation, r -> true,
+                () -> aiEngine.executeAsync(AiAuditLog.AiFeatureType.CLINICAL_CHECKLIST, patientId,
+                        promptRegistry.getClinicalChecklistPrompt(context), ClinicalChecklistDto.class, () -> null)));
+        starters.put("lab-interpretation", () -> cachedAsync("interpretLabResults", consultation, r -> !r.startsWith("⚠"),
+                () -> aiEngine.executeTextAsync(AiAuditLog.AiFeatureType.CLINICAL_SUPPORT, patientId,
+                        promptRegistry.getLabInterpretationPrompt(context, labData), LAB_FALLBACK)));
+        starters.put("complication-risk", () -> cachedAsync("predictComplicationRisk", consultation, r -> true,
+                () -> aiEngine.executeAsync(AiAuditLog.AiFeatureType.CARE_PLAN, patientId,
+                        promptRegistry.getComplicationRiskPrompt(context), ComplicationRiskDto.class, () -> null)));
+        starters.put("follow-up-suggestion", () -> cachedAsync("suggestFollowUp", consultation, r -> true,
+                () -> aiEngine.executeAsync(AiAuditLog.AiFeatureType.CLINICAL_SUPPORT, patientId,
+                        promptRegistry.getFollowUpSuggestionPrompt(context), FollowUpSuggestionDto.class, () -> null)));
+        // Deterministic analyses run on the request thread after the model calls are under way
+        starters.put("early-warning", () -> CompletableFuture.completedFuture(earlyWarningService.calculateEarlyWarning(consultation)));
+        starters.put("treatment-efficacy", () -> CompletableFuture.completedFuture(analyzeTreatmentEfficacy(consultation)));
+
+        Map<String, CompletableFuture<?>> analyses = new LinkedHashMap<>();
+        OVERVIEW_ANALYSES.stream().filter(selected::contains).forEach(name -> analyses.put(name, starters.get(name).get()));
+        return analyses;
+    }
+
+    /**
+     * Serves {@code method}'s ai_support entry when present; otherwise starts
+     * the call and stores its result under the same key when
+     * {@code cacheable} accepts it (the method's {@code unless} condition,
+     * inverted). The returned future is the call itself, so cancelling it
+     * still aborts the model request.
+     */
+    private <T> CompletableFuture<T> cachedAsync(String method, ClinicalConsultation consultation, Predicate<T> cacheable,
+            Supplier<CompletableFuture<T>> call) {
+        Cache cache = cacheManager.getCache(AI_SUPPORT_CACHE);
+        Object key = keyGenerator.keyFor(AiClinicalServiceImpl.class.getSimpleName() + "." + method, consultation);
+        Cache.ValueWrapper cached = cache != null ? cache.get(key) : null;
+        if (cached != null) {
+            @SuppressWarnings("unchecked")
+            T value = (T) cached.get();
+            return CompletableFuture.completedFuture(value);
+        }
+        CompletableFuture<T> future = call.get();
+        if (cache != null) {
+            future.thenAccept(result -> {
+                if (result != null && cacheable.test(result)) cache.put(key, result);
+            });
+        }
+        return future;
     }
 
+    @Cacheable(value = AI_SUPPORT_CACHE, keyGenerator = "patientVersionedKeyGenerator", unless = "#result == null")
     public FollowUpSuggestionDto suggestFollowUp(ClinicalConsultation consultation) {
         String prompt = promptRegistry.getFollowUpSuggestionPrompt(contextService.buildStandardMedicalContext(consultation));
         return aiEngine.execute(AiAuditLog.AiFeatureType.CLINICAL_SUPPORT, consultation.getPatient().getId(), prompt, FollowUpSuggestionDto.class, () -> null);
     }
 
+    @Cacheable(value = AI_SUPPORT_CACHE, keyGenerator = "patientVersionedKeyGenerator", unless = "#result == null")
     public ComplicationRiskDto predictComplicationRisk(ClinicalConsultation consultation) {
         String prompt = promptRegistry.getComplicationRiskPrompt(contextService.buildStandardMedicalContext(consultation));
         return aiEngine.execute(AiAuditLog.AiFeatureType.CARE_PLAN, consultation.getPatient().getId(), prompt, ComplicationRiskDto.class, () -> null);
@@ -1,15 +1,31 @@
 package vn.clinic.cdm.service.clinical.impl;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import vn.clinic.cdm.common.cache.PatientContextCache;
+import vn.clinic.cdm.dto.clinical.ClinicalContextSnapshot;
 import vn.clinic.cdm.entity.clinical.ClinicalConsultation;
 import vn.clinic.cdm.repository.clinical.ClinicalVitalRepository;
 import vn.clinic.cdm.repository.clinical.LabResultRepository;
-import vn.clinic.cdm.repository.clinical.HealthMetricRepository;
+import vn.clinic.cdm.service.clinical.VitalTimeSeriesService;
 import vn.clinic.cdm.repository.clinical.MedicationScheduleRepository;
 
 import java.time.LocalDate;
 import java.time.Period;
+import java.util.List;
+import java.util.UUID;
+
+import vn.clinic.cdm.entity.clinical.ClinicalVital;
+import vn.clinic.cdm.entity.clinical.HealthMetric;
+import vn.clinic.cdm.entity.clinical.LabResult;
+import vn.clinic.cdm.entity.clinical.MedicationSchedule;
+import vn.clinic.cdm.entity.clinical.Prescription;
+import vn.clinic.cdm.entity.patient.PatientChronicCondition;
+import vn.clinic.cdm.entity.patient.PatientVitalTarget;
 
 import vn.clinic.cdm.service.clinical.ClinicalContextService;
 
@@ -17,36 +33,100 @@ import vn.clinic.cdm.service.clinical.ClinicalContextService;
  * Enterprise Clinical Context Service.
  * Standardizes how patient data is prepared for AI models to ensure
  * high-quality and consistent reasoning.
+ * <p>
+ * Loading is split from rendering: {@link #loadContext} fetches every section
+ * with DB-side limits and memoizes the snapshot for the current HTTP request,
+ * so CDS, Early Warning and AI Clinical features share one load.
  */
 @Service("clinicalContextService")
 @RequiredArgsConstructor
+@Slf4j
 public class ClinicalContextServiceImpl implements ClinicalContextService {
 
-    private final HealthMetricRepository vitalsRepository;
+    private static final String REQUEST_ATTR_PREFIX = ClinicalContextServiceImpl.class.getName() + ".snapshot.";
+    private static final int HISTORICAL_VITALS_PER_TYPE = 3;
+
+    private final VitalTimeSeriesService vitalTimeSeriesService;
     private final LabResultRepository labResultRepository;
     private final ClinicalVitalRepository clinicalVitalRepository;
     private final vn.clinic.cdm.repository.clinical.PrescriptionRepository prescriptionRepository;
     private final vn.clinic.cdm.repository.patient.PatientChronicConditionRepository chronicConditionRepository;
     private final vn.clinic.cdm.repository.patient.PatientVitalTargetRepository vitalTargetRepository;
     private final MedicationScheduleRepository medicationScheduleRepository;
+    private final PatientContextCache contextCache;
 
     /**
      * Builds a comprehensive, structured medical context for AI consumption.
+     * The rendered text is reused across requests until the patient's data
+     * version changes.
      */
+    @Transactional(readOnly = true)
     public String buildStandardMedicalContext(ClinicalConsultation consultation) {
-        StringBuilder sb = new StringBuilder(2048);
+        ClinicalContextSnapshot memoized = requestSnapshot(consultation);
+        if (memoized != null) {
+            return memoized.renderedContext();
+        }
+        return contextCache.get(consultation.getId(), consultation.getPatient().getId(),
+                () -> loadContext(consultation).renderedContext());
+    }
 
+    /**
+     * Returns the request-scoped snapshot for the consultation, assembling it on
+     * first use. Outside of an HTTP request (async listeners, schedulers) the
+     * snapshot is simply built and not memoized.
+     */
+    @Transactional(readOnly = true)
+    public ClinicalContextSnapshot loadContext(ClinicalConsultation consultation) {
+        ClinicalContextSnapshot memoized = requestSnapshot(consultation);
+        if (memoized != null) {
+            return memoized;
+        }
+
+        ClinicalContextSnapshot snapshot = assembleSnapshot(consultation);
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(REQUEST_ATTR_PREFIX + consultation.getId(), snapshot,
+                    RequestAttributes.SCOPE_REQUEST);
+        }
+        return snapshot;
+    }
+
+    private ClinicalContextSnapshot requestSnapshot(ClinicalConsultation consultation) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null && attributes.getAttribute(REQUEST_ATTR_PREFIX + consultation.getId(),
+                RequestAttributes.SCOPE_REQUEST) instanceof ClinicalContextSnapshot cached) {
+            return cached;
+        }
+        return null;
+    }
+
+    private ClinicalContextSnapshot assembleSnapshot(ClinicalConsultation consultation) {
+        UUID patientId = consultation.getPatient().getId();
+        UUID consultationId = consultation.getId();
+        log.debug("Assembling clinical context snapshot for consultation: {}", consultationId);
+
+        var metrics = vitalTimeSeriesService.latestPerType(patientId, HISTORICAL_VITALS_PER_TYPE);
+        var clinicalVitals = clinicalVitalRepository.findByConsultationIdOrderByRecordedAtAsc(consultationId);
+        var labs = labResultRepository.findByConsultationId(consultationId);
+        var prescription = prescriptionRepository.findByConsultationId(consultationId).orElse(null);
+        var chronicConditions = chronicConditionRepository.findByPatientId(patientId);
+        var vitalTargets = vitalTargetRepository.findByPatientId(patientId);
+        var schedules = medicationScheduleRepository
+                .findTop10ByMedicationPrescriptionPatientIdOrderByScheduledTimeDesc(patientId);
+
+        StringBuilder sb = new StringBuilder(2048);
         appendPatientProfile(sb, consultation);
         appendCurrentEncounter(sb, consultation);
-        appendHistoricalVitals(sb, consultation);
-        appendClinicalVitals(sb, consultation);
-        appendLabResults(sb, consultation);
-        appendChronicDiseaseContext(sb, consultation);
-        appendCurrentMedications(sb, consultation);
-        appendMedicationAdherence(sb, consultation);
+        appendHistoricalVitals(sb, metrics);
+        appendClinicalVitals(sb, clinicalVitals);
+        appendLabResults(sb, labs);
+        appendChronicDiseaseContext(sb, chronicConditions, vitalTargets);
+        appendCurrentMedications(sb, prescription);
+        appendMedicationAdherence(sb, schedules);
         appendClinicalGuardrails(sb);
 
-        return sb.toString();
+        return new ClinicalContextSnapshot(consultationId, patientId, metrics, clinicalVitals, labs, prescription,
+                chronicConditions, vitalTargets, schedules, sb.toString());
     }
 
     private void appendPatientProfile(StringBuilder sb, ClinicalConsultation consultation) {
@@ -87,13 +167,12 @@ public class ClinicalContextServiceImpl implements ClinicalContextService {
         sb.append("\n");
     }
 
-    private void appendHistoricalVitals(StringBuilder sb, ClinicalConsultation consultation) {
+    private void appendHistoricalVitals(StringBuilder sb, List<HealthMetric> vitals) {
         sb.append("### HISTORICAL VITALS (Self-recorded/Previous)\n");
-        var vitals = vitalsRepository.findByPatientIdOrderByRecordedAtDesc(consultation.getPatient().getId());
         if (vitals.isEmpty()) {
             sb.append("- No vitals recorded.\n");
         } else {
-            vitals.stream().limit(10).forEach(v -> sb.append(String.format("- %s: %s %s (%s)\n",
+            vitals.forEach(v -> sb.append(String.format("- %s: %s %s (%s)\n",
                     v.getMetricType(),
                     v.getValue(),
                     safeStr(v.getUnit()),
@@ -102,10 +181,8 @@ public class ClinicalContextServiceImpl implements ClinicalContextService {
         sb.append("\n");
     }
 
-    private void appendClinicalVitals(StringBuilder sb, ClinicalConsultation consultation) {
+    private void appendClinicalVitals(StringBuilder sb, List<ClinicalVital> clinicalVitals) {
         sb.append("### CLINICAL VITALS (In-Encounter)\n");
-        var clinicalVitals = clinicalVitalRepository
-                .findByConsultationIdOrderByRecordedAtAsc(consultation.getId());
         if (clinicalVitals.isEmpty()) {
             sb.append("- No clinical vitals recorded in this encounter.\n");
         } else {
@@ -118,9 +195,8 @@ public class ClinicalContextServiceImpl implements ClinicalContextService {
         sb.append("\n");
     }
 
-    private void appendLabResults(StringBuilder sb, ClinicalConsultation consultation) {
+    private void appendLabResults(StringBuilder sb, List<LabResult> labs) {
         sb.append("### RELEVANT LABS\n");
-        var labs = labResultRepository.findByConsultation(consultation);
         if (labs.isEmpty()) {
             sb.append("- No labs in this encounter.\n");
         } else {
@@ -133,11 +209,8 @@ public class ClinicalContextServiceImpl implements ClinicalContextService {
         sb.append("\n");
     }
 
-    private void appendChronicDiseaseContext(StringBuilder sb, ClinicalConsultation consultation) {
-        var patientId = consultation.getPatient().getId();
-        var chronicConditions = chronicConditionRepository.findByPatientId(patientId);
-        var vitalTargets = vitalTargetRepository.findByPatientId(patientId);
-
+    private void appendChronicDiseaseContext(StringBuilder sb, List<PatientChronicCondition> chronicConditions,
+            List<PatientVitalTarget> vitalTargets) {
         sb.append("### STRUCTURED CHRONIC DISEASE DATA\n");
         if (chronicConditions.isEmpty()) {
             sb.append("- No structured chronic conditions found.\n");
@@ -156,14 +229,12 @@ public class ClinicalContextServiceImpl implements ClinicalContextService {
         sb.append("\n");
     }
 
-    private void appendMedicationAdherence(StringBuilder sb, ClinicalConsultation consultation) {
+    private void appendMedicationAdherence(StringBuilder sb, List<MedicationSchedule> schedules) {
         sb.append("### PATIENT MEDICATION ADHERENCE\n");
-        var schedules = medicationScheduleRepository
-                .findByMedicationPrescriptionPatientId(consultation.getPatient().getId());
         if (schedules.isEmpty()) {
             sb.append("- No medication track records for this patient.\n");
         } else {
-            schedules.stream().limit(10).forEach(s -> sb.append(String.format("- %s: %s (Scheduled: %s, Taken: %s)\n",
+            schedules.forEach(s -> sb.append(String.format("- %s: %s (Scheduled: %s, Taken: %s)\n",
                     s.getMedication().getMedicineName(),
                     s.getStatus(),
                     s.getScheduledTime(),
@@ -172,26 +243,24 @@ public class ClinicalContextServiceImpl implements ClinicalContextService {
         sb.append("\n");
     }
 
-    private void appendCurrentMedications(StringBuilder sb, ClinicalConsultation consultation) {
+    private void appendCurrentMedications(StringBuilder sb, Prescription prescription) {
         sb.append("### CURRENT MEDICATIONS\n");
-        var prescription = prescriptionRepository.findByConsultationId(consultation.getId());
-        if (prescription.isEmpty()) {
+        if (prescription == null) {
             sb.append("- No active prescriptions for this encounter.\n");
         } else {
-            prescription.ifPresent(p -> p.getMedications().forEach(item -> {
-                sb.append(String.format("- %s (Qty: %s) - %s\n",
-                        item.getMedicineName(), item.getQuantity(), safeStr(item.getDosage())));
-            }));
+            prescription.getMedications().forEach(item -> sb.append(String.format("- %s (Qty: %s) - %s\n",
+                    item.getMedicineName(), item.getQuantity(), safeStr(item.getDosage()))));
         }
         sb.append("\n");
     }
 
+    @Transactional(readOnly = true)
     public vn.clinic.cdm.dto.report.CdmReportDto getCdmReportData(ClinicalConsultation consultation,
             String carePlan) {
         var patient = consultation.getPatient();
-        var patientId = patient.getId();
+        var snapshot = loadContext(consultation);
 
-        var conditions = chronicConditionRepository.findByPatientId(patientId).stream()
+        var conditions = snapshot.chronicConditions().stream()
                 .map(c -> vn.clinic.cdm.dto.report.CdmReportDto.ConditionInfo.builder()
                         .name(c.getConditionName())
                         .icd10(c.getIcd10Code())
@@ -200,7 +269,7 @@ public class ClinicalContextServiceImpl implements ClinicalContextService {
                         .build())
                 .toList();
 
-        var targets = vitalTargetRepository.findByPatientId(patientId).stream()
+        var targets = snapshot.vitalTargets().stream()
                 .map(t -> vn.clinic.cdm.dto.report.CdmReportDto.TargetInfo.builder()
                         .type(t.getVitalType())
                         .range(t.getMinValue() + " - " + t.getMaxValue())
@@ -208,8 +277,7 @@ public class ClinicalContextServiceImpl implements ClinicalContextService {
                         .build())
                 .toList();
 
-        var adherence = medicationScheduleRepository.findByMedicationPrescriptionPatientId(patientId).stream()
-                .limit(10)
+        var adherence = snapshot.recentSchedules().stream()
                 .map(s -> vn.clinic.cdm.dto.report.CdmReportDto.AdherenceInfo.builder()
                         .medicine(s.getMedication().getMedicineName())
                         .score(s.getStatus().equals("TAKEN") ? java.math.BigDecimal.valueOf(100)
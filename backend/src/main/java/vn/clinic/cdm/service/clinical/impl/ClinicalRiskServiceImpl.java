@@ -1,81 +1,178 @@
 package vn.clinic.cdm.service.clinical.impl;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 import vn.clinic.cdm.dto.ai.RiskPatientDto;
 import vn.clinic.cdm.common.constant.ManagementConstants;
+import vn.clinic.cdm.event.HealthMetricRecordedEvent;
 import vn.clinic.cdm.service.clinical.ClinicalRiskService;
 import vn.clinic.cdm.repository.clinical.HealthMetricRepository;
+import vn.clinic.cdm.repository.clinical.HealthThresholdRepository;
+import vn.clinic.cdm.repository.clinical.PatientRiskBackfillRepository;
+import vn.clinic.cdm.repository.clinical.PatientRiskSnapshotRepository;
 import vn.clinic.cdm.entity.clinical.HealthMetric;
+import vn.clinic.cdm.entity.clinical.VitalType;
+import vn.clinic.cdm.entity.clinical.risk.PatientRiskSnapshot;
 import vn.clinic.cdm.entity.clinical.risk.RiskAssessmentRule;
+import vn.clinic.cdm.entity.clinical.risk.VitalSeries;
+import vn.clinic.cdm.entity.clinical.risk.VitalThresholdTable;
 import vn.clinic.cdm.entity.patient.Patient;
 
+import java.time.Instant;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Service for Clinical Risk Identification.
- * Refactored to 3-layer architecture.
+ * <p>
+ * Risk is computed push-style: every recorded vital re-runs the rules over a
+ * small rolling window of that patient's latest values and materializes the
+ * result in patient_risk_snapshot. Dashboards then read the snapshots of all
+ * monitored patients with a single primary-key lookup. Rules run on the
+ * columnar {@link VitalSeries} view against thresholds precompiled with the
+ * patient's own HealthThreshold overrides.
  */
 @Service("clinicalRiskService")
 @RequiredArgsConstructor
 @Slf4j
 public class ClinicalRiskServiceImpl implements ClinicalRiskService {
 
+    /** Values kept per metric type; the trend rules look at the latest 3. */
+    static final int WINDOW_PER_TYPE = 5;
+
+    /** Only types with rules are loaded, one index probe each. */
+    private static final List<String> RULE_TYPES = Arrays.stream(VitalType.values()).map(Enum::name).toList();
+    private static final int BACKFILL_BATCH = 100;
+
     private final HealthMetricRepository healthMetricRepository;
+    private final HealthThresholdRepository healthThresholdRepository;
+    private final PatientRiskSnapshotRepository snapshotRepository;
+    private final PatientRiskBackfillRepository backfillRepository;
     private final List<RiskAssessmentRule> riskRules;
+    private final PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void initTransactionTemplate() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
 
     @Override
+    @Transactional(readOnly = true)
     public List<RiskPatientDto> identifyRiskPatients(List<Patient> patients) {
         if (patients == null || patients.isEmpty()) {
             return Collections.emptyList();
         }
-        
-        log.info("Executing ClinicalRiskService for {} patients using {} rules", 
-                patients.size(), riskRules.size());
-        
+
+        List<UUID> ids = patients.stream().filter(Objects::nonNull).map(Patient::getId).toList();
+        Map<UUID, PatientRiskSnapshot> snapshots = snapshotRepository
+                .findByPatientIdInAndRiskLevelNot(ids, ManagementConstants.RiskLevel.LOW).stream()
+                .collect(Collectors.toMap(PatientRiskSnapshot::getPatientId, Function.identity()));
+
+        log.debug("Loaded {} risk snapshots for {} patients", snapshots.size(), ids.size());
+
         return patients.stream()
                 .filter(Objects::nonNull)
-                .map(this::assessPatientRisk)
-                .filter(Objects::nonNull)
+                .filter(p -> snapshots.containsKey(p.getId()))
+                .map(p -> toDto(p, snapshots.get(p.getId())))
                 .collect(Collectors.toList());
     }
 
-    private RiskPatientDto assessPatientRisk(Patient p) {
-        log.debug("Assessing risk rules for patient: {}", p.getId());
-        List<HealthMetric> logs = healthMetricRepository.findByPatientIdOrderByRecordedAtDesc(p.getId());
-
-        if (logs.isEmpty()) {
-            return null;
+    @Override
+    @Transactional
+    public void refreshPatientRisk(UUID patientId) {
+        List<HealthMetric> window = healthMetricRepository.findRecentWindowOfTypes(patientId, RULE_TYPES, WINDOW_PER_TYPE);
+        if (window.isEmpty()) {
+            snapshotRepository.deleteById(patientId);
+            return;
         }
 
-        Map<String, List<HealthMetric>> metricsByType = logs.stream()
-                .collect(Collectors.groupingBy(HealthMetric::getMetricType));
+        VitalSeries series = VitalSeries.of(window, WINDOW_PER_TYPE);
+        VitalThresholdTable thresholds = VitalThresholdTable.defaults()
+                .withOverrides(healthThresholdRepository.findByPatientId(patientId));
 
         String finalRiskLevel = ManagementConstants.RiskLevel.LOW;
         List<String> allReasons = new ArrayList<>();
-        String mainTrend = "Stable";
 
         // Domain Logic Bridge: Strategy execution
         for (RiskAssessmentRule rule : riskRules) {
-            RiskAssessmentRule.RiskResult result = rule.evaluate(metricsByType);
-            
+            RiskAssessmentRule.RiskResult result = rule.evaluate(series, thresholds);
+
             finalRiskLevel = prioritizeRisk(finalRiskLevel, result.level());
             allReasons.addAll(result.reasons());
         }
 
-        if (ManagementConstants.RiskLevel.LOW.equals(finalRiskLevel)) {
-            return null;
+        HealthMetric any = window.get(0);
+        Instant lastMetricAt = window.stream().map(HealthMetric::getRecordedAt)
+                .filter(Objects::nonNull).max(Comparator.naturalOrder()).orElse(null);
+
+        snapshotRepository.upsert(patientId, any.getTenant().getId(), finalRiskLevel,
+                String.join(", ", allReasons),
+                allReasons.isEmpty() ? "Stable" : allReasons.get(allReasons.size() - 1),
+                lastMetricAt, Instant.now());
+    }
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onHealthMetricRecorded(HealthMetricRecordedEvent event) {
+        try {
+            refreshPatientRisk(event.getPatientId());
+        } catch (Exception e) {
+            log.error("Risk snapshot refresh failed for patient {}: {}", event.getPatientId(), e.getMessage());
         }
+    }
+
+    /**
+     * One-off catch-up for patients whose vitals predate the snapshot table,
+     * queued by migration V27. Each batch is claimed (SKIP LOCKED) and removed
+     * in the transaction that writes its snapshots, so nodes starting together
+     * split the queue and a failed batch stays queued for the next start. Once
+     * drained, startup costs one lookup on an empty table.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissingSnapshots() {
+        int total = 0;
+        List<UUID> batch;
+        do {
+            try {
+                batch = transactionTemplate.execute(status -> {
+                    List<UUID> claimed = backfillRepository.claim(BACKFILL_BATCH);
+                    claimed.forEach(this::refreshPatientRisk);
+                    return claimed;
+                });
+            } catch (Exception e) {
+                log.warn("Risk snapshot backfill stopped after {} patients: {}", total, e.getMessage());
+                return;
+            }
+            total += batch.size();
+        } while (batch.size() == BACKFILL_BATCH);
+        if (total > 0) {
+            log.info("Backfilled risk snapshots for {} patients", total);
+        }
+    }
 
+    private RiskPatientDto toDto(Patient p, PatientRiskSnapshot snapshot) {
         return RiskPatientDto.builder()
                 .patientId(p.getId())
                 .patientName(p.getFullNameVi())
                 .patientAvatar(p.getAvatarUrl())
-                .riskLevel(finalRiskLevel)
-                .reason(String.join(", ", allReasons))
-                .lastVitalTrend(allReasons.isEmpty() ? mainTrend : allReasons.get(allReasons.size() - 1))
+                .riskLevel(snapshot.getRiskLevel())
+                .reason(snapshot.getReasons())
+                .lastVitalTrend(snapshot.getLastVitalTrend())
                 .build();
     }
 
@@ -7,11 +7,16 @@ import org.springframework.transaction.annotation.Transactional;
 import vn.clinic.cdm.dto.clinical.HealthMetricDto;
 import vn.clinic.cdm.dto.clinical.HealthThresholdDto;
 import vn.clinic.cdm.dto.clinical.UpdateHealthThresholdRequest;
+import vn.clinic.cdm.dto.clinical.VitalBucketDto;
 import vn.clinic.cdm.dto.clinical.VitalTrendDto;
+import vn.clinic.cdm.dto.common.CursorPagedResponse;
 import vn.clinic.cdm.entity.clinical.HealthThreshold;
+import vn.clinic.cdm.entity.clinical.VitalType;
 import vn.clinic.cdm.repository.clinical.HealthMetricRepository;
 import vn.clinic.cdm.repository.clinical.HealthThresholdRepository;
 import vn.clinic.cdm.entity.patient.Patient;
+import vn.clinic.cdm.service.clinical.VitalSampleService;
+import vn.clinic.cdm.service.clinical.VitalTimeSeriesService;
 import vn.clinic.cdm.service.patient.PatientService;
 
 import java.time.Instant;
@@ -36,6 +41,8 @@ public class DoctorHealthMonitoringServiceImpl implements vn.clinic.cdm.service.
     private final HealthMetricRepository healthMetricRepository;
     private final HealthThresholdRepository healthThresholdRepository;
     private final PatientService patientService;
+    private final VitalTimeSeriesService vitalTimeSeriesService;
+    private final VitalSampleService vitalSampleService;
 
     /**
      * Lấy tất cả chỉ số sức khỏe gần nhất của bệnh nhân (giới hạn 50 bản ghi).
@@ -45,13 +52,37 @@ public class DoctorHealthMonitoringServiceImpl implements vn.clinic.cdm.service.
         // Validate bệnh nhân tồn tại
         patientService.getById(patientId);
 
-        return healthMetricRepository.findByPatientIdOrderByRecordedAtDesc(patientId)
+        return vitalTimeSeriesService.latest(patientId, 50)
                 .stream()
-                .limit(50)
                 .map(HealthMetricDto::fromEntity)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Lịch sử chỉ số sức khỏe phân trang theo con trỏ (mới nhất trước).
+     */
+    @Transactional(readOnly = true)
+    public CursorPagedResponse<HealthMetricDto> getPatientHealthMetricHistory(UUID patientId, String cursor, int limit) {
+        patientService.getById(patientId);
+
+        var page = vitalTimeSeriesService.page(patientId, cursor, limit);
+        return CursorPagedResponse.of(
+                page.getContent().stream().map(HealthMetricDto::fromEntity).collect(Collectors.toList()),
+                page.getNextCursor());
+    }
+
+    /**
+     * Xu hướng chỉ số đã gộp theo khoảng thời gian (min/max/avg) — tối đa {@code points} điểm.
+     */
+    @Transactional(readOnly = true)
+    public List<VitalBucketDto> getPatientHealthTrendBuckets(UUID patientId, String metricType, int daysBack, int points) {
+        patientService.getById(patientId);
+
+        Instant to = Instant.now();
+        Instant from = to.minus(daysBack, ChronoUnit.DAYS);
+        return vitalTimeSeriesService.downsample(patientId, metricType, from, to, points);
+    }
+
     /**
      * Lấy xu hướng chỉ số theo loại và khoảng thời gian.
      *
@@ -64,8 +95,14 @@ public class DoctorHealthMonitoringServiceImpl implements vn.clinic.cdm.service.
     public List<VitalTrendDto> getPatientHealthTrends(UUID patientId, String metricType, int daysBack) {
         patientService.getById(patientId);
 
-        Instant from = Instant.now().minus(daysBack, ChronoUnit.DAYS);
         Instant to = Instant.now();
+        Instant from = to.minus(daysBack, ChronoUnit.DAYS);
+
+        // Vital signs come from the sample store (rollups for long ranges)
+        VitalType vital = VitalType.of(metricType);
+        if (vital != null) {
+            return vitalSampleService.getTrend(patientId, vital, from, to);
+        }
 
         return healthMetricRepository
                 .findByPatientIdAndMetricTypeAndRecordedAtBetweenOrderByRecordedAtAsc(
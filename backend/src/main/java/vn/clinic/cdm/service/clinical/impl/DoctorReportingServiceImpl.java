@@ -36,7 +36,7 @@ public class DoctorReportingServiceImpl implements DoctorReportingService {
     private final DoctorRepository doctorRepository;
     private final PatientRepository patientRepository;
     private final PatientChatService chatService;
-    private final vn.clinic.cdm.repository.clinical.HealthMetricRepository healthMetricRepository;
+    private final vn.clinic.cdm.repository.clinical.VitalCriticalDayRepository criticalDayRepository;
     private final PdfService pdfService;
 
     @Transactional(readOnly = true)
@@ -66,18 +66,11 @@ public class DoctorReportingServiceImpl implements DoctorReportingService {
         int criticalCount = countRiskByType(allRisks, ManagementConstants.RiskLevel.CRITICAL);
         int warningCount = countRiskByType(allRisks, ManagementConstants.RiskLevel.HIGH, ManagementConstants.RiskLevel.MEDIUM);
 
-        // Real-ish trend: count metrics with abnormal/critical values per day for last 7 days
-        List<Integer> trend = new ArrayList<>();
-        LocalDate now = LocalDate.now();
-        for (int i = 6; i >= 0; i--) {
-            LocalDate d = now.minusDays(i);
-            java.time.Instant start = DateTimeUtils.atStartOfDay(d);
-            java.time.Instant end = DateTimeUtils.atEndOfDay(d);
-            
-            // Count patients with at least one critical/abnormal metric recorded that day
-            long count = healthMetricRepository.countPatientsWithCriticalMetrics(start, end);
-            trend.add((int) count);
-        }
+        // Patients of this doctor with at least one critical reading, per day for the last 7 days
+        LocalDate today = vn.clinic.cdm.repository.clinical.VitalCriticalDayRepository.today();
+        List<Integer> trend = new ArrayList<>(criticalDayRepository
+                .countPatientsPerDay(doctor.getTenant().getId(), doctor.getId(), today.minusDays(6), today)
+                .values());
 
         return RiskAnalysisDashboardDto.builder()
                 .criticalPatientsCount(criticalCount)
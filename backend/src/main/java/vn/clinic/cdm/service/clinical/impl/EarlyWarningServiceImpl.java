@@ -1,48 +1,190 @@
 package vn.clinic.cdm.service.clinical.impl;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import vn.clinic.cdm.entity.aiaudit.AiAuditLog;
 import vn.clinic.cdm.dto.ai.ClinicalEarlyWarningDto;
 import vn.clinic.cdm.entity.clinical.ClinicalConsultation;
+import vn.clinic.cdm.entity.clinical.ClinicalVital;
+import vn.clinic.cdm.entity.clinical.HealthMetric;
+import vn.clinic.cdm.entity.clinical.risk.News2Calculator;
+import vn.clinic.cdm.entity.patient.Patient;
 import vn.clinic.cdm.common.ai.AiExecutionEngine;
+import vn.clinic.cdm.exception.ApiException;
+import vn.clinic.cdm.exception.ErrorCode;
+import vn.clinic.cdm.repository.clinical.ClinicalVitalRepository;
+import vn.clinic.cdm.repository.clinical.DoctorRepository;
+import vn.clinic.cdm.repository.clinical.HealthMetricRepository;
+import vn.clinic.cdm.repository.patient.PatientRepository;
 
 import vn.clinic.cdm.service.clinical.EarlyWarningService;
 import vn.clinic.cdm.service.clinical.ClinicalContextService;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
 /**
- * Enterprise Early Warning Service (Refactored).
- * Analyzes patient deterioration risk using NEWS2 & AI.
- * Clean Code: Delegated context and execution to specialized engines.
+ * Early Warning Service.
+ * NEWS2 is computed locally by {@link News2Calculator} from the consultation
+ * vitals and the latest home readings; the AI is only asked for a narrative
+ * assessment of the computed score when explicitly requested. Home readings
+ * older than {@link #HOME_READING_MAX_AGE} are not scored.
  */
 @Service("earlyWarningService")
 @RequiredArgsConstructor
 @Slf4j
 public class EarlyWarningServiceImpl implements EarlyWarningService {
 
+    /** Latest + previous reading per metric type, enough for the trend. */
+    private static final int READINGS_PER_TYPE = 2;
+
+    /** NEWS2 describes the current state; older home readings are treated as missing. */
+    static final Duration HOME_READING_MAX_AGE = Duration.ofHours(24);
+
     private final ClinicalContextService contextService;
     private final AiExecutionEngine aiEngine;
     private final PromptRegistry promptRegistry;
+    private final ClinicalVitalRepository clinicalVitalRepository;
+    private final HealthMetricRepository healthMetricRepository;
+    private final DoctorRepository doctorRepository;
+    private final PatientRepository patientRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    void initTransactionTemplate() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
 
-    @Cacheable(value = "ai_support", key = "'ews_' + #consultation.id")
+    @Override
+    @Transactional(readOnly = true)
     public ClinicalEarlyWarningDto calculateEarlyWarning(ClinicalConsultation consultation) {
-        String patientData = contextService.buildStandardMedicalContext(consultation);
-        
-        // Use standard context for trend analysis
-        String prompt = promptRegistry.getEarlyWarningPrompt(patientData, "Trend analyzed from historical context");
+        Patient patient = consultation.getPatient();
+        List<News2Calculator.Observation> observations = new ArrayList<>();
+        for (ClinicalVital v : clinicalVitalRepository.findByConsultationIdOrderByRecordedAtAsc(consultation.getId())) {
+            if (v.getValueNumeric() != null) {
+                observations.add(new News2Calculator.Observation(v.getVitalType(),
+                        v.getValueNumeric().doubleValue(), v.getRecordedAt()));
+            }
+        }
+        addMetrics(observations, healthMetricRepository.findRecentWindowForPatients(List.of(patient.getId()),
+                READINGS_PER_TYPE, Instant.now().minus(HOME_READING_MAX_AGE)));
+        return toDto(patient, News2Calculator.calculate(observations));
+    }
+
+    @Override
+    @Cacheable(value = "ai_support", keyGenerator = "patientVersionedKeyGenerator", unless = "#result == null || #result.aiClinicalAssessment == null || #result.aiClinicalAssessment.startsWith('⚠')")
+    public ClinicalEarlyWarningDto calculateEarlyWarningWithNarrative(ClinicalConsultation consultation) {
+        // Score and context are read in one short transaction; the AI call must not hold a connection
+        NarrativeInput input = readOnlyTransaction.execute(status -> new NarrativeInput(
+                calculateEarlyWarning(consultation), contextService.buildStandardMedicalContext(consultation)));
+        ClinicalEarlyWarningDto dto = input.dto();
+        String prompt = promptRegistry.getEarlyWarningNarrativePrompt(input.patientData(), summarize(dto));
+
+        dto.setAiClinicalAssessment(aiEngine.executeText(AiAuditLog.AiFeatureType.CLINICAL_SUPPORT,
+                consultation.getPatient().getId(), prompt, "⚠ AI Analysis Unavailable"));
+        return dto;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ClinicalEarlyWarningDto> calculateWardEarlyWarnings(UUID doctorUserId) {
+        var doctor = doctorRepository.findByIdentityUser_Id(doctorUserId)
+                .orElseThrow(() -> new ApiException(ErrorCode.RESOURCE_NOT_FOUND, HttpStatus.NOT_FOUND,
+                        "Không tìm thấy thông tin bác sĩ"));
+        List<Patient> patients = patientRepository.findByAssignedDoctor_IdAndIsActiveTrue(doctor.getId());
+        if (patients.isEmpty()) {
+            return List.of();
+        }
 
-        return aiEngine.execute(AiAuditLog.AiFeatureType.CLINICAL_SUPPORT, 
-                consultation.getPatient().getId(), prompt, 
-                ClinicalEarlyWarningDto.class, () -> fallbackWarning("AI Analysis Unavailable"));
+        Map<UUID, List<News2Calculator.Observation>> byPatient = new HashMap<>();
+        List<UUID> ids = patients.stream().map(Patient::getId).toList();
+        Instant since = Instant.now().minus(HOME_READING_MAX_AGE);
+        for (HealthMetric m : healthMetricRepository.findRecentWindowForPatients(ids, READINGS_PER_TYPE, since)) {
+            if (m.getValue() == null) continue;
+            byPatient.computeIfAbsent(m.getPatient().getId(), k -> new ArrayList<>())
+                    .add(new News2Calculator.Observation(m.getMetricType(), m.getValue().doubleValue(), m.getRecordedAt()));
+        }
+
+        List<ClinicalEarlyWarningDto> result = new ArrayList<>(patients.size());
+        for (Patient p : patients) {
+            result.add(toDto(p, News2Calculator.calculate(byPatient.getOrDefault(p.getId(), List.of()))));
+        }
+        result.sort(Comparator.comparing(ClinicalEarlyWarningDto::getNews2Score).reversed());
+        return result;
+    }
+
+    private record NarrativeInput(ClinicalEarlyWarningDto dto, String patientData) {
     }
 
-    private ClinicalEarlyWarningDto fallbackWarning(String message) {
+    private void addMetrics(List<News2Calculator.Observation> observations, List<HealthMetric> metrics) {
+        for (HealthMetric m : metrics) {
+            if (m.getValue() != null) {
+                observations.add(new News2Calculator.Observation(m.getMetricType(), m.getValue().doubleValue(),
+                        m.getRecordedAt()));
+            }
+        }
+    }
+
+    private ClinicalEarlyWarningDto toDto(Patient patient, News2Calculator.Result result) {
+        List<ClinicalEarlyWarningDto.VitalWarning> warnings = result.scores().stream()
+                .map(s -> ClinicalEarlyWarningDto.VitalWarning.builder()
+                        .vitalType(s.parameter().name())
+                        .value(format(s.value()))
+                        .pointsContributed(s.points())
+                        .trend(s.trend())
+                        .build())
+                .toList();
         return ClinicalEarlyWarningDto.builder()
-                .news2Score(0)
-                .riskLevel("UNKNOWN")
-                .aiClinicalAssessment("⚠ " + message)
+                .patientId(patient.getId())
+                .patientName(patient.getFullNameVi())
+                .news2Score(result.total())
+                .riskLevel(result.riskLevel())
+                .warnings(warnings)
+                .missingParameters(result.missing().stream().map(Enum::name).toList())
+                .escalationProtocol(escalation(result.total(), result.riskLevel()))
                 .build();
     }
+
+    private String escalation(int total, String riskLevel) {
+        return switch (riskLevel) {
+            case News2Calculator.HIGH -> "Theo dõi liên tục; báo ngay nhóm cấp cứu/hồi sức đánh giá";
+            case News2Calculator.MEDIUM -> "Theo dõi tối thiểu mỗi giờ; báo bác sĩ đánh giá khẩn";
+            case News2Calculator.LOW_MEDIUM -> "Theo dõi tối thiểu mỗi giờ; báo bác sĩ đánh giá";
+            default -> total == 0 ? "Theo dõi tối thiểu mỗi 12 giờ" : "Theo dõi tối thiểu mỗi 4-6 giờ; điều dưỡng đánh giá";
+        };
+    }
+
+    private String summarize(ClinicalEarlyWarningDto dto) {
+        StringBuilder sb = new StringBuilder()
+                .append("Tổng điểm: ").append(dto.getNews2Score())
+                .append(" (").append(dto.getRiskLevel()).append(")\n");
+        for (ClinicalEarlyWarningDto.VitalWarning w : dto.getWarnings()) {
+            sb.append("- ").append(w.getVitalType()).append(": ").append(w.getValue())
+                    .append(" -> ").append(w.getPointsContributed()).append(" điểm, ").append(w.getTrend()).append('\n');
+        }
+        if (!dto.getMissingParameters().isEmpty()) {
+            sb.append("Thiếu dữ liệu: ").append(String.join(", ", dto.getMissingParameters()));
+        }
+        return sb.toString();
+    }
+
+    private String format(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
 }
@@ -44,23 +44,15 @@ public class PromptRegistry {
                                 context);
         }
 
-        public String getEarlyWarningPrompt(String patientData, String vitalHistory) {
+        public String getEarlyWarningNarrativePrompt(String patientData, String news2Summary) {
                 return String.format(
-                                "SYSTEM: Báº N LÃ€ 'ENTERPRISE CLINICAL DETERIORATION MONITORING SYSTEM'.\n" +
-                                                "NHIá»†M Vá»¤: PhÃ¢n tÃ­ch sinh hiá»‡u bá»‡nh nhÃ¢n vÃ  tráº£ vá» cáº£nh bÃ¡o lÃ¢m sÃ ng (NEWS2-based).\n\n"
-                                                +
-                                                "Dá»® LIá»†U Bá»†NH NHÃ‚N:\n%s\n%s\n\n" +
-                                                "YÃŠU Cáº¦U JSON (CHá»ˆ TRáº¢ Vá»€ JSON):\n" +
-                                                "{\n" +
-                                                "  \"news2Score\": 0,\n" +
-                                                "  \"riskLevel\": \"LOW|MEDIUM|HIGH\",\n" +
-                                                "  \"monitoringFrequency\": \"Táº§n suáº¥t theo dÃµi Ä‘á» xuáº¥t\",\n" +
-                                                "  \"warnings\": [ { \"vitalType\": \"...\", \"value\": \"...\", \"pointsContributed\": 0, \"trend\": \"STABLE|WORSENING|IMPROVING\" } ],\n"
-                                                +
-                                                "  \"aiClinicalAssessment\": \"ÄÃ¡nh giÃ¡ nguy cÆ¡ diá»…n tiáº¿n náº·ng\",\n" +
-                                                "  \"escalationProtocol\": \"Quy trÃ¬nh xá»­ lÃ½ kháº©n cáº¥p\"\n" +
-                                                "}",
-                                patientData, vitalHistory);
+                                "SYSTEM: ENTERPRISE CLINICAL DETERIORATION MONITORING SYSTEM.\n" +
+                                                "NEWS2 đã được hệ thống tính sẵn, KHÔNG tính lại điểm.\n\n" +
+                                                "DỮ LIỆU BỆNH NHÂN:\n%s\n\n" +
+                                                "KẾT QUẢ NEWS2:\n%s\n\n" +
+                                                "YÊU CẦU: Viết đánh giá ngắn (tối đa 5 câu) về nguy cơ diễn tiến nặng, " +
+                                                "các chỉ số đáng lo ngại và đề xuất tần suất theo dõi. Chỉ trả về văn bản.",
+                                patientData, news2Summary);
         }
 
         public String getClinicalChatPrompt(String context, String userMessage, String history) {
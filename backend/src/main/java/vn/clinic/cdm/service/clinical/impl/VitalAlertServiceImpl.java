@@ -0,0 +1,145 @@
+package vn.clinic.cdm.service.clinical.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import vn.clinic.cdm.dto.clinical.VitalAlertDto;
+import vn.clinic.cdm.entity.clinical.HealthThreshold;
+import vn.clinic.cdm.entity.clinical.VitalType;
+import vn.clinic.cdm.entity.clinical.risk.VitalThresholdTable;
+import vn.clinic.cdm.entity.patient.Patient;
+import vn.clinic.cdm.event.HealthMetricRecordedEvent;
+import vn.clinic.cdm.repository.clinical.HealthThresholdRepository;
+import vn.clinic.cdm.repository.patient.PatientRepository;
+import vn.clinic.cdm.service.clinical.VitalAlertService;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Pushes vital alerts to the assigned doctor's user queue once the readings
+ * are committed, instead of the doctor polling the monitoring endpoints.
+ * Old readings from a delayed device sync are not pushed; they still feed the
+ * risk snapshot.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VitalAlertServiceImpl implements VitalAlertService {
+
+    private static final Duration MAX_ALERT_AGE = Duration.ofHours(24);
+
+    private final PatientRepository patientRepository;
+    private final HealthThresholdRepository healthThresholdRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onHealthMetricRecorded(HealthMetricRecordedEvent event) {
+        Instant cutoff = Instant.now().minus(MAX_ALERT_AGE);
+        List<HealthMetricRecordedEvent.Reading> recent = event.getReadings().stream()
+                .filter(r -> r.value() != null && r.metricType() != null)
+                .filter(r -> r.recordedAt() == null || r.recordedAt().isAfter(cutoff))
+                .toList();
+        if (recent.isEmpty()) {
+            return;
+        }
+        try {
+            List<VitalAlertDto> alerts = evaluate(recent, healthThresholdRepository.findByPatientId(event.getPatientId()));
+            if (alerts.isEmpty()) {
+                return;
+            }
+            Patient patient = patientRepository.findById(event.getPatientId()).orElse(null);
+            if (patient == null || patient.getAssignedDoctor() == null
+                    || patient.getAssignedDoctor().getIdentityUser() == null) {
+                meterRegistry.counter("cdm.vitals.alerts", "result", "no_doctor").increment(alerts.size());
+                return;
+            }
+            String doctorUserId = patient.getAssignedDoctor().getIdentityUser().getId().toString();
+            for (VitalAlertDto alert : alerts) {
+                alert.setPatientId(patient.getId());
+                alert.setPatientName(patient.getFullNameVi());
+                messagingTemplate.convertAndSendToUser(doctorUserId, DESTINATION, alert);
+                meterRegistry.counter("cdm.vitals.alerts", "result", alert.getSeverity().toLowerCase(Locale.ROOT))
+                        .increment();
+            }
+            log.info("Pushed {} vital alerts for patient {} to doctor user {}", alerts.size(), patient.getId(),
+                    doctorUserId);
+        } catch (Exception e) {
+            log.error("Vital alert push failed for patient {}: {}", event.getPatientId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public List<VitalAlertDto> evaluate(List<HealthMetricRecordedEvent.Reading> readings,
+            List<HealthThreshold> thresholds) {
+        Map<String, HealthThreshold> personal = new HashMap<>();
+        for (HealthThreshold t : thresholds) {
+            personal.put(t.getMetricType().toUpperCase(Locale.ROOT), t);
+        }
+
+        VitalThresholdTable defaults = VitalThresholdTable.defaults();
+        Map<String, VitalAlertDto> latestByType = new LinkedHashMap<>();
+        for (HealthMetricRecordedEvent.Reading r : readings) {
+            String type = r.metricType().toUpperCase(Locale.ROOT);
+            VitalType vital = VitalType.of(type);
+            double value = r.value().doubleValue();
+            String label = vital != null ? vital.label() : r.metricType();
+
+            String severity;
+            String message;
+            HealthThreshold own = personal.get(type);
+            if (vital != null && defaults.isCritical(vital.ordinal(), value)) {
+                severity = VitalAlertDto.CRITICAL;
+                message = label + " ở mức nguy hiểm: " + r.value();
+            } else if (own != null && outside(own, value)) {
+                severity = VitalAlertDto.PERSONAL_THRESHOLD;
+                message = label + " vượt ngưỡng cá nhân (" + bound(own.getMinValue()) + " - "
+                        + bound(own.getMaxValue()) + "): " + r.value();
+            } else {
+                continue;
+            }
+
+            VitalAlertDto current = latestByType.get(type);
+            if (current != null && current.getRecordedAt() != null && r.recordedAt() != null
+                    && current.getRecordedAt().isAfter(r.recordedAt())) {
+                continue;
+            }
+            latestByType.put(type, VitalAlertDto.builder()
+                    .metricId(r.metricId())
+                    .metricType(r.metricType())
+                    .label(label)
+                    .value(r.value())
+                    .unit(r.unit() != null ? r.unit() : vital != null ? vital.unit() : null)
+                    .severity(severity)
+                    .message(message)
+                    .recordedAt(r.recordedAt())
+                    .build());
+        }
+
+        return new ArrayList<>(latestByType.values());
+    }
+
+    private boolean outside(HealthThreshold t, double value) {
+        return (t.getMinValue() != null && value < t.getMinValue().doubleValue())
+                || (t.getMaxValue() != null && value > t.getMaxValue().doubleValue());
+    }
+
+    private String bound(Object value) {
+        return value != null ? value.toString() : "-";
+    }
+}
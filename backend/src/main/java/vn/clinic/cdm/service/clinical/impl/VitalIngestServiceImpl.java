@@ -0,0 +1,175 @@
+package vn.clinic.cdm.service.clinical.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import vn.clinic.cdm.common.cache.PatientDataVersionTracker;
+import vn.clinic.cdm.dto.patient.PatientVitalLogDto;
+import vn.clinic.cdm.dto.patient.VitalBulkIngestResponse;
+import vn.clinic.cdm.entity.clinical.HealthMetric;
+import vn.clinic.cdm.entity.clinical.VitalType;
+import vn.clinic.cdm.entity.clinical.risk.VitalThresholdTable;
+import vn.clinic.cdm.entity.patient.Patient;
+import vn.clinic.cdm.event.HealthMetricRecordedEvent;
+import vn.clinic.cdm.exception.ApiException;
+import vn.clinic.cdm.exception.ErrorCode;
+import vn.clinic.cdm.repository.clinical.HealthMetricBatchRepository;
+import vn.clinic.cdm.repository.clinical.HealthMetricBatchRepository.ReadingKey;
+import vn.clinic.cdm.repository.clinical.HealthThresholdRepository;
+import vn.clinic.cdm.service.clinical.VitalIngestService;
+import vn.clinic.cdm.service.clinical.VitalSampleService;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk vital ingestion: one threshold load, one deduping JDBC batch insert
+ * and one risk refresh per batch instead of per reading.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VitalIngestServiceImpl implements VitalIngestService {
+
+    private static final Duration MAX_CLOCK_SKEW = Duration.ofMinutes(5);
+    private static final BigDecimal MAX_ABS_VALUE = new BigDecimal("99999999.99");
+
+    private final HealthMetricBatchRepository batchRepository;
+    private final HealthThresholdRepository healthThresholdRepository;
+    private final VitalSampleService vitalSampleService;
+    private final PatientDataVersionTracker versionTracker;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    @Transactional
+    public VitalBulkIngestResponse ingest(Patient patient, List<PatientVitalLogDto> readings) {
+        if (readings.size() > MAX_BATCH_SIZE) {
+            throw new ApiException(ErrorCode.VALIDATION_FAILED, HttpStatus.BAD_REQUEST,
+                    "Tối đa " + MAX_BATCH_SIZE + " chỉ số mỗi lần gửi");
+        }
+
+        Instant now = Instant.now();
+        VitalBulkIngestResponse.ItemResult[] results = new VitalBulkIngestResponse.ItemResult[readings.size()];
+        Map<ReadingKey, Integer> firstIndexByKey = new LinkedHashMap<>();
+
+        // 1. Validate and dedupe within the batch
+        for (int i = 0; i < readings.size(); i++) {
+            PatientVitalLogDto dto = readings.get(i);
+            String error = validate(dto, now);
+            if (error != null) {
+                results[i] = result(i, VitalBulkIngestResponse.INVALID, error);
+                continue;
+            }
+            // Postgres keeps microseconds; truncate so dedupe matches stored values
+            Instant at = (dto.getRecordedAt() != null ? dto.getRecordedAt() : now).truncatedTo(ChronoUnit.MICROS);
+            dto.setRecordedAt(at);
+            ReadingKey key = ReadingKey.of(dto.getVitalType().trim(), at);
+            Integer first = firstIndexByKey.putIfAbsent(key, i);
+            if (first != null) {
+                results[i] = result(i, VitalBulkIngestResponse.DUPLICATE, "Trùng với dòng " + first);
+            }
+        }
+
+        // 2. Thresholds (with the patient's own overrides) loaded once per batch
+        VitalThresholdTable thresholds = VitalThresholdTable.defaults()
+                .withOverrides(healthThresholdRepository.findByPatientId(patient.getId()));
+
+        List<HealthMetric> candidates = new ArrayList<>(firstIndexByKey.size());
+        for (int i : firstIndexByKey.values()) {
+            PatientVitalLogDto dto = readings.get(i);
+            String type = dto.getVitalType().trim();
+            VitalType vital = VitalType.of(type);
+            String status = vital != null ? thresholds.statusOf(vital, dto.getValueNumeric().doubleValue()) : "NORMAL";
+
+            HealthMetric metric = HealthMetric.builder()
+                    .patient(patient)
+                    .tenant(patient.getTenant())
+                    .metricType(type)
+                    .value(dto.getValueNumeric())
+                    .unit(dto.getUnit() != null ? dto.getUnit() : vital != null ? vital.unit() : null)
+                    .status(status)
+                    .notes(dto.getNotes())
+                    .recordedAt(dto.getRecordedAt())
+                    .build();
+            candidates.add(metric);
+        }
+
+        // 3. One batch write; the unique index skips readings already stored, even by a concurrent sync
+        boolean[] inserted = batchRepository.insertAll(candidates);
+        List<HealthMetric> accepted = new ArrayList<>(candidates.size());
+        int c = 0;
+        for (int i : firstIndexByKey.values()) {
+            HealthMetric metric = candidates.get(c);
+            if (!inserted[c++]) {
+                results[i] = result(i, VitalBulkIngestResponse.DUPLICATE, "Chỉ số đã được ghi nhận trước đó");
+                continue;
+            }
+            accepted.add(metric);
+            results[i] = VitalBulkIngestResponse.ItemResult.builder()
+                    .index(i)
+                    .result(VitalBulkIngestResponse.ACCEPTED)
+                    .id(metric.getId())
+                    .status(metric.getStatus())
+                    .build();
+        }
+
+        // 4. One sample append, one cache invalidation and one risk refresh
+        if (!accepted.isEmpty()) {
+            vitalSampleService.append(accepted);
+            // JDBC inserts bypass the JPA listener that normally bumps the patient data version
+            versionTracker.invalidate(patient.getId(), HealthMetric.class.getSimpleName());
+            eventPublisher.publishEvent(new HealthMetricRecordedEvent(this, patient.getId(), accepted));
+        }
+
+        List<VitalBulkIngestResponse.ItemResult> list = Arrays.asList(results);
+        int duplicates = count(list, VitalBulkIngestResponse.DUPLICATE);
+        int rejected = count(list, VitalBulkIngestResponse.INVALID);
+        meterRegistry.counter("cdm.vitals.ingested", "result", "accepted").increment(accepted.size());
+        meterRegistry.counter("cdm.vitals.ingested", "result", "duplicate").increment(duplicates);
+        meterRegistry.counter("cdm.vitals.ingested", "result", "invalid").increment(rejected);
+        log.info("Bulk vitals for patient {}: {} accepted, {} duplicate, {} invalid",
+                patient.getId(), accepted.size(), duplicates, rejected);
+
+        return VitalBulkIngestResponse.builder()
+                .accepted(accepted.size())
+                .duplicates(duplicates)
+                .rejected(rejected)
+                .results(list)
+                .build();
+    }
+
+    private String validate(PatientVitalLogDto dto, Instant now) {
+        if (dto == null) return "Dòng dữ liệu không đọc được";
+        if (dto.getVitalType() == null || dto.getVitalType().isBlank()) return "Thiếu loại chỉ số";
+        if (dto.getVitalType().trim().length() > 50) return "Loại chỉ số quá dài";
+        if (dto.getValueNumeric() == null) return "Thiếu giá trị";
+        if (dto.getValueNumeric().signum() < 0 || dto.getValueNumeric().compareTo(MAX_ABS_VALUE) > 0) {
+            return "Giá trị ngoài phạm vi cho phép";
+        }
+        if (dto.getUnit() != null && dto.getUnit().length() > 20) return "Đơn vị quá dài";
+        if (dto.getRecordedAt() != null && dto.getRecordedAt().isAfter(now.plus(MAX_CLOCK_SKEW))) {
+            return "Thời điểm đo ở tương lai";
+        }
+        return null;
+    }
+
+    private VitalBulkIngestResponse.ItemResult result(int index, String result, String message) {
+        return VitalBulkIngestResponse.ItemResult.builder().index(index).result(result).message(message).build();
+    }
+
+    private int count(List<VitalBulkIngestResponse.ItemResult> results, String result) {
+        return (int) results.stream().filter(r -> result.equals(r.getResult())).count();
+    }
+}
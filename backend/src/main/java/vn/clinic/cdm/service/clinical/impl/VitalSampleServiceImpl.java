@@ -0,0 +1,150 @@
+package vn.clinic.cdm.service.clinical.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import vn.clinic.cdm.common.cache.PatientDataVersionTracker;
+import vn.clinic.cdm.dto.clinical.VitalTrendDto;
+import vn.clinic.cdm.entity.clinical.HealthMetric;
+import vn.clinic.cdm.entity.clinical.VitalType;
+import vn.clinic.cdm.entity.clinical.risk.VitalThresholdTable;
+import vn.clinic.cdm.repository.clinical.HealthMetricBatchRepository;
+import vn.clinic.cdm.repository.clinical.HealthMetricRepository;
+import vn.clinic.cdm.repository.clinical.HealthThresholdRepository;
+import vn.clinic.cdm.repository.clinical.VitalCriticalDayRepository;
+import vn.clinic.cdm.repository.clinical.VitalSampleRepository;
+import vn.clinic.cdm.service.clinical.VitalSampleService;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Reads long trend ranges from rollups so a 1-year chart of a CGM patient
+ * touches ~365 rows instead of ~100k readings. Appends also mark the
+ * patient-days with a critical reading for the risk dashboard trend.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VitalSampleServiceImpl implements VitalSampleService {
+
+    static final Duration RAW_MAX_RANGE = Duration.ofDays(2);
+    static final Duration HOURLY_MAX_RANGE = Duration.ofDays(90);
+
+    private final VitalSampleRepository sampleRepository;
+    private final VitalCriticalDayRepository criticalDayRepository;
+    private final HealthMetricRepository healthMetricRepository;
+    private final HealthMetricBatchRepository batchRepository;
+    private final HealthThresholdRepository healthThresholdRepository;
+    private final PatientDataVersionTracker versionTracker;
+
+    @Override
+    @Transactional
+    public Recorded record(HealthMetric metric) {
+        if (metric.getTenant() == null) {
+            metric.setTenant(metric.getPatient().getTenant());
+        }
+        if (metric.getRecordedAt() == null) {
+            metric.setRecordedAt(Instant.now());
+        }
+        // Same ON CONFLICT insert as bulk sync, so a re-sent reading is not a unique violation
+        if (!batchRepository.insertAll(List.of(metric))[0]) {
+            return healthMetricRepository.findReading(metric.getPatient().getId(), metric.getMetricType(),
+                            metric.getRecordedAt())
+                    .map(existing -> new Recorded(existing, false))
+                    .orElseThrow(() -> new IllegalStateException("Conflicting reading not found"));
+        }
+        append(List.of(metric));
+        // JDBC inserts bypass the JPA listener that normally bumps the patient data version
+        versionTracker.invalidate(metric.getPatient().getId(), HealthMetric.class.getSimpleName());
+        return new Recorded(metric, true);
+    }
+
+    @Override
+    public void append(List<HealthMetric> metrics) {
+        List<VitalSampleRepository.Sample> samples = new ArrayList<>(metrics.size());
+        List<HealthMetric> accepted = new ArrayList<>(metrics.size());
+        for (HealthMetric m : metrics) {
+            VitalType type = VitalType.of(m.getMetricType());
+            if (type == null || m.getValue() == null || m.getRecordedAt() == null || m.getPatient() == null
+                    || m.getTenant() == null) {
+                continue;
+            }
+            samples.add(new VitalSampleRepository.Sample(m.getPatient().getId(), m.getTenant().getId(), type,
+                    m.getRecordedAt(), m.getValue().floatValue()));
+            accepted.add(m);
+        }
+        boolean[] inserted = sampleRepository.append(samples);
+
+        // Only newly stored readings count, so a re-sent batch does not inflate the trend
+        Map<VitalCriticalDayRepository.DayKey, Integer> critical = new LinkedHashMap<>();
+        for (int i = 0; i < inserted.length; i++) {
+            VitalSampleRepository.Sample s = samples.get(i);
+            if (!inserted[i] || !VitalThresholdTable.defaults().isCritical(s.type().ordinal(), s.value())) {
+                continue;
+            }
+            var doctor = accepted.get(i).getPatient().getAssignedDoctor();
+            var key = new VitalCriticalDayRepository.DayKey(s.patientId(), VitalCriticalDayRepository.dayOf(s.recordedAt()),
+                    s.tenantId(), doctor != null ? doctor.getId() : null);
+            critical.merge(key, 1, Integer::sum);
+        }
+        criticalDayRepository.record(critical);
+    }
+
+    @Override
+    public List<VitalTrendDto> getTrend(UUID patientId, VitalType type, Instant from, Instant to) {
+        // Same table health_metric.status is computed with at ingest
+        VitalThresholdTable thresholds = VitalThresholdTable.defaults()
+                .withOverrides(healthThresholdRepository.findByPatientId(patientId));
+        Duration range = Duration.between(from, to);
+        if (range.compareTo(RAW_MAX_RANGE) <= 0) {
+            return sampleRepository.findRange(patientId, type, from, to).stream()
+                    .map(s -> point(type, s.recordedAt(), s.value())
+                            .status(thresholds.statusOf(type, s.value()))
+                            .build())
+                    .collect(Collectors.toList());
+        }
+
+        String granularity = range.compareTo(HOURLY_MAX_RANGE) <= 0
+                ? VitalSampleRepository.HOUR
+                : VitalSampleRepository.DAY;
+        return sampleRepository.findRollups(granularity, patientId, type, from, to).stream()
+                .map(r -> point(type, r.bucketStart(), r.avg())
+                        .min(decimal(r.min()))
+                        .max(decimal(r.max()))
+                        .sampleCount(r.count())
+                        .status(worstStatus(thresholds, type, r.min(), r.max()))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private VitalTrendDto.VitalTrendDtoBuilder point(VitalType type, Instant at, double value) {
+        return VitalTrendDto.builder()
+                .type(type.name())
+                .recordedAt(at)
+                .value(decimal(value))
+                .unit(type.unit());
+    }
+
+    /** A bucket is as bad as its most extreme reading on either side. */
+    private String worstStatus(VitalThresholdTable thresholds, VitalType type, double min, double max) {
+        String low = thresholds.statusOf(type, min);
+        String high = thresholds.statusOf(type, max);
+        if ("CRITICAL".equals(low) || "CRITICAL".equals(high)) return "CRITICAL";
+        if ("ABNORMAL".equals(low) || "ABNORMAL".equals(high)) return "ABNORMAL";
+        return "NORMAL";
+    }
+
+    private BigDecimal decimal(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+}
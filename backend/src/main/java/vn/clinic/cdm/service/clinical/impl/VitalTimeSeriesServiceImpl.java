@@ -0,0 +1,111 @@
+package vn.clinic.cdm.service.clinical.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import vn.clinic.cdm.dto.clinical.VitalBucketDto;
+import vn.clinic.cdm.dto.common.CursorPagedResponse;
+import vn.clinic.cdm.entity.clinical.HealthMetric;
+import vn.clinic.cdm.exception.ApiException;
+import vn.clinic.cdm.exception.ErrorCode;
+import vn.clinic.cdm.repository.clinical.HealthMetricRepository;
+import vn.clinic.cdm.repository.clinical.HealthMetricSeriesRepository;
+import vn.clinic.cdm.service.clinical.VitalTimeSeriesService;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Time-series access layer over health_metric: DB-side limits, latest-N per
+ * type via window functions, (recordedAt, id) keyset pagination and bucketed
+ * min/max/avg downsampling for charts.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class VitalTimeSeriesServiceImpl implements VitalTimeSeriesService {
+
+    static final int MAX_PAGE_SIZE = 500;
+    private static final long MIN_BUCKET_SECONDS = 60;
+    private static final int MAX_POINTS = 2_000;
+
+    private final HealthMetricRepository healthMetricRepository;
+    private final HealthMetricSeriesRepository seriesRepository;
+
+    @Override
+    public List<HealthMetric> latest(UUID patientId, int limit) {
+        return healthMetricRepository.findByPatientIdOrderByRecordedAtDescIdDesc(patientId,
+                PageRequest.of(0, clamp(limit)));
+    }
+
+    @Override
+    public List<HealthMetric> latestPerType(UUID patientId, int perType) {
+        return healthMetricRepository.findRecentWindow(patientId, clamp(perType));
+    }
+
+    @Override
+    public List<HealthMetric> latestOfType(UUID patientId, String metricType, int limit) {
+        return healthMetricRepository.findByPatientIdAndMetricTypeIgnoreCaseOrderByRecordedAtDesc(patientId,
+                metricType, PageRequest.of(0, clamp(limit)));
+    }
+
+    @Override
+    public CursorPagedResponse<HealthMetric> page(UUID patientId, String cursor, int limit) {
+        int size = clamp(limit);
+        // One extra row tells whether another page exists
+        PageRequest pageable = PageRequest.of(0, size + 1);
+        List<HealthMetric> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = healthMetricRepository.findByPatientIdOrderByRecordedAtDescIdDesc(patientId, pageable);
+        } else {
+            Cursor c = decode(cursor);
+            rows = healthMetricRepository.findPageBefore(patientId, c.recordedAt(), c.id(), pageable);
+        }
+
+        if (rows.size() <= size) {
+            return CursorPagedResponse.of(rows, null);
+        }
+        List<HealthMetric> content = rows.subList(0, size);
+        HealthMetric last = content.get(size - 1);
+        return CursorPagedResponse.of(content, encode(last.getRecordedAt(), last.getId()));
+    }
+
+    @Override
+    public List<VitalBucketDto> downsample(UUID patientId, String metricType, Instant from, Instant to, int maxPoints) {
+        if (!from.isBefore(to)) {
+            return List.of();
+        }
+        int points = Math.max(1, Math.min(maxPoints, MAX_POINTS));
+        long rangeSeconds = Duration.between(from, to).getSeconds();
+        long bucketSeconds = Math.max(MIN_BUCKET_SECONDS, (rangeSeconds + points - 1) / points);
+        return seriesRepository.downsample(patientId, metricType, from, to, bucketSeconds);
+    }
+
+    private int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    private record Cursor(Instant recordedAt, UUID id) {
+    }
+
+    private String encode(Instant recordedAt, UUID id) {
+        String raw = recordedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Cursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new Cursor(Instant.parse(raw.substring(0, sep)), UUID.fromString(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new ApiException(ErrorCode.VALIDATION_FAILED, HttpStatus.BAD_REQUEST, "Cursor không hợp lệ");
+        }
+    }
+}
@@ -4,21 +4,55 @@ import jakarta.mail.MessagingException;
 import jakarta.mail.util.ByteArrayDataSource;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailParseException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
+import vn.clinic.cdm.common.util.JsonUtils;
 import vn.clinic.cdm.dto.common.EmailRequest;
+import vn.clinic.cdm.repository.common.NotificationOutboxRepository.OutboxMessage;
 import vn.clinic.cdm.service.common.EmailService;
+import vn.clinic.cdm.service.notification.NotificationOutboxService;
+import vn.clinic.cdm.service.notification.OutboxChannelHandler;
 
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Email goes through the notification outbox: callers only queue the
+ * message, SMTP runs on the outbox relay with retry and dead-lettering.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class EmailServiceImpl implements EmailService {
+public class EmailServiceImpl implements EmailService, OutboxChannelHandler {
 
     private final JavaMailSender mailSender;
+    private final NotificationOutboxService outboxService;
 
     @Override
     public void sendEmailWithAttachment(EmailRequest request) {
+        outboxService.enqueueEmail(request);
+    }
+
+    // --- Outbox delivery ---
+
+    @Override
+    public Set<String> channels() {
+        return Set.of(NotificationOutboxService.EMAIL);
+    }
+
+    @Override
+    public List<Result> deliver(List<OutboxMessage> messages) {
+        return messages.stream().map(this::send).toList();
+    }
+
+    private Result send(OutboxMessage outbox) {
+        EmailRequest request = JsonUtils.fromJson(outbox.payload(), EmailRequest.class);
+        if (request == null) {
+            return Result.dead("Unreadable payload");
+        }
         try {
             var message = mailSender.createMimeMessage();
             var helper = new MimeMessageHelper(message, true, "UTF-8");
@@ -27,14 +61,20 @@ public class EmailServiceImpl implements EmailService {
             helper.setSubject(request.subject());
             helper.setText(request.body(), true);
 
-            if (request.attachment() != null) {
-                helper.addAttachment(request.fileName(), new ByteArrayDataSource(request.attachment(), "application/pdf"));
+            if (outbox.attachment() != null) {
+                helper.addAttachment(request.fileName(), new ByteArrayDataSource(outbox.attachment(), "application/pdf"));
             }
 
             mailSender.send(message);
             log.info("Email sent successfully to: {}", request.to());
-        } catch (MessagingException e) {
-            log.error("Failed to send email to {}: {}", request.to(), e.getMessage());
+            return Result.SENT;
+        } catch (MessagingException | MailParseException e) {
+            // Malformed address or content: resending will not help
+            log.error("Failed to build email to {}: {}", request.to(), e.getMessage());
+            return Result.dead(e.getMessage());
+        } catch (MailException e) {
+            log.warn("Failed to send email to {}: {}", request.to(), e.getMessage());
+            return Result.retry(e.getMessage());
         }
     }
 }
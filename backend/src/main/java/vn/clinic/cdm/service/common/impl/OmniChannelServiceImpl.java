@@ -3,19 +3,30 @@ package vn.clinic.cdm.service.common.impl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import vn.clinic.cdm.common.util.JsonUtils;
 import vn.clinic.cdm.dto.common.EmailRequest;
 import vn.clinic.cdm.dto.common.ReminderRequest;
+import vn.clinic.cdm.dto.common.TextMessageRequest;
+import vn.clinic.cdm.repository.common.NotificationOutboxRepository.OutboxMessage;
 import vn.clinic.cdm.service.common.EmailService;
 import vn.clinic.cdm.service.common.OmniChannelService;
+import vn.clinic.cdm.service.notification.NotificationOutboxService;
+import vn.clinic.cdm.service.notification.OutboxChannelHandler;
+
+import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class OmniChannelServiceImpl implements OmniChannelService {
+public class OmniChannelServiceImpl implements OmniChannelService, OutboxChannelHandler {
 
     private final EmailService emailService;
+    private final NotificationOutboxService outboxService;
 
     @Override
+    @Transactional
     public void sendMedicationReminder(ReminderRequest request) {
         String title = "Nhắc uống thuốc: " + request.medicineName();
         String body = String.format(
@@ -27,16 +38,39 @@ public class OmniChannelServiceImpl implements OmniChannelService {
             emailService.sendEmailWithAttachment(new EmailRequest(request.email(), title, body, null, null));
         }
 
-        // 2. Gửi qua "Zalo / SMS" (Mock/Placeholder)
+        // 2. Gửi qua "Zalo / SMS" (qua outbox, gửi bất đồng bộ)
         if (request.phone() != null && !request.phone().isBlank()) {
-            sendZaloPlaceholder(request.phone(), body);
-            sendSmsPlaceholder(request.phone(), body);
+            outboxService.enqueueText(NotificationOutboxService.ZALO, request.phone(), body);
+            outboxService.enqueueText(NotificationOutboxService.SMS, request.phone(), body);
         }
 
         // 3. FCM Push is usually managed by PatientNotificationService which has access
         // to device tokens
     }
 
+    // --- Outbox delivery ---
+
+    @Override
+    public Set<String> channels() {
+        return Set.of(NotificationOutboxService.ZALO, NotificationOutboxService.SMS);
+    }
+
+    @Override
+    public List<Result> deliver(List<OutboxMessage> messages) {
+        return messages.stream().map(m -> {
+            TextMessageRequest text = JsonUtils.fromJson(m.payload(), TextMessageRequest.class);
+            if (text == null) {
+                return Result.dead("Unreadable payload");
+            }
+            if (NotificationOutboxService.ZALO.equals(m.channel())) {
+                sendZaloPlaceholder(text.phone(), text.body());
+            } else {
+                sendSmsPlaceholder(text.phone(), text.body());
+            }
+            return Result.SENT;
+        }).toList();
+    }
+
     private void sendZaloPlaceholder(String phone, String body) {
         // Đây là nơi tích hợp Zalo OA API (Zalo Official Account)
         // Hiện tại: Chỉ log để demo khả năng mở rộng
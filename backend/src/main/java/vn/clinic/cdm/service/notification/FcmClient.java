@@ -0,0 +1,34 @@
+package vn.clinic.cdm.service.notification;
+
+import vn.clinic.cdm.dto.common.PushNotificationRequest;
+
+import java.util.List;
+
+/**
+ * Transport to Firebase Cloud Messaging, kept behind an interface so the
+ * batching pipeline can run against a local fake.
+ */
+public interface FcmClient {
+
+    /** FCM accepts at most this many messages per sendEach call. */
+    int MAX_BATCH_SIZE = 500;
+
+    /** Error code for tokens FCM no longer recognises (app uninstalled, token rotated). */
+    String UNREGISTERED = "UNREGISTERED";
+
+    /**
+     * @param errorCode FCM messaging error code (e.g. {@link #UNREGISTERED}),
+     *                  null on success
+     */
+    record SendResult(boolean success, String errorCode) {
+    }
+
+    /**
+     * Sends up to {@link #MAX_BATCH_SIZE} token messages in one call. Returns
+     * one result per request, in request order; throws when the whole batch
+     * failed (auth, network, quota).
+     */
+    List<SendResult> sendEach(List<PushNotificationRequest> requests) throws Exception;
+
+    void sendToTopic(PushNotificationRequest request) throws Exception;
+}
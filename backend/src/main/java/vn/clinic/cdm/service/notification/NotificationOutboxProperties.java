@@ -0,0 +1,46 @@
+package vn.clinic.cdm.service.notification;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Outbox relay limits: delivery pool, retry/backoff schedule and per-channel
+ * send rates (messages per second per node).
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "cdm.outbox")
+public class NotificationOutboxProperties {
+
+    private int poolSize = 8;
+    /** Upper bound of rows claimed per channel per relay tick. */
+    private int maxPerTick = 2000;
+    /** Claimed rows stay invisible this long; a crashed node's rows come back after it. */
+    private Duration lease = Duration.ofMinutes(5);
+    private int maxAttempts = 8;
+    private Duration initialBackoff = Duration.ofSeconds(30);
+    private Duration maxBackoff = Duration.ofHours(1);
+    private Duration deadRetention = Duration.ofDays(30);
+    private int defaultRatePerSecond = 50;
+    private Map<String, Integer> ratePerSecond = new HashMap<>(Map.of(
+            NotificationOutboxService.PUSH, 2000,
+            NotificationOutboxService.EMAIL, 10));
+
+    public int rateFor(String channel) {
+        return ratePerSecond.getOrDefault(channel, defaultRatePerSecond);
+    }
+
+    /** Exponential backoff before attempt {@code attempts + 1}, capped at {@link #maxBackoff}. */
+    public Duration backoffAfter(int attempts) {
+        int shift = Math.min(Math.max(attempts - 1, 0), 20);
+        Duration d = initialBackoff.multipliedBy(1L << shift);
+        return d.compareTo(maxBackoff) > 0 ? maxBackoff : d;
+    }
+}
@@ -0,0 +1,26 @@
+package vn.clinic.cdm.service.notification;
+
+import vn.clinic.cdm.dto.common.EmailRequest;
+import vn.clinic.cdm.dto.common.PushNotificationRequest;
+
+import java.util.Collection;
+
+/**
+ * Queues outbound messages in notification_outbox. Writes join the caller's
+ * transaction; delivery happens later on the outbox relay, never on the
+ * calling thread.
+ */
+public interface NotificationOutboxService {
+
+    String PUSH = "PUSH";
+    String EMAIL = "EMAIL";
+    String SMS = "SMS";
+    String ZALO = "ZALO";
+
+    void enqueuePush(Collection<PushNotificationRequest> requests);
+
+    void enqueueEmail(EmailRequest request);
+
+    /** SMS or Zalo text to a phone number. */
+    void enqueueText(String channel, String phone, String body);
+}
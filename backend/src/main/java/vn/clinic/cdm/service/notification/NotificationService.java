@@ -2,8 +2,14 @@ package vn.clinic.cdm.service.notification;
 
 import vn.clinic.cdm.dto.common.PushNotificationRequest;
 
+import java.util.List;
+
 public interface NotificationService {
+    /** Queues one token message; it is sent with others in an FCM batch shortly after. */
     void sendPushNotification(PushNotificationRequest request);
-    
+
+    /** Queues several token messages (e.g. one per device of a patient). */
+    void sendPushNotifications(List<PushNotificationRequest> requests);
+
     void sendTopicNotification(PushNotificationRequest request);
 }
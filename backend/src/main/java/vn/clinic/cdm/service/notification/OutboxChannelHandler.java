@@ -0,0 +1,52 @@
+package vn.clinic.cdm.service.notification;
+
+import vn.clinic.cdm.repository.common.NotificationOutboxRepository.OutboxMessage;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Delivers claimed outbox messages for one or more channels. The relay hands
+ * over up to {@link #batchSize()} messages at a time.
+ */
+public interface OutboxChannelHandler {
+
+    enum Outcome {
+        /** Delivered; the row is deleted. */
+        SENT,
+        /** Transient failure; retried with backoff until attempts run out. */
+        RETRY,
+        /** Permanent failure; kept as a dead letter. */
+        DEAD,
+        /** Nothing left to deliver to (e.g. unregistered device); the row is deleted. */
+        DROP
+    }
+
+    record Result(Outcome outcome, String error) {
+        public static final Result SENT = new Result(Outcome.SENT, null);
+
+        public static Result retry(String error) {
+            return new Result(Outcome.RETRY, error);
+        }
+
+        public static Result dead(String error) {
+            return new Result(Outcome.DEAD, error);
+        }
+
+        public static Result drop(String error) {
+            return new Result(Outcome.DROP, error);
+        }
+    }
+
+    Set<String> channels();
+
+    default int batchSize() {
+        return 1;
+    }
+
+    /**
+     * One result per message, in order. Throwing marks the whole batch for
+     * retry.
+     */
+    List<Result> deliver(List<OutboxMessage> messages) throws Exception;
+}
@@ -0,0 +1,57 @@
+package vn.clinic.cdm.service.notification.impl;
+
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.Notification;
+import com.google.firebase.messaging.SendResponse;
+import vn.clinic.cdm.dto.common.PushNotificationRequest;
+import vn.clinic.cdm.service.notification.FcmClient;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link FcmClient} over the Firebase Admin SDK; one sendEach call per batch.
+ */
+public class FirebaseFcmClient implements FcmClient {
+
+    @Override
+    public List<SendResult> sendEach(List<PushNotificationRequest> requests) throws FirebaseMessagingException {
+        List<Message> messages = new ArrayList<>(requests.size());
+        for (PushNotificationRequest request : requests) {
+            messages.add(message(request).setToken(request.target()).build());
+        }
+
+        BatchResponse response = FirebaseMessaging.getInstance().sendEach(messages);
+        List<SendResult> results = new ArrayList<>(requests.size());
+        for (SendResponse r : response.getResponses()) {
+            if (r.isSuccessful()) {
+                results.add(new SendResult(true, null));
+            } else {
+                FirebaseMessagingException e = r.getException();
+                results.add(new SendResult(false, e != null && e.getMessagingErrorCode() != null
+                        ? e.getMessagingErrorCode().name() : "UNKNOWN"));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public void sendToTopic(PushNotificationRequest request) throws FirebaseMessagingException {
+        FirebaseMessaging.getInstance().send(message(request).setTopic(request.target()).build());
+    }
+
+    private Message.Builder message(PushNotificationRequest request) {
+        Message.Builder builder = Message.builder()
+                .setNotification(Notification.builder()
+                        .setTitle(request.title())
+                        .setBody(request.body())
+                        .build());
+        if (request.data() != null && !request.data().isEmpty()) {
+            builder.putAllData(request.data());
+        }
+        return builder;
+    }
+}
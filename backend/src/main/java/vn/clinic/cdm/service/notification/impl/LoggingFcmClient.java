@@ -0,0 +1,67 @@
+package vn.clinic.cdm.service.notification.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import vn.clinic.cdm.dto.common.PushNotificationRequest;
+import vn.clinic.cdm.service.notification.FcmClient;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local {@link FcmClient} used when Firebase is not configured and in tests:
+ * nothing leaves the process, every message succeeds unless its token was
+ * marked unregistered, and the most recent messages can be inspected.
+ */
+@Slf4j
+public class LoggingFcmClient implements FcmClient {
+
+    private static final int KEEP_LAST = 1000;
+
+    private final Set<String> unregistered = ConcurrentHashMap.newKeySet();
+    private final Deque<PushNotificationRequest> sent = new ArrayDeque<>();
+
+    @Override
+    public List<SendResult> sendEach(List<PushNotificationRequest> requests) {
+        List<SendResult> results = new ArrayList<>(requests.size());
+        for (PushNotificationRequest request : requests) {
+            if (unregistered.contains(request.target())) {
+                results.add(new SendResult(false, UNREGISTERED));
+            } else {
+                record(request);
+                results.add(new SendResult(true, null));
+            }
+        }
+        log.debug("[FCM disabled] {} push messages not delivered", requests.size());
+        return results;
+    }
+
+    @Override
+    public void sendToTopic(PushNotificationRequest request) {
+        record(request);
+        log.debug("[FCM disabled] topic message to {} not delivered", request.target());
+    }
+
+    /** Makes later sends to {@code token} fail with {@link #UNREGISTERED}. */
+    public void unregister(String token) {
+        unregistered.add(token);
+    }
+
+    public List<PushNotificationRequest> sent() {
+        synchronized (sent) {
+            return List.copyOf(sent);
+        }
+    }
+
+    private void record(PushNotificationRequest request) {
+        synchronized (sent) {
+            if (sent.size() == KEEP_LAST) {
+                sent.removeFirst();
+            }
+            sent.addLast(request);
+        }
+    }
+}
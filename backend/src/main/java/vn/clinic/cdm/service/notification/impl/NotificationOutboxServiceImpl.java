@@ -0,0 +1,53 @@
+package vn.clinic.cdm.service.notification.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import vn.clinic.cdm.common.util.JsonUtils;
+import vn.clinic.cdm.dto.common.EmailRequest;
+import vn.clinic.cdm.dto.common.PushNotificationRequest;
+import vn.clinic.cdm.dto.common.TextMessageRequest;
+import vn.clinic.cdm.repository.common.NotificationOutboxRepository;
+import vn.clinic.cdm.repository.common.NotificationOutboxRepository.NewMessage;
+import vn.clinic.cdm.service.notification.NotificationOutboxService;
+
+import java.util.Collection;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class NotificationOutboxServiceImpl implements NotificationOutboxService {
+
+    private final NotificationOutboxRepository outboxRepository;
+
+    @Override
+    @Transactional
+    public void enqueuePush(Collection<PushNotificationRequest> requests) {
+        outboxRepository.insertAll(requests.stream()
+                .filter(r -> r.target() != null && !r.target().isBlank())
+                .map(r -> new NewMessage(PUSH, JsonUtils.toJson(r), null))
+                .toList());
+    }
+
+    @Override
+    @Transactional
+    public void enqueueEmail(EmailRequest request) {
+        if (request.to() == null || request.to().isBlank()) {
+            return;
+        }
+        // The attachment goes to its own BYTEA column rather than base64 inside the JSON
+        EmailRequest header = new EmailRequest(request.to(), request.subject(), request.body(), null,
+                request.fileName());
+        outboxRepository.insertAll(List.of(new NewMessage(EMAIL, JsonUtils.toJson(header), request.attachment())));
+    }
+
+    @Override
+    @Transactional
+    public void enqueueText(String channel, String phone, String body) {
+        if (phone == null || phone.isBlank()) {
+            return;
+        }
+        outboxRepository.insertAll(List.of(
+                new NewMessage(channel, JsonUtils.toJson(new TextMessageRequest(phone, body)), null)));
+    }
+}
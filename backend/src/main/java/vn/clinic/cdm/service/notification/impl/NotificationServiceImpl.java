@@ -1,62 +1,182 @@
 package vn.clinic.cdm.service.notification.impl;
 
-import com.google.firebase.messaging.FirebaseMessaging;
-import com.google.firebase.messaging.Message;
-import com.google.firebase.messaging.Notification;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import vn.clinic.cdm.common.util.JsonUtils;
 import vn.clinic.cdm.dto.common.PushNotificationRequest;
+import vn.clinic.cdm.repository.common.NotificationOutboxRepository.OutboxMessage;
+import vn.clinic.cdm.repository.patient.PatientDeviceTokenRepository;
+import vn.clinic.cdm.service.notification.FcmClient;
+import vn.clinic.cdm.service.notification.NotificationOutboxService;
 import vn.clinic.cdm.service.notification.NotificationService;
+import vn.clinic.cdm.service.notification.OutboxChannelHandler;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FCM push delivery.
+ * Token messages are written to the notification outbox; the outbox relay
+ * hands them back here in sendEach batches of up to
+ * {@link FcmClient#MAX_BATCH_SIZE}, sent on its bounded pool. Tokens FCM
+ * reports as UNREGISTERED are deleted from patient_device_token so they are
+ * not retried.
+ */
 @Service
 @Slf4j
-public class NotificationServiceImpl implements NotificationService {
+public class NotificationServiceImpl implements NotificationService, OutboxChannelHandler {
+
+    /** FCM error codes worth retrying; anything else will not succeed on a resend. */
+    private static final Set<String> TRANSIENT_ERRORS = Set.of("UNAVAILABLE", "INTERNAL", "QUOTA_EXCEEDED", "UNKNOWN");
+
+    private final FcmClient fcmClient;
+    private final NotificationOutboxService outboxService;
+    private final PatientDeviceTokenRepository tokenRepository;
+    private final int batchSize;
+    private final Timer batchLatency;
+    private final DistributionSummary batchSizes;
+    private final Counter batchesOk;
+    private final Counter batchesFailed;
+    private final Counter sent;
+    private final Counter failed;
+    private final Counter unregistered;
+    private final Counter pruned;
+
+    public NotificationServiceImpl(FcmClient fcmClient, NotificationOutboxService outboxService,
+            PatientDeviceTokenRepository tokenRepository, MeterRegistry meterRegistry,
+            @Value("${cdm.push.batch-size:500}") int batchSize) {
+        this.fcmClient = fcmClient;
+        this.outboxService = outboxService;
+        this.tokenRepository = tokenRepository;
+        this.batchSize = Math.min(batchSize, FcmClient.MAX_BATCH_SIZE);
+        this.batchLatency = Timer.builder("cdm.push.batch.latency")
+                .publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("cdm.push.batch.size").register(meterRegistry);
+        this.batchesOk = meterRegistry.counter("cdm.push.batches", "result", "ok");
+        this.batchesFailed = meterRegistry.counter("cdm.push.batches", "result", "failed");
+        this.sent = meterRegistry.counter("cdm.push.messages", "result", "sent");
+        this.failed = meterRegistry.counter("cdm.push.messages", "result", "failed");
+        this.unregistered = meterRegistry.counter("cdm.push.messages", "result", "unregistered");
+        this.pruned = meterRegistry.counter("cdm.push.tokens.pruned");
+    }
 
     @Override
     public void sendPushNotification(PushNotificationRequest request) {
-        try {
-            Notification notification = Notification.builder()
-                    .setTitle(request.title())
-                    .setBody(request.body())
-                    .build();
-
-            Message.Builder messageBuilder = Message.builder()
-                    .setToken(request.target())
-                    .setNotification(notification);
+        outboxService.enqueuePush(List.of(request));
+    }
 
-            if (request.data() != null && !request.data().isEmpty()) {
-                messageBuilder.putAllData(request.data());
-            }
+    @Override
+    public void sendPushNotifications(List<PushNotificationRequest> requests) {
+        outboxService.enqueuePush(requests);
+    }
 
-            Message message = messageBuilder.build();
-            String response = FirebaseMessaging.getInstance().send(message);
-            log.info("Successfully sent FCM message: {}", response);
+    @Override
+    public void sendTopicNotification(PushNotificationRequest request) {
+        try {
+            fcmClient.sendToTopic(request);
+            log.info("Successfully sent topic message to {}", request.target());
         } catch (Exception e) {
-            log.error("Failed to send FCM message to token {}: {}", request.target(), e.getMessage());
+            log.error("Failed to send topic message to {}: {}", request.target(), e.getMessage());
         }
     }
 
+    // --- Outbox delivery ---
+
     @Override
-    public void sendTopicNotification(PushNotificationRequest request) {
-        try {
-            Notification notification = Notification.builder()
-                    .setTitle(request.title())
-                    .setBody(request.body())
-                    .build();
+    public Set<String> channels() {
+        return Set.of(NotificationOutboxService.PUSH);
+    }
 
-            Message.Builder messageBuilder = Message.builder()
-                    .setTopic(request.target())
-                    .setNotification(notification);
+    @Override
+    public int batchSize() {
+        return batchSize;
+    }
 
-            if (request.data() != null && !request.data().isEmpty()) {
-                messageBuilder.putAllData(request.data());
+    /**
+     * Sends the readable messages as one FCM batch. An unreadable payload is
+     * a dead letter of its own and a failed batch call is retried, so neither
+     * holds back the other messages.
+     */
+    @Override
+    public List<Result> deliver(List<OutboxMessage> messages) {
+        Result[] results = new Result[messages.size()];
+        List<PushNotificationRequest> batch = new ArrayList<>(messages.size());
+        List<Integer> positions = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            PushNotificationRequest request = JsonUtils.fromJson(messages.get(i).payload(), PushNotificationRequest.class);
+            if (request == null) {
+                results[i] = Result.dead("Unreadable payload");
+            } else {
+                batch.add(request);
+                positions.add(i);
             }
+        }
+        if (batch.isEmpty()) {
+            return Arrays.asList(results);
+        }
 
-            Message message = messageBuilder.build();
-            String response = FirebaseMessaging.getInstance().send(message);
-            log.info("Successfully sent topic message to {}: {}", request.target(), response);
+        List<FcmClient.SendResult> responses;
+        long start = System.nanoTime();
+        try {
+            responses = fcmClient.sendEach(batch);
         } catch (Exception e) {
-            log.error("Failed to send topic message to {}: {}", request.target(), e.getMessage());
+            batchesFailed.increment();
+            failed.increment(batch.size());
+            log.error("Failed to send FCM batch of {} messages: {}", batch.size(), e.getMessage());
+            for (int position : positions) {
+                results[position] = Result.retry(e.getMessage());
+            }
+            return Arrays.asList(results);
+        } finally {
+            batchLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batchSizes.record(batch.size());
+        }
+        batchesOk.increment();
+
+        Set<String> dead = new HashSet<>();
+        int ok = 0;
+        int errors = 0;
+        for (int i = 0; i < responses.size(); i++) {
+            FcmClient.SendResult r = responses.get(i);
+            int position = positions.get(i);
+            if (r.success()) {
+                ok++;
+                results[position] = Result.SENT;
+            } else if (FcmClient.UNREGISTERED.equals(r.errorCode())) {
+                dead.add(batch.get(i).target());
+                results[position] = Result.drop(r.errorCode());
+            } else {
+                errors++;
+                results[position] = TRANSIENT_ERRORS.contains(r.errorCode())
+                        ? Result.retry(r.errorCode()) : Result.dead(r.errorCode());
+            }
+        }
+        for (int position : positions.subList(Math.min(responses.size(), positions.size()), positions.size())) {
+            results[position] = Result.retry("No response from FCM");
+        }
+        sent.increment(ok);
+        failed.increment(errors);
+        unregistered.increment(dead.size());
+        log.debug("FCM batch: {} sent, {} failed, {} unregistered", ok, errors, dead.size());
+
+        if (!dead.isEmpty()) {
+            try {
+                int n = tokenRepository.deleteByFcmTokens(dead);
+                pruned.increment(n);
+                log.info("Pruned {} unregistered FCM tokens", n);
+            } catch (Exception e) {
+                log.error("Failed to prune unregistered FCM tokens: {}", e.getMessage());
+            }
         }
+        return Arrays.asList(results);
     }
 }
@@ -1,14 +1,34 @@
 package vn.clinic.cdm.service.patient;
 
+import vn.clinic.cdm.dto.common.CursorPagedResponse;
+import vn.clinic.cdm.dto.messaging.PatientNotificationDto;
+
 import java.util.UUID;
 
 public interface PatientNotificationService {
     void registerToken(vn.clinic.cdm.entity.patient.Patient patient, String fcmToken, String deviceType);
+
+    /**
+     * Stores the notification in the patient's feed and queues a push to each
+     * of their devices. {@code data.type} becomes the feed type and
+     * {@code data.relatedResourceId} (or {@code scheduleId}) the related
+     * resource; the pushed data carries the new {@code notificationId}.
+     */
     void notifyPatient(UUID patientId, String title, String body, java.util.Map<String, String> data);
-    
-    java.util.List<vn.clinic.cdm.dto.messaging.PatientNotificationDto> getNotifications(UUID patientId);
+
+    /** Newest first; pass the previous page's {@code nextCursor} for the next page. */
+    CursorPagedResponse<PatientNotificationDto> getNotifications(UUID patientId, String cursor, int size);
+
+    int getUnreadCount(UUID patientId);
+
     void markAsRead(UUID patientId, UUID notificationId);
-    void markAllAsRead(UUID patientId);
+
+    /**
+     * Marks {@code upTo} and every older notification read (all when null);
+     * notifications that arrived after the client loaded its feed stay unread.
+     * Returns the number of notifications marked.
+     */
+    int markAllAsRead(UUID patientId, UUID upTo);
 
     void sendMedicationReminders();
     void sendOverdueReminders();
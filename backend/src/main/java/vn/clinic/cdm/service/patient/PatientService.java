@@ -2,6 +2,7 @@ package vn.clinic.cdm.service.patient;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import vn.clinic.cdm.dto.common.CursorPagedResponse;
 import vn.clinic.cdm.entity.patient.Patient;
 
 import java.util.Optional;
@@ -12,8 +13,12 @@ import vn.clinic.cdm.dto.patient.UpdatePatientRequest;
 public interface PatientService {
     Patient getById(UUID id);
     Page<Patient> listByTenant(Pageable pageable);
-    Page<Patient> searchPatients(String search, String riskLevel, String chronicCondition, Pageable pageable);
-    Page<Patient> searchPatientsForDoctor(UUID doctorId, String search, String riskLevel, String chronicCondition, Pageable pageable);
+    /**
+     * Accent-insensitive search over name, phone, CCCD and conditions, ranked
+     * by relevance; {@code cursor} is the nextCursor of the previous page.
+     */
+    CursorPagedResponse<Patient> searchPatients(String search, String riskLevel, String chronicCondition, String cursor, int size);
+    CursorPagedResponse<Patient> searchPatientsForDoctor(UUID doctorId, String search, String riskLevel, String chronicCondition, String cursor, int size);
     Optional<Patient> findByCccd(String cccd);
     Optional<Patient> findByPhone(String phone);
     Optional<Patient> findByEmail(String email, UUID tenantId);
@@ -2,31 +2,51 @@ package vn.clinic.cdm.service.patient.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import vn.clinic.cdm.dto.common.CursorPagedResponse;
 import vn.clinic.cdm.dto.messaging.PatientNotificationDto;
+import vn.clinic.cdm.exception.ApiException;
+import vn.clinic.cdm.exception.ErrorCode;
 import vn.clinic.cdm.exception.ResourceNotFoundException;
 import vn.clinic.cdm.dto.common.PushNotificationRequest;
 import vn.clinic.cdm.service.notification.NotificationService;
 import vn.clinic.cdm.entity.patient.Patient;
 import vn.clinic.cdm.entity.patient.PatientDeviceToken;
 import vn.clinic.cdm.repository.patient.PatientDeviceTokenRepository;
-import vn.clinic.cdm.repository.patient.PatientNotificationRepository;
+import vn.clinic.cdm.repository.patient.PatientNotificationFeedRepository;
+import vn.clinic.cdm.repository.patient.PatientNotificationFeedRepository.Position;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class PatientNotificationServiceImpl implements vn.clinic.cdm.service.patient.PatientNotificationService {
 
+    private static final String UNREAD_CACHE = "notification_unread";
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int TYPE_MAX_LENGTH = 20;
+    private static final int TITLE_MAX_LENGTH = 255;
+    /** Sorts after every real id, so a position at "now" covers everything created so far. */
+    private static final UUID MAX_ID = new UUID(-1L, -1L);
+
     private final PatientDeviceTokenRepository tokenRepository;
-    private final PatientNotificationRepository notificationRepository;
+    private final PatientNotificationFeedRepository feedRepository;
     private final NotificationService fcmService;
+    private final CacheManager cacheManager;
 
     // --- Device Token Management ---
 
@@ -52,41 +72,68 @@ public class PatientNotificationServiceImpl implements vn.clinic.cdm.service.pat
 
     // --- Notification Query & Actions ---
 
-    public List<PatientNotificationDto> getNotifications(UUID patientId) {
-        return notificationRepository.findByPatientIdOrderByCreatedAtDesc(patientId)
-                .stream().map(PatientNotificationDto::fromEntity).collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public CursorPagedResponse<PatientNotificationDto> getNotifications(UUID patientId, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<PatientNotificationDto> rows = feedRepository.page(patientId,
+                cursor == null || cursor.isBlank() ? null : decodeCursor(cursor), limit + 1);
+
+        boolean hasMore = rows.size() > limit;
+        List<PatientNotificationDto> page = hasMore ? rows.subList(0, limit) : rows;
+        return CursorPagedResponse.of(page, hasMore ? encodeCursor(page.get(page.size() - 1)) : null);
+    }
+
+    /** Served from the maintained counter row; cached briefly because every portal page polls it. */
+    @Cacheable(value = UNREAD_CACHE, key = "#patientId")
+    public int getUnreadCount(UUID patientId) {
+        return feedRepository.unreadCount(patientId);
     }
 
     @Transactional
     public void markAsRead(UUID patientId, UUID notificationId) {
-        var notif = notificationRepository.findById(notificationId)
-                .orElseThrow(() -> new ResourceNotFoundException("Notification", notificationId));
-        if (!notif.getPatient().getId().equals(patientId)) {
+        if (!feedRepository.markRead(patientId, notificationId)
+                && feedRepository.findPosition(patientId, notificationId).isEmpty()) {
             throw new ResourceNotFoundException("Notification", notificationId);
         }
-        notif.setRead(true);
-        notificationRepository.save(notif);
+        evictUnreadAfterCommit(patientId);
     }
 
     @Transactional
-    public void markAllAsRead(UUID patientId) {
-        var notifications = notificationRepository.findByPatientIdOrderByCreatedAtDesc(patientId);
-        notifications.forEach(n -> n.setRead(true));
-        notificationRepository.saveAll(notifications);
+    public int markAllAsRead(UUID patientId, UUID upTo) {
+        Position position = upTo == null
+                ? new Position(Instant.now(), MAX_ID)
+                : feedRepository.findPosition(patientId, upTo)
+                        .orElseThrow(() -> new ResourceNotFoundException("Notification", upTo));
+        int flipped = feedRepository.markAllRead(patientId, position);
+        evictUnreadAfterCommit(patientId);
+        return flipped;
     }
 
     // --- Push Notification ---
 
+    @Transactional
     public void notifyPatient(UUID patientId, String title, String body, Map<String, String> data) {
+        Map<String, String> payload = data == null ? new HashMap<>() : new HashMap<>(data);
+        String type = payload.getOrDefault("type", "SYSTEM");
+        String relatedResourceId = payload.getOrDefault("relatedResourceId", payload.get("scheduleId"));
+        // Titles built from free text (e.g. a medicine name) must not overflow the feed column
+        String feedTitle = title.length() > TITLE_MAX_LENGTH ? title.substring(0, TITLE_MAX_LENGTH - 1) + "…" : title;
+
+        UUID notificationId = feedRepository.insert(patientId, feedTitle, body,
+                type.length() > TYPE_MAX_LENGTH ? type.substring(0, TYPE_MAX_LENGTH) : type, relatedResourceId)
+                .orElseThrow(() -> new ResourceNotFoundException("Patient", patientId));
+        payload.put("notificationId", notificationId.toString());
+        evictUnreadAfterCommit(patientId);
+
         var tokens = tokenRepository.findByPatientId(patientId);
         if (tokens.isEmpty()) {
-            log.warn("No FCM tokens found for patient {}", patientId);
+            log.debug("No FCM tokens found for patient {}, notification kept in feed only", patientId);
             return;
         }
 
-        for (var token : tokens) {
-            fcmService.sendPushNotification(new PushNotificationRequest(token.getFcmToken(), title, body, data));
-        }
+        fcmService.sendPushNotifications(tokens.stream()
+                .map(token -> new PushNotificationRequest(token.getFcmToken(), feedTitle, body, payload))
+                .toList());
     }
 
     @Override
@@ -100,5 +147,37 @@ public class PatientNotificationServiceImpl implements vn.clinic.cdm.service.pat
         log.info("Sending upcoming medication reminders...");
         // Logic will be added in future enhancement
     }
-}
 
+    private void evictUnreadAfterCommit(UUID patientId) {
+        // Evicting before commit lets a concurrent poll re-cache the old count until the entry expires
+        Cache cache = cacheManager.getCache(UNREAD_CACHE);
+        if (cache == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.evict(patientId);
+                }
+            });
+        } else {
+            cache.evict(patientId);
+        }
+    }
+
+    private String encodeCursor(PatientNotificationDto last) {
+        String raw = last.getCreatedAt() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Position decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new Position(Instant.parse(raw.substring(0, sep)), UUID.fromString(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new ApiException(ErrorCode.VALIDATION_FAILED, HttpStatus.BAD_REQUEST, "Cursor không hợp lệ");
+        }
+    }
+}
@@ -17,6 +17,7 @@ import vn.clinic.cdm.dto.medication.MedicationDosageLogDto;
 import vn.clinic.cdm.dto.scheduling.AppointmentDto;
 import vn.clinic.cdm.dto.scheduling.CreateAppointmentRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -38,8 +39,12 @@ import vn.clinic.cdm.service.scheduling.SchedulingService;
 import vn.clinic.cdm.entity.tenant.TenantBranch;
 import vn.clinic.cdm.repository.clinical.HealthMetricRepository;
 import vn.clinic.cdm.service.clinical.MedicationService;
+import vn.clinic.cdm.service.clinical.VitalSampleService;
+import vn.clinic.cdm.service.clinical.VitalTimeSeriesService;
 import vn.clinic.cdm.entity.clinical.HealthMetric;
 import vn.clinic.cdm.entity.clinical.VitalSignsThresholds;
+import vn.clinic.cdm.entity.clinical.VitalType;
+import vn.clinic.cdm.event.HealthMetricRecordedEvent;
 import vn.clinic.cdm.mapper.MedicationMapper;
 
 import java.time.Instant;
@@ -70,6 +75,12 @@ public class PatientPortalServiceImpl implements PatientPortalService {
         private final LabResultRepository labResultRepository;
         private final DiagnosticImageRepository diagnosticImageRepository;
         private final HealthMetricRepository healthMetricRepository;
+        private final ApplicationEventPublisher eventPublisher;
+        private final VitalTimeSeriesService vitalTimeSeriesService;
+        private final VitalSampleService vitalSampleService;
+
+        private static final int DASHBOARD_HISTORY_LIMIT = 100;
+        private static final int TREND_POINTS_LIMIT = 500;
 
         public Patient getAuthenticatedPatient() {
                 UUID userId = AuthPrincipal.getCurrentUserId();
@@ -116,12 +127,7 @@ public class PatientPortalServiceImpl implements PatientPortalService {
         }
 
         private List<TriageVitalDto> getLatestVitals(UUID patientId) {
-                var latestLogs = healthMetricRepository.findByPatientIdOrderByRecordedAtDesc(patientId);
-                Map<String, List<HealthMetric>> byType = latestLogs.stream()
-                                .collect(Collectors.groupingBy(HealthMetric::getMetricType));
-
-                return byType.values().stream()
-                                .map(list -> list.get(0))
+                return vitalTimeSeriesService.latestPerType(patientId, 1).stream()
                                 .map(v -> new TriageVitalDto(v.getId(), v.getMetricType(),
                                                 v.getValue(), v.getUnit(), v.getRecordedAt()))
                                 .collect(Collectors.toList());
@@ -129,25 +135,23 @@ public class PatientPortalServiceImpl implements PatientPortalService {
 
         private List<String> generateHealthAlerts(UUID patientId) {
                 List<String> alerts = new java.util.ArrayList<>();
-                List<TriageVitalDto> history = getCombinedVitalHistory(patientId);
+                // Latest 3 readings per type, newest first within each type
+                Map<String, List<HealthMetric>> byType = vitalTimeSeriesService.latestPerType(patientId, 3).stream()
+                                .collect(Collectors.groupingBy(HealthMetric::getMetricType,
+                                                java.util.LinkedHashMap::new, Collectors.toList()));
 
-                Map<String, List<TriageVitalDto>> byType = history.stream()
-                                .collect(Collectors.groupingBy(TriageVitalDto::vitalType));
-
-                for (Map.Entry<String, List<TriageVitalDto>> entry : byType.entrySet()) {
+                for (Map.Entry<String, List<HealthMetric>> entry : byType.entrySet()) {
                         String type = entry.getKey();
-                        List<TriageVitalDto> sorted = entry.getValue().stream()
-                                        .sorted((a, b) -> b.recordedAt().compareTo(a.recordedAt()))
-                                        .collect(Collectors.toList());
+                        List<HealthMetric> sorted = entry.getValue();
 
                         if (sorted.isEmpty())
                                 continue;
 
-                        TriageVitalDto latest = sorted.get(0);
-                        if (VitalSignsThresholds.isAbnormal(type, latest.valueNumeric())) {
+                        HealthMetric latest = sorted.get(0);
+                        if (VitalSignsThresholds.isAbnormal(type, latest.getValue())) {
                                 if (sorted.size() >= 3 &&
-                                                VitalSignsThresholds.isAbnormal(type, sorted.get(1).valueNumeric()) &&
-                                                VitalSignsThresholds.isAbnormal(type, sorted.get(2).valueNumeric())) {
+                                                VitalSignsThresholds.isAbnormal(type, sorted.get(1).getValue()) &&
+                                                VitalSignsThresholds.isAbnormal(type, sorted.get(2).getValue())) {
                                         alerts.add(String.format(
                                                         "Cảnh báo: Chỉ số %s bất thường liên tiếp trong 3 lượt đo gần nhất.",
                                                         VitalSignsThresholds.getLabel(type)));
@@ -161,7 +165,7 @@ public class PatientPortalServiceImpl implements PatientPortalService {
         }
 
         private List<TriageVitalDto> getCombinedVitalHistory(UUID patientId) {
-                return healthMetricRepository.findByPatientIdOrderByRecordedAtDesc(patientId).stream()
+                return vitalTimeSeriesService.latest(patientId, DASHBOARD_HISTORY_LIMIT).stream()
                                 .map(v -> new TriageVitalDto(v.getId(), v.getMetricType(),
                                                 v.getValue(), v.getUnit(), v.getRecordedAt()))
                                 .collect(Collectors.toList());
@@ -179,7 +183,7 @@ public class PatientPortalServiceImpl implements PatientPortalService {
                                 .imageUrl(dto.getImageUrl())
                                 .notes(dto.getNotes())
                                 .build();
-                var saved = healthMetricRepository.save(log);
+                var saved = recordVital(p, log);
                 return PatientVitalLogDto.builder()
                                 .id(saved.getId())
                                 .vitalType(saved.getMetricType())
@@ -289,8 +293,7 @@ public class PatientPortalServiceImpl implements PatientPortalService {
         }
 
         public List<VitalTrendDto> getVitalTrends(UUID patientId, String type) {
-                return healthMetricRepository.findByPatientIdOrderByRecordedAtDesc(patientId).stream()
-                                .filter(v -> v.getMetricType().equalsIgnoreCase(type))
+                return vitalTimeSeriesService.latestOfType(patientId, type, TREND_POINTS_LIMIT).stream()
                                 .map(v -> VitalTrendDto.builder()
                                                 .type(v.getMetricType())
                                                 .value(v.getValue())
@@ -300,6 +303,10 @@ public class PatientPortalServiceImpl implements PatientPortalService {
         }
 
         public List<VitalTrendDto> getVitalTrendsFiltered(UUID patientId, String type, Instant from, Instant to) {
+                VitalType vital = VitalType.of(type);
+                if (vital != null) {
+                        return vitalSampleService.getTrend(patientId, vital, from, to);
+                }
                 return healthMetricRepository
                                 .findByPatientIdAndMetricTypeAndRecordedAtBetweenOrderByRecordedAtAsc(
                                                 patientId, type, from, to)
@@ -328,7 +335,7 @@ public class PatientPortalServiceImpl implements PatientPortalService {
                                 .imageUrl(imageUrl)
                                 .notes(dto.getNotes())
                                 .build();
-                var saved = healthMetricRepository.save(log);
+                var saved = recordVital(p, log);
                 return PatientVitalLogDto.builder()
                                 .id(saved.getId())
                                 .vitalType(saved.getMetricType())
@@ -339,4 +346,17 @@ public class PatientPortalServiceImpl implements PatientPortalService {
                                 .imageUrl(saved.getImageUrl())
                                 .build();
         }
+
+        /**
+         * Stores the reading once; a re-send of an already stored reading
+         * (offline retry) answers with the stored row and triggers nothing.
+         */
+        private HealthMetric recordVital(Patient p, HealthMetric metric) {
+                var recorded = vitalSampleService.record(metric);
+                if (recorded.created()) {
+                        eventPublisher.publishEvent(new HealthMetricRecordedEvent(this, p.getId(),
+                                        List.of(recorded.metric())));
+                }
+                return recorded.metric();
+        }
 }
@@ -3,6 +3,9 @@ package vn.clinic.cdm.service.patient.impl;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import vn.clinic.cdm.exception.ApiException;
@@ -12,14 +15,24 @@ import vn.clinic.cdm.entity.patient.Patient;
 import vn.clinic.cdm.entity.patient.PatientDeviceToken;
 import vn.clinic.cdm.repository.patient.PatientDeviceTokenRepository;
 import vn.clinic.cdm.repository.patient.PatientRepository;
+import vn.clinic.cdm.repository.patient.PatientSearchRepository;
+import vn.clinic.cdm.common.util.VNStringUtils;
+import vn.clinic.cdm.dto.common.CursorPagedResponse;
 import vn.clinic.cdm.entity.tenant.Tenant;
 import vn.clinic.cdm.repository.tenant.TenantRepository;
 import vn.clinic.cdm.mapper.PatientMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Patient and insurance – tenant-scoped. Uses TenantContext.
@@ -29,7 +42,11 @@ import java.util.UUID;
 @Slf4j
 public class PatientServiceImpl implements vn.clinic.cdm.service.patient.PatientService {
 
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+    private static final int SEARCH_BACKFILL_BATCH = 500;
+
     private final PatientRepository patientRepository;
+    private final PatientSearchRepository patientSearchRepository;
     private final TenantRepository tenantRepository;
     private final PatientDeviceTokenRepository deviceTokenRepository;
     private final PatientMapper patientMapper;
@@ -52,22 +69,75 @@ public class PatientServiceImpl implements vn.clinic.cdm.service.patient.Patient
     }
 
     @Transactional(readOnly = true)
-    public Page<Patient> searchPatients(String search, String riskLevel, String chronicCondition, Pageable pageable) {
-        UUID tenantId = TenantContext.getTenantIdOrThrow();
-        // Normalize empty strings to null for JPQL conditional
-        String s = (search != null && !search.isBlank()) ? search.trim() : null;
-        String r = (riskLevel != null && !riskLevel.isBlank()) ? riskLevel.trim().toUpperCase() : null;
-        String c = (chronicCondition != null && !chronicCondition.isBlank()) ? chronicCondition.trim() : null;
-        return patientRepository.searchPatients(tenantId, s, r, c, pageable);
+    public CursorPagedResponse<Patient> searchPatients(String search, String riskLevel, String chronicCondition,
+            String cursor, int size) {
+        return search(null, search, riskLevel, chronicCondition, cursor, size);
     }
 
     @Transactional(readOnly = true)
-    public Page<Patient> searchPatientsForDoctor(UUID doctorId, String search, String riskLevel, String chronicCondition, Pageable pageable) {
+    public CursorPagedResponse<Patient> searchPatientsForDoctor(UUID doctorId, String search, String riskLevel,
+            String chronicCondition, String cursor, int size) {
+        return search(doctorId, search, riskLevel, chronicCondition, cursor, size);
+    }
+
+    private CursorPagedResponse<Patient> search(UUID doctorId, String search, String riskLevel,
+            String chronicCondition, String cursor, int size) {
         UUID tenantId = TenantContext.getTenantIdOrThrow();
-        String s = (search != null && !search.isBlank()) ? search.trim() : null;
+        // Same normalization as the stored search columns (Patient#refreshSearchText)
+        String q = VNStringUtils.normalizeForSearch(search);
+        List<String> tokens = q == null || q.isEmpty() ? List.of() : List.of(q.split(" "));
         String r = (riskLevel != null && !riskLevel.isBlank()) ? riskLevel.trim().toUpperCase() : null;
-        String c = (chronicCondition != null && !chronicCondition.isBlank()) ? chronicCondition.trim() : null;
-        return patientRepository.searchPatientsForDoctor(tenantId, doctorId, s, r, c, pageable);
+        String c = VNStringUtils.normalizeForSearch(chronicCondition);
+        int limit = Math.max(1, Math.min(size, MAX_SEARCH_PAGE_SIZE));
+
+        List<PatientSearchRepository.Hit> hits = patientSearchRepository.search(new PatientSearchRepository.Criteria(
+                tenantId, tokens, q, doctorId, r, c == null || c.isEmpty() ? null : c,
+                cursor == null || cursor.isBlank() ? null : decodeCursor(cursor), limit + 1));
+
+        boolean hasMore = hits.size() > limit;
+        List<PatientSearchRepository.Hit> page = hasMore ? hits.subList(0, limit) : hits;
+        Map<UUID, Patient> byId = patientRepository.findAllById(page.stream().map(PatientSearchRepository.Hit::id).toList())
+                .stream().collect(Collectors.toMap(Patient::getId, Function.identity()));
+        List<Patient> content = page.stream().map(h -> byId.get(h.id())).filter(Objects::nonNull).toList();
+        return CursorPagedResponse.of(content, hasMore ? encodeCursor(page.get(page.size() - 1)) : null);
+    }
+
+    /**
+     * Fills search columns of rows written before V21 or by plain SQL (seed
+     * migrations); JPA writes keep them current afterwards.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillSearchText() {
+        int total = 0;
+        List<PatientSearchRepository.Unindexed> rows;
+        while (!(rows = patientSearchRepository.findUnindexed(SEARCH_BACKFILL_BATCH)).isEmpty()) {
+            patientSearchRepository.updateSearchColumns(rows.stream()
+                    .map(p -> new PatientSearchRepository.SearchColumns(p.id(),
+                            Patient.buildSearchText(p.fullNameVi(), p.phone(), p.cccd(), p.chronicConditions()),
+                            VNStringUtils.normalizeForSearch(p.chronicConditions())))
+                    .toList());
+            total += rows.size();
+        }
+        if (total > 0) {
+            log.info("Backfilled search text for {} patients", total);
+        }
+    }
+
+    private String encodeCursor(PatientSearchRepository.Hit last) {
+        String raw = last.score() + "|" + last.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private PatientSearchRepository.Hit decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new PatientSearchRepository.Hit(UUID.fromString(raw.substring(sep + 1)),
+                    Double.parseDouble(raw.substring(0, sep)));
+        } catch (RuntimeException e) {
+            throw new ApiException(ErrorCode.VALIDATION_FAILED, HttpStatus.BAD_REQUEST, "Cursor không hợp lệ");
+        }
     }
 
     @Transactional(readOnly = true)
@@ -11,6 +11,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import vn.clinic.cdm.entity.aiaudit.AiAuditLog;
+import vn.clinic.cdm.common.ai.AiCircuitBreaker;
 import vn.clinic.cdm.dto.ai.AiAuditRequest;
 import vn.clinic.cdm.service.aiaudit.AiAuditService;
 
@@ -40,6 +41,7 @@ public class AiOperationalServiceImpl implements AiOperationalService {
     private final AiAuditService aiAuditService;
     private final ObjectMapper objectMapper;
     private final ReportService reportService;
+    private final AiCircuitBreaker circuitBreaker;
 
     @Autowired(required = false)
     private ChatLanguageModel chatModel;
@@ -66,21 +68,29 @@ public class AiOperationalServiceImpl implements AiOperationalService {
         if (chatModel == null)
             return fallbackInsights();
 
+        if (!circuitBreaker.tryAcquirePermission(AiAuditLog.AiFeatureType.OPERATIONAL_INSIGHT)) {
+            log.warn("Operational AI shed by circuit breaker ({})", circuitBreaker.getState());
+            return fallbackInsights();
+        }
+
         UUID branchId = TenantContext.getBranchId().orElse(null);
         if (branchId != null && !getBucket(branchId).tryConsume(1)) {
             log.warn("Operational AI Rate limit exceeded for branch: {}", branchId);
             return fallbackInsights();
         }
 
+        UUID tenantId = TenantContext.getTenantId().orElse(null);
         long startTime = System.currentTimeMillis();
         String context = buildOperationalContext(waitTime, volume, heatmap);
         String prompt = promptRegistry.getOperationalInsightsPrompt(context);
 
         try {
             String res = chatModel.chat(prompt);
+            circuitBreaker.onSuccess(AiAuditLog.AiFeatureType.OPERATIONAL_INSIGHT, System.currentTimeMillis() - startTime);
             AiOperationalInsightDto dto = parseInsights(res);
 
             aiAuditService.recordInteraction(new AiAuditRequest(
+                    tenantId, branchId,
                     AiAuditLog.AiFeatureType.OPERATIONAL_INSIGHT,
                     null, null, prompt, res,
                     System.currentTimeMillis() - startTime,
@@ -88,7 +98,9 @@ public class AiOperationalServiceImpl implements AiOperationalService {
             return dto;
         } catch (Exception e) {
             log.error("AI Operational Intelligence Error: {}", e.getMessage());
+            circuitBreaker.onFailure(AiAuditLog.AiFeatureType.OPERATIONAL_INSIGHT);
             aiAuditService.recordInteraction(new AiAuditRequest(
+                    tenantId, branchId,
                     AiAuditLog.AiFeatureType.OPERATIONAL_INSIGHT,
                     null, null, prompt, null,
                     System.currentTimeMillis() - startTime,
@@ -125,6 +137,7 @@ public class AiOperationalServiceImpl implements AiOperationalService {
             return objectMapper.readValue(jsonPart, AiOperationalInsightDto.class);
         } catch (Exception e) {
             log.error("Failed to parse AI Operational Insights: {}", e.getMessage());
+            circuitBreaker.onParseError(AiAuditLog.AiFeatureType.OPERATIONAL_INSIGHT);
             return fallbackInsights();
         }
     }
@@ -0,0 +1,16 @@
+-- Migration V15: Persistent AI prompt/response cache (keyed on tenant + normalized prompt + prompt version)
+-- Responses can carry patient data, so rows belong to one tenant and are removed with it.
+CREATE TABLE IF NOT EXISTS ai_response_cache (
+    cache_key VARCHAR(64) PRIMARY KEY,
+    tenant_id UUID NOT NULL REFERENCES tenant(id) ON DELETE CASCADE,
+    feature_type VARCHAR(32) NOT NULL,
+    prompt_version VARCHAR(32) NOT NULL,
+    response TEXT NOT NULL,
+    hit_count BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    last_hit_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_ai_response_cache_tenant ON ai_response_cache (tenant_id);
+CREATE INDEX IF NOT EXISTS idx_ai_response_cache_version ON ai_response_cache (prompt_version);
+CREATE INDEX IF NOT EXISTS idx_ai_response_cache_last_hit ON ai_response_cache (last_hit_at);
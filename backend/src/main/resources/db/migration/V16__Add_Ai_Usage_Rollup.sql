@@ -0,0 +1,47 @@
+-- Migration V16: Pre-aggregated AI usage rollups (per minute / per hour, per tenant and feature)
+-- latency_histogram holds counts of successful calls per latency bucket, upper bounds (ms):
+-- 100, 250, 500, 1000, 2000, 3000, 5000, 8000, 12000, 20000, 30000, 60000, +inf
+CREATE TABLE IF NOT EXISTS ai_usage_rollup (
+    granularity VARCHAR(8) NOT NULL,
+    bucket_start TIMESTAMP WITH TIME ZONE NOT NULL,
+    tenant_id UUID NOT NULL,
+    feature_type VARCHAR(32) NOT NULL,
+    total_count BIGINT NOT NULL DEFAULT 0,
+    success_count BIGINT NOT NULL DEFAULT 0,
+    failure_count BIGINT NOT NULL DEFAULT 0,
+    success_latency_sum_ms BIGINT NOT NULL DEFAULT 0,
+    latency_histogram BIGINT[] NOT NULL,
+    PRIMARY KEY (granularity, bucket_start, tenant_id, feature_type)
+);
+
+CREATE INDEX IF NOT EXISTS idx_ai_usage_rollup_feature ON ai_usage_rollup (granularity, feature_type, bucket_start);
+
+-- Backfill hourly rollups from the existing audit log
+INSERT INTO ai_usage_rollup (granularity, bucket_start, tenant_id, feature_type, total_count, success_count,
+                             failure_count, success_latency_sum_ms, latency_histogram)
+SELECT 'HOUR',
+       date_trunc('hour', created_at),
+       tenant_id,
+       feature_type,
+       COUNT(*),
+       COUNT(*) FILTER (WHERE status = 'SUCCESS'),
+       COUNT(*) FILTER (WHERE status = 'FAILED'),
+       COALESCE(SUM(latency_ms) FILTER (WHERE status = 'SUCCESS'), 0),
+       ARRAY[
+           COUNT(*) FILTER (WHERE status = 'SUCCESS' AND COALESCE(latency_ms, 0) <= 100),
+           COUNT(*) FILTER (WHERE status = 'SUCCESS' AND latency_ms > 100 AND latency_ms <= 250),
+           COUNT(*) FILTER (WHERE status = 'SUCCESS' AND latency_ms > 250 AND latency_ms <= 500),
+           COUNT(*) FILTER (WHERE status = 'SUCCESS' AND latency_ms > 500 AND latency_ms <= 1000),
+           COUNT(*) FILTER (WHERE status = 'SUCCESS' AND latency_ms > 1000 AND latency_ms <= 2000),
+           COUNT(*) FILTER (WHERE status = 'SUCCESS' AND latency_ms > 2000 AND latency_ms <= 3000),
+           COUNT(*) FILTER (WHERE status = 'SUCCESS' AND latency_ms > 3000 AND latency_ms <= 5000),
+           COUNT(*) FILTER (WHERE status = 'SUCCESS' AND latency_ms > 5000 AND latency_ms <= 8000),
+           COUNT(*) FILTER (WHERE status = 'SUCCESS' AND latency_ms > 8000 AND latency_ms <= 12000),
+           COUNT(*) FILTER (WHERE status = 'SUCCESS' AND latency_ms > 12000 AND latency_ms <= 20000),
+           COUNT(*) FILTER (WHERE status = 'SUCCESS' AND latency_ms > 20000 AND latency_ms <= 30000),
+           COUNT(*) FILTER (WHERE status = 'SUCCESS' AND latency_ms > 30000 AND latency_ms <= 60000),
+           COUNT(*) FILTER (WHERE status = 'SUCCESS' AND latency_ms > 60000)
+       ]
+FROM ai_audit_log
+GROUP BY date_trunc('hour', created_at), tenant_id, feature_type
+ON CONFLICT DO NOTHING;
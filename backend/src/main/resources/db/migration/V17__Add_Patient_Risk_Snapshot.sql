@@ -0,0 +1,15 @@
+-- Migration V17: Materialized per-patient risk state, refreshed on vital ingest
+CREATE TABLE IF NOT EXISTS patient_risk_snapshot (
+    patient_id UUID PRIMARY KEY REFERENCES patient(id) ON DELETE CASCADE,
+    tenant_id UUID NOT NULL REFERENCES tenant(id) ON DELETE CASCADE,
+    risk_level VARCHAR(20) NOT NULL,
+    reasons TEXT,
+    last_vital_trend VARCHAR(255),
+    last_metric_at TIMESTAMP WITH TIME ZONE,
+    evaluated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_patient_risk_snapshot_level ON patient_risk_snapshot (tenant_id, risk_level);
+
+-- Rolling window lookups (latest N values per metric type of one patient)
+CREATE INDEX IF NOT EXISTS idx_health_metric_patient_type_time ON health_metric (patient_id, metric_type, recorded_at DESC);
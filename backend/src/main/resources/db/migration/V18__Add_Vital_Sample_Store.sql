@@ -0,0 +1,78 @@
+-- Migration V18: Compact append-only store for high-frequency home vitals + hourly/daily rollups
+-- metric_code: 1 BLOOD_GLUCOSE, 2 BLOOD_PRESSURE_SYS, 3 BLOOD_PRESSURE_DIA, 4 HEART_RATE, 5 SPO2
+CREATE TABLE IF NOT EXISTS vital_sample (
+    patient_id UUID NOT NULL,
+    metric_code SMALLINT NOT NULL,
+    recorded_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    value REAL NOT NULL,
+    tenant_id UUID NOT NULL,
+    PRIMARY KEY (patient_id, metric_code, recorded_at)
+) PARTITION BY RANGE (recorded_at);
+
+CREATE TABLE IF NOT EXISTS vital_sample_default PARTITION OF vital_sample DEFAULT;
+
+-- Creates the monthly partition containing the given day (no-op if it exists)
+CREATE OR REPLACE FUNCTION ensure_vital_sample_partition(p_day DATE) RETURNS VOID AS $$
+DECLARE
+    month_start DATE := date_trunc('month', p_day)::DATE;
+    part_name TEXT := 'vital_sample_' || to_char(month_start, 'YYYYMM');
+BEGIN
+    EXECUTE format(
+        'CREATE TABLE IF NOT EXISTS %I PARTITION OF vital_sample FOR VALUES FROM (%L) TO (%L)',
+        part_name, month_start, (month_start + INTERVAL '1 month')::DATE);
+END;
+$$ LANGUAGE plpgsql;
+
+-- Monthly partitions covering the existing history and the next three months
+DO $$
+DECLARE
+    m DATE := date_trunc('month', COALESCE((SELECT MIN(recorded_at) FROM health_metric), now()))::DATE;
+BEGIN
+    WHILE m <= (date_trunc('month', now()) + INTERVAL '3 months')::DATE LOOP
+        PERFORM ensure_vital_sample_partition(m);
+        m := (m + INTERVAL '1 month')::DATE;
+    END LOOP;
+END $$;
+
+CREATE TABLE IF NOT EXISTS vital_rollup (
+    granularity VARCHAR(8) NOT NULL,
+    patient_id UUID NOT NULL,
+    metric_code SMALLINT NOT NULL,
+    bucket_start TIMESTAMP WITH TIME ZONE NOT NULL,
+    tenant_id UUID NOT NULL,
+    sample_count INTEGER NOT NULL,
+    value_sum DOUBLE PRECISION NOT NULL,
+    value_min REAL NOT NULL,
+    value_max REAL NOT NULL,
+    PRIMARY KEY (granularity, patient_id, metric_code, bucket_start)
+);
+
+-- Backfill from existing readings
+INSERT INTO vital_sample (patient_id, metric_code, recorded_at, value, tenant_id)
+SELECT patient_id, code, recorded_at, value, tenant_id
+FROM (
+    SELECT h.patient_id, h.recorded_at, h.value, h.tenant_id,
+           CASE upper(h.metric_type)
+               WHEN 'BLOOD_GLUCOSE' THEN 1
+               WHEN 'BLOOD_PRESSURE_SYS' THEN 2
+               WHEN 'BLOOD_PRESSURE_DIA' THEN 3
+               WHEN 'HEART_RATE' THEN 4
+               WHEN 'SPO2' THEN 5
+           END AS code
+    FROM health_metric h
+    WHERE h.recorded_at IS NOT NULL
+) m
+WHERE code IS NOT NULL
+ON CONFLICT DO NOTHING;
+
+INSERT INTO vital_rollup (granularity, patient_id, metric_code, bucket_start, tenant_id, sample_count, value_sum, value_min, value_max)
+SELECT 'HOUR', patient_id, metric_code, date_trunc('hour', recorded_at), MIN(tenant_id::TEXT)::UUID,
+       COUNT(*), SUM(value), MIN(value), MAX(value)
+FROM vital_sample
+GROUP BY patient_id, metric_code, date_trunc('hour', recorded_at);
+
+INSERT INTO vital_rollup (granularity, patient_id, metric_code, bucket_start, tenant_id, sample_count, value_sum, value_min, value_max)
+SELECT 'DAY', patient_id, metric_code, date_trunc('day', recorded_at AT TIME ZONE 'UTC') AT TIME ZONE 'UTC', MIN(tenant_id::TEXT)::UUID,
+       COUNT(*), SUM(value), MIN(value), MAX(value)
+FROM vital_sample
+GROUP BY patient_id, metric_code, date_trunc('day', recorded_at AT TIME ZONE 'UTC');
@@ -0,0 +1,26 @@
+-- Migration V19: One row per patient and (UTC) day with at least one critical vital,
+-- maintained on ingest so the risk dashboard trend is a single range read
+CREATE TABLE IF NOT EXISTS vital_critical_day (
+    patient_id UUID NOT NULL REFERENCES patient(id) ON DELETE CASCADE,
+    day DATE NOT NULL,
+    tenant_id UUID NOT NULL REFERENCES tenant(id) ON DELETE CASCADE,
+    doctor_id UUID REFERENCES doctor(id) ON DELETE SET NULL,
+    event_count INT NOT NULL,
+    PRIMARY KEY (patient_id, day)
+);
+
+CREATE INDEX IF NOT EXISTS idx_vital_critical_day_doctor ON vital_critical_day (tenant_id, doctor_id, day);
+
+-- Backfill from the sample store; limits match VitalThresholdTable critical bounds
+INSERT INTO vital_critical_day (patient_id, day, tenant_id, doctor_id, event_count)
+SELECT s.patient_id, (s.recorded_at AT TIME ZONE 'UTC')::DATE, MIN(s.tenant_id::TEXT)::UUID,
+       MIN(p.assigned_doctor_id::TEXT)::UUID, COUNT(*)
+FROM vital_sample s
+JOIN patient p ON p.id = s.patient_id
+WHERE (s.metric_code = 1 AND (s.value < 55 OR s.value > 300))
+   OR (s.metric_code = 2 AND (s.value < 80 OR s.value > 180))
+   OR (s.metric_code = 3 AND s.value > 110)
+   OR (s.metric_code = 4 AND (s.value < 45 OR s.value > 130))
+   OR (s.metric_code = 5 AND s.value < 88)
+GROUP BY s.patient_id, (s.recorded_at AT TIME ZONE 'UTC')::DATE
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,37 @@
+-- Migration V20: Secondary indexes matched to the repository query shapes
+-- (checked by QueryPlanTest with enable_seqscan off)
+
+-- health_metric: latest-first and keyset pages per patient (ORDER BY recorded_at DESC, id DESC).
+-- Supersedes the single-column patient index.
+CREATE INDEX IF NOT EXISTS idx_health_metric_patient_time ON health_metric (patient_id, recorded_at DESC, id DESC);
+DROP INDEX IF EXISTS idx_health_metric_patient;
+
+-- medication_schedule: reminder sweeps by status and time window
+CREATE INDEX IF NOT EXISTS idx_medication_schedule_status_time ON medication_schedule (status, scheduled_time);
+-- medication_schedule per patient goes schedule -> medication -> prescription
+CREATE INDEX IF NOT EXISTS idx_medication_schedule_medication_time ON medication_schedule (medication_id, scheduled_time);
+CREATE INDEX IF NOT EXISTS idx_medication_prescription ON medication (prescription_id);
+
+-- chat: thread reads, doctor inbox and unread counters (only unread patient messages are indexed)
+CREATE INDEX IF NOT EXISTS idx_chat_messages_conversation_time ON patient_chat_messages (conversation_id, sent_at);
+CREATE INDEX IF NOT EXISTS idx_chat_messages_unread_patient ON patient_chat_messages (conversation_id, sent_at DESC)
+    WHERE read_at IS NULL AND sender_type = 'PATIENT';
+CREATE INDEX IF NOT EXISTS idx_chat_conversations_doctor ON patient_chat_conversations (doctor_user_id);
+CREATE INDEX IF NOT EXISTS idx_chat_conversations_patient ON patient_chat_conversations (patient_id);
+
+-- scheduling_appointment: tenant/branch day views and counts, branch status boards,
+-- doctor calendars and patient history
+CREATE INDEX IF NOT EXISTS idx_appointment_tenant_date_branch ON scheduling_appointment (tenant_id, appointment_date, branch_id);
+CREATE INDEX IF NOT EXISTS idx_appointment_branch_date_status ON scheduling_appointment (branch_id, appointment_date, status);
+CREATE INDEX IF NOT EXISTS idx_appointment_doctor_date_slot ON scheduling_appointment (doctor_user_id, appointment_date, slot_start_time);
+CREATE INDEX IF NOT EXISTS idx_appointment_patient_date ON scheduling_appointment (patient_id, appointment_date DESC);
+
+-- audit_log: newest-first listings (global, per tenant, per user) and "since" counters.
+-- The tenant composite supersedes the single-column tenant index.
+CREATE INDEX IF NOT EXISTS idx_audit_log_created ON audit_log (created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_log_tenant_created ON audit_log (tenant_id, created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_log_user_created ON audit_log (user_id, created_at DESC);
+DROP INDEX IF EXISTS idx_audit_log_tenant;
+
+-- patient: doctor panels (findByAssignedDoctor_IdAndIsActiveTrue)
+CREATE INDEX IF NOT EXISTS idx_patient_assigned_doctor_active ON patient (assigned_doctor_id) WHERE is_active;
@@ -0,0 +1,11 @@
+-- Migration V21: Accent-insensitive trigram search over patients.
+-- search_text / search_conditions hold VNStringUtils.normalizeForSearch output and are
+-- maintained by the Patient entity on write; existing rows are filled at startup
+-- (PatientServiceImpl.backfillSearchText) so Java and SQL never disagree on normalization.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE patient ADD COLUMN IF NOT EXISTS search_text TEXT;
+ALTER TABLE patient ADD COLUMN IF NOT EXISTS search_conditions TEXT;
+
+CREATE INDEX IF NOT EXISTS idx_patient_search_text_trgm ON patient USING GIN (search_text gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_patient_search_conditions_trgm ON patient USING GIN (search_conditions gin_trgm_ops);
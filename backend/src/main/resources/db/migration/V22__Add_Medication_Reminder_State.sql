@@ -0,0 +1,14 @@
+-- Migration V22: Reminder state machine on medication_schedule.
+-- reminder_state: NULL (not reminded) -> DUE_NOTIFIED -> OVERDUE_NOTIFIED -> EXPIRED;
+-- next_reminder_at is when the row next needs attention (NULL once it is done), so each
+-- pending schedule is picked up a bounded number of times instead of on every sweep.
+-- Rows are claimed with FOR UPDATE SKIP LOCKED, so each reminder is sent once across all nodes.
+ALTER TABLE medication_schedule ADD COLUMN IF NOT EXISTS reminder_state VARCHAR(20);
+ALTER TABLE medication_schedule ADD COLUMN IF NOT EXISTS next_reminder_at TIMESTAMP WITH TIME ZONE;
+
+-- Not yet reminded: claimed by scheduled_time
+CREATE INDEX IF NOT EXISTS idx_medication_schedule_due_queue ON medication_schedule (scheduled_time)
+    WHERE status = 'PENDING' AND reminder_state IS NULL;
+-- Reminded, waiting for the next transition
+CREATE INDEX IF NOT EXISTS idx_medication_schedule_reminder_queue ON medication_schedule (next_reminder_at)
+    WHERE status = 'PENDING' AND next_reminder_at IS NOT NULL;
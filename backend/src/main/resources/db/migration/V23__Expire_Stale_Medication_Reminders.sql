@@ -0,0 +1,5 @@
+-- Migration V23: The old overdue sweep never marked anything; retire the stale backlog
+-- instead of sending reminders for doses more than a day old on the first tick.
+UPDATE medication_schedule
+SET reminder_state = 'EXPIRED', next_reminder_at = NULL
+WHERE status = 'PENDING' AND scheduled_time < NOW() - INTERVAL '24 hours';
@@ -0,0 +1,20 @@
+-- Migration V24: Transactional outbox for push, email, SMS and Zalo messages.
+-- Rows are written in the caller's transaction and delivered by the outbox relay;
+-- delivered rows are deleted, rows that exhaust their retries stay as DEAD letters.
+CREATE TABLE IF NOT EXISTS notification_outbox (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    channel VARCHAR(20) NOT NULL,
+    payload JSONB NOT NULL,
+    attachment BYTEA,
+    status VARCHAR(20) DEFAULT 'PENDING' NOT NULL,
+    attempts INT DEFAULT 0 NOT NULL,
+    next_attempt_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    last_error TEXT,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+-- Relay claims per channel in next_attempt_at order
+CREATE INDEX IF NOT EXISTS idx_notification_outbox_pending ON notification_outbox (channel, next_attempt_at)
+    WHERE status = 'PENDING';
+CREATE INDEX IF NOT EXISTS idx_notification_outbox_dead ON notification_outbox (created_at)
+    WHERE status = 'DEAD';
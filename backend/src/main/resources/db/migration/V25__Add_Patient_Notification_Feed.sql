@@ -0,0 +1,21 @@
+-- Migration V25: Notification feed paging and a maintained per-patient unread counter.
+-- The counter is updated in the same statement/transaction as every insert and read flip,
+-- so the badge never has to count the history.
+CREATE TABLE IF NOT EXISTS patient_notification_counter (
+    patient_id UUID PRIMARY KEY REFERENCES patient(id) ON DELETE CASCADE,
+    unread_count INT DEFAULT 0 NOT NULL
+);
+
+INSERT INTO patient_notification_counter (patient_id, unread_count)
+SELECT patient_id, COUNT(*) FROM patient_notifications WHERE is_read = FALSE GROUP BY patient_id
+ON CONFLICT (patient_id) DO UPDATE SET unread_count = EXCLUDED.unread_count;
+
+-- created_at is the insert time, not the transaction start, so a row committed late by a long
+-- transaction cannot sort before rows the patient has already seen (read-all?upTo relies on it)
+ALTER TABLE patient_notifications ALTER COLUMN created_at SET DEFAULT clock_timestamp();
+
+-- Keyset feed: newest first by (created_at, id)
+CREATE INDEX IF NOT EXISTS idx_patient_notifications_feed ON patient_notifications (patient_id, created_at DESC, id DESC);
+-- Mark-all-read only visits unread rows
+CREATE INDEX IF NOT EXISTS idx_patient_notifications_unread ON patient_notifications (patient_id, created_at)
+    WHERE is_read = FALSE;
@@ -0,0 +1,15 @@
+-- Migration V26: One health_metric row per (patient, type, instant).
+-- Bulk device sync inserts with ON CONFLICT DO NOTHING against this index, so concurrent
+-- re-sends of the same reading cannot both be stored. Type matching is case-insensitive,
+-- like the ingest dedupe key.
+
+-- Keep the first stored copy of readings duplicated before the constraint existed
+DELETE FROM health_metric h
+USING health_metric d
+WHERE h.patient_id = d.patient_id
+  AND upper(h.metric_type) = upper(d.metric_type)
+  AND h.recorded_at = d.recorded_at
+  AND (h.created_at, h.id) > (d.created_at, d.id);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_health_metric_reading
+    ON health_metric (patient_id, upper(metric_type), recorded_at);
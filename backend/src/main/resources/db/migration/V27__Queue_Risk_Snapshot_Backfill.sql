@@ -0,0 +1,11 @@
+-- Migration V27: Queue the patients whose vitals predate patient_risk_snapshot (V17).
+-- Flyway runs the DISTINCT scan of health_metric exactly once; ClinicalRiskServiceImpl drains
+-- the queue on startup instead of rescanning health_metric on every node at every boot.
+CREATE TABLE IF NOT EXISTS patient_risk_backfill (
+    patient_id UUID PRIMARY KEY REFERENCES patient(id) ON DELETE CASCADE
+);
+
+INSERT INTO patient_risk_backfill (patient_id)
+SELECT DISTINCT h.patient_id FROM health_metric h
+WHERE NOT EXISTS (SELECT 1 FROM patient_risk_snapshot s WHERE s.patient_id = h.patient_id)
+ON CONFLICT (patient_id) DO NOTHING;
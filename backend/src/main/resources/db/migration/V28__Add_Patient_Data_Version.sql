@@ -0,0 +1,12 @@
+-- Migration V28: Persist the patient data version that keys the AI caches.
+-- Bumped in the transaction that writes the clinical data, so every node sees the new version
+-- as soon as the data itself is visible; the in-process counters only covered the writing node.
+ALTER TABLE patient ADD COLUMN IF NOT EXISTS data_version BIGINT NOT NULL DEFAULT 0;
+
+-- Global epoch, bumped when a change cannot be attributed to a patient.
+CREATE TABLE IF NOT EXISTS patient_data_epoch (
+    id    SMALLINT PRIMARY KEY CHECK (id = 1),
+    epoch BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO patient_data_epoch (id, epoch) VALUES (1, 0) ON CONFLICT (id) DO NOTHING;
@@ -0,0 +1,74 @@
+package vn.clinic.cdm.common.ai;
+
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import vn.clinic.cdm.common.tenant.TenantContext;
+import vn.clinic.cdm.entity.aiaudit.AiAuditLog;
+import vn.clinic.cdm.service.aiaudit.impl.AiAuditLogWriter;
+import vn.clinic.cdm.service.aiaudit.impl.AiAuditServiceImpl;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class AiExecutionEngineTest {
+
+    private final UUID tenantId = UUID.randomUUID();
+    private final UUID branchId = UUID.randomUUID();
+
+    private ChatLanguageModel chatModel;
+    private AiAuditLogWriter writer;
+    private AiExecutionEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        AiExecutionProperties properties = new AiExecutionProperties();
+        properties.setDefaultTimeout(Duration.ofMillis(100));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AiCircuitBreaker circuitBreaker = new AiCircuitBreaker(properties, meterRegistry);
+
+        chatModel = mock(ChatLanguageModel.class);
+        writer = mock(AiAuditLogWriter.class);
+        when(writer.enqueue(any())).thenReturn(true);
+
+        engine = new AiExecutionEngine(chatModel, new AiAuditServiceImpl(writer), properties,
+                meterRegistry, mock(AiResponseCache.class), circuitBreaker);
+        engine.initExecutor();
+
+        TenantContext.setTenantId(tenantId);
+        TenantContext.setBranchId(branchId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+        engine.shutdownExecutor();
+    }
+
+    @Test
+    public void timedOutCallIsAuditedUnderCallerTenant() {
+        when(chatModel.chat(anyString())).thenAnswer(invocation -> {
+            Thread.sleep(5_000);
+            return "too late";
+        });
+
+        String result = engine.executeText(AiAuditLog.AiFeatureType.CHAT, null, "prompt", "fallback");
+        assertEquals("fallback", result);
+
+        // The timeout is audited on the CompletableFuture delayer thread, which has no tenant context
+        ArgumentCaptor<AiAuditLog> entry = ArgumentCaptor.forClass(AiAuditLog.class);
+        verify(writer, timeout(2_000)).enqueue(entry.capture());
+        assertEquals("FAILED", entry.getValue().getStatus());
+        assertTrue(entry.getValue().getErrorMessage().startsWith("Timeout"));
+        assertEquals(tenantId, entry.getValue().getTenantId());
+        assertEquals(branchId, entry.getValue().getBranchId());
+    }
+}
@@ -0,0 +1,110 @@
+package vn.clinic.cdm.entity.clinical.risk;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Band edges of the NEWS2 chart (RCP 2017, SpO2 scale 1): each row is the
+ * last value of one band or the first value of the next.
+ */
+public class News2CalculatorTest {
+
+    @ParameterizedTest(name = "{0} = {1} -> {2}")
+    @CsvSource({
+            "RESPIRATION_RATE, 8, 3",
+            "RESPIRATION_RATE, 9, 1",
+            "RESPIRATION_RATE, 11, 1",
+            "RESPIRATION_RATE, 12, 0",
+            "RESPIRATION_RATE, 20, 0",
+            "RESPIRATION_RATE, 21, 2",
+            "RESPIRATION_RATE, 24, 2",
+            "RESPIRATION_RATE, 25, 3",
+
+            "SPO2, 91, 3",
+            "SPO2, 92, 2",
+            "SPO2, 93, 2",
+            "SPO2, 94, 1",
+            "SPO2, 95, 1",
+            "SPO2, 96, 0",
+
+            "SUPPLEMENTAL_O2, 0, 0",
+            "SUPPLEMENTAL_O2, 1, 2",
+
+            "SYSTOLIC_BP, 90, 3",
+            "SYSTOLIC_BP, 91, 2",
+            "SYSTOLIC_BP, 100, 2",
+            "SYSTOLIC_BP, 101, 1",
+            "SYSTOLIC_BP, 110, 1",
+            "SYSTOLIC_BP, 111, 0",
+            "SYSTOLIC_BP, 219, 0",
+            "SYSTOLIC_BP, 220, 3",
+
+            "PULSE, 40, 3",
+            "PULSE, 41, 1",
+            "PULSE, 50, 1",
+            "PULSE, 51, 0",
+            "PULSE, 90, 0",
+            "PULSE, 91, 1",
+            "PULSE, 110, 1",
+            "PULSE, 111, 2",
+            "PULSE, 130, 2",
+            "PULSE, 131, 3",
+
+            "CONSCIOUSNESS, 0, 0",
+            "CONSCIOUSNESS, 1, 3",
+
+            "TEMPERATURE, 35.0, 3",
+            "TEMPERATURE, 35.1, 1",
+            "TEMPERATURE, 36.0, 1",
+            "TEMPERATURE, 36.1, 0",
+            "TEMPERATURE, 38.0, 0",
+            "TEMPERATURE, 38.1, 1",
+            "TEMPERATURE, 39.0, 1",
+            "TEMPERATURE, 39.1, 2",
+    })
+    public void pointsAtBandEdges(News2Calculator.Parameter parameter, double value, int expected) {
+        assertEquals(expected, News2Calculator.points(parameter, value));
+    }
+
+    @ParameterizedTest(name = "total {0}, red {1} -> {2}")
+    @CsvSource({
+            "0, false, LOW",
+            "4, false, LOW",
+            "3, true, LOW_MEDIUM",
+            "4, true, LOW_MEDIUM",
+            "5, false, MEDIUM",
+            "6, true, MEDIUM",
+            "7, false, HIGH",
+            "7, true, HIGH",
+    })
+    public void riskLevelThresholds(int total, boolean redScore, String expected) {
+        assertEquals(expected, News2Calculator.riskLevel(total, redScore));
+    }
+
+    @Test
+    public void latestReadingScoresAndPreviousGivesTrend() {
+        Instant now = Instant.now();
+        News2Calculator.Result result = News2Calculator.calculate(List.of(
+                new News2Calculator.Observation("heart_rate", 80, now.minusSeconds(3600)),
+                new News2Calculator.Observation("HEART_RATE", 120, now),
+                new News2Calculator.Observation("SPO2", 97, now),
+                new News2Calculator.Observation("WEIGHT", 70, now)));
+
+        assertEquals(2, result.total());
+        assertEquals(News2Calculator.LOW, result.riskLevel());
+        News2Calculator.ParameterScore pulse = result.scores().stream()
+                .filter(s -> s.parameter() == News2Calculator.Parameter.PULSE)
+                .findFirst().orElseThrow();
+        assertEquals(120, pulse.value());
+        assertEquals("WORSENING", pulse.trend());
+        assertEquals(5, result.missing().size());
+        assertTrue(result.missing().contains(News2Calculator.Parameter.TEMPERATURE));
+    }
+}
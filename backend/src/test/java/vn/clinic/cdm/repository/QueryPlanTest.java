@@ -0,0 +1,215 @@
+package vn.clinic.cdm.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import vn.clinic.cdm.repository.clinical.HealthMetricRepository;
+import vn.clinic.cdm.repository.clinical.MedicationReminderRepository;
+import vn.clinic.cdm.repository.clinical.MedicationScheduleRepository;
+import vn.clinic.cdm.repository.common.AuditLogRepository;
+import vn.clinic.cdm.repository.patient.PatientChatMessageRepository;
+import vn.clinic.cdm.repository.patient.PatientNotificationFeedRepository;
+import vn.clinic.cdm.repository.patient.PatientRepository;
+import vn.clinic.cdm.repository.scheduling.SchedulingAppointmentRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Calls each hot repository query, records the statements it actually
+ * executes and runs EXPLAIN on them; fails when a plan still sequentially
+ * scans one of the large tables.
+ * <p>
+ * Runs against a disposable Postgres container migrated by Flyway plus the
+ * test-only {@code db/query-plan-seed} migration, which loads
+ * production-shaped volume (hundreds of thousands of readings and doses) and
+ * ANALYZEs it, so plans are costed on realistic statistics. Writes are rolled
+ * back with the test transaction. Sequential scans are also disabled for the
+ * transaction, so a query with no usable index fails even where the seed is
+ * still small enough for a scan to look cheap.
+ */
+@SpringBootTest(properties = "spring.flyway.locations=classpath:db/migration,classpath:db/query-plan-seed")
+@ActiveProfiles("test")
+@Testcontainers
+@Transactional
+class QueryPlanTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final Set<String> LARGE_TABLES = Set.of(
+            "health_metric", "medication_schedule", "medication", "patient_chat_messages",
+            "patient_chat_conversations", "scheduling_appointment", "audit_log", "patient",
+            "patient_notifications");
+
+    private static final UUID ID = UUID.randomUUID();
+    private static final Instant NOW = Instant.now();
+    private static final Instant DAY_AGO = NOW.minus(1, ChronoUnit.DAYS);
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final PageRequest PAGE = PageRequest.of(0, 20);
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /** Records the statements the application really issues, so no SQL is copied into this test. */
+    @TestConfiguration
+    static class RecorderConfig {
+        @Bean
+        static StatementRecorder statementRecorder() {
+            return new StatementRecorder();
+        }
+    }
+
+    /** A repository call; every statement it executes is explained. */
+    record QueryCase(String name, Consumer<ApplicationContext> call) {
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static QueryCase query(String name, Consumer<ApplicationContext> call) {
+        return new QueryCase(name, call);
+    }
+
+    static Stream<QueryCase> queries() {
+        return Stream.of(
+                query("HealthMetricRepository.findByPatientIdOrderByRecordedAtDescIdDesc", ctx -> ctx
+                        .getBean(HealthMetricRepository.class).findByPatientIdOrderByRecordedAtDescIdDesc(ID, PAGE)),
+                query("HealthMetricRepository.findPageBefore", ctx -> ctx
+                        .getBean(HealthMetricRepository.class).findPageBefore(ID, NOW, ID, PAGE)),
+                query("HealthMetricRepository.findByPatientIdAndMetricTypeAndRecordedAtBetween", ctx -> ctx
+                        .getBean(HealthMetricRepository.class)
+                        .findByPatientIdAndMetricTypeAndRecordedAtBetweenOrderByRecordedAtAsc(ID, "SPO2", DAY_AGO, NOW)),
+                query("HealthMetricRepository.findRecentWindowForPatients", ctx -> ctx
+                        .getBean(HealthMetricRepository.class).findRecentWindowForPatients(List.of(ID), 2, DAY_AGO)),
+                query("HealthMetricRepository.findRecentWindowOfTypes", ctx -> ctx
+                        .getBean(HealthMetricRepository.class).findRecentWindowOfTypes(ID, List.of("SPO2", "HEART_RATE"), 5)),
+                query("MedicationReminderRepository.claimDue", ctx -> ctx
+                        .getBean(MedicationReminderRepository.class).claimDue(DAY_AGO, NOW, Duration.ofHours(1), 100)),
+                query("MedicationReminderRepository.claimOverdue", ctx -> ctx
+                        .getBean(MedicationReminderRepository.class).claimOverdue(DAY_AGO, NOW, Duration.ofHours(24), 100)),
+                query("MedicationReminderRepository.expire", ctx -> ctx
+                        .getBean(MedicationReminderRepository.class).expire(DAY_AGO, NOW, 100)),
+                query("MedicationScheduleRepository.findByMedicationPrescriptionPatientIdAndScheduledTimeBetween", ctx -> ctx
+                        .getBean(MedicationScheduleRepository.class)
+                        .findByMedicationPrescriptionPatientIdAndScheduledTimeBetween(ID, DAY_AGO, NOW)),
+                query("PatientChatMessageRepository.findByConversationIdOrderBySentAtAsc", ctx -> ctx
+                        .getBean(PatientChatMessageRepository.class).findByConversationIdOrderBySentAtAsc(ID)),
+                query("PatientChatMessageRepository.findUnreadForDoctor", ctx -> ctx
+                        .getBean(PatientChatMessageRepository.class).findUnreadForDoctor(ID)),
+                query("SchedulingAppointmentRepository.findByTenantIdAndBranchIdAndAppointmentDate", ctx -> ctx
+                        .getBean(SchedulingAppointmentRepository.class)
+                        .findByTenantIdAndBranchIdAndAppointmentDate(ID, ID, TODAY, PAGE)),
+                query("SchedulingAppointmentRepository.countByTenantIdAndAppointmentDate", ctx -> ctx
+                        .getBean(SchedulingAppointmentRepository.class).countByTenantIdAndAppointmentDate(ID, TODAY)),
+                query("SchedulingAppointmentRepository.findByBranchIdAndAppointmentDateAndStatus", ctx -> ctx
+                        .getBean(SchedulingAppointmentRepository.class)
+                        .findByBranchIdAndAppointmentDateAndStatus(ID, TODAY, "SCHEDULED")),
+                query("SchedulingAppointmentRepository.findByDoctorUserIdAndAppointmentDateBetween", ctx -> ctx
+                        .getBean(SchedulingAppointmentRepository.class)
+                        .findByDoctorUserIdAndAppointmentDateBetweenOrderByAppointmentDateAscSlotStartTimeAsc(ID, TODAY,
+                                TODAY, PAGE)),
+                query("SchedulingAppointmentRepository.findByPatientIdOrderByAppointmentDateDesc", ctx -> ctx
+                        .getBean(SchedulingAppointmentRepository.class).findByPatientIdOrderByAppointmentDateDesc(ID)),
+                query("AuditLogRepository.findByTenantIdOrderByCreatedAtDesc", ctx -> ctx
+                        .getBean(AuditLogRepository.class).findByTenantIdOrderByCreatedAtDesc(ID, PAGE)),
+                query("AuditLogRepository.findByUserIdOrderByCreatedAtDesc", ctx -> ctx
+                        .getBean(AuditLogRepository.class).findByUserIdOrderByCreatedAtDesc(ID)),
+                query("AuditLogRepository.countByCreatedAtAfter", ctx -> ctx
+                        .getBean(AuditLogRepository.class).countByCreatedAtAfter(DAY_AGO)),
+                query("PatientRepository.findByAssignedDoctor_IdAndIsActiveTrue", ctx -> ctx
+                        .getBean(PatientRepository.class).findByAssignedDoctor_IdAndIsActiveTrue(ID)),
+                query("PatientNotificationFeedRepository.page", ctx -> ctx
+                        .getBean(PatientNotificationFeedRepository.class)
+                        .page(ID, new PatientNotificationFeedRepository.Position(NOW, ID), 21)),
+                query("PatientNotificationFeedRepository.markRead", ctx -> ctx
+                        .getBean(PatientNotificationFeedRepository.class).markRead(ID, ID)),
+                query("PatientNotificationFeedRepository.markAllRead", ctx -> ctx
+                        .getBean(PatientNotificationFeedRepository.class)
+                        .markAllRead(ID, new PatientNotificationFeedRepository.Position(NOW, ID))));
+    }
+
+    @BeforeEach
+    void disableSeqScan() {
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("queries")
+    void usesIndexOnLargeTables(QueryCase query) throws Exception {
+        List<StatementRecorder.Recorded> statements = StatementRecorder.record(() -> query.call().accept(context));
+        assertFalse(statements.isEmpty(), query.name() + " issued no statement");
+        for (StatementRecorder.Recorded statement : statements) {
+            String plan = explain(statement);
+            List<String> seqScans = new ArrayList<>();
+            collectSeqScans(objectMapper.readTree(plan).get(0).get("Plan"), seqScans);
+            assertTrue(seqScans.isEmpty(), query.name() + " sequentially scans " + seqScans + "\n"
+                    + statement.sql() + "\n" + plan);
+        }
+    }
+
+    /** EXPLAIN (without ANALYZE, so writes are planned but not run) with the recorded binds replayed. */
+    private String explain(StatementRecorder.Recorded statement) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) con -> {
+            try (PreparedStatement ps = con.prepareStatement("EXPLAIN (FORMAT JSON) " + statement.sql())) {
+                statement.bind(ps);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    return rs.getString(1);
+                }
+            } catch (SQLException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("Cannot replay binds of " + statement.sql(), e);
+            }
+        });
+    }
+
+    private void collectSeqScans(JsonNode node, List<String> out) {
+        if (node == null) return;
+        String relation = node.path("Relation Name").asText();
+        if ("Seq Scan".equals(node.path("Node Type").asText()) && LARGE_TABLES.contains(relation)) {
+            out.add(relation);
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectSeqScans(child, out);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package vn.clinic.cdm.repository;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Wraps the application DataSource so the prepared statements a repository
+ * method really executes (JPA-generated or JdbcTemplate SQL) can be recorded
+ * together with their bind calls and replayed, e.g. under EXPLAIN.
+ */
+class StatementRecorder implements BeanPostProcessor {
+
+    private static final Set<String> EXECUTE = Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate");
+    private static final ThreadLocal<List<Recorded>> RECORDING = new ThreadLocal<>();
+
+    /** One parameter setter call, e.g. setObject(1, id). */
+    record Bind(Method method, Object[] args) {
+    }
+
+    record Recorded(String sql, List<Bind> binds) {
+
+        void bind(PreparedStatement ps) throws Exception {
+            for (Bind b : binds) {
+                b.method().invoke(ps, b.args());
+            }
+        }
+    }
+
+    /** Runs {@code action} and returns the statements it executed on this thread. */
+    static List<Recorded> record(Runnable action) {
+        List<Recorded> recorded = new ArrayList<>();
+        RECORDING.set(recorded);
+        try {
+            action.run();
+        } finally {
+            RECORDING.remove();
+        }
+        return recorded;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            return proxy(DataSource.class, dataSource, (target, method, args) -> {
+                Object result = invoke(target, method, args);
+                return result instanceof Connection c ? connection(c) : result;
+            });
+        }
+        return bean;
+    }
+
+    private static Connection connection(Connection target) {
+        return proxy(Connection.class, target, (t, method, args) -> {
+            Object result = invoke(t, method, args);
+            if (result instanceof PreparedStatement ps && method.getName().equals("prepareStatement")) {
+                return statement(ps, (String) args[0]);
+            }
+            return result;
+        });
+    }
+
+    private static PreparedStatement statement(PreparedStatement target, String sql) {
+        List<Bind> binds = new ArrayList<>();
+        return proxy(PreparedStatement.class, target, (t, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                binds.add(new Bind(method, args.clone()));
+            } else if (name.equals("clearParameters")) {
+                binds.clear();
+            } else if (EXECUTE.contains(name) && (args == null || args.length == 0)) {
+                List<Recorded> recording = RECORDING.get();
+                if (recording != null) {
+                    recording.add(new Recorded(sql, List.copyOf(binds)));
+                }
+            }
+            return invoke(t, method, args);
+        });
+    }
+
+    private interface Handler<T> {
+        Object handle(T target, Method method, Object[] args) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Handler<T> handler) {
+        InvocationHandler h = (p, method, args) -> switch (method.getName()) {
+            case "equals" -> args[0] == p;
+            case "hashCode" -> System.identityHashCode(p);
+            default -> handler.handle(target, method, args);
+        };
+        return (T) Proxy.newProxyInstance(StatementRecorder.class.getClassLoader(), new Class<?>[] { type }, h);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package vn.clinic.cdm.scheduler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import vn.clinic.cdm.common.util.JsonUtils;
+import vn.clinic.cdm.dto.common.PushNotificationRequest;
+import vn.clinic.cdm.repository.common.NotificationOutboxRepository;
+import vn.clinic.cdm.repository.common.NotificationOutboxRepository.OutboxMessage;
+import vn.clinic.cdm.repository.patient.PatientDeviceTokenRepository;
+import vn.clinic.cdm.service.notification.FcmClient;
+import vn.clinic.cdm.service.notification.NotificationOutboxProperties;
+import vn.clinic.cdm.service.notification.NotificationOutboxService;
+import vn.clinic.cdm.service.notification.impl.LoggingFcmClient;
+import vn.clinic.cdm.service.notification.impl.NotificationServiceImpl;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Push delivery through the relay against {@link LoggingFcmClient}: claimed
+ * rows go to FCM in sendEach chunks of at most {@link FcmClient#MAX_BATCH_SIZE}
+ * and UNREGISTERED tokens are pruned and their rows dropped.
+ */
+public class NotificationOutboxRelayTest {
+
+    private static final int MESSAGES = 2 * FcmClient.MAX_BATCH_SIZE + 1;
+
+    private LoggingFcmClient fcmClient;
+    private PatientDeviceTokenRepository tokenRepository;
+    private NotificationOutboxRepository outboxRepository;
+    private NotificationOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        fcmClient = spy(new LoggingFcmClient());
+        tokenRepository = mock(PatientDeviceTokenRepository.class);
+        when(tokenRepository.deleteByFcmTokens(anyCollection())).thenAnswer(i -> i.<Collection<?>>getArgument(0).size());
+        outboxRepository = mock(NotificationOutboxRepository.class);
+
+        NotificationServiceImpl pushHandler = new NotificationServiceImpl(fcmClient,
+                mock(NotificationOutboxService.class), tokenRepository, meterRegistry, FcmClient.MAX_BATCH_SIZE);
+        relay = new NotificationOutboxRelay(outboxRepository, new NotificationOutboxProperties(), meterRegistry,
+                List.of(pushHandler));
+        relay.initExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        relay.shutdownExecutor();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void sendsInChunksAndPrunesUnregisteredTokens() throws Exception {
+        List<OutboxMessage> claimed = new ArrayList<>(MESSAGES);
+        for (int i = 0; i < MESSAGES; i++) {
+            PushNotificationRequest request = new PushNotificationRequest("token-" + i, "title", "body", Map.of());
+            claimed.add(new OutboxMessage(UUID.randomUUID(), NotificationOutboxService.PUSH,
+                    JsonUtils.toJson(request), null, 1, Instant.now()));
+        }
+        when(outboxRepository.claim(eq(NotificationOutboxService.PUSH), any(), any(), anyInt())).thenReturn(claimed);
+        fcmClient.unregister("token-7");
+        fcmClient.unregister("token-700");
+
+        relay.relay();
+
+        // 1001 rows -> 500 + 500 + 1
+        ArgumentCaptor<List<PushNotificationRequest>> batches = ArgumentCaptor.forClass(List.class);
+        verify(fcmClient, times(3)).sendEach(batches.capture());
+        List<Integer> sizes = batches.getAllValues().stream().map(List::size).sorted().toList();
+        assertEquals(List.of(1, FcmClient.MAX_BATCH_SIZE, FcmClient.MAX_BATCH_SIZE), sizes);
+        assertEquals(MESSAGES - 2, fcmClient.sent().size());
+
+        ArgumentCaptor<Collection<String>> pruned = ArgumentCaptor.forClass(Collection.class);
+        verify(tokenRepository, atLeastOnce()).deleteByFcmTokens(pruned.capture());
+        Set<String> prunedTokens = new HashSet<>();
+        pruned.getAllValues().forEach(prunedTokens::addAll);
+        assertEquals(Set.of("token-7", "token-700"), prunedTokens);
+
+        // Sent and dropped rows are both removed; nothing is retried or dead-lettered
+        ArgumentCaptor<List<UUID>> deleted = ArgumentCaptor.forClass(List.class);
+        verify(outboxRepository, times(3)).deleteAll(deleted.capture());
+        assertEquals(MESSAGES, deleted.getAllValues().stream().mapToInt(List::size).sum());
+        verify(outboxRepository, times(3)).reschedule(List.of());
+        verify(outboxRepository, times(3)).markDead(List.of());
+    }
+}
@@ -0,0 +1,98 @@
+-- Test-only migration (QueryPlanTest): production-shaped volume on the tables the hot queries read,
+-- applied after the real migrations on a disposable container, then ANALYZEd so plans are costed
+-- against realistic row counts and value distributions rather than the demo seed.
+INSERT INTO tenant (id, code, name_vi) VALUES ('00000000-0000-0000-0000-00000000a001', 'QP', 'Query plan seed');
+
+INSERT INTO tenant_branch (id, tenant_id, code, name_vi)
+VALUES ('00000000-0000-0000-0000-00000000a002', '00000000-0000-0000-0000-00000000a001', 'QP', 'Query plan seed');
+
+-- 50 doctors
+INSERT INTO identity_user (tenant_id, username, email, full_name_vi)
+SELECT '00000000-0000-0000-0000-00000000a001', 'qp-doctor-' || g, 'qp-doctor-' || g || '@seed.local', 'Bác sĩ ' || g
+FROM generate_series(1, 50) g;
+
+INSERT INTO doctor (tenant_id, identity_user_id)
+SELECT tenant_id, id FROM identity_user WHERE username LIKE 'qp-doctor-%';
+
+-- 5,000 patients spread over the doctors
+INSERT INTO patient (tenant_id, full_name_vi, assigned_doctor_id, is_active)
+SELECT '00000000-0000-0000-0000-00000000a001', 'Bệnh nhân ' || g, d.ids[1 + g % 50], g % 10 <> 0
+FROM generate_series(1, 5000) g
+CROSS JOIN (SELECT array_agg(id ORDER BY id) AS ids FROM doctor
+            WHERE tenant_id = '00000000-0000-0000-0000-00000000a001') d;
+
+-- 500,000 readings: 4 types x 25 per patient, every 6 hours
+INSERT INTO health_metric (patient_id, tenant_id, metric_type, value, unit, status, recorded_at)
+SELECT p.id, p.tenant_id, t.metric_type, 50 + random() * 100, t.unit, 'NORMAL', now() - n * interval '6 hours'
+FROM patient p
+CROSS JOIN (VALUES ('SPO2', '%'), ('HEART_RATE', 'bpm'), ('BLOOD_GLUCOSE', 'mg/dL'), ('BLOOD_PRESSURE_SYS', 'mmHg'))
+    AS t(metric_type, unit)
+CROSS JOIN generate_series(0, 24) n
+WHERE p.tenant_id = '00000000-0000-0000-0000-00000000a001';
+
+-- One prescription, two medications and two weeks of doses (three a day) per patient: 420,000 schedules
+INSERT INTO prescription (patient_id, tenant_id, doctor_id, diagnosis)
+SELECT id, tenant_id, assigned_doctor_id, 'Tăng huyết áp'
+FROM patient WHERE tenant_id = '00000000-0000-0000-0000-00000000a001';
+
+INSERT INTO medication (prescription_id, medicine_name, dosage, frequency)
+SELECT pr.id, m.name, '1 viên', '3 lần/ngày'
+FROM prescription pr
+CROSS JOIN (VALUES ('Amlodipine 5mg'), ('Metformin 500mg')) AS m(name)
+WHERE pr.tenant_id = '00000000-0000-0000-0000-00000000a001';
+
+INSERT INTO medication_schedule (medication_id, scheduled_time, status, taken_at, reminder_state, next_reminder_at)
+SELECT m.id, s.at,
+       CASE WHEN s.at > now() THEN 'PENDING' WHEN random() < 0.9 THEN 'TAKEN' ELSE 'MISSED' END,
+       CASE WHEN s.at <= now() THEN s.at + interval '10 minutes' END,
+       CASE WHEN s.at <= now() THEN 'EXPIRED' END,
+       NULL
+FROM medication m
+JOIN prescription pr ON pr.id = m.prescription_id
+CROSS JOIN LATERAL (
+    SELECT date_trunc('day', now()) - interval '7 days' + d * interval '1 day' + h * interval '8 hours' AS at
+    FROM generate_series(0, 13) d, generate_series(0, 2) h) s
+WHERE pr.tenant_id = '00000000-0000-0000-0000-00000000a001';
+
+-- One conversation per patient with 20 messages: 100,000 messages
+INSERT INTO patient_chat_conversations (patient_id, doctor_user_id)
+SELECT p.id, d.identity_user_id
+FROM patient p JOIN doctor d ON d.id = p.assigned_doctor_id
+WHERE p.tenant_id = '00000000-0000-0000-0000-00000000a001';
+
+INSERT INTO patient_chat_messages (conversation_id, sender_type, content, sent_at, read_at)
+SELECT c.id, CASE WHEN n % 2 = 0 THEN 'PATIENT' ELSE 'DOCTOR' END, 'Tin nhắn ' || n,
+       now() - (20 - n) * interval '1 day', CASE WHEN n < 19 THEN now() - (20 - n) * interval '1 day' END
+FROM patient_chat_conversations c
+JOIN patient p ON p.id = c.patient_id
+CROSS JOIN generate_series(0, 19) n
+WHERE p.tenant_id = '00000000-0000-0000-0000-00000000a001';
+
+-- 10 appointments per patient over the past year and the next month: 50,000
+INSERT INTO scheduling_appointment (tenant_id, branch_id, patient_id, appointment_date, slot_start_time, status,
+                                    doctor_user_id)
+SELECT p.tenant_id, '00000000-0000-0000-0000-00000000a002', p.id,
+       current_date - ((n * 37 + g) % 395) + 30,
+       time '08:00' + ((g + n) % 16) * interval '30 minutes',
+       CASE WHEN current_date - ((n * 37 + g) % 395) + 30 >= current_date THEN 'SCHEDULED' ELSE 'COMPLETED' END,
+       d.identity_user_id
+FROM (SELECT p.*, row_number() OVER (ORDER BY p.id) AS g FROM patient p
+      WHERE p.tenant_id = '00000000-0000-0000-0000-00000000a001') p
+JOIN doctor d ON d.id = p.assigned_doctor_id
+CROSS JOIN generate_series(0, 9) n;
+
+-- A year of audit entries: 200,000
+INSERT INTO audit_log (tenant_id, branch_id, user_id, action, entity_name, created_at)
+SELECT '00000000-0000-0000-0000-00000000a001', '00000000-0000-0000-0000-00000000a002', u.ids[1 + g % 50],
+       'VIEW_PATIENT', 'Patient', now() - random() * interval '365 days'
+FROM generate_series(1, 200000) g
+CROSS JOIN (SELECT array_agg(id ORDER BY id) AS ids FROM identity_user WHERE username LIKE 'qp-doctor-%') u;
+
+-- 20 notifications per patient, the latest two unread: 100,000
+INSERT INTO patient_notifications (tenant_id, patient_id, title, content, type, is_read, created_at)
+SELECT p.tenant_id, p.id, 'Nhắc uống thuốc', 'Đến giờ uống thuốc', 'MEDICATION', n >= 2, now() - n * interval '1 day'
+FROM patient p
+CROSS JOIN generate_series(0, 19) n
+WHERE p.tenant_id = '00000000-0000-0000-0000-00000000a001';
+
+ANALYZE;
@@ -25,6 +25,7 @@ export type { ApiResponseClinicalEarlyWarningDto } from './models/ApiResponseCli
 export type { ApiResponseComplicationRiskDto } from './models/ApiResponseComplicationRiskDto';
 export type { ApiResponseConsultationDetailDto } from './models/ApiResponseConsultationDetailDto';
 export type { ApiResponseConsultationDto } from './models/ApiResponseConsultationDto';
+export type { ApiResponseCursorPagedResponsePatientNotificationDto } from './models/ApiResponseCursorPagedResponsePatientNotificationDto';
 export type { ApiResponseDifferentialDiagnosisDto } from './models/ApiResponseDifferentialDiagnosisDto';
 export type { ApiResponseDoctorDashboardDto } from './models/ApiResponseDoctorDashboardDto';
 export type { ApiResponseDoctorInfoDto } from './models/ApiResponseDoctorInfoDto';
@@ -32,6 +33,7 @@ export type { ApiResponseFollowUpSuggestionDto } from './models/ApiResponseFollo
 export type { ApiResponseHealthMetric } from './models/ApiResponseHealthMetric';
 export type { ApiResponseHealthThresholdDto } from './models/ApiResponseHealthThresholdDto';
 export type { ApiResponseIcd10CodeDto } from './models/ApiResponseIcd10CodeDto';
+export type { ApiResponseInteger } from './models/ApiResponseInteger';
 
 export type { ApiResponseListAppointmentDto } from './models/ApiResponseListAppointmentDto';
 export type { ApiResponseListConsultationDto } from './models/ApiResponseListConsultationDto';
@@ -50,7 +52,6 @@ export type { ApiResponseListPatientChatConversationDto } from './models/ApiResp
 export type { ApiResponseListPatientChatMessageDto } from './models/ApiResponseListPatientChatMessageDto';
 export type { ApiResponseListPatientChronicCondition } from './models/ApiResponseListPatientChronicCondition';
 export type { ApiResponseListPatientInsuranceDto } from './models/ApiResponseListPatientInsuranceDto';
-export type { ApiResponseListPatientNotificationDto } from './models/ApiResponseListPatientNotificationDto';
 export type { ApiResponseListPatientRelativeDto } from './models/ApiResponseListPatientRelativeDto';
 export type { ApiResponseListPatientVitalTarget } from './models/ApiResponseListPatientVitalTarget';
 export type { ApiResponseListSlotAvailabilityDto } from './models/ApiResponseListSlotAvailabilityDto';
@@ -115,6 +116,7 @@ export type { CreateConsultationRequest } from './models/CreateConsultationReque
 export type { CreatePatientRequest } from './models/CreatePatientRequest';
 export type { CreatePrescriptionRequest } from './models/CreatePrescriptionRequest';
 export type { CreateTenantRequest } from './models/CreateTenantRequest';
+export type { CursorPagedResponsePatientNotificationDto } from './models/CursorPagedResponsePatientNotificationDto';
 export type { DailyVolumeDto } from './models/DailyVolumeDto';
 export type { DiagnosticImageDto } from './models/DiagnosticImageDto';
 export type { DifferentialDiagnosisDto } from './models/DifferentialDiagnosisDto';
@@ -3,10 +3,10 @@
 /* tslint:disable */
 /* eslint-disable */
 import type { PatientNotificationDto } from './PatientNotificationDto';
-export type ApiResponseListPatientNotificationDto = {
-    success?: boolean;
-    message?: string;
-    data?: Array<PatientNotificationDto>;
-    timestamp?: string;
+export type CursorPagedResponsePatientNotificationDto = {
+    content?: Array<PatientNotificationDto>;
+    size?: number;
+    nextCursor?: string;
+    hasMore?: boolean;
 };
 
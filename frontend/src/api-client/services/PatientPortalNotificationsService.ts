@@ -2,7 +2,8 @@
 /* istanbul ignore file */
 /* tslint:disable */
 /* eslint-disable */
-import type { ApiResponseListPatientNotificationDto } from '../models/ApiResponseListPatientNotificationDto';
+import type { ApiResponseCursorPagedResponsePatientNotificationDto } from '../models/ApiResponseCursorPagedResponsePatientNotificationDto';
+import type { ApiResponseInteger } from '../models/ApiResponseInteger';
 import type { ApiResponseVoid } from '../models/ApiResponseVoid';
 import type { RegisterFcmTokenRequest } from '../models/RegisterFcmTokenRequest';
 import type { CancelablePromise } from '../core/CancelablePromise';
@@ -44,24 +45,50 @@ export class PatientPortalNotificationsService {
     }
     /**
      * ÄÃ¡nh dáº¥u táº¥t cáº£ thÃ´ng bÃ¡o Ä‘Ã£ Ä‘á»c
-     * @returns ApiResponseVoid OK
+     * @param upTo
+     * @returns ApiResponseInteger OK
      * @throws ApiError
      */
-    public static markAllAsRead(): CancelablePromise<ApiResponseVoid> {
+    public static markAllAsRead(
+        upTo?: string,
+    ): CancelablePromise<ApiResponseInteger> {
         return __request(OpenAPI, {
             method: 'POST',
             url: '/api/portal/notifications/read-all',
+            query: {
+                'upTo': upTo,
+            },
         });
     }
     /**
      * Láº¥y danh sÃ¡ch thÃ´ng bÃ¡o cá»§a bá»‡nh nhÃ¢n
-     * @returns ApiResponseListPatientNotificationDto OK
+     * @param cursor
+     * @param size
+     * @returns ApiResponseCursorPagedResponsePatientNotificationDto OK
      * @throws ApiError
      */
-    public static getNotifications(): CancelablePromise<ApiResponseListPatientNotificationDto> {
+    public static getNotifications(
+        cursor?: string,
+        size: number = 20,
+    ): CancelablePromise<ApiResponseCursorPagedResponsePatientNotificationDto> {
         return __request(OpenAPI, {
             method: 'GET',
             url: '/api/portal/notifications',
+            query: {
+                'cursor': cursor,
+                'size': size,
+            },
+        });
+    }
+    /**
+     * Số thông báo chưa đọc
+     * @returns ApiResponseInteger OK
+     * @throws ApiError
+     */
+    public static getUnreadCount(): CancelablePromise<ApiResponseInteger> {
+        return __request(OpenAPI, {
+            method: 'GET',
+            url: '/api/portal/notifications/unread-count',
         });
     }
 }
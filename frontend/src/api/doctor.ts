@@ -3,6 +3,7 @@ import type {
     AppointmentDto,
     PatientDto,
     PagedResponse,
+    CursorPagedResponse,
     PrescriptionDto,
     UpdatePrescriptionRequest,
     ConsultationDto,
@@ -46,23 +47,23 @@ export async function getDoctorDashboard(headers: TenantHeaders | null): Promise
 //  Quản lý Bệnh nhân
 // ═══════════════════════════════════════════════════
 
-/** Danh sách bệnh nhân (phân trang, tìm kiếm, lọc) — Doctor Portal */
+/** Danh sách bệnh nhân (tìm kiếm không dấu, lọc, phân trang theo con trỏ) — Doctor Portal */
 export async function getDoctorPatientList(
     headers: TenantHeaders | null,
-    page = 0,
+    cursor?: string | null,
     size = 20,
     search?: string,
     riskLevel?: string,
     chronicCondition?: string
-): Promise<PagedResponse<PatientDto>> {
+): Promise<CursorPagedResponse<PatientDto>> {
     const params = new URLSearchParams()
-    params.set('page', String(page))
+    if (cursor) params.set('cursor', cursor)
     params.set('size', String(size))
     if (search) params.set('search', search)
     if (riskLevel) params.set('riskLevel', riskLevel)
     if (chronicCondition) params.set('chronicCondition', chronicCondition)
 
-    return get<PagedResponse<PatientDto>>(
+    return get<CursorPagedResponse<PatientDto>>(
         `/doctor-portal/patients?${params.toString()}`,
         headers
     )
@@ -12,6 +12,7 @@ import type {
     SlotAvailabilityDto,
     CreateAppointmentRequest,
     PatientNotificationDto,
+    CursorPagedResponse,
     UpdatePatientProfileRequest,
 
     ChangePasswordRequest,
@@ -115,16 +116,29 @@ export async function registerPortalFcmToken(token: string, deviceType: string,
     return post<void>('/portal/notifications/register-token', { token, deviceType }, tenant)
 }
 
-export async function getPortalNotifications(tenant: TenantHeaders | null): Promise<PatientNotificationDto[]> {
-    return get<PatientNotificationDto[]>('/portal/notifications', tenant)
+export async function getPortalNotifications(
+    tenant: TenantHeaders | null,
+    cursor?: string | null,
+    size = 20
+): Promise<CursorPagedResponse<PatientNotificationDto>> {
+    const params = new URLSearchParams()
+    if (cursor) params.set('cursor', cursor)
+    params.set('size', String(size))
+    return get<CursorPagedResponse<PatientNotificationDto>>(`/portal/notifications?${params.toString()}`, tenant)
+}
+
+export async function getPortalUnreadCount(tenant: TenantHeaders | null): Promise<number> {
+    return get<number>('/portal/notifications/unread-count', tenant)
 }
 
 export async function markPortalNotificationAsRead(id: string, tenant: TenantHeaders | null): Promise<void> {
     return post<void>(`/portal/notifications/${id}/read`, {}, tenant)
 }
 
-export async function markPortalAllNotificationsAsRead(tenant: TenantHeaders | null): Promise<void> {
-    return post<void>('/portal/notifications/read-all', {}, tenant)
+/** Marks `upTo` and everything older read, so notifications that arrived after the list was loaded stay unread. */
+export async function markPortalAllNotificationsAsRead(tenant: TenantHeaders | null, upTo?: string): Promise<number> {
+    const query = upTo ? `?upTo=${encodeURIComponent(upTo)}` : ''
+    return post<number>(`/portal/notifications/read-all${query}`, {}, tenant)
 }
 
 export async function getAiChat(data: AiChatRequest, tenant: TenantHeaders | null): Promise<AiChatResponse> {
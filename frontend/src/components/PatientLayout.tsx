@@ -21,7 +21,7 @@ import {
     BriefcaseMedical,
     Headset
 } from 'lucide-react'
-import { getPortalNotifications, markPortalNotificationAsRead, markPortalAllNotificationsAsRead, getPortalProfile } from '@/api/portal'
+import { getPortalNotifications, getPortalUnreadCount, markPortalNotificationAsRead, markPortalAllNotificationsAsRead, getPortalProfile } from '@/api/portal'
 import { useQuery, useQueryClient } from '@tanstack/react-query'
 import { motion, AnimatePresence } from 'framer-motion'
 import { usePatientRealtime } from '@/hooks/usePatientRealtime'
@@ -49,17 +49,23 @@ export function PatientLayout({ children }: PatientLayoutProps) {
         enabled: !!user && !!headers?.tenantId && isPatient
     })
 
-    const { data: notifications = [] } = useQuery({
+    const { data: notificationPage } = useQuery({
         queryKey: ['patient-notifications'],
         queryFn: () => getPortalNotifications(headers),
         enabled: !!user && !!headers?.tenantId && isPatient,
         refetchInterval: 60000
     })
+    const notifications = notificationPage?.content ?? []
+
+    const { data: unreadCount = 0 } = useQuery({
+        queryKey: ['patient-notifications', 'unread-count'],
+        queryFn: () => getPortalUnreadCount(headers),
+        enabled: !!user && !!headers?.tenantId && isPatient,
+        refetchInterval: 60000
+    })
     // Global Real-time Listener
     usePatientRealtime(profile?.id, undefined)
 
-    const unreadCount = Array.isArray(notifications) ? notifications.filter(n => !n.isRead).length : 0
-
     useEffect(() => {
         if (!user || !headers?.tenantId) return
 
@@ -116,7 +122,7 @@ export function PatientLayout({ children }: PatientLayoutProps) {
 
     const handleMarkAllAsRead = async () => {
         try {
-            await markPortalAllNotificationsAsRead(headers)
+            await markPortalAllNotificationsAsRead(headers, notifications[0]?.id)
             queryClient.invalidateQueries({ queryKey: ['patient-notifications'] })
         } catch (err) {
             console.error('Failed to mark all notifications as read:', err)
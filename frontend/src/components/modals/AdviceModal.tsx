@@ -38,7 +38,7 @@ export function AdviceModal({
 
     const { data: patientSearchResults } = useQuery({
         queryKey: ['doctor-patient-search-advice', tenantId, debouncedPatientSearch],
-        queryFn: () => getDoctorPatientList(headers, 0, 10, debouncedPatientSearch),
+        queryFn: () => getDoctorPatientList(headers, null, 10, debouncedPatientSearch),
         enabled: !!debouncedPatientSearch && !patientId
     })
 
@@ -61,7 +61,7 @@ export function AppointmentModal({ isOpen, onClose, patientName, patientId }: Ap
 
     const { data: patientSearchResults } = useQuery({
         queryKey: ['doctor-patient-search-apt', tenantId, debouncedPatientSearch],
-        queryFn: () => getDoctorPatientList(headers, 0, 10, debouncedPatientSearch),
+        queryFn: () => getDoctorPatientList(headers, null, 10, debouncedPatientSearch),
         enabled: !!debouncedPatientSearch && !patientId
     })
 
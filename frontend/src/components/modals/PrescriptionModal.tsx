@@ -71,7 +71,7 @@ export function PrescriptionModal({
 
     const { data: patientSearchResults } = useQuery({
         queryKey: ['doctor-patient-search', tenantId, debouncedPatientSearch],
-        queryFn: () => getDoctorPatientList(headers, 0, 10, debouncedPatientSearch),
+        queryFn: () => getDoctorPatientList(headers, null, 10, debouncedPatientSearch),
         enabled: !!debouncedPatientSearch && !patientId
     })
 
@@ -20,7 +20,10 @@ export default function PatientList() {
     const navigate = useNavigate()
     const { headers } = useTenant()
     
-    const [page, setPage] = useState(0)
+    // Cursor of each visited page; the last entry is the page being shown
+    const [cursors, setCursors] = useState<(string | null)[]>([null])
+    const page = cursors.length - 1
+    const resetPaging = () => setCursors([null])
     const [searchTerm, setSearchTerm] = useState('')
     const [selectedGender, setSelectedGender] = useState<string>('')
     const [isCreateModalOpen, setIsCreateModalOpen] = useState(false)
@@ -29,10 +32,10 @@ export default function PatientList() {
     const [selectedPatient, setSelectedPatient] = useState<PatientDto | null>(null)
 
     const { data, isLoading } = useQuery({
-        queryKey: ['doctor-patients', searchTerm, selectedGender, page, headers?.tenantId],
+        queryKey: ['doctor-patients', searchTerm, selectedGender, cursors[page], headers?.tenantId],
         queryFn: () => getDoctorPatientList(
             headers,
-            page,
+            cursors[page],
             PAGE_SIZE,
             searchTerm || undefined,
             undefined, // riskLevel filter not added yet in UI
@@ -71,7 +74,7 @@ export default function PatientList() {
                         value={searchTerm}
                         onChange={(e) => {
                             setSearchTerm(e.target.value)
-                            setPage(0)
+                            resetPaging()
                         }}
                     />
                 </div>
@@ -81,7 +84,7 @@ export default function PatientList() {
                         value={selectedGender}
                         onChange={(e) => {
                              setSelectedGender(e.target.value)
-                             setPage(0)
+                             resetPaging()
                         }}
                     >
                         <option value="">Toàn bộ giới tính</option>
@@ -192,20 +195,20 @@ export default function PatientList() {
                         {/* Pagination Area */}
                         <div className="mt-auto p-10 bg-md-surface-container-low/30 border-t border-md-outline/5 flex flex-col sm:flex-row items-center justify-between gap-6">
                             <p className="text-[11px] font-black text-md-on-surface-variant uppercase tracking-[0.2em] opacity-40">
-                                Showing <span className="text-md-primary">{(data?.page ?? 0) * PAGE_SIZE + 1} - {Math.min(((data?.page ?? 0) + 1) * PAGE_SIZE, data?.totalElements ?? 0)}</span> of {data?.totalElements?.toLocaleString()} clinical records
+                                Showing <span className="text-md-primary">{page * PAGE_SIZE + 1} - {page * PAGE_SIZE + (data?.size ?? 0)}</span> clinical records
                             </p>
                             <div className="flex items-center gap-3">
                                 <PaginationButton 
-                                    disabled={data?.first} 
-                                    onClick={() => setPage(p => p - 1)} 
+                                    disabled={page === 0} 
+                                    onClick={() => setCursors(c => c.slice(0, -1))} 
                                     icon={ChevronLeft} 
                                 />
                                 <div className="size-14 bg-md-primary text-white rounded-[1.2rem] flex items-center justify-center font-black text-lg shadow-elevation-2">
-                                    {(data?.page ?? 0) + 1}
+                                    {page + 1}
                                 </div>
                                 <PaginationButton 
-                                    disabled={data?.last} 
-                                    onClick={() => setPage(p => p + 1)} 
+                                    disabled={!data?.hasMore} 
+                                    onClick={() => data?.nextCursor && setCursors(c => [...c, data.nextCursor])} 
                                     icon={ChevronRight} 
                                 />
                             </div>
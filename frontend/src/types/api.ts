@@ -8,6 +8,13 @@ export interface PagedResponse<T> {
   last: boolean
 }
 
+export interface CursorPagedResponse<T> {
+  content: T[]
+  size: number
+  nextCursor: string | null
+  hasMore: boolean
+}
+
 export interface AuthUserDto {
   id: string
   email: string